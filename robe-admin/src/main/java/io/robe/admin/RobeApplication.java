@@ -5,14 +5,22 @@ import io.dropwizard.Application;
 import io.dropwizard.hibernate.UnitOfWork;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import io.robe.admin.actionlog.ActionLogSink;
 import io.robe.admin.cli.InitializeCommand;
 import io.robe.admin.guice.module.HibernateModule;
 import io.robe.admin.hibernate.dao.*;
 import io.robe.admin.quartz.JobPersister;
+import io.robe.admin.ratelimit.LoginRateLimiter;
 import io.robe.admin.recaptcha.ReCaptchaValidation;
+import io.robe.admin.util.HibernatePermissionVersionSource;
 import io.robe.assets.AdvancedAssetBundle;
+import io.robe.auth.data.RolePermissionIndex;
+import io.robe.auth.data.store.UserStore;
+import io.robe.auth.token.BasicToken;
 import io.robe.auth.token.TokenAuthBundle;
 import io.robe.auth.token.TokenAuthenticator;
+import io.robe.auth.token.cache.CachingUserStore;
+import io.robe.auth.token.configuration.UserCacheConfiguration;
 import io.robe.auth.token.jersey.TokenFactory;
 import io.robe.common.exception.ExceptionMapperBinder;
 import io.robe.common.exception.RobeExceptionMapper;
@@ -89,7 +97,7 @@ public class RobeApplication<T extends RobeConfiguration> extends Application<T>
         bootstrap.addBundle(new GuiceBundle<T>(modules, bootstrap.getApplication().getConfigurationClass()));
 
         bootstrap.addBundle(hibernateBundle);
-        bootstrap.addBundle(new TokenAuthBundle<T>());
+        bootstrap.addBundle(new TokenAuthBundle<T>(new HibernatePermissionVersionSource(hibernateBundle)));
         bootstrap.addCommand(new InitializeCommand(this, hibernateBundle));
         bootstrap.addBundle(new QuartzBundle<T>());
         bootstrap.addBundle(new MailBundle<T>());
@@ -130,12 +138,18 @@ public class RobeApplication<T extends RobeConfiguration> extends Application<T>
     @UnitOfWork
     @Override
     public void run(T configuration, Environment environment) throws Exception {
+        UserStore userStore = GuiceBundle.getInjector().getInstance(UserDao.class);
+        UserCacheConfiguration userCache = configuration.getAuth().getUserCache();
+        if (userCache.getTtl() > 0) {
+            CachingUserStore cachingUserStore = new CachingUserStore(userStore, userCache);
+            cachingUserStore.registerMetrics(environment.metrics());
+            BasicToken.getInvalidationBus().subscribe(cachingUserStore);
+            userStore = cachingUserStore;
+        }
+
         TokenFactory.authenticator = new TokenAuthenticator(
-                GuiceBundle.getInjector().getInstance(UserDao.class),
-                GuiceBundle.getInjector().getInstance(ServiceDao.class),
-                GuiceBundle.getInjector().getInstance(RoleDao.class),
-                GuiceBundle.getInjector().getInstance(PermissionDao.class),
-                GuiceBundle.getInjector().getInstance(RoleGroupDao.class));
+                userStore,
+                GuiceBundle.getInjector().getInstance(RolePermissionIndex.class));
 
         TokenFactory.tokenKey = configuration.getAuth().getTokenKey();
 
@@ -149,6 +163,14 @@ public class RobeApplication<T extends RobeConfiguration> extends Application<T>
             new ReCaptchaValidation(configuration.getRecaptcha());
         }
 
+        LoginRateLimiter.configure(configuration.getLoginRateLimit()).registerMetrics(environment.metrics());
+
+        if (configuration.getActionLog().isAsync()) {
+            ActionLogSink actionLogSink = new ActionLogSink(RobeHibernateBundle.getInstance().getSessionFactory(), configuration.getActionLog());
+            actionLogSink.registerMetrics(environment.metrics());
+            environment.lifecycle().manage(actionLogSink);
+        }
+
         JobPersister jobPersister = new JobPersister(QuartzBundle.JOBS);
     }
 
@@ -2,6 +2,8 @@ package io.robe.admin;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.Configuration;
+import io.robe.admin.actionlog.ActionLogConfiguration;
+import io.robe.admin.ratelimit.LoginRateLimitConfiguration;
 import io.robe.admin.recaptcha.ReCaptchaConfiguration;
 import io.robe.assets.AssetConfiguration;
 import io.robe.assets.HasAssetConfiguration;
@@ -58,6 +60,13 @@ public class RobeConfiguration extends Configuration implements
     @JsonProperty
     private ReCaptchaConfiguration recaptcha;
 
+    @Valid
+    @JsonProperty
+    private ActionLogConfiguration actionLog = new ActionLogConfiguration();
+
+    @Valid
+    @JsonProperty
+    private LoginRateLimitConfiguration loginRateLimit = new LoginRateLimitConfiguration();
 
     public HibernateConfiguration getHibernate() {
         return hibernate;
@@ -92,4 +101,12 @@ public class RobeConfiguration extends Configuration implements
     public ReCaptchaConfiguration getRecaptcha() {
         return recaptcha;
     }
+
+    public ActionLogConfiguration getActionLog() {
+        return actionLog;
+    }
+
+    public LoginRateLimitConfiguration getLoginRateLimit() {
+        return loginRateLimit;
+    }
 }
@@ -0,0 +1,64 @@
+package io.robe.admin.actionlog;
+
+public class ActionLogConfiguration {
+
+    /**
+     * What to do when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drops the log which is being offered.
+         */
+        DROP_NEWEST,
+        /**
+         * Drops the oldest queued log to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * Writes the log on the caller thread.
+         */
+        CALLER_RUNS
+    }
+
+    private boolean async = true;
+
+    private int capacity = 10000;
+
+    private int batchSize = 100;
+
+    private long lingerMs = 200;
+
+    private OverflowPolicy overflow = OverflowPolicy.CALLER_RUNS;
+
+    /**
+     * @return true if logs are written by the background sink, false writes them in the request.
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * @return maximum number of queued logs.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return maximum number of logs in a single batch insert.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return milliseconds to wait for a batch to fill before flushing it.
+     */
+    public long getLingerMs() {
+        return lingerMs;
+    }
+
+    public OverflowPolicy getOverflow() {
+        return overflow;
+    }
+}
@@ -0,0 +1,290 @@
+package io.robe.admin.actionlog;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.lifecycle.Managed;
+import io.robe.admin.hibernate.entity.ActionLog;
+import io.robe.hibernate.criteria.query.QSearchBackend;
+import io.robe.hibernate.criteria.query.SearchPlan;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes {@link ActionLog}s in the background, so requests do not wait for the insert.
+ * Logs are buffered in a bounded lock free queue and flushed with JDBC batch inserts when the batch is full
+ * or the linger time passes. When the application stops new logs are written by the caller and the queued ones are drained.
+ */
+public class ActionLogSink implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ActionLogSink.class);
+
+    private static volatile ActionLogSink instance;
+
+    private final SessionFactory sessionFactory;
+    private final ActionLogConfiguration configuration;
+    private final ConcurrentLinkedQueue<ActionLog> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    /**
+     * Offers which passed the closed check and may still add to the queue.
+     */
+    private final AtomicInteger offering = new AtomicInteger();
+    private Meter dropped = new Meter();
+    private Meter written = new Meter();
+
+    private volatile boolean running;
+    private volatile boolean closed;
+    private ActionLogSink previous;
+    private volatile Thread worker;
+    private String insertSql;
+
+    public ActionLogSink(SessionFactory sessionFactory, ActionLogConfiguration configuration) {
+        this.sessionFactory = sessionFactory;
+        this.configuration = configuration;
+    }
+
+    /**
+     * @return started sink, null if there is no running sink.
+     */
+    public static ActionLogSink get() {
+        return instance;
+    }
+
+    /**
+     * Registers queue size gauge and written, dropped meters to the given registry.
+     *
+     * @param registry metric registry of the environment
+     */
+    public void registerMetrics(MetricRegistry registry) {
+        registry.register(MetricRegistry.name(ActionLogSink.class, "queued"), (Gauge<Integer>) size::get);
+        written = registry.meter(MetricRegistry.name(ActionLogSink.class, "written"));
+        dropped = registry.meter(MetricRegistry.name(ActionLogSink.class, "dropped"));
+    }
+
+    /**
+     * Queues the log. If the queue is full the configured overflow policy is applied.
+     *
+     * @param log log to write
+     */
+    public void offer(ActionLog log) {
+        offering.incrementAndGet();
+        try {
+            if (closed) {
+                // The worker may have drained the queue already.
+                writeNow(log);
+            } else if (!tryAdd(log)) {
+                overflow(log);
+            }
+        } finally {
+            offering.decrementAndGet();
+        }
+    }
+
+    private void overflow(ActionLog log) {
+        switch (configuration.getOverflow()) {
+            case DROP_OLDEST:
+                if (queue.poll() != null) {
+                    size.decrementAndGet();
+                    dropped.mark();
+                }
+                if (!tryAdd(log)) {
+                    dropped.mark();
+                }
+                break;
+            case CALLER_RUNS:
+                writeNow(log);
+                break;
+            default:
+                dropped.mark();
+        }
+    }
+
+    private void writeNow(ActionLog log) {
+        List<ActionLog> batch = new ArrayList<>(1);
+        batch.add(log);
+        write(batch);
+    }
+
+    private boolean tryAdd(ActionLog log) {
+        int current;
+        do {
+            current = size.get();
+            if (current >= configuration.getCapacity()) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        queue.add(log);
+        if (current + 1 >= configuration.getBatchSize()) {
+            LockSupport.unpark(worker);
+        }
+        return true;
+    }
+
+    /**
+     * Starts the worker and makes this sink the running sink, the previous one is restored when it stops.
+     */
+    @Override
+    public synchronized void start() throws Exception {
+        closed = false;
+        running = true;
+        worker = new Thread(this::run, "action-log-sink");
+        worker.setDaemon(true);
+        worker.start();
+        synchronized (ActionLogSink.class) {
+            previous = instance;
+            instance = this;
+        }
+    }
+
+    /**
+     * Closes the sink to the new logs, they are written by the caller, then drains the queue.
+     */
+    @Override
+    public synchronized void stop() throws Exception {
+        synchronized (ActionLogSink.class) {
+            if (instance == this) {
+                instance = previous;
+            } else {
+                // Stopped before a sink which started later, unlink it from the chain.
+                ActionLogSink next = instance;
+                while (next != null && next.previous != this) {
+                    next = next.previous;
+                }
+                if (next != null) {
+                    next.previous = previous;
+                }
+            }
+            previous = null;
+        }
+        closed = true;
+        // Offers which did not see the close finish adding before the worker drains.
+        while (offering.get() > 0) {
+            Thread.yield();
+        }
+        running = false;
+        Thread thread = worker;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    private void run() {
+        long linger = TimeUnit.MILLISECONDS.toNanos(configuration.getLingerMs());
+        List<ActionLog> batch = new ArrayList<>(configuration.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            long deadline = System.nanoTime() + linger;
+            while (batch.size() < configuration.getBatchSize()) {
+                ActionLog log = queue.poll();
+                if (log != null) {
+                    size.decrementAndGet();
+                    batch.add(log);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !running) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<ActionLog> batch) {
+        // JDBC inserts do not fire the entity events, the q backend is told about the write.
+        QSearchBackend backend = SearchPlan.getQBackend();
+        if (backend != null) {
+            backend.writing(ActionLog.class);
+        }
+        Session session = sessionFactory.openSession();
+        try {
+            session.doWork(connection -> insert(connection, (SessionImplementor) session, batch));
+            written.mark(batch.size());
+        } catch (Exception e) {
+            dropped.mark(batch.size());
+            LOGGER.error("Can't write " + batch.size() + " action logs", e);
+        } finally {
+            session.close();
+            if (backend != null) {
+                backend.written(ActionLog.class);
+            }
+        }
+    }
+
+    private void insert(Connection connection, SessionImplementor session, List<ActionLog> batch) throws SQLException {
+        AbstractEntityPersister persister = getPersister();
+        boolean[] insertable = persister.getPropertyInsertability();
+        Type[] types = persister.getPropertyTypes();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(getInsertSql())) {
+            for (ActionLog log : batch) {
+                Serializable id = persister.getIdentifierGenerator().generate(session, log);
+                persister.getIdentifierType().nullSafeSet(statement, id, 1, session);
+                int index = 1 + persister.getIdentifierColumnNames().length;
+                Object[] values = persister.getPropertyValues(log);
+                for (int i = 0; i < values.length; i++) {
+                    if (insertable[i]) {
+                        types[i].nullSafeSet(statement, values[i], index, session);
+                        index += persister.getPropertyColumnNames(i).length;
+                    }
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private AbstractEntityPersister getPersister() {
+        return (AbstractEntityPersister) ((SessionFactoryImplementor) sessionFactory).getEntityPersister(ActionLog.class.getName());
+    }
+
+    /**
+     * Builds insert statement from the mapping, so the identifier and every insertable property are written
+     * and table and column names follow the naming strategy.
+     */
+    private String getInsertSql() {
+        if (insertSql == null) {
+            AbstractEntityPersister persister = getPersister();
+            boolean[] insertable = persister.getPropertyInsertability();
+            List<String> columns = new ArrayList<>(Arrays.asList(persister.getIdentifierColumnNames()));
+            for (int i = 0; i < insertable.length; i++) {
+                if (insertable[i]) {
+                    columns.addAll(Arrays.asList(persister.getPropertyColumnNames(i)));
+                }
+            }
+            insertSql = "insert into " + persister.getTableName() + " (" + String.join(", ", columns) + ") values ("
+                    + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        }
+        return insertSql;
+    }
+}
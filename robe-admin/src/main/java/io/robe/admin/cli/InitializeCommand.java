@@ -11,6 +11,7 @@ import io.robe.admin.hibernate.entity.*;
 import io.robe.common.service.RobeService;
 import io.robe.guice.GuiceConfiguration;
 import io.robe.hibernate.RobeHibernateBundle;
+import io.robe.index.ClassIndex;
 import net.sourceforge.argparse4j.inf.Namespace;
 import org.hibernate.Session;
 import org.hibernate.criterion.Restrictions;
@@ -23,6 +24,8 @@ import java.io.Console;
 import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
 
@@ -128,9 +131,15 @@ public class InitializeCommand<T extends RobeConfiguration> extends EnvironmentC
         GuiceConfiguration guiceConfiguration = configuration.getGuice();
         LOGGER.info("Scanning Services.Packages :" + Arrays.toString(guiceConfiguration.getScanPackages()));
 
-        Reflections reflections = new Reflections(guiceConfiguration.getScanPackages(), this.getClass().getClassLoader());
+        Reflections reflections = ClassIndex.get().reflections(guiceConfiguration.getScanPackages());
 
         Set<Class<?>> services = reflections.getTypesAnnotatedWith(Path.class);
+        // Existing services are loaded at once, a query for each method would flush the pending inserts and break the batches.
+        Map<String, io.robe.admin.hibernate.entity.Service> existingServices = new HashMap<>();
+        for (Object existing : session.createCriteria(io.robe.admin.hibernate.entity.Service.class).list()) {
+            io.robe.admin.hibernate.entity.Service existingService = (io.robe.admin.hibernate.entity.Service) existing;
+            existingServices.put(existingService.getMethod() + " " + existingService.getPath(), existingService);
+        }
         for (Class<?> service : services) {
 
             String parentPath = "/" + service.getAnnotation(Path.class).value();
@@ -145,11 +154,7 @@ public class InitializeCommand<T extends RobeConfiguration> extends EnvironmentC
                         path = path.replaceAll("//", "/");
                     }
 
-                    io.robe.admin.hibernate.entity.Service entity =
-                            (io.robe.admin.hibernate.entity.Service) session.createCriteria(io.robe.admin.hibernate.entity.Service.class)
-                                    .add(Restrictions.eq("path", path))
-                                    .add(Restrictions.eq("method", io.robe.admin.hibernate.entity.Service.Method.valueOf(httpMethod)))
-                                    .uniqueResult();
+                    io.robe.admin.hibernate.entity.Service entity = existingServices.get(httpMethod + " " + path);
 
                     if (entity == null) {
                         entity = new io.robe.admin.hibernate.entity.Service();
@@ -167,6 +172,7 @@ public class InitializeCommand<T extends RobeConfiguration> extends EnvironmentC
                         entity.setDescription(entity.getDescription() + " (" + entity.getMethod() + " " + entity.getPath() + ")");
                         session.persist(entity);
                         session.persist(createPermission(false, entity.getOid(), role));
+                        existingServices.put(httpMethod + " " + path, entity);
                         LOGGER.info("Service data and permission created: " + entity.getPath() + "-" + entity.getMethod());
                     }
 
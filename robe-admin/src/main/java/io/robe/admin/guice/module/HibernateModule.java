@@ -2,6 +2,11 @@ package io.robe.admin.guice.module;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Provider;
+import io.robe.admin.hibernate.dao.PermissionDao;
+import io.robe.admin.hibernate.dao.RoleGroupDao;
+import io.robe.admin.hibernate.dao.ServiceDao;
+import io.robe.auth.data.RolePermissionIndex;
+import io.robe.auth.token.BasicToken;
 import io.robe.hibernate.RobeHibernateBundle;
 import org.hibernate.SessionFactory;
 
@@ -32,7 +37,25 @@ public class HibernateModule extends AbstractModule {
                 return bundle.getSessionFactory();
             }
         });
-    }
 
+        final Provider<PermissionDao> permissionDao = getProvider(PermissionDao.class);
+        final Provider<RoleGroupDao> roleGroupDao = getProvider(RoleGroupDao.class);
+        final Provider<ServiceDao> serviceDao = getProvider(ServiceDao.class);
+        // Single index is shared by the authenticator and the admin resources, it is created after session factory is ready.
+        // It is subscribed to the invalidation bus once, so changes of other nodes refresh it.
+        bind(RolePermissionIndex.class).toProvider(new Provider<RolePermissionIndex>() {
+            private RolePermissionIndex index;
 
+            @Override
+            public synchronized RolePermissionIndex get() {
+                if (index == null) {
+                    index = new RolePermissionIndex(permissionDao.get(), roleGroupDao.get(), serviceDao.get(), permissionDao.get());
+                    if (BasicToken.getInvalidationBus() != null) {
+                        BasicToken.getInvalidationBus().subscribe(index);
+                    }
+                }
+                return index;
+            }
+        });
+    }
 }
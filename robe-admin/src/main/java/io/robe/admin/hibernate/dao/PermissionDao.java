@@ -1,7 +1,10 @@
 package io.robe.admin.hibernate.dao;
 
 import io.robe.admin.hibernate.entity.Permission;
+import io.robe.admin.hibernate.entity.RoleGroup;
+import io.robe.admin.hibernate.entity.Service;
 import io.robe.auth.data.entry.PermissionEntry;
+import io.robe.auth.data.store.PermissionIndexStore;
 import io.robe.auth.data.store.PermissionStore;
 import io.robe.hibernate.dao.BaseDao;
 import io.robe.hibernate.entity.BaseEntity;
@@ -10,11 +13,13 @@ import org.hibernate.SessionFactory;
 import org.hibernate.criterion.Restrictions;
 
 import javax.inject.Inject;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-public class PermissionDao extends BaseDao<Permission> implements PermissionStore {
+public class PermissionDao extends BaseDao<Permission> implements PermissionStore, PermissionIndexStore {
 
     @Inject
     public PermissionDao(SessionFactory sessionFactory) {
@@ -34,18 +39,49 @@ public class PermissionDao extends BaseDao<Permission> implements PermissionStor
         return list(criteria);
     }
 
-    public void deleteRestrictionsByRole(String roleOid, Permission.Type type) {
-        Criteria criteria = currentSession().createCriteria(Permission.class);
-        criteria.add(Restrictions.eq("roleOid", roleOid));
-        criteria.add(Restrictions.eq("type", type));
-        List<Permission> permissions = list(criteria);
-        for (Permission permission : permissions) {
-            delete(permission);
-        }
+    /**
+     * Deletes the permissions of the role and the type by a single statement.
+     *
+     * @return number of deleted permissions
+     */
+    public int deleteRestrictionsByRole(String roleOid, Permission.Type type) {
+        return queryAllStrict(null)
+                .add(io.robe.hibernate.criteria.api.criterion.Restrictions.eq("roleOid", roleOid))
+                .add(io.robe.hibernate.criteria.api.criterion.Restrictions.eq("type", type))
+                .delete();
     }
 
     @Override
     public Set<? extends PermissionEntry> findByRoleId(String id) {
         return new HashSet<>(findByRoleOId(id));
     }
+
+    @Override
+    public Map<String, Set<? extends PermissionEntry>> findAllPermissionsByRoleId() {
+        Map<String, Set<Permission>> grouped = new HashMap<>();
+        for (Permission permission : list(currentSession().createQuery("from Permission"))) {
+            grouped.computeIfAbsent(permission.getRoleOid(), k -> new HashSet<>()).add(permission);
+        }
+        return new HashMap<>(grouped);
+    }
+
+    @Override
+    public Map<String, Set<String>> findAllRoleIdsByGroupId() {
+        Map<String, Set<String>> grouped = new HashMap<>();
+        List<RoleGroup> roleGroups = currentSession().createQuery("from RoleGroup").list();
+        for (RoleGroup roleGroup : roleGroups) {
+            grouped.computeIfAbsent(roleGroup.getGroupOid(), k -> new HashSet<>()).add(roleGroup.getRoleOid());
+        }
+        return grouped;
+    }
+
+    @Override
+    public Map<String, Service> findAllServices() {
+        Map<String, Service> services = new HashMap<>();
+        List<Service> list = currentSession().createQuery("from Service").list();
+        for (Service service : list) {
+            services.put(service.getOid(), service);
+        }
+        return services;
+    }
 }
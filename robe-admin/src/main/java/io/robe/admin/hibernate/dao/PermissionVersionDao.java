@@ -0,0 +1,32 @@
+package io.robe.admin.hibernate.dao;
+
+import io.robe.admin.hibernate.entity.PermissionVersion;
+import io.robe.hibernate.dao.BaseDao;
+import org.hibernate.SessionFactory;
+
+import javax.inject.Inject;
+
+public class PermissionVersionDao extends BaseDao<PermissionVersion> {
+
+    @Inject
+    public PermissionVersionDao(SessionFactory sessionFactory) {
+        super(sessionFactory);
+    }
+
+    /**
+     * Increments the permission version in the current transaction. Call it with every change of permissions,
+     * role groups or roles of users, so the change and the new version commit or roll back together.
+     */
+    public void increment() {
+        int updated = currentSession()
+                .createQuery("UPDATE PermissionVersion v SET v.version = v.version + 1 WHERE v.name = :name")
+                .setParameter("name", PermissionVersion.KEY)
+                .executeUpdate();
+        if (updated == 0) {
+            PermissionVersion version = new PermissionVersion();
+            version.setName(PermissionVersion.KEY);
+            version.setVersion(1);
+            currentSession().save(version);
+        }
+    }
+}
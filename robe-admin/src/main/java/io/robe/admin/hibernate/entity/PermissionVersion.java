@@ -0,0 +1,44 @@
+package io.robe.admin.hibernate.entity;
+
+import io.robe.hibernate.entity.RobeEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Single row counter of the changes of {@link Permission}, {@link RoleGroup} and the roles of {@link User}s.
+ * It is incremented in the transaction of every change and never decreases, so other nodes detect changes by polling it.
+ */
+@Entity
+@Table
+public class PermissionVersion implements RobeEntity {
+
+    /**
+     * Key of the single row.
+     */
+    public static final String KEY = "PERMISSIONS";
+
+    @Id
+    @Column(length = 32)
+    private String name;
+
+    private long version;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -2,13 +2,18 @@ package io.robe.admin.hibernate.entity;
 
 import io.robe.auth.data.entry.ServiceEntry;
 import io.robe.hibernate.entity.BaseEntity;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Service extends BaseEntity implements ServiceEntry {
 
     @Column(length = 100, nullable = false)
@@ -40,9 +40,9 @@ public class User extends BaseEntity implements UserEntry {
     private String surname;
 
     @SearchIgnore
-    @Length(min = 64, max = 64)
+    @Length(min = 64, max = 128)
     @NotEmpty
-    @Column(length = 64, nullable = false)
+    @Column(length = 128, nullable = false)
     private String password;
 
     @NotNull
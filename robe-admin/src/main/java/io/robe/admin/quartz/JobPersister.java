@@ -10,6 +10,10 @@ import io.robe.quartz.info.TriggerInfo;
 import org.hibernate.SessionFactory;
 import org.hibernate.context.internal.ManagedSessionContext;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -22,16 +26,41 @@ public class JobPersister {
         ManagedSessionContext.bind(sessionFactory.openSession());
         JobDao jobDao = new JobDao(sessionFactory);
         TriggerDao triggerDao = new TriggerDao(sessionFactory);
-        for (JobInfo info : jobs.values()) {
-            insertOrUpdate(jobDao, info, triggerDao);
+
+        // Existing records are loaded at once, a query for each job would flush the pending inserts and break the batches.
+        Map<Class<?>, HJobInfo> jobRecords = new HashMap<>();
+        for (HJobInfo record : jobDao.findAllStrict()) {
+            jobRecords.put(record.getJobClass(), record);
+        }
+        Map<String, HTriggerInfo> triggerRecords = new HashMap<>();
+        for (HTriggerInfo record : triggerDao.findAllStrict()) {
+            triggerRecords.put(record.getJobOid() + '/' + record.getName(), record);
+        }
+
+        List<JobInfo> infos = new ArrayList<>(jobs.values());
+        List<HJobInfo> records = new ArrayList<>(infos.size());
+        for (JobInfo info : infos) {
+            records.add(insertOrUpdate(jobRecords.get(info.getJobClass()), info));
+        }
+        jobDao.createAll(records);
+
+        List<HTriggerInfo> triggers = new ArrayList<>();
+        for (int i = 0; i < infos.size(); i++) {
+            JobInfo info = infos.get(i);
+            String jobOid = records.get(i).getOid();
+            if (!info.getProvider().equals(HibernateJobInfoProvider.class)) {
+                for (TriggerInfo triggerInfo : info.getTriggers()) {
+                    triggers.add(insertOrUpdate(triggerRecords.get(jobOid + '/' + triggerInfo.getName()), jobOid, triggerInfo));
+                }
+            }
         }
-        sessionFactory.getCurrentSession().flush();
+        triggerDao.createAll(triggers);
+
         sessionFactory.getCurrentSession().close();
         ManagedSessionContext.unbind(sessionFactory);
     }
 
-    private void insertOrUpdate(JobDao jobDao, JobInfo info, TriggerDao triggerDao) {
-        HJobInfo record = jobDao.findByJobClass(info.getJobClass());
+    private HJobInfo insertOrUpdate(HJobInfo record, JobInfo info) {
         if (record == null) {
             record = new HJobInfo();
             record.setJobClass(info.getJobClass());
@@ -40,16 +69,10 @@ public class JobPersister {
         record.setName(info.getName());
         record.setDescription(info.getDescription());
         record.setGroup(info.getGroup());
-        jobDao.create(record);
-        if (!info.getProvider().equals(HibernateJobInfoProvider.class)) {
-            for (TriggerInfo triggerInfo : info.getTriggers()) {
-                insertOrUpdate(record.getOid(), triggerDao, triggerInfo);
-            }
-        }
+        return record;
     }
 
-    private void insertOrUpdate(String jobOid, TriggerDao dao, TriggerInfo info) {
-        HTriggerInfo record = dao.findByJobOidAndName(jobOid, info.getName());
+    private HTriggerInfo insertOrUpdate(HTriggerInfo record, String jobOid, TriggerInfo info) {
         if (record == null) {
             record = new HTriggerInfo();
             record.setActive(true);
@@ -63,6 +86,6 @@ public class JobPersister {
         record.setRepeatInterval(info.getRepeatInterval());
         record.setGroup(info.getGroup());
         record.setType(info.getType());
-        dao.create(record);
+        return record;
     }
 }
@@ -0,0 +1,42 @@
+package io.robe.admin.ratelimit;
+
+public class LoginRateLimitConfiguration {
+
+    private int window = 300;
+
+    private int userFailures = 0;
+
+    private int addressFailures = 0;
+
+    private long maxSize = 100000;
+
+    /**
+     * @return length of the sliding window in seconds.
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * @return failures of a username in the window which blocks the user.
+     * 0 uses the USER_BLOCK_FAIL_LIMIT system parameter.
+     */
+    public int getUserFailures() {
+        return userFailures;
+    }
+
+    /**
+     * @return failures of a remote address in the window after which its failing logins are rejected. 0 (default) disables it.
+     * Enable it only if the remote address is the address of the client, behind a load balancer or NAT all clients share one.
+     */
+    public int getAddressFailures() {
+        return addressFailures;
+    }
+
+    /**
+     * @return maximum number of tracked usernames and addresses.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+}
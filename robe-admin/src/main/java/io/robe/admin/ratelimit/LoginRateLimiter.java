@@ -0,0 +1,207 @@
+package io.robe.admin.ratelimit;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.robe.admin.util.SystemParameterCache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts failed logins in memory with a sliding window per username and per remote address.
+ * Failures do not touch the user row. The block decision is persisted by the caller only when
+ * {@link #shouldBlock(int)} is reached. Addresses over their limit are rejected unless the credentials verify.
+ */
+public class LoginRateLimiter {
+
+    private static volatile LoginRateLimiter instance = new LoginRateLimiter(new LoginRateLimitConfiguration());
+
+    private final LoginRateLimitConfiguration configuration;
+    private final Ticker ticker;
+    private final long length;
+    private final Cache<String, Window> users;
+    private final Cache<String, Window> addresses;
+    private volatile BlockLimit blockLimit;
+
+    private Meter failures = new Meter();
+    private Meter rejected = new Meter();
+    private Meter blocked = new Meter();
+
+    public LoginRateLimiter(LoginRateLimitConfiguration configuration) {
+        this(configuration, Ticker.systemTicker());
+    }
+
+    public LoginRateLimiter(LoginRateLimitConfiguration configuration, Ticker ticker) {
+        this.configuration = configuration;
+        this.ticker = ticker;
+        this.length = TimeUnit.SECONDS.toNanos(Math.max(1, configuration.getWindow()));
+        this.users = newCache(configuration, ticker);
+        this.addresses = newCache(configuration, ticker);
+    }
+
+    /**
+     * Replaces the shared instance with a new one created from the given configuration.
+     *
+     * @param configuration rate limit configuration
+     * @return created instance
+     */
+    public static LoginRateLimiter configure(LoginRateLimitConfiguration configuration) {
+        instance = new LoginRateLimiter(configuration);
+        return instance;
+    }
+
+    public static LoginRateLimiter get() {
+        return instance;
+    }
+
+    private static Cache<String, Window> newCache(LoginRateLimitConfiguration configuration, Ticker ticker) {
+        // A window is empty after two lengths without a failure.
+        return CacheBuilder.newBuilder()
+                .maximumSize(configuration.getMaxSize())
+                .expireAfterAccess(Math.max(1, configuration.getWindow()) * 2L, TimeUnit.SECONDS)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Registers failures, rejected, blocked meters and tracked key gauges to the given registry.
+     *
+     * @param registry metric registry of the environment
+     */
+    public void registerMetrics(MetricRegistry registry) {
+        failures = registry.meter(MetricRegistry.name(LoginRateLimiter.class, "failures"));
+        rejected = registry.meter(MetricRegistry.name(LoginRateLimiter.class, "rejected"));
+        blocked = registry.meter(MetricRegistry.name(LoginRateLimiter.class, "blocked"));
+        registry.register(MetricRegistry.name(LoginRateLimiter.class, "users"), (Gauge<Long>) users::size);
+        registry.register(MetricRegistry.name(LoginRateLimiter.class, "addresses"), (Gauge<Long>) addresses::size);
+    }
+
+    /**
+     * @param address remote address of the request
+     * @return true if the address has more failures than allowed in the window
+     */
+    public boolean isLimited(String address) {
+        if (configuration.getAddressFailures() <= 0 || address == null) {
+            return false;
+        }
+        Window window = addresses.getIfPresent(address);
+        if (window != null && window.count(ticker.read(), length) >= configuration.getAddressFailures()) {
+            rejected.mark();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a failed login.
+     *
+     * @param username username of the login, null if the user does not exist
+     * @param address  remote address of the request
+     * @return failures of the username in the window
+     */
+    public int recordFailure(String username, String address) {
+        failures.mark();
+        long now = ticker.read();
+        if (address != null && configuration.getAddressFailures() > 0) {
+            addresses.asMap().computeIfAbsent(address, key -> new Window(now)).add(now, length);
+        }
+        if (username == null) {
+            return 0;
+        }
+        return users.asMap().computeIfAbsent(username, key -> new Window(now)).add(now, length);
+    }
+
+    /**
+     * Clears the failures of the username after a successful login.
+     *
+     * @param username username of the login
+     */
+    public void reset(String username) {
+        users.invalidate(username);
+    }
+
+    /**
+     * @param failures failures of the username in the window
+     * @return true if the user should be blocked
+     */
+    public boolean shouldBlock(int failures) {
+        if (failures >= getBlockLimit()) {
+            blocked.mark();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return seconds a rejected address should wait before retrying.
+     */
+    public int getRetryAfter() {
+        return configuration.getWindow();
+    }
+
+    private int getBlockLimit() {
+        if (configuration.getUserFailures() > 0) {
+            return configuration.getUserFailures();
+        }
+        Object raw = SystemParameterCache.get("USER_BLOCK_FAIL_LIMIT", "3");
+        BlockLimit current = blockLimit;
+        if (current == null || !current.raw.equals(raw)) {
+            current = new BlockLimit(raw, Integer.valueOf(raw.toString()));
+            blockLimit = current;
+        }
+        return current.value;
+    }
+
+    private static final class BlockLimit {
+        private final Object raw;
+        private final int value;
+
+        private BlockLimit(Object raw, int value) {
+            this.raw = raw;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Sliding window counter. The count of the previous fixed window is weighted by its overlap with the sliding window.
+     */
+    private static final class Window {
+        private long start;
+        private int previous;
+        private int current;
+
+        private Window(long start) {
+            this.start = start;
+        }
+
+        synchronized int add(long now, long length) {
+            rotate(now, length);
+            current++;
+            return estimate(now, length);
+        }
+
+        synchronized int count(long now, long length) {
+            rotate(now, length);
+            return estimate(now, length);
+        }
+
+        private void rotate(long now, long length) {
+            long elapsed = now - start;
+            if (elapsed < length) {
+                return;
+            }
+            long periods = elapsed / length;
+            previous = periods == 1 ? current : 0;
+            current = 0;
+            start += periods * length;
+        }
+
+        private int estimate(long now, long length) {
+            double overlap = (double) (length - (now - start)) / length;
+            return current + (int) Math.round(previous * overlap);
+        }
+    }
+}
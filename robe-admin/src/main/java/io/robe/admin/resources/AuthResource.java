@@ -2,14 +2,17 @@ package io.robe.admin.resources;
 
 import com.codahale.metrics.annotation.Timed;
 import io.dropwizard.hibernate.UnitOfWork;
+import io.robe.admin.actionlog.ActionLogSink;
 import io.robe.admin.hibernate.dao.ActionLogDao;
 import io.robe.admin.hibernate.dao.UserDao;
 import io.robe.admin.hibernate.entity.ActionLog;
 import io.robe.admin.hibernate.entity.User;
-import io.robe.admin.util.SystemParameterCache;
+import io.robe.admin.ratelimit.LoginRateLimiter;
 import io.robe.auth.AbstractAuthResource;
 import io.robe.auth.Credentials;
 import io.robe.auth.RobeAuth;
+import io.robe.auth.password.PasswordService;
+import io.robe.auth.password.PlainPasswordHasher;
 import io.robe.auth.token.BasicToken;
 import io.robe.auth.token.jersey.TokenBasedAuthResponseFilter;
 import org.hibernate.FlushMode;
@@ -26,6 +29,7 @@ import javax.ws.rs.core.Response;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.hibernate.CacheMode.GET;
 
@@ -40,6 +44,7 @@ import static org.hibernate.CacheMode.GET;
 public class AuthResource extends AbstractAuthResource<User> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AuthResource.class);
+    private static final int TOO_MANY_REQUESTS = 429;
 
     private UserDao userDao;
 
@@ -48,7 +53,8 @@ public class AuthResource extends AbstractAuthResource<User> {
 
     @Inject
     public AuthResource(UserDao userDao) {
-        super(userDao);
+        // The login form sends the SHA-256 of the password, old hashes are that value itself.
+        super(userDao, new PlainPasswordHasher());
         this.userDao = userDao;
     }
 
@@ -72,12 +78,22 @@ public class AuthResource extends AbstractAuthResource<User> {
     @Timed
     public Response login(@Context HttpServletRequest request, Map<String, String> credentials) throws Exception {
 
+        LoginRateLimiter limiter = LoginRateLimiter.get();
         Optional<User> user = userDao.findByUsername(credentials.get("username"));
         if (!user.isPresent()) {
+            if (limiter.isLimited(request.getRemoteAddr())) {
+                return tooManyRequests(limiter);
+            }
+            limiter.recordFailure(null, request.getRemoteAddr());
             throw new WebApplicationException(Response.Status.UNAUTHORIZED);
-        } else if (user.get().getPassword().equals(credentials.get("password"))) {
+        } else if (verifyPassword(credentials.get("password"), user.get().getPassword())) {
             if (!user.get().isActive())
                 return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("User blocked.").build();
+            limiter.reset(user.get().getEmail());
+            // Upgrade legacy or weaker hashes while the plain password is at hand.
+            if (PasswordService.get().needsRehash(user.get().getPassword())) {
+                user.get().setPassword(PasswordService.get().hash(credentials.get("password")));
+            }
             Map<String, String> attributes = new HashMap<>();
             attributes.put("userAgent", request.getHeader("User-Agent"));
             attributes.put("remoteAddr", request.getRemoteAddr());
@@ -95,26 +111,55 @@ public class AuthResource extends AbstractAuthResource<User> {
 
             return Response.ok().header("Set-Cookie", TokenBasedAuthResponseFilter.getTokenSentence(token)).entity(credentials).build();
         } else {
+            // Only failing logins of a limited address are rejected, valid credentials are always accepted.
+            if (limiter.isLimited(request.getRemoteAddr())) {
+                return tooManyRequests(limiter);
+            }
             if (!user.get().isActive()) {
                 logAction(new ActionLog("LOGIN", "Blocked", user.get().toString(), false, request.getRemoteAddr()));
                 return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity("User blocked.").build();
             }
-            int failCount = user.get().getFailCount() + 1;
-            user.get().setFailCount(failCount);
-            boolean block = failCount >= Integer.valueOf((String) SystemParameterCache.get("USER_BLOCK_FAIL_LIMIT", "3"));
-            if (block)
+            // Failures are counted in memory, the user row is only written when the user gets blocked.
+            int failCount = limiter.recordFailure(user.get().getEmail(), request.getRemoteAddr());
+            if (limiter.shouldBlock(failCount)) {
+                user.get().setFailCount(failCount);
                 user.get().setActive(false);
+                userDao.update(user.get());
+                String username = user.get().getEmail();
+                userDao.afterCommit(() -> BasicToken.clearPermissionCache(username));
+            }
 
-            userDao.update(user.get());
             logAction(new ActionLog("LOGIN", "Wrong Password", user.get().toString(), false, request.getRemoteAddr()));
 
             return Response.status(Response.Status.UNAUTHORIZED).build();
         }
     }
 
+    private static Response tooManyRequests(LoginRateLimiter limiter) {
+        return Response.status(TOO_MANY_REQUESTS).header("Retry-After", limiter.getRetryAfter()).build();
+    }
+
+    /**
+     * Verifies the password with {@link PasswordService} and the legacy hasher.
+     * Responds SERVICE_UNAVAILABLE if the verify executor is saturated.
+     */
+    private boolean verifyPassword(String password, String hash) {
+        try {
+            return PasswordService.get().verify(password, hash, getLegacyHasher());
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Password verification is rejected, verify queue is full.");
+            throw new WebApplicationException(Response.status(Response.Status.SERVICE_UNAVAILABLE).header("Retry-After", 1).build());
+        }
+    }
+
     private void logAction(ActionLog login) {
         login.setOid(null);
-        actionLogDao.create(login);
+        ActionLogSink sink = ActionLogSink.get();
+        if (sink != null) {
+            sink.offer(login);
+        } else {
+            actionLogDao.create(login);
+        }
     }
 
     /**
@@ -185,9 +230,9 @@ public class AuthResource extends AbstractAuthResource<User> {
         Optional<User> user = userDao.findByUsername(credentials.getUsername());
         if (!user.isPresent()) {
             throw new WebApplicationException(Response.Status.NOT_FOUND);
-        } else if (user.get().getPassword().equals(passwords.get("password"))) {
+        } else if (verifyPassword(passwords.get("password"), user.get().getPassword())) {
             if (passwords.get("newPassword").equals(passwords.get("newPasswordRepeat"))) {
-                user.get().setPassword(passwords.get("newPassword"));
+                user.get().setPassword(PasswordService.get().hash(passwords.get("newPassword")));
                 return Response.status(Response.Status.OK).entity("Your password has been updated").build();
             } else {
                 return Response.status(Response.Status.PRECONDITION_FAILED).entity("Your new password does not match.").build();
@@ -8,6 +8,8 @@ import io.robe.admin.hibernate.dao.*;
 import io.robe.admin.hibernate.entity.*;
 import io.robe.auth.Credentials;
 import io.robe.auth.RobeAuth;
+import io.robe.auth.data.RolePermissionIndex;
+import io.robe.auth.data.entry.PermissionEntry;
 import io.robe.common.service.RobeService;
 import io.robe.common.service.search.SearchParam;
 import io.robe.common.service.search.model.SearchModel;
@@ -22,6 +24,7 @@ import javax.ws.rs.core.Response;
 import java.util.*;
 
 import static org.hibernate.CacheMode.GET;
+import static org.hibernate.CacheMode.NORMAL;
 
 @Path("menus")
 @Consumes(MediaType.APPLICATION_JSON)
@@ -32,16 +35,10 @@ public class MenuResource {
     private MenuDao menuDao;
 
     @Inject
-    private RoleDao roleDao;
-
-    @Inject
-    private PermissionDao permissionDao;
-
-    @Inject
-    private RoleGroupDao roleGroupDao;
+    private UserDao userDao;
 
     @Inject
-    private UserDao userDao;
+    private RolePermissionIndex rolePermissionIndex;
 
     /**
      * Returns all {@link Menu}s as a collection.
@@ -52,21 +49,12 @@ public class MenuResource {
 
     @RobeService(group = "Menu", description = "Returns all Menu's as a collection.")
     @GET
-    @UnitOfWork(readOnly = true, cacheMode = GET, flushMode = FlushMode.MANUAL)
+    @UnitOfWork(readOnly = true, cacheMode = NORMAL, flushMode = FlushMode.MANUAL)
     public List<Menu> getAll(@RobeAuth Credentials credentials, @SearchParam SearchModel search) {
         return menuDao.findAllStrict(search);
     }
 
 
-    private void getAllRolePermissions(Role parent, Set<Permission> rolePermissions) {
-        rolePermissions.addAll(permissionDao.findByRoleOId(parent.getId()));
-        List<RoleGroup> roleGroupEntries = roleGroupDao.findByGroupOId(parent.getId());
-        for (RoleGroup entry : roleGroupEntries) {
-            Role role = roleDao.findById(entry.getRoleOid());
-            getAllRolePermissions(role, rolePermissions);
-        }
-    }
-
     /**
      * get menu for logged user
      *
@@ -81,18 +69,15 @@ public class MenuResource {
     @CacheControl(noCache = true)
     public List<MenuItem> getUserHierarchicalMenu(@RobeAuth Credentials credentials) {
         Optional<User> user = userDao.findByUsername(credentials.getUsername());
-        Set<Permission> permissions = new HashSet<Permission>();
-
-        Role parent = roleDao.findById(user.get().getRoleOid());
-        getAllRolePermissions(parent, permissions);
+        Set<PermissionEntry> permissions = rolePermissionIndex.getPermissions(user.get().getRoleOid());
         Set<String> menuOids = new HashSet<String>();
 
         List<MenuItem> items = convertMenuToMenuItem(menuDao.findHierarchicalMenu());
         items = readMenuHierarchical(items);
 
-        for (Permission permission : permissions) {
-            if (permission.getType().equals(Permission.Type.MENU)) {
-                menuOids.add(permission.getRestrictedItemOid());
+        for (PermissionEntry permission : permissions) {
+            if (permission.getType().equals(PermissionEntry.Type.MENU)) {
+                menuOids.add(permission.getRestrictedItemId());
             }
         }
         List<MenuItem> permittedItems = new LinkedList<MenuItem>();
@@ -152,7 +137,7 @@ public class MenuResource {
     @RobeService(group = "Menu", description = "Returns a Menu resource matches with the given id.")
     @Path("{id}")
     @GET
-    @UnitOfWork(readOnly = true, cacheMode = GET, flushMode = FlushMode.MANUAL)
+    @UnitOfWork(readOnly = true, cacheMode = NORMAL, flushMode = FlushMode.MANUAL)
     public Menu get(@RobeAuth Credentials credentials, @PathParam("id") String id) {
         Menu entity = menuDao.findById(id);
         if (entity == null) {
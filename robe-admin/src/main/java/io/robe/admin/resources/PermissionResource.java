@@ -6,17 +6,21 @@ import io.robe.admin.dto.MenuItem;
 import io.robe.admin.dto.PermissionUpdateDto;
 import io.robe.admin.hibernate.dao.MenuDao;
 import io.robe.admin.hibernate.dao.PermissionDao;
+import io.robe.admin.hibernate.dao.PermissionVersionDao;
 import io.robe.admin.hibernate.dao.ServiceDao;
+import io.robe.admin.hibernate.dao.UserDao;
 import io.robe.admin.hibernate.entity.Menu;
 import io.robe.admin.hibernate.entity.Permission;
-import io.robe.admin.hibernate.entity.Service;
+import io.robe.admin.hibernate.entity.User;
 import io.robe.auth.Credentials;
 import io.robe.auth.RobeAuth;
+import io.robe.auth.data.RolePermissionIndex;
 import io.robe.auth.token.BasicToken;
 import io.robe.common.service.RobeService;
 import io.robe.common.service.search.SearchParam;
 import io.robe.common.service.search.model.SearchModel;
 import io.robe.common.utils.reflection.Fields;
+import io.robe.hibernate.transaction.RetryOnConflict;
 import org.hibernate.FlushMode;
 
 import javax.inject.Inject;
@@ -26,8 +30,11 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import static org.hibernate.CacheMode.GET;
 
@@ -39,12 +46,20 @@ public class PermissionResource {
     @Inject
     private PermissionDao permissionDao;
 
+    @Inject
+    private PermissionVersionDao permissionVersionDao;
+
     @Inject
     private ServiceDao serviceDao;
 
     @Inject
     private MenuDao menuDao;
 
+    @Inject
+    private UserDao userDao;
+
+    @Inject
+    private RolePermissionIndex rolePermissionIndex;
 
     /**
      * get hierarchical menu service for permission
@@ -107,45 +122,54 @@ public class PermissionResource {
     @Path("{roleOid}")
     public Response createOrUpdateServiceAndMenu(@RobeAuth Credentials credentials, @Valid PermissionUpdateDto updateDto, @PathParam("roleOid") String roleOid) {
 
-        // delete old menu
+        // replace menu permissions
         permissionDao.deleteRestrictionsByRole(roleOid, Permission.Type.MENU);
+        permissionDao.createAll(createPermissions(roleOid, Permission.Type.MENU, updateDto.getMenus()));
 
-        // save menu
+        // replace service permissions
+        permissionDao.deleteRestrictionsByRole(roleOid, Permission.Type.SERVICE);
+        permissionDao.createAll(createPermissions(roleOid, Permission.Type.SERVICE, updateDto.getServices()));
 
-        for (String itemOid : updateDto.getMenus()) {
-            Menu menu = menuDao.findById(itemOid);
-            Permission permission = permissionDao.findByRoleAndItem(roleOid, menu);
-            if (permission == null) {
-                permission = new Permission();
-            }
-            permission.setRoleOid(roleOid);
-            permission.setType(Permission.Type.MENU);
-            permission.setPriorityLevel((short) 7);
-            permission.setRestrictedItemOid(itemOid);
-            permissionDao.create(permission);
-        }
+        refreshPermissions(roleOid);
 
-        // delete old services
-        permissionDao.deleteRestrictionsByRole(roleOid, Permission.Type.SERVICE);
+        return Response.ok().build();
+    }
 
-        // save services
-        for (String itemOid : updateDto.getServices()) {
-            Service service = serviceDao.findById(itemOid);
-            Permission permission = permissionDao.findByRoleAndItem(roleOid, service);
-            if (permission == null) {
-                permission = new Permission();
-            }
+    /**
+     * Old permissions of the type are deleted before, so a new permission is created for each item.
+     */
+    private static List<Permission> createPermissions(String roleOid, Permission.Type type, List<String> itemOids) {
+        List<Permission> permissions = new ArrayList<>(itemOids.size());
+        for (String itemOid : itemOids) {
+            Permission permission = new Permission();
             permission.setRoleOid(roleOid);
-            permission.setType(Permission.Type.SERVICE);
+            permission.setType(type);
             permission.setPriorityLevel((short) 7);
             permission.setRestrictedItemOid(itemOid);
-            permissionDao.create(permission);
-
+            permissions.add(permission);
         }
+        return permissions;
+    }
 
-        BasicToken.clearAllPermissionCache();
-
-        return Response.ok().build();
+    /**
+     * Refreshes closures of the changed role and clears cached permissions of the users of the affected roles
+     * after the transaction commits. Users are found before, while the session is open.
+     * The permission version is incremented in the transaction, so other nodes clear their caches too.
+     *
+     * @param roleOid changed role
+     */
+    private void refreshPermissions(String roleOid) {
+        Set<String> usernames = new HashSet<>();
+        for (String affectedRoleOid : rolePermissionIndex.getAffectedRoles(roleOid)) {
+            for (User user : userDao.findByRoleId(affectedRoleOid)) {
+                usernames.add(user.getEmail());
+            }
+        }
+        permissionVersionDao.increment();
+        permissionDao.afterCommit(() -> {
+            rolePermissionIndex.refresh(roleOid);
+            usernames.forEach(BasicToken::clearPermissionCache);
+        });
     }
 
 
@@ -199,7 +223,9 @@ public class PermissionResource {
     @POST
     @UnitOfWork
     public Permission create(@RobeAuth Credentials credentials, @Valid Permission model) {
-        return permissionDao.create(model);
+        Permission entity = permissionDao.create(model);
+        refreshPermissions(entity.getRoleOid());
+        return entity;
     }
 
     /**
@@ -227,7 +253,12 @@ public class PermissionResource {
             throw new WebApplicationException(Response.status(404).build());
         }
         permissionDao.detach(entity);
-        return permissionDao.update(model);
+        Permission updated = permissionDao.update(model);
+        refreshPermissions(entity.getRoleOid());
+        if (!Objects.equals(entity.getRoleOid(), updated.getRoleOid())) {
+            refreshPermissions(updated.getRoleOid());
+        }
+        return updated;
     }
 
     /**
@@ -245,6 +276,7 @@ public class PermissionResource {
     @RobeService(group = "Permission", description = "Updates a permission resource matches with the given id.")
     @PATCH
     @UnitOfWork
+    @RetryOnConflict
     @Path("{id}")
     public Permission merge(@RobeAuth Credentials credentials, @PathParam("id") String id, Permission model) {
         if (!id.equals(model.getOid()))
@@ -253,8 +285,18 @@ public class PermissionResource {
         if (dest == null) {
             throw new WebApplicationException(Response.status(404).build());
         }
+        String roleOid = dest.getRoleOid();
+        if (model.getLastUpdated() != 0 && model.getLastUpdated() != dest.getLastUpdated()) {
+            // The client changed a stale copy, it fails on every attempt, so it is not retried.
+            throw new WebApplicationException(Response.status(Response.Status.CONFLICT).build());
+        }
         Fields.mergeRight(model, dest);
-        return permissionDao.update(dest);
+        Permission updated = permissionDao.update(dest);
+        refreshPermissions(roleOid);
+        if (!Objects.equals(roleOid, updated.getRoleOid())) {
+            refreshPermissions(updated.getRoleOid());
+        }
+        return updated;
     }
 
     /**
@@ -282,6 +324,8 @@ public class PermissionResource {
         if (entity == null) {
             throw new WebApplicationException(Response.status(404).build());
         }
-        return permissionDao.delete(entity);
+        permissionDao.delete(entity);
+        refreshPermissions(entity.getRoleOid());
+        return entity;
     }
 }
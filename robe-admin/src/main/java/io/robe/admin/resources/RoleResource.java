@@ -6,11 +6,13 @@ import io.robe.admin.hibernate.dao.*;
 import io.robe.admin.hibernate.entity.*;
 import io.robe.auth.Credentials;
 import io.robe.auth.RobeAuth;
+import io.robe.auth.data.RolePermissionIndex;
 import io.robe.auth.data.entry.PermissionEntry;
 import io.robe.common.service.RobeService;
 import io.robe.common.service.search.SearchParam;
 import io.robe.common.service.search.model.SearchModel;
 import io.robe.common.utils.reflection.Fields;
+import io.robe.hibernate.transaction.RetryOnConflict;
 import org.hibernate.FlushMode;
 
 import javax.inject.Inject;
@@ -33,18 +35,15 @@ public class RoleResource {
     @Inject
     private RoleDao roleDao;
 
-    @Inject
-    private PermissionDao permissionDao;
-
-    @Inject
-    private RoleGroupDao roleGroupDao;
-
     @Inject
     private ServiceDao serviceDao;
 
     @Inject
     private MenuDao menuDao;
 
+    @Inject
+    private RolePermissionIndex rolePermissionIndex;
+
 
     /**
      * Returns all services and menus collection with the matches given Role id.
@@ -60,18 +59,12 @@ public class RoleResource {
     @UnitOfWork(readOnly = true, cacheMode = GET, flushMode = FlushMode.MANUAL)
     public Map<String, Object> getRolePermissions(@RobeAuth Credentials credentials, @PathParam("id") String id) {
 
-        List<Permission> permissions = new ArrayList<>();
-
         List<Service> services = new ArrayList<>();
         List<Menu> menus = new ArrayList<>();
 
-        Role role = roleDao.findById(id);
-
-        getAllRolePermissions(role, permissions);
-
-        for (Permission permission : permissions) {
+        for (PermissionEntry permission : rolePermissionIndex.getPermissions(id)) {
             if (permission.getType().equals(PermissionEntry.Type.SERVICE)) {
-                Service service = serviceDao.findById(permission.getRestrictedItemOid());
+                Service service = serviceDao.findById(permission.getRestrictedItemId());
                 if (service != null) {
                     if (services.indexOf(service) == -1) {
                         services.add(service);
@@ -80,7 +73,7 @@ public class RoleResource {
 
             } else if (permission.getType().equals(PermissionEntry.Type.MENU)) {
 
-                Menu menu = menuDao.findById(permission.getRestrictedItemOid());
+                Menu menu = menuDao.findById(permission.getRestrictedItemId());
                 if (menu != null) {
                     if (menus.indexOf(menu) == -1) {
                         menus.add(menu);
@@ -97,15 +90,6 @@ public class RoleResource {
         return response;
     }
 
-    private void getAllRolePermissions(Role parent, List<Permission> rolePermissions) {
-        rolePermissions.addAll(permissionDao.findByRoleOId(parent.getId()));
-        List<RoleGroup> roleGroupEntries = roleGroupDao.findByGroupOId(parent.getId());
-        for (RoleGroup entry : roleGroupEntries) {
-            Role role = roleDao.findById(entry.getRoleId());
-            getAllRolePermissions(role, rolePermissions);
-        }
-    }
-
     /**
      * Return all Role as a collection
      *
@@ -200,6 +184,7 @@ public class RoleResource {
     @Path("{id}")
     @PATCH
     @UnitOfWork
+    @RetryOnConflict
     public Role merge(@RobeAuth Credentials credentials, @PathParam("id") String id, Role model) {
 
         if (!id.equals(model.getOid()))
@@ -208,6 +193,10 @@ public class RoleResource {
         if (dest == null) {
             throw new WebApplicationException(Response.status(404).build());
         }
+        if (model.getLastUpdated() != 0 && model.getLastUpdated() != dest.getLastUpdated()) {
+            // The client changed a stale copy, it fails on every attempt, so it is not retried.
+            throw new WebApplicationException(Response.status(Response.Status.CONFLICT).build());
+        }
         Fields.mergeRight(model, dest);
         return roleDao.update(dest);
     }
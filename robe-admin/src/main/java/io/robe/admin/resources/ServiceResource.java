@@ -2,17 +2,21 @@ package io.robe.admin.resources;
 
 import io.dropwizard.hibernate.UnitOfWork;
 import io.dropwizard.jersey.PATCH;
+import io.robe.admin.hibernate.dao.PermissionVersionDao;
 import io.robe.admin.hibernate.dao.ServiceDao;
 import io.robe.admin.hibernate.entity.Service;
 import io.robe.auth.Credentials;
 import io.robe.auth.RobeAuth;
+import io.robe.auth.data.RolePermissionIndex;
 import io.robe.auth.data.entry.ServiceEntry;
+import io.robe.auth.token.BasicToken;
 import io.robe.common.service.RobeService;
 import io.robe.common.service.search.SearchParam;
 import io.robe.common.service.search.model.SearchModel;
 import io.robe.common.utils.reflection.Fields;
 import io.robe.guice.GuiceBundle;
 import io.robe.guice.GuiceConfiguration;
+import io.robe.index.ClassIndex;
 import org.hibernate.FlushMode;
 import org.reflections.Reflections;
 
@@ -22,10 +26,13 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
-import static org.hibernate.CacheMode.GET;
+import static org.hibernate.CacheMode.NORMAL;
 
 @Path("services")
 @Produces(MediaType.APPLICATION_JSON)
@@ -36,6 +43,12 @@ public class ServiceResource {
     @Inject
     private ServiceDao serviceDao;
 
+    @Inject
+    private RolePermissionIndex rolePermissionIndex;
+
+    @Inject
+    private PermissionVersionDao permissionVersionDao;
+
     /**
      * Returns all {@link Service ) as a collection.
      *
@@ -44,7 +57,7 @@ public class ServiceResource {
      */
     @RobeService(group = "Service", description = "Returns all Services as a collection.")
     @GET
-    @UnitOfWork(readOnly = true, cacheMode = GET, flushMode = FlushMode.MANUAL)
+    @UnitOfWork(readOnly = true, cacheMode = NORMAL, flushMode = FlushMode.MANUAL)
     public List<Service> getAll(@RobeAuth Credentials credentials, @SearchParam SearchModel search) {
         return serviceDao.findAllStrict(search);
     }
@@ -62,7 +75,7 @@ public class ServiceResource {
     @RobeService(group = "Service", description = "Return Service resource.")
     @Path("{id}")
     @GET
-    @UnitOfWork(readOnly = true, cacheMode = GET, flushMode = FlushMode.MANUAL)
+    @UnitOfWork(readOnly = true, cacheMode = NORMAL, flushMode = FlushMode.MANUAL)
     public Service get(@RobeAuth Credentials credentials, @PathParam("id") String id) {
         Service entity = serviceDao.findById(id);
         if (entity == null) {
@@ -82,7 +95,9 @@ public class ServiceResource {
     @POST
     @UnitOfWork
     public Service create(@RobeAuth Credentials credentials, @Valid Service model) {
-        return serviceDao.create(model);
+        Service entity = serviceDao.create(model);
+        refreshIndex(Collections.singleton(entity.getOid()));
+        return entity;
     }
 
     /**
@@ -110,6 +125,7 @@ public class ServiceResource {
             throw new WebApplicationException(Response.status(404).build());
         }
         serviceDao.detach(entity);
+        refreshIndex(Collections.singleton(id));
         return serviceDao.update(model);
     }
 
@@ -137,6 +153,7 @@ public class ServiceResource {
             throw new WebApplicationException(Response.status(404).build());
         }
         Fields.mergeRight(model, dest);
+        refreshIndex(Collections.singleton(id));
         return serviceDao.update(dest);
     }
 
@@ -165,6 +182,7 @@ public class ServiceResource {
         if (entity == null) {
             throw new WebApplicationException(Response.status(404).build());
         }
+        refreshIndex(Collections.singleton(id));
         return serviceDao.delete(entity);
     }
 
@@ -199,9 +217,9 @@ public class ServiceResource {
 
         GuiceConfiguration configuration = GuiceBundle.getConfiguration();
 
-        Reflections reflections = new Reflections(configuration.getScanPackages(), this.getClass().getClassLoader());
+        Reflections reflections = ClassIndex.get().reflections(configuration.getScanPackages());
         Set<Class<?>> services = reflections.getTypesAnnotatedWith(Path.class);
-        int count = 0;
+        List<String> created = new ArrayList<>();
         for (Class service : services) {
             String parentPath = "/" + ((Path) service.getAnnotation(Path.class)).value();
             for (Method method : service.getMethods()) {
@@ -236,11 +254,31 @@ public class ServiceResource {
                 }
                 entity.setDescription(entity.getDescription() + " (" + entity.getMethod() + " " + entity.getPath() + ")");
                 serviceDao.create(entity);
-                count++;
+                created.add(entity.getOid());
 
             }
         }
-        return Response.ok(count).build();
+        if (!created.isEmpty()) {
+            refreshIndex(created);
+        }
+        return Response.ok(created.size()).build();
+    }
+
+    /**
+     * Drops the changed services from the permission index and clears the cached permissions of all users
+     * after the transaction commits, since any user may hold the old path or method.
+     * The permission version is incremented in the transaction, so other nodes clear their caches too.
+     *
+     * @param oids changed, created or deleted services
+     */
+    private void refreshIndex(Collection<String> oids) {
+        permissionVersionDao.increment();
+        serviceDao.afterCommit(() -> {
+            oids.forEach(rolePermissionIndex::refreshService);
+            for (String username : new ArrayList<>(BasicToken.getCurrentUsernames())) {
+                BasicToken.clearPermissionCache(username);
+            }
+        });
     }
 
     private String extractPath(Method method, String path) {
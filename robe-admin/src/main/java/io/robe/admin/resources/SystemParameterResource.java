@@ -10,6 +10,7 @@ import io.robe.common.service.RobeService;
 import io.robe.common.service.search.SearchParam;
 import io.robe.common.service.search.model.SearchModel;
 import io.robe.common.utils.reflection.Fields;
+import io.robe.hibernate.transaction.RetryOnConflict;
 import org.hibernate.CacheMode;
 import org.hibernate.FlushMode;
 
@@ -150,6 +151,7 @@ public class SystemParameterResource {
     @Path("{id}")
     @PATCH
     @UnitOfWork
+    @RetryOnConflict
     public SystemParameter merge(@RobeAuth Credentials credentials, @PathParam("id") String id, SystemParameter model) {
 
         if (!id.equals(model.getOid()))
@@ -158,6 +160,10 @@ public class SystemParameterResource {
         if (dest == null) {
             throw new WebApplicationException(Response.status(404).build());
         }
+        if (model.getLastUpdated() != 0 && model.getLastUpdated() != dest.getLastUpdated()) {
+            // The client changed a stale copy, it fails on every attempt, so it is not retried.
+            throw new WebApplicationException(Response.status(Response.Status.CONFLICT).build());
+        }
         Fields.mergeRight(model, dest);
         return systemParameterDao.update(dest);
     }
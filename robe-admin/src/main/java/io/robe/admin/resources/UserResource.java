@@ -2,11 +2,14 @@ package io.robe.admin.resources;
 
 import io.dropwizard.hibernate.UnitOfWork;
 import io.dropwizard.jersey.PATCH;
+import io.robe.admin.hibernate.dao.PermissionVersionDao;
 import io.robe.admin.hibernate.dao.UserDao;
 import io.robe.admin.hibernate.entity.User;
 import io.robe.auth.AbstractAuthResource;
 import io.robe.auth.Credentials;
 import io.robe.auth.RobeAuth;
+import io.robe.auth.password.PlainPasswordHasher;
+import io.robe.auth.token.BasicToken;
 import io.robe.common.service.RobeService;
 import io.robe.common.service.search.SearchParam;
 import io.robe.common.service.search.model.SearchModel;
@@ -20,6 +23,7 @@ import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.List;
+import java.util.Objects;
 
 @Path("users")
 @Consumes(MediaType.APPLICATION_JSON)
@@ -28,10 +32,13 @@ public class UserResource extends AbstractAuthResource<User> {
 
     private UserDao userDao;
 
+    private PermissionVersionDao permissionVersionDao;
+
     @Inject
-    public UserResource(UserDao userDao) {
-        super(userDao);
+    public UserResource(UserDao userDao, PermissionVersionDao permissionVersionDao) {
+        super(userDao, new PlainPasswordHasher());
         this.userDao = userDao;
+        this.permissionVersionDao = permissionVersionDao;
     }
 
     /**
@@ -110,6 +117,7 @@ public class UserResource extends AbstractAuthResource<User> {
             throw new WebApplicationException(Response.status(404).build());
         }
         userDao.detach(entity);
+        clearCache(entity.getEmail(), model.getEmail(), !Objects.equals(entity.getRoleOid(), model.getRoleOid()));
         return userDao.update(model);
     }
 
@@ -136,7 +144,10 @@ public class UserResource extends AbstractAuthResource<User> {
         if (dest == null) {
             throw new WebApplicationException(Response.status(404).build());
         }
+        String email = dest.getEmail();
+        String roleOid = dest.getRoleOid();
         Fields.mergeRight(model, dest);
+        clearCache(email, dest.getEmail(), !Objects.equals(roleOid, dest.getRoleOid()));
         return userDao.update(dest);
     }
 
@@ -164,8 +175,26 @@ public class UserResource extends AbstractAuthResource<User> {
         if (entity == null) {
             throw new WebApplicationException(Response.status(404).build());
         }
+        clearCache(entity.getEmail(), entity.getEmail(), true);
         return userDao.delete(entity);
     }
 
+    /**
+     * Clears the cached permissions and user entries of the old and the new username after the transaction commits,
+     * so a concurrent request can not cache the data before the change.
+     * If the role changed, the permission version is incremented in the transaction, so other nodes clear their caches too.
+     */
+    private void clearCache(String oldUsername, String newUsername, boolean roleChanged) {
+        if (roleChanged) {
+            permissionVersionDao.increment();
+        }
+        userDao.afterCommit(() -> {
+            BasicToken.clearPermissionCache(oldUsername);
+            if (newUsername != null && !newUsername.equals(oldUsername)) {
+                BasicToken.clearPermissionCache(newUsername);
+            }
+        });
+    }
+
 
 }
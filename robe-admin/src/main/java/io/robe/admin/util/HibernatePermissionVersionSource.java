@@ -0,0 +1,34 @@
+package io.robe.admin.util;
+
+import io.robe.admin.hibernate.entity.PermissionVersion;
+import io.robe.auth.token.cache.PermissionVersionSource;
+import io.robe.hibernate.RobeHibernateBundle;
+import org.hibernate.Session;
+
+/**
+ * Permission version from the database. Reads the {@link PermissionVersion} counter, which
+ * {@link io.robe.admin.hibernate.dao.PermissionVersionDao#increment()} raises with every change of permissions,
+ * role groups and roles of users. {@code 0} until the first change.
+ */
+public class HibernatePermissionVersionSource implements PermissionVersionSource {
+
+    private final RobeHibernateBundle bundle;
+
+    public HibernatePermissionVersionSource(RobeHibernateBundle bundle) {
+        this.bundle = bundle;
+    }
+
+    @Override
+    public long getVersion() {
+        Session session = bundle.getSessionFactory().openSession();
+        try {
+            Number version = (Number) session
+                    .createQuery("SELECT v.version FROM PermissionVersion v WHERE v.name = :name")
+                    .setParameter("name", PermissionVersion.KEY)
+                    .uniqueResult();
+            return version == null ? 0 : version.longValue();
+        } finally {
+            session.close();
+        }
+    }
+}
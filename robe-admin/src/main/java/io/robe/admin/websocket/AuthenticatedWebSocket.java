@@ -1,8 +1,9 @@
 package io.robe.admin.websocket;
 
 import io.dropwizard.auth.AuthenticationException;
-import io.robe.admin.hibernate.dao.*;
-import io.robe.auth.data.store.*;
+import io.robe.admin.hibernate.dao.UserDao;
+import io.robe.auth.data.RolePermissionIndex;
+import io.robe.auth.data.store.UserStore;
 import io.robe.auth.token.BasicToken;
 import io.robe.auth.token.TokenAuthenticator;
 import io.robe.guice.GuiceBundle;
@@ -22,12 +23,8 @@ public abstract class AuthenticatedWebSocket extends WebSocket {
     public TokenAuthenticator getAuthenticator() {
         if (authenticator == null) {
             sessionFactory = GuiceBundle.getInjector().getInstance(SessionFactory.class);
-            ServiceStore serviceStore = new ServiceDao(sessionFactory);
             UserStore userStore = new UserDao(sessionFactory);
-            RoleStore roleStore = new RoleDao(sessionFactory);
-            PermissionStore permissionStore = new PermissionDao(sessionFactory);
-            RoleGroupStore roleGroupStore = new RoleGroupDao(sessionFactory);
-            this.authenticator = new TokenAuthenticator(userStore, serviceStore, roleStore, permissionStore, roleGroupStore);
+            this.authenticator = new TokenAuthenticator(userStore, GuiceBundle.getInjector().getInstance(RolePermissionIndex.class));
         }
         return authenticator;
     }
@@ -0,0 +1,103 @@
+package io.robe.admin.actionlog;
+
+import io.robe.admin.RobeAdminTest;
+import io.robe.admin.hibernate.entity.ActionLog;
+import io.robe.hibernate.RobeHibernateBundle;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class ActionLogSinkTest extends RobeAdminTest {
+
+    private final SessionFactory sessionFactory = RobeHibernateBundle.getInstance().getSessionFactory();
+
+    @After
+    public void deleteLogs() {
+        Session session = sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            session.createQuery("delete from ActionLog where actionType = :type")
+                    .setParameter("type", "SINK-TEST")
+                    .executeUpdate();
+            session.getTransaction().commit();
+        } finally {
+            session.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ActionLog> logs() {
+        Session session = sessionFactory.openSession();
+        try {
+            return session.createQuery("from ActionLog where actionType = :type")
+                    .setParameter("type", "SINK-TEST")
+                    .list();
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void drainsOnStop() throws Exception {
+        ActionLogSink running = ActionLogSink.get();
+        ActionLogSink sink = new ActionLogSink(sessionFactory, new ActionLogConfiguration());
+        sink.start();
+        assertSame(sink, ActionLogSink.get());
+        for (int i = 0; i < 250; i++) {
+            sink.offer(new ActionLog("SINK-TEST", "Description " + i, "NO-DATA", true, "127.0.0.1"));
+        }
+        sink.stop();
+        // The sink of the application is not replaced.
+        assertSame(running, ActionLogSink.get());
+        assertEquals(250, logs().size());
+    }
+
+    @Test
+    public void offersWhileStopping() throws Exception {
+        ActionLogSink sink = new ActionLogSink(sessionFactory, new ActionLogConfiguration());
+        sink.start();
+        CountDownLatch offered = new CountDownLatch(1);
+        Thread offering = new Thread(() -> {
+            for (int i = 0; i < 500; i++) {
+                sink.offer(new ActionLog("SINK-TEST", "Description " + i, "NO-DATA", true, "127.0.0.1"));
+                if (i == 100) {
+                    offered.countDown();
+                }
+            }
+        });
+        offering.start();
+        offered.await();
+        sink.stop();
+        offering.join();
+        assertEquals(500, logs().size());
+    }
+
+    @Test
+    public void writesMappedProperties() throws Exception {
+        ActionLogSink sink = new ActionLogSink(sessionFactory, new ActionLogConfiguration());
+        sink.start();
+        ActionLog log = new ActionLog("SINK-TEST", "Description", "Data", false, "10.0.0.1");
+        Date time = new Date(1000000L);
+        log.setActionTime(time);
+        sink.offer(log);
+        sink.stop();
+
+        List<ActionLog> logs = logs();
+        assertEquals(1, logs.size());
+        ActionLog written = logs.get(0);
+        assertEquals(32, written.getOid().length());
+        assertEquals(0, written.getLastUpdated());
+        assertEquals(time.getTime(), written.getActionTime().getTime());
+        assertEquals("Description", written.getDescription());
+        assertEquals("Data", written.getAdditionalData());
+        assertFalse(written.isPositive());
+        assertEquals("10.0.0.1", written.getRemoteAddr());
+    }
+}
@@ -1,10 +1,19 @@
 package io.robe.admin.hibernate.dao;
 
 import io.robe.admin.hibernate.entity.SystemParameter;
+import io.robe.hibernate.dao.BaseDao;
+import io.robe.hibernate.transaction.Transaction;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Created by hasanmumin on 12/10/2016.
@@ -31,4 +40,95 @@ public class SystemParameterDaoTest extends BaseDaoTest<SystemParameter, SystemP
         Assert.assertTrue(systemParameter.isPresent());
         super.deleteFrom(systemParameter.get());
     }
+
+    @Test
+    public void batch() {
+        List<SystemParameter> parameters = new ArrayList<>();
+        for (int i = 0; i < BaseDao.DEFAULT_BATCH_SIZE + 5; i++) {
+            SystemParameter parameter = new SystemParameter();
+            parameter.setKey("BATCH_" + i);
+            parameter.setValue("VALUE");
+            parameters.add(parameter);
+        }
+        dao.createAll(parameters);
+        Assert.assertEquals("VALUE", dao.findByKey("BATCH_0").get().getValue());
+        Assert.assertTrue(dao.findByKey("BATCH_" + BaseDao.DEFAULT_BATCH_SIZE).isPresent());
+
+        for (SystemParameter parameter : parameters) {
+            parameter.setValue("VALUE_CHANGED");
+        }
+        dao.updateAll(parameters);
+        Assert.assertEquals("VALUE_CHANGED", dao.findByKey("BATCH_" + BaseDao.DEFAULT_BATCH_SIZE).get().getValue());
+
+        dao.deleteAll(dao.findAllStrict().stream().filter(parameter -> parameter.getKey().startsWith("BATCH_")).collect(Collectors.toList()));
+        Assert.assertFalse(dao.findByKey("BATCH_0").isPresent());
+    }
+
+    @Test
+    public void batchKeepsLoadedEntities() {
+        Session session = sessionFactory.getCurrentSession();
+        SystemParameter loaded = new SystemParameter();
+        loaded.setKey("BATCH_LOADED");
+        loaded.setValue("VALUE");
+        dao.create(loaded);
+        dao.flush();
+
+        List<SystemParameter> parameters = new ArrayList<>();
+        for (int i = 0; i < BaseDao.DEFAULT_BATCH_SIZE + 5; i++) {
+            SystemParameter parameter = new SystemParameter();
+            parameter.setKey("BATCH_" + i);
+            parameter.setValue("VALUE");
+            parameters.add(parameter);
+        }
+        dao.createAll(parameters);
+        Assert.assertTrue(session.contains(loaded));
+        Assert.assertFalse(session.contains(parameters.get(0)));
+
+        // Detached entities are reattached without loading them.
+        for (SystemParameter parameter : parameters) {
+            parameter.setValue("VALUE_CHANGED");
+        }
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            statistics.clear();
+            dao.updateAll(parameters);
+            Assert.assertEquals(0, statistics.getEntityLoadCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+        Assert.assertTrue(session.contains(loaded));
+        Assert.assertFalse(session.contains(parameters.get(0)));
+        Assert.assertEquals("VALUE_CHANGED", dao.findByKey("BATCH_" + BaseDao.DEFAULT_BATCH_SIZE).get().getValue());
+
+        // Another instance of a loaded entity is merged into it.
+        SystemParameter copy = new SystemParameter();
+        copy.setOid(loaded.getOid());
+        copy.setLastUpdated(loaded.getLastUpdated());
+        copy.setKey(loaded.getKey());
+        copy.setValue("VALUE_CHANGED");
+        Assert.assertSame(loaded, dao.updateAll(Collections.singletonList(copy)).get(0));
+        Assert.assertEquals("VALUE_CHANGED", loaded.getValue());
+        Assert.assertTrue(session.contains(loaded));
+
+        dao.deleteAll(parameters);
+        Assert.assertFalse(dao.findByKey("BATCH_0").isPresent());
+        Assert.assertTrue(session.contains(loaded));
+        dao.delete(loaded);
+        dao.flush();
+    }
+
+    @Test
+    public void submit() throws Exception {
+        Transaction.supply(() -> {
+            SystemParameter parameter = new SystemParameter();
+            parameter.setKey("ASYNC");
+            parameter.setValue("VALUE");
+            return dao.create(parameter);
+        }).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("VALUE", Transaction.supplyReadOnly(() -> dao.findByKey("ASYNC").get().getValue()).get(5, TimeUnit.SECONDS));
+
+        Transaction.submit(() -> dao.delete(dao.findByKey("ASYNC").get())).get(5, TimeUnit.SECONDS);
+        Assert.assertFalse(Transaction.supplyReadOnly(() -> dao.findByKey("ASYNC").isPresent()).get(5, TimeUnit.SECONDS));
+    }
 }
@@ -0,0 +1,56 @@
+package io.robe.admin.hibernate.transaction;
+
+import io.robe.admin.RobeAdminTest;
+import io.robe.admin.hibernate.dao.SystemParameterDao;
+import io.robe.admin.hibernate.entity.SystemParameter;
+import io.robe.hibernate.RobeHibernateBundle;
+import io.robe.hibernate.transaction.RetryPolicy;
+import io.robe.hibernate.transaction.Transaction;
+import org.hibernate.FlushMode;
+import org.hibernate.StaleObjectStateException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TransactionRetryTest extends RobeAdminTest {
+
+    private final SystemParameterDao dao = new SystemParameterDao(RobeHibernateBundle.getInstance().getSessionFactory());
+
+    @Test
+    public void retry() {
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger committed = new AtomicInteger();
+        Transaction.exec(() -> {
+            SystemParameter parameter = new SystemParameter();
+            parameter.setKey("RETRY");
+            parameter.setValue("VALUE");
+            dao.create(parameter);
+            dao.afterCommit(committed::incrementAndGet);
+            if (attempts.incrementAndGet() == 1) {
+                throw new StaleObjectStateException(SystemParameter.class.getName(), parameter.getOid());
+            }
+        }, new RetryPolicy(3, 0, 0));
+        Assert.assertEquals(2, attempts.get());
+        // The action of the rolled back attempt is dropped.
+        Assert.assertEquals(1, committed.get());
+
+        Transaction.exec(() -> {
+            Assert.assertEquals(1, dao.findAllStrict().stream().filter(parameter -> "RETRY".equals(parameter.getKey())).count());
+            dao.delete(dao.findByKey("RETRY").get());
+        });
+    }
+
+    @Test
+    public void exhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger committed = new AtomicInteger();
+        Transaction.exec(() -> {
+            dao.afterCommit(committed::incrementAndGet);
+            attempts.incrementAndGet();
+            throw new StaleObjectStateException(SystemParameter.class.getName(), "STALE");
+        }, e -> Assert.assertTrue(e instanceof StaleObjectStateException), FlushMode.AUTO, new RetryPolicy(2, 0, 0));
+        Assert.assertEquals(2, attempts.get());
+        Assert.assertEquals(0, committed.get());
+    }
+}
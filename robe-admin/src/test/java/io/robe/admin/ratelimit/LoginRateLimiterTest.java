@@ -0,0 +1,100 @@
+package io.robe.admin.ratelimit;
+
+import com.google.common.base.Ticker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LoginRateLimiterTest {
+
+    private final FakeTicker ticker = new FakeTicker();
+    private LoginRateLimiter limiter;
+
+    @Before
+    public void before() {
+        LoginRateLimitConfiguration configuration = new LoginRateLimitConfiguration() {
+            @Override
+            public int getWindow() {
+                return 120;
+            }
+
+            @Override
+            public int getUserFailures() {
+                return 3;
+            }
+
+            @Override
+            public int getAddressFailures() {
+                return 5;
+            }
+        };
+        limiter = new LoginRateLimiter(configuration, ticker);
+    }
+
+    @Test
+    public void blocksUserInWindow() {
+        assertEquals(1, limiter.recordFailure("user", "10.0.0.1"));
+        assertEquals(2, limiter.recordFailure("user", "10.0.0.2"));
+        assertFalse(limiter.shouldBlock(2));
+        assertTrue(limiter.shouldBlock(limiter.recordFailure("user", "10.0.0.3")));
+    }
+
+    @Test
+    public void slidesWindow() {
+        limiter.recordFailure("user", null);
+        limiter.recordFailure("user", null);
+        ticker.advance(180);
+        // Half of the previous window overlaps with the sliding window.
+        assertEquals(2, limiter.recordFailure("user", null));
+        ticker.advance(240);
+        assertEquals(1, limiter.recordFailure("user", null));
+    }
+
+    @Test
+    public void reset() {
+        limiter.recordFailure("user", null);
+        limiter.recordFailure("user", null);
+        limiter.reset("user");
+        assertEquals(1, limiter.recordFailure("user", null));
+    }
+
+    @Test
+    public void limitsAddress() {
+        for (int i = 0; i < 4; i++) {
+            limiter.recordFailure(null, "10.0.0.1");
+            assertFalse(limiter.isLimited("10.0.0.1"));
+        }
+        limiter.recordFailure("user", "10.0.0.1");
+        assertTrue(limiter.isLimited("10.0.0.1"));
+        assertFalse(limiter.isLimited("10.0.0.2"));
+        ticker.advance(240);
+        assertFalse(limiter.isLimited("10.0.0.1"));
+    }
+
+    @Test
+    public void addressLimitOptIn() {
+        LoginRateLimiter limiter = new LoginRateLimiter(new LoginRateLimitConfiguration(), ticker);
+        for (int i = 0; i < 100; i++) {
+            limiter.recordFailure(null, "10.0.0.1");
+        }
+        assertFalse(limiter.isLimited("10.0.0.1"));
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        void advance(long seconds) {
+            nanos += TimeUnit.SECONDS.toNanos(seconds);
+        }
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+    }
+}
@@ -3,7 +3,10 @@ package io.robe.admin.resources;
 import com.google.common.hash.Hashing;
 import io.robe.admin.RobeAdminTest;
 import io.robe.admin.hibernate.entity.User;
+import io.robe.admin.ratelimit.LoginRateLimitConfiguration;
+import io.robe.admin.ratelimit.LoginRateLimiter;
 import io.robe.admin.util.Authenticator;
+import io.robe.auth.password.PasswordService;
 import io.robe.test.Order;
 import io.robe.test.Roadrunner;
 import io.robe.test.request.HttpClient;
@@ -20,6 +23,7 @@ import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by adem on 07/10/2016.
@@ -65,7 +69,7 @@ public class AuthenticationResourceTest extends RobeAdminTest {
         User user = response.get(User.class);
         assertNotNull(user);
         assertEquals(USERNAME, user.getEmail());
-        assertEquals(PASSWORD, user.getPassword());
+        assertTrue(PasswordService.get().verify(PASSWORD, user.getPassword()));
     }
 
     @Test
@@ -90,6 +94,32 @@ public class AuthenticationResourceTest extends RobeAdminTest {
         assertEquals("", response.getCookie("auth-token"));
     }
 
+    @Test
+    @Order(order = 5)
+    public void limitedAddress() throws Exception {
+        LoginRateLimiter.configure(new LoginRateLimitConfiguration() {
+            @Override
+            public int getAddressFailures() {
+                return 2;
+            }
+        });
+        try {
+            Map<String, String> credentials = new HashMap<>();
+            credentials.put("username", "nobody@robe.io");
+            credentials.put("password", PASSWORD);
+            assertEquals(401, client.post(requestBuilder.entity(credentials).endpoint("login").build()).getStatus());
+            assertEquals(401, client.post(requestBuilder.entity(credentials).endpoint("login").build()).getStatus());
+            assertEquals(429, client.post(requestBuilder.entity(credentials).endpoint("login").build()).getStatus());
+
+            // Valid credentials of the same address are accepted.
+            credentials.put("username", USERNAME);
+            credentials.put("password", Hashing.sha256().hashString("321321", StandardCharsets.UTF_8).toString());
+            assertEquals(200, client.post(requestBuilder.entity(credentials).endpoint("login").build()).getStatus());
+        } finally {
+            LoginRateLimiter.configure(new LoginRateLimitConfiguration());
+        }
+    }
+
     @AfterClass
     public static void loginAgain() throws Exception {
         Authenticator.login(USERNAME, "321321");
@@ -3,14 +3,17 @@ package io.robe.admin.resources;
 import io.robe.admin.dto.PermissionUpdateDto;
 import io.robe.admin.hibernate.entity.Permission;
 import io.robe.admin.hibernate.entity.Role;
+import io.robe.admin.util.HibernatePermissionVersionSource;
 import io.robe.auth.data.entry.PermissionEntry;
 import io.robe.common.service.search.model.SearchModel;
+import io.robe.hibernate.RobeHibernateBundle;
 import io.robe.test.request.TestRequest;
 import io.robe.test.request.TestResponse;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -127,6 +130,31 @@ public class PermissionResourceTest extends BaseResourceTest<Permission> {
         Assert.assertEquals(11, services.size());
     }
 
+    @Test
+    public void swapPermission() throws Exception {
+        Role role = new Role();
+        role.setCode("SWAP");
+        role.setName("Swap");
+        TestResponse response = client.post(roleRequestBuilder.entity(role).build());
+        Assert.assertEquals(200, response.getStatus());
+        role = response.get(Role.class);
+        HibernatePermissionVersionSource source = new HibernatePermissionVersionSource(RobeHibernateBundle.getInstance());
+
+        PermissionUpdateDto dto = new PermissionUpdateDto();
+        dto.setServices(new ArrayList<>());
+        dto.setMenus(Collections.singletonList("menu-x"));
+        Assert.assertEquals(200, client.post(getRequestBuilder().endpoint(role.getOid()).entity(dto).build()).getStatus());
+        long version = source.getVersion();
+
+        // Same number of permissions, all new with the same lastUpdated.
+        dto.setMenus(Collections.singletonList("menu-y"));
+        Assert.assertEquals(200, client.post(getRequestBuilder().endpoint(role.getOid()).entity(dto).build()).getStatus());
+        Assert.assertTrue(source.getVersion() > version);
+
+        dto.setMenus(new ArrayList<>());
+        Assert.assertEquals(200, client.post(getRequestBuilder().endpoint(role.getOid()).entity(dto).build()).getStatus());
+        Assert.assertEquals(200, client.delete(roleRequestBuilder.endpoint(role.getOid()).entity(role).build()).getStatus());
+    }
 
     private Role getRoleByCode(String code) throws Exception {
         SearchModel searchModel = new SearchModel();
@@ -77,4 +77,24 @@ public class SystemParameterResourceTest extends BaseResourceTest<SystemParamete
 
         super.deleteFrom(parameter);
     }
+
+    @Test
+    public void mergeStaleVersion() throws Exception {
+        SystemParameter parameter = super.createFrom();
+        SystemParameter merge = mergeInstance();
+        merge.setOid(parameter.getOid());
+        merge.setLastUpdated(parameter.getLastUpdated() + 1);
+        TestResponse response = client.patch(getRequestBuilder().endpoint(parameter.getOid()).entity(merge).build());
+        Assert.assertEquals(409, response.getStatus());
+
+        merge.setLastUpdated(parameter.getLastUpdated());
+        Assert.assertEquals("VALUE-2", super.mergeFrom(merge).getValue());
+        super.deleteFrom(super.getFrom(parameter.getOid()));
+    }
+
+    @Test
+    public void invalidCursor() throws Exception {
+        TestResponse response = client.get(getRequestBuilder().query("_limit", "1").query("_after", "garbage").build());
+        Assert.assertEquals(400, response.getStatus());
+    }
 }
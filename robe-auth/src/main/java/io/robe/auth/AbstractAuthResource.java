@@ -1,12 +1,13 @@
 package io.robe.auth;
 
-import com.google.common.hash.Hashing;
 import edu.vt.middleware.password.*;
 import io.dropwizard.auth.AuthenticationException;
 import io.robe.auth.data.entry.UserEntry;
 import io.robe.auth.data.store.UserStore;
+import io.robe.auth.password.PasswordHasher;
+import io.robe.auth.password.PasswordService;
+import io.robe.auth.password.Sha256PasswordHasher;
 
-import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -25,9 +26,31 @@ public abstract class AbstractAuthResource<T extends UserEntry> {
 
 
     private final UserStore userStore;
+    private final PasswordHasher legacyHasher;
 
+    /**
+     * Verifies the stored hashes which are not in the format of {@link PasswordService} as unsalted SHA-256.
+     *
+     * @param userStore store of the users
+     */
     public AbstractAuthResource(UserStore userStore) {
+        this(userStore, new Sha256PasswordHasher());
+    }
+
+    /**
+     * @param userStore    store of the users
+     * @param legacyHasher hasher of the stored hashes which are not in the format of {@link PasswordService}, null to reject them
+     */
+    public AbstractAuthResource(UserStore userStore, PasswordHasher legacyHasher) {
         this.userStore = userStore;
+        this.legacyHasher = legacyHasher;
+    }
+
+    /**
+     * @return hasher of the stored hashes which are not in the format of {@link PasswordService}
+     */
+    protected PasswordHasher getLegacyHasher() {
+        return legacyHasher;
     }
 
     /**
@@ -37,14 +60,22 @@ public abstract class AbstractAuthResource<T extends UserEntry> {
      * This method is typically used for "reauthentication" for the most sensitive functions, such
      * as transactions, changing email address, and changing other account information.
      *
+     * Stored hashes of the legacy hasher or with a weaker work factor are upgraded after a successful verification.
+     *
      * @param user     the user who requires verification
-     * @param password the hashed user-supplied password
+     * @param password the user-supplied password
      * @return true, if the password is correct for the specified user
      */
     public boolean verifyPassword(T user, String password) {
         Optional<T> entry;
         entry = (Optional<T>) userStore.findByUsername(user.getUsername());
-        return entry.isPresent() && entry.get().getPassword().equals(Hashing.sha256().hashString(password, Charset.forName("UTF-8")).toString());
+        if (!entry.isPresent() || !PasswordService.get().verify(password, entry.get().getPassword(), legacyHasher)) {
+            return false;
+        }
+        if (PasswordService.get().needsRehash(entry.get().getPassword())) {
+            userStore.changePassword(user.getUsername(), PasswordService.get().hash(password));
+        }
+        return true;
     }
 
     /**
@@ -66,7 +97,7 @@ public abstract class AbstractAuthResource<T extends UserEntry> {
      * old password, and other information that could be used to weaken the strength of the password.
      *
      * @param user        the user whose information to use when generating password
-     * @param oldPassword the old password to use when verifying strength of new password.  The new password may be checked for fragments of oldPassword.
+     * @param oldPassword the stored hash of the old password. The new password must not match it.
      * @return a password with strong password strength
      */
     public String generateStrongPassword(T user, String oldPassword) {
@@ -75,7 +106,7 @@ public abstract class AbstractAuthResource<T extends UserEntry> {
             newPassword = generateStrongPassword();
             // Continue until new password does not contain user info or same with old password
         }
-        while (newPassword.contains(user.getUsername()) || oldPassword.equals(Hashing.sha256().hashString(newPassword, Charset.forName("UTF-8")).toString()));
+        while (newPassword.contains(user.getUsername()) || PasswordService.get().verify(newPassword, oldPassword, legacyHasher));
         return newPassword;
     }
 
@@ -92,7 +123,9 @@ public abstract class AbstractAuthResource<T extends UserEntry> {
      */
     public void changePassword(T user, String currentPassword, String newPassword, String newPassword2) throws AuthenticationException {
 
-        verifyPassword(user, currentPassword);
+        if (!verifyPassword(user, currentPassword)) {
+            throw new AuthenticationException(user.getUsername() + ": Current password is incorrect");
+        }
 
         if (!newPassword.equals(newPassword2)) {
             throw new AuthenticationException(user.getUsername() + ": New password and re-type password must be same");
@@ -101,7 +134,7 @@ public abstract class AbstractAuthResource<T extends UserEntry> {
         }
         verifyPasswordStrength(currentPassword, newPassword, user);
 
-        Optional<? extends UserEntry> optional = userStore.changePassword(user.getUsername(), newPassword);
+        Optional<? extends UserEntry> optional = userStore.changePassword(user.getUsername(), hashPassword(newPassword, user.getUsername()));
         if (!optional.isPresent()) {
             throw new AuthenticationException(user.getUsername() + ": Can't update UserEntry Password");
         }
@@ -124,19 +157,17 @@ public abstract class AbstractAuthResource<T extends UserEntry> {
     }
 
     /**
-     * Returns a string representation of the hashed password, using the
-     * accountName as the salt. The salt helps to prevent against "rainbow"
+     * Returns a string representation of the hashed password with the configured {@link PasswordService}.
+     * Every hash has its own random salt which helps to prevent against "rainbow"
      * table attacks where the attacker pre-calculates hashes for known strings.
-     * This method specifies the use of the user's account name as the "salt"
-     * value. The Encryptor.hash method can be used if a different salt is
-     * required.
+     * The salt is stored in the hash, so it can be verified without the account name.
      *
      * @param password    the password to hash
-     * @param accountName the account name to use as the salt
+     * @param accountName the account name, not used since the hash has its own salt
      * @return the hashed password
      */
     public String hashPassword(String password, String accountName) {
-        return Hashing.sha256().hashString(password, Charset.forName("UTF-8")).toString();
+        return PasswordService.get().hash(password);
     }
 
 
@@ -0,0 +1,273 @@
+package io.robe.auth.data;
+
+import io.robe.auth.data.entry.PermissionEntry;
+import io.robe.auth.data.entry.RoleGroupEntry;
+import io.robe.auth.data.entry.ServiceEntry;
+import io.robe.auth.data.store.PermissionIndexStore;
+import io.robe.auth.data.store.PermissionStore;
+import io.robe.auth.data.store.RoleGroupStore;
+import io.robe.auth.data.store.ServiceStore;
+import io.robe.auth.token.cache.InvalidationBus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the role hierarchy which holds permission closures of the roles.
+ * A closure is the union of the permissions of the role and all its sub roles.
+ * <p>
+ * If a {@link PermissionIndexStore} is given, whole graph is loaded with one batch on first access,
+ * otherwise roles are loaded one by one when they are first asked.
+ * {@link #refresh(String)} drops a single role and the closures of the roles which contain it, they are reloaded on
+ * next access. Call it after the change is committed, a reload inside the changing transaction would keep its data
+ * even if it rolls back.
+ */
+public class RolePermissionIndex implements InvalidationBus.Listener {
+
+    private final PermissionStore permissionStore;
+    private final RoleGroupStore roleGroupStore;
+    private final ServiceStore serviceStore;
+    private final PermissionIndexStore indexStore;
+
+    private final Map<String, Set<PermissionEntry>> permissions = new HashMap<>();
+    private final Map<String, Set<String>> members = new HashMap<>();
+    private final Map<String, ServiceEntry> services = new HashMap<>();
+    private final Map<String, Set<PermissionEntry>> closures = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> serviceClosures = new ConcurrentHashMap<>();
+    private boolean loaded = false;
+
+    public RolePermissionIndex(PermissionStore permissionStore, RoleGroupStore roleGroupStore, ServiceStore serviceStore) {
+        this(permissionStore, roleGroupStore, serviceStore, null);
+    }
+
+    /**
+     * @param indexStore batch store, may be null
+     */
+    public RolePermissionIndex(PermissionStore permissionStore, RoleGroupStore roleGroupStore, ServiceStore serviceStore, PermissionIndexStore indexStore) {
+        this.permissionStore = permissionStore;
+        this.roleGroupStore = roleGroupStore;
+        this.serviceStore = serviceStore;
+        this.indexStore = indexStore;
+    }
+
+    /**
+     * @param roleId role to resolve
+     * @return all permissions of the role and its sub roles
+     */
+    public Set<PermissionEntry> getPermissions(String roleId) {
+        Set<PermissionEntry> closure = closures.get(roleId);
+        if (closure == null) {
+            synchronized (this) {
+                closure = closures.computeIfAbsent(roleId, id -> Collections.unmodifiableSet(collect(id, new HashSet<>(), new HashSet<>())));
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * @param roleId role to resolve
+     * @return permitted services of the role and its sub roles as "path:METHOD"
+     */
+    public Set<String> getServicePermissions(String roleId) {
+        Set<String> closure = serviceClosures.get(roleId);
+        if (closure == null) {
+            // Entries are resolved under the lock, so a refresh can not slip in between and leave a stale closure.
+            synchronized (this) {
+                closure = serviceClosures.computeIfAbsent(roleId, id -> Collections.unmodifiableSet(toServicePaths(getPermissions(id))));
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * @param roleId changed role
+     * @return the role and all roles which contain it
+     */
+    public synchronized Set<String> getAffectedRoles(String roleId) {
+        return findAncestors(roleId);
+    }
+
+    /**
+     * Drops permissions and sub roles of the given role, they are reloaded on next access.
+     *
+     * @param roleId changed role
+     * @return the role and all roles which contain it, their closures are dropped
+     */
+    public synchronized Set<String> refresh(String roleId) {
+        Set<String> affected = findAncestors(roleId);
+        permissions.remove(roleId);
+        members.remove(roleId);
+        for (String id : affected) {
+            closures.remove(id);
+            serviceClosures.remove(id);
+        }
+        return affected;
+    }
+
+    /**
+     * Drops the given service, it is reloaded on next access. Service closures of all roles are dropped,
+     * since path or method of the service may be changed.
+     *
+     * @param serviceId changed, created or deleted service
+     */
+    public synchronized void refreshService(String serviceId) {
+        services.remove(serviceId);
+        serviceClosures.clear();
+    }
+
+    /**
+     * Drops all data. Index will be reloaded on next access.
+     */
+    public synchronized void invalidate() {
+        permissions.clear();
+        members.clear();
+        services.clear();
+        closures.clear();
+        serviceClosures.clear();
+        loaded = false;
+    }
+
+    /**
+     * Invalidates whole index when all permissions are invalidated.
+     *
+     * @param username invalidated user, null if all users are invalidated
+     */
+    @Override
+    public void onInvalidate(String username) {
+        if (username == null) {
+            invalidate();
+        }
+    }
+
+    private Set<PermissionEntry> collect(String roleId, Set<PermissionEntry> result, Set<String> visited) {
+        if (!visited.add(roleId)) {
+            return result;
+        }
+        ensureLoaded();
+        if (!permissions.containsKey(roleId)) {
+            loadRole(roleId);
+        }
+        result.addAll(permissions.get(roleId));
+        for (String member : members.get(roleId)) {
+            collect(member, result, visited);
+        }
+        return result;
+    }
+
+    private Set<String> toServicePaths(Set<PermissionEntry> entries) {
+        Set<String> paths = new HashSet<>();
+        for (PermissionEntry entry : entries) {
+            if (entry.getType().equals(PermissionEntry.Type.SERVICE)) {
+                ServiceEntry service = findService(entry.getRestrictedItemId());
+                if (service != null) {
+                    paths.add(service.getPath() + ":" + service.getMethod());
+                }
+            }
+        }
+        return paths;
+    }
+
+    private ServiceEntry findService(String id) {
+        ServiceEntry service = services.get(id);
+        if (service == null && !services.containsKey(id)) {
+            Optional<? extends ServiceEntry> optional = serviceStore.findByCode(id);
+            service = optional.isPresent() ? optional.get() : null;
+            services.put(id, service);
+        }
+        return service;
+    }
+
+    private Set<String> findAncestors(String roleId) {
+        Set<String> ancestors = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(roleId);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (!ancestors.add(current)) {
+                continue;
+            }
+            for (Map.Entry<String, Set<String>> entry : members.entrySet()) {
+                if (entry.getValue().contains(current)) {
+                    queue.add(entry.getKey());
+                }
+            }
+        }
+        return ancestors;
+    }
+
+    private void ensureLoaded() {
+        if (loaded || indexStore == null) {
+            return;
+        }
+        for (Map.Entry<String, Set<? extends PermissionEntry>> entry : indexStore.findAllPermissionsByRoleId().entrySet()) {
+            permissions.put(entry.getKey(), toIndexEntries(entry.getValue()));
+        }
+        for (Map.Entry<String, Set<String>> entry : indexStore.findAllRoleIdsByGroupId().entrySet()) {
+            members.put(entry.getKey(), new HashSet<>(entry.getValue()));
+            for (String member : entry.getValue()) {
+                permissions.putIfAbsent(member, new HashSet<>());
+            }
+        }
+        for (String roleId : permissions.keySet()) {
+            members.putIfAbsent(roleId, new HashSet<>());
+        }
+        for (String groupId : members.keySet()) {
+            permissions.putIfAbsent(groupId, new HashSet<>());
+        }
+        services.putAll(indexStore.findAllServices());
+        loaded = true;
+    }
+
+    private void loadRole(String roleId) {
+        permissions.put(roleId, toIndexEntries(permissionStore.findByRoleId(roleId)));
+        Set<String> roleIds = new HashSet<>();
+        for (RoleGroupEntry entry : roleGroupStore.findByGroupId(roleId)) {
+            roleIds.add(entry.getRoleId());
+        }
+        members.put(roleId, roleIds);
+    }
+
+    private static Set<PermissionEntry> toIndexEntries(Collection<? extends PermissionEntry> entries) {
+        Set<PermissionEntry> result = new HashSet<>();
+        for (PermissionEntry entry : entries) {
+            result.add(new IndexEntry(entry.getType(), entry.getRestrictedItemId()));
+        }
+        return result;
+    }
+
+    /**
+     * Detached and light copy of a {@link PermissionEntry}.
+     */
+    private static final class IndexEntry implements PermissionEntry {
+        private final Type type;
+        private final String restrictedItemId;
+
+        private IndexEntry(Type type, String restrictedItemId) {
+            this.type = type;
+            this.restrictedItemId = restrictedItemId;
+        }
+
+        @Override
+        public String getRestrictedItemId() {
+            return restrictedItemId;
+        }
+
+        @Override
+        public Type getType() {
+            return type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof IndexEntry)) return false;
+            IndexEntry that = (IndexEntry) o;
+            return type == that.type && Objects.equals(restrictedItemId, that.restrictedItemId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Objects.hashCode(restrictedItemId);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package io.robe.auth.data.store;
+
+import io.robe.auth.data.entry.PermissionEntry;
+import io.robe.auth.data.entry.ServiceEntry;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batch access to the whole permission graph. Lets {@link io.robe.auth.data.RolePermissionIndex} build
+ * itself with a fixed number of queries instead of one query per role, group and service.
+ */
+public interface PermissionIndexStore {
+
+    /**
+     * @return directly assigned permissions keyed by role id
+     */
+    Map<String, Set<? extends PermissionEntry>> findAllPermissionsByRoleId();
+
+    /**
+     * @return member role ids keyed by group role id
+     */
+    Map<String, Set<String>> findAllRoleIdsByGroupId();
+
+    /**
+     * @return all services keyed by id
+     */
+    Map<String, ? extends ServiceEntry> findAllServices();
+}
@@ -0,0 +1,32 @@
+package io.robe.auth.password;
+
+/**
+ * Hashes and verifies passwords. Implementations must be thread safe.
+ */
+public interface PasswordHasher {
+
+    /**
+     * @param password supplied password
+     * @return hash to store
+     */
+    String hash(String password);
+
+    /**
+     * @param password supplied password
+     * @param hash     stored hash
+     * @return true if password matches the hash
+     */
+    boolean verify(String password, String hash);
+
+    /**
+     * @param hash stored hash
+     * @return true if hash is in the format of this hasher
+     */
+    boolean supports(String hash);
+
+    /**
+     * @param hash stored hash in the format of this hasher
+     * @return true if hash is produced with a weaker work factor than the current one
+     */
+    boolean needsRehash(String hash);
+}
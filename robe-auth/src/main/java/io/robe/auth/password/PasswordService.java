@@ -0,0 +1,154 @@
+package io.robe.auth.password;
+
+import com.google.common.base.Throwables;
+import io.dropwizard.lifecycle.Managed;
+import io.robe.auth.token.configuration.PasswordConfiguration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashes and verifies passwords with the configured {@link PasswordHasher}.
+ * Stored hashes in an older format are verified with the legacy hasher given by the caller, since it depends on
+ * what the caller receives (a raw password or a password hashed by the client). They are reported by
+ * {@link #needsRehash(String)}, so they can be upgraded transparently at the next successful login.
+ * <p>
+ * If verify threads are configured, verifications run on a bounded executor. Login bursts are limited to
+ * the given threads and verifications over the queue limit are rejected with
+ * {@link java.util.concurrent.RejectedExecutionException} instead of consuming the request threads CPU.
+ */
+public class PasswordService implements Managed {
+
+    private static volatile PasswordService instance = new PasswordService(new PasswordConfiguration());
+
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor executor;
+
+    public PasswordService(PasswordConfiguration configuration) {
+        this.hasher = createHasher(configuration.getAlgorithm(), configuration);
+        if (configuration.getVerifyThreads() > 0) {
+            AtomicInteger count = new AtomicInteger();
+            executor = new ThreadPoolExecutor(configuration.getVerifyThreads(), configuration.getVerifyThreads(),
+                    0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, configuration.getVerifyQueue())),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "password-verifier-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Replaces the shared instance with a new one created from the given configuration.
+     *
+     * @param configuration password configuration
+     * @return created instance, should be managed by the environment lifecycle
+     */
+    public static PasswordService configure(PasswordConfiguration configuration) {
+        PasswordService old = instance;
+        instance = new PasswordService(configuration);
+        old.shutdown();
+        return instance;
+    }
+
+    public static PasswordService get() {
+        return instance;
+    }
+
+    private static PasswordHasher createHasher(String name, PasswordConfiguration configuration) {
+        if (name == null || name.equalsIgnoreCase("pbkdf2")) {
+            return new Pbkdf2PasswordHasher(configuration.getIterations());
+        } else if (name.equalsIgnoreCase("sha256")) {
+            return new Sha256PasswordHasher();
+        } else if (name.equalsIgnoreCase("plain")) {
+            return new PlainPasswordHasher();
+        }
+        try {
+            return (PasswordHasher) Class.forName(name).newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new RuntimeException("Can't create password hasher: " + name, e);
+        }
+    }
+
+    /**
+     * @param password supplied password
+     * @return hash of the current hasher
+     */
+    public String hash(String password) {
+        return hasher.hash(password);
+    }
+
+    /**
+     * Verifies the password against a hash of the current hasher.
+     *
+     * @param password supplied password
+     * @param hash     stored hash
+     * @return true if password matches the hash
+     */
+    public boolean verify(String password, String hash) {
+        return verify(password, hash, null);
+    }
+
+    /**
+     * Verifies the password on the verify executor if it is configured, otherwise on the caller thread.
+     *
+     * @param password supplied password
+     * @param hash     stored hash
+     * @param legacy   hasher of the hashes which are not in the current format, null to reject them
+     * @return true if password matches the hash
+     */
+    public boolean verify(String password, String hash, PasswordHasher legacy) {
+        if (executor == null) {
+            return matches(password, hash, legacy);
+        }
+        Future<Boolean> result = executor.submit(() -> matches(password, hash, legacy));
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password verification is interrupted", e);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * @param hash stored hash
+     * @return true if hash is not produced by the current hasher or produced with a weaker work factor
+     */
+    public boolean needsRehash(String hash) {
+        return !hasher.supports(hash) || hasher.needsRehash(hash);
+    }
+
+    private boolean matches(String password, String hash, PasswordHasher legacy) {
+        if (password == null || hash == null) {
+            return false;
+        }
+        if (hasher.supports(hash)) {
+            return hasher.verify(password, hash);
+        }
+        return legacy != null && legacy.supports(hash) && legacy.verify(password, hash);
+    }
+
+    @Override
+    public void start() throws Exception {
+    }
+
+    @Override
+    public void stop() throws Exception {
+        shutdown();
+    }
+
+    private void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.robe.auth.password;
+
+import com.google.common.io.BaseEncoding;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * Salted PBKDF2 with HMAC-SHA256. Work factor is the iteration count and it is stored with the hash,
+ * so increasing it does not break the stored hashes.
+ * <p>
+ * Format: {@code pbkdf2-sha256$iterations$salt$hash} (salt and hash are base64)
+ */
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 256;
+    private static final BaseEncoding ENCODING = BaseEncoding.base64().omitPadding();
+
+    private final SecureRandom random = new SecureRandom();
+    private final int iterations;
+
+    public Pbkdf2PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive: " + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+    @Override
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        byte[] hash = derive(password, salt, iterations, HASH_LENGTH);
+        return PREFIX + iterations + "$" + ENCODING.encode(salt) + "$" + ENCODING.encode(hash);
+    }
+
+    @Override
+    public boolean verify(String password, String hash) {
+        String[] parts = split(hash);
+        if (parts == null) {
+            return false;
+        }
+        byte[] expected = ENCODING.decode(parts[2]);
+        byte[] actual = derive(password, ENCODING.decode(parts[1]), Integer.parseInt(parts[0]), expected.length * 8);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    @Override
+    public boolean supports(String hash) {
+        return split(hash) != null;
+    }
+
+    @Override
+    public boolean needsRehash(String hash) {
+        String[] parts = split(hash);
+        return parts == null || Integer.parseInt(parts[0]) < iterations;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    private static String[] split(String hash) {
+        if (hash == null || !hash.startsWith(PREFIX)) {
+            return null;
+        }
+        String[] parts = hash.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3 || !parts[0].matches("\\d{1,9}")) {
+            return null;
+        }
+        return parts;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations, int length) {
+        try {
+            SecretKeyFactory factory = SecretKeyFactory.getInstance(ALGORITHM);
+            return factory.generateSecret(new PBEKeySpec(password.toCharArray(), salt, iterations, length)).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not supported by the JRE", e);
+        }
+    }
+}
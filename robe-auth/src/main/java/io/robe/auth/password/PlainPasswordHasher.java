@@ -0,0 +1,32 @@
+package io.robe.auth.password;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Legacy hasher which stores the supplied value as is.
+ * Used by clients which send an already hashed password, like the SHA-256 login form of robe-admin.
+ * Kept only to verify old hashes until they are rehashed.
+ */
+public class PlainPasswordHasher implements PasswordHasher {
+
+    @Override
+    public String hash(String password) {
+        return password;
+    }
+
+    @Override
+    public boolean verify(String password, String hash) {
+        return password != null && hash != null && MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), hash.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean supports(String hash) {
+        return hash != null;
+    }
+
+    @Override
+    public boolean needsRehash(String hash) {
+        return false;
+    }
+}
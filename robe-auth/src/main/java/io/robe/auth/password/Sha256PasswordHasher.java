@@ -0,0 +1,32 @@
+package io.robe.auth.password;
+
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Legacy unsalted single pass SHA-256. Kept only to verify old hashes until they are rehashed.
+ */
+public class Sha256PasswordHasher implements PasswordHasher {
+
+    @Override
+    public String hash(String password) {
+        return Hashing.sha256().hashString(password, StandardCharsets.UTF_8).toString();
+    }
+
+    @Override
+    public boolean verify(String password, String hash) {
+        return hash != null && MessageDigest.isEqual(hash(password).getBytes(StandardCharsets.UTF_8), hash.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean supports(String hash) {
+        return hash != null && hash.matches("[0-9a-f]{64}");
+    }
+
+    @Override
+    public boolean needsRehash(String hash) {
+        return false;
+    }
+}
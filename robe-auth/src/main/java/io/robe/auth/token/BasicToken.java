@@ -1,11 +1,17 @@
 package io.robe.auth.token;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.hash.Hashing;
-import com.google.common.io.BaseEncoding;
 import io.robe.auth.Credentials;
+import io.robe.auth.token.cache.GuavaPermissionCache;
+import io.robe.auth.token.cache.InvalidationBus;
+import io.robe.auth.token.cache.LocalInvalidationBus;
+import io.robe.auth.token.cache.PermissionCache;
+import io.robe.auth.token.codec.AesGcmTokenCodec;
+import io.robe.auth.token.codec.JasyptTokenCodec;
+import io.robe.auth.token.codec.TokenCodec;
+import io.robe.auth.token.codec.TokenPayload;
 import io.robe.auth.token.configuration.TokenBasedAuthConfiguration;
+import io.robe.auth.token.jersey.RoutePermissions;
 import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
 import org.joda.time.DateTime;
 
@@ -13,21 +19,19 @@ import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
 /**
- * A basic token implementation. Uses jasypt for encrypt & decrypt operations.
- * Takes all properties from configuration. Uses Guava for permission caching.
+ * A basic token implementation. Uses the configured {@link TokenCodec} for encrypt & decrypt operations.
+ * Takes all properties from configuration. Uses the configured {@link PermissionCache} for permission caching.
  * All cached permission entries will live with token.
  */
 public class BasicToken implements Credentials {
 
-    private static final PooledPBEStringEncryptor encryptor = new PooledPBEStringEncryptor();
-    private static final String SEPARATOR = "--";
+    private static TokenCodec codec = new JasyptTokenCodec();
     private static int defaultMaxAge;
 
-    private static Cache<String, Set<String>> cache;
+    private static PermissionCache cache;
+    private static InvalidationBus invalidationBus;
 
     private String userId;
     private String username;
@@ -61,12 +65,11 @@ public class BasicToken implements Credentials {
      */
     public BasicToken(String tokenString) throws Exception {
         tokenString = tokenString.replaceAll("\"", "");
-        tokenString = new String(BaseEncoding.base16().decode(tokenString));
-        String[] parts = encryptor.decrypt(tokenString).split(SEPARATOR);
-        this.userId = parts[0];
-        this.username = parts[1];
-        this.expireAt = new DateTime(Long.valueOf(parts[2]));
-        this.attributesHash = parts[3];
+        TokenPayload payload = codec.decode(tokenString);
+        this.userId = payload.getUserId();
+        this.username = payload.getUsername();
+        this.expireAt = new DateTime(payload.getExpireAt());
+        this.attributesHash = payload.getAttributesHash();
     }
 
     /**
@@ -75,37 +78,65 @@ public class BasicToken implements Credentials {
      * @param configuration confiuration for auth bundle
      */
     public static void configure(TokenBasedAuthConfiguration configuration) {
-        encryptor.setPoolSize(configuration.getPoolSize());          // This would be a good value for a 4-core system
-        if (configuration.getServerPassword().equals("auto")) {
-            encryptor.setPassword(UUID.randomUUID().toString());
-        } else {
-            encryptor.setPassword(configuration.getServerPassword());
-        }
-        encryptor.setAlgorithm(configuration.getAlgorithm());
-        encryptor.initialize();
+        configure(configuration, new GuavaPermissionCache(configuration), new LocalInvalidationBus());
+    }
+
+    /**
+     * Configure method for Token generation configurations and encryptor configure
+     *
+     * @param configuration   confiuration for auth bundle
+     * @param permissionCache cache for permissions
+     * @param bus             bus which delivers permission invalidations to the cache
+     */
+    public static void configure(TokenBasedAuthConfiguration configuration, PermissionCache permissionCache, InvalidationBus bus) {
+        codec = createCodec(configuration.getCodec());
+        codec.configure(configuration);
         BasicToken.defaultMaxAge = configuration.getMaxage();
 
-        //Create cache for permissions.
-        cache = CacheBuilder.newBuilder()
-                .expireAfterAccess(defaultMaxAge, TimeUnit.SECONDS)
-                .expireAfterWrite(defaultMaxAge, TimeUnit.SECONDS)
-                .build();
+        cache = permissionCache;
+        invalidationBus = bus;
+        invalidationBus.subscribe(username -> {
+            if (username == null) {
+                permissionCache.invalidateAll();
+            } else {
+                permissionCache.invalidate(username);
+            }
+        });
+    }
 
+    /**
+     * Creates codec by the given name. Known names are "jasypt" and "aes-gcm", others are loaded as class names.
+     *
+     * @param name codec name or class name
+     * @return new codec instance
+     */
+    private static TokenCodec createCodec(String name) {
+        if (name == null || name.equalsIgnoreCase("jasypt")) {
+            return new JasyptTokenCodec();
+        } else if (name.equalsIgnoreCase("aes-gcm")) {
+            return new AesGcmTokenCodec();
+        }
+        try {
+            return (TokenCodec) Class.forName(name).newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new RuntimeException("Can't create token codec: " + name, e);
+        }
     }
 
     public static void clearPermissionCache(String username) {
-        cache.invalidate(username);
-        cache.cleanUp();
+        invalidationBus.publish(username);
     }
 
     public static void clearAllPermissionCache() {
-        cache.invalidateAll();
-        cache.cleanUp();
+        invalidationBus.publish(null);
+    }
+
+    public static InvalidationBus getInvalidationBus() {
+        return invalidationBus;
     }
 
     public static Set<String> getCurrentUsernames() {
-        cache.cleanUp();
-        return cache.asMap().keySet();
+        return cache.usernames();
     }
 
 
@@ -135,6 +166,21 @@ public class BasicToken implements Credentials {
         return expireAt.toDate();
     }
 
+    /**
+     * Checks whether remaining lifetime of the token is not above the given percentage of its max age.
+     * 100 renews on every request, 0 never renews a token which is not expired.
+     *
+     * @param thresholdPercent percentage of max age
+     * @return true if token should be re-issued
+     */
+    public boolean isRenewalDue(int thresholdPercent) {
+        if (thresholdPercent <= 0) {
+            return false;
+        }
+        long remaining = expireAt.getMillis() - System.currentTimeMillis();
+        return remaining * 100 <= getMaxAge() * 1000L * thresholdPercent;
+    }
+
     public String getAttributesHash() {
         return attributesHash;
     }
@@ -164,21 +210,7 @@ public class BasicToken implements Credentials {
      * @throws Exception
      */
     private String generateTokenString() throws Exception {
-        //Renew age
-        //Stringify token data
-        StringBuilder dataString = new StringBuilder();
-        dataString
-                .append(getUserId())
-                .append(SEPARATOR)
-                .append(getUsername())
-                .append(SEPARATOR)
-                .append(getExpirationDate().getTime())
-                .append(SEPARATOR)
-                .append(attributesHash);
-
-        // Encrypt token data string
-        String newTokenString = encryptor.encrypt(dataString.toString());
-        newTokenString = BaseEncoding.base16().encode(newTokenString.getBytes());
+        String newTokenString = codec.encode(new TokenPayload(getUserId(), getUsername(), getExpirationDate().getTime(), attributesHash));
         tokenString = newTokenString;
         return newTokenString;
     }
@@ -193,16 +225,17 @@ public class BasicToken implements Credentials {
     }
 
     public Set<String> getPermissions() {
-        return cache.getIfPresent(getUsername());
+        return cache.get(getUsername());
     }
 
     /**
-     * Sets permissions to the cache with current username
+     * Sets permissions to the cache with current username.
+     * Permissions are compacted to a bitset of routes with {@link RoutePermissions}.
      *
      * @param permissions permission list for the current user.
      */
     public void setPermissions(Set<String> permissions) {
-        cache.put(getUsername(), permissions);
+        cache.put(getUsername(), RoutePermissions.of(permissions));
     }
 
     private void resetTokenString() {
@@ -234,7 +267,14 @@ public class BasicToken implements Credentials {
         return "BasicToken";
     }
 
+    public static TokenCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * @return encryptor of the legacy jasypt codec, null if another codec is configured.
+     */
     public static PooledPBEStringEncryptor getEncryptor() {
-        return encryptor;
+        return codec instanceof JasyptTokenCodec ? ((JasyptTokenCodec) codec).getEncryptor() : null;
     }
 }
@@ -6,8 +6,16 @@ import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 import io.robe.auth.Credentials;
 import io.robe.auth.SecurityHeadersFilter;
+import io.robe.auth.password.PasswordService;
+import io.robe.auth.token.cache.GuavaPermissionCache;
+import io.robe.auth.token.cache.InvalidationBus;
+import io.robe.auth.token.cache.LocalInvalidationBus;
+import io.robe.auth.token.cache.PermissionVersionSource;
+import io.robe.auth.token.cache.PollingInvalidationBus;
 import io.robe.auth.token.configuration.HasTokenBasedAuthConfiguration;
 import io.robe.auth.token.configuration.TokenBasedAuthConfiguration;
+import io.robe.auth.token.jersey.RequestToken;
+import io.robe.auth.token.jersey.RouteIndex;
 import io.robe.auth.token.jersey.TokenBasedAuthResponseFilter;
 import io.robe.auth.token.jersey.TokenFactoryProvider;
 import io.robe.auth.token.jersey.TokenFeature;
@@ -25,6 +33,18 @@ public class TokenAuthBundle<T extends Configuration & HasTokenBasedAuthConfigur
     private static final Logger LOGGER = LoggerFactory.getLogger(TokenAuthBundle.class);
     private static final String JCE_SECURITY_CRYPTOGRAPHY_LINK = "http://www.oracle.com/technetwork/java/javase/downloads/jce8-download-2133166.html";
     private TokenBasedAuthConfiguration configuration;
+    private final PermissionVersionSource versionSource;
+
+    public TokenAuthBundle() {
+        this(null);
+    }
+
+    /**
+     * @param versionSource source for detecting permission changes of other nodes. Used if permission cache poll interval is configured.
+     */
+    public TokenAuthBundle(PermissionVersionSource versionSource) {
+        this.versionSource = versionSource;
+    }
 
     /**
      * Initializes the environment.
@@ -39,7 +59,10 @@ public class TokenAuthBundle<T extends Configuration & HasTokenBasedAuthConfigur
         environment.jersey().register(new TokenFactoryProvider.Binder<Credentials>(Credentials.class));
         environment.jersey().register(new TokenBasedAuthResponseFilter(configuration.getAuth()));
         environment.jersey().register(TokenFeature.class);
-        BasicToken.configure(configuration.getAuth());
+        environment.jersey().register(new RouteIndex.Listener());
+        BasicToken.configure(configuration.getAuth(), createPermissionCache(environment), createInvalidationBus(environment));
+        RequestToken.registerMetrics(environment.metrics());
+        environment.lifecycle().manage(PasswordService.configure(configuration.getAuth().getPassword()));
 
         if(configuration.getAuth().getAlgorithm() != null) {
             checkCryptography(this.configuration);
@@ -48,6 +71,22 @@ public class TokenAuthBundle<T extends Configuration & HasTokenBasedAuthConfigur
         environment.jersey().register(new SecurityHeadersFilter(configuration.getAuth()));
     }
 
+    private GuavaPermissionCache createPermissionCache(Environment environment) {
+        GuavaPermissionCache cache = new GuavaPermissionCache(configuration);
+        cache.registerMetrics(environment.metrics());
+        return cache;
+    }
+
+    private InvalidationBus createInvalidationBus(Environment environment) {
+        int pollInterval = configuration.getPermissionCache().getPollInterval();
+        if (versionSource == null || pollInterval < 1) {
+            return new LocalInvalidationBus();
+        }
+        PollingInvalidationBus bus = new PollingInvalidationBus(versionSource, pollInterval);
+        environment.lifecycle().manage(bus);
+        return bus;
+    }
+
     /**
      * Initializes the service bootstrap.
      *
@@ -76,7 +115,7 @@ public class TokenAuthBundle<T extends Configuration & HasTokenBasedAuthConfigur
             throw new RuntimeException(builder.toString(), e);
         } catch (final IllegalAccessException | NoSuchFieldException e) {
             try {
-                if(BasicToken.getEncryptor().isInitialized()) {
+                if(BasicToken.getEncryptor() != null && BasicToken.getEncryptor().isInitialized()) {
                     BasicToken.getEncryptor().encrypt("Sample Data");
                 }
             } catch (EncryptionOperationNotPossibleException ex) {
@@ -0,0 +1,127 @@
+package io.robe.auth.token.cache;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.robe.auth.data.entry.UserEntry;
+import io.robe.auth.data.store.UserStore;
+import io.robe.auth.token.configuration.UserCacheConfiguration;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserStore} decorator which keeps looked up users for a short time.
+ * Missing users are cached too, so unknown usernames do not hit the delegate on every request.
+ * Listens an {@link InvalidationBus}, so blocking or updating a user is visible immediately on this node.
+ */
+public class CachingUserStore implements UserStore, InvalidationBus.Listener {
+
+    private final UserStore delegate;
+    private final Cache<String, Optional<UserEntry>> cache;
+
+    public CachingUserStore(UserStore delegate, UserCacheConfiguration configuration) {
+        this(delegate, configuration, Ticker.systemTicker());
+    }
+
+    CachingUserStore(UserStore delegate, UserCacheConfiguration configuration, Ticker ticker) {
+        this.delegate = delegate;
+        this.cache = CacheBuilder.newBuilder()
+                .ticker(ticker)
+                .expireAfterWrite(configuration.getTtl(), TimeUnit.SECONDS)
+                .maximumSize(configuration.getMaxSize())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Registers hit, miss and size gauges to the given registry.
+     *
+     * @param registry metric registry of the environment
+     */
+    public void registerMetrics(MetricRegistry registry) {
+        registry.register(MetricRegistry.name(CachingUserStore.class, "hits"), (Gauge<Long>) () -> cache.stats().hitCount());
+        registry.register(MetricRegistry.name(CachingUserStore.class, "misses"), (Gauge<Long>) () -> cache.stats().missCount());
+        registry.register(MetricRegistry.name(CachingUserStore.class, "size"), (Gauge<Long>) cache::size);
+    }
+
+    @Override
+    public Optional<? extends UserEntry> findByUsername(String username) {
+        try {
+            return cache.get(username, () -> load(username));
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public Optional<? extends UserEntry> changePassword(String username, String newPassword) {
+        Optional<? extends UserEntry> user = delegate.changePassword(username, newPassword);
+        cache.invalidate(username);
+        return user;
+    }
+
+    @Override
+    public void onInvalidate(String username) {
+        if (username == null) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(username);
+        }
+    }
+
+    private Optional<UserEntry> load(String username) {
+        Optional<? extends UserEntry> user = delegate.findByUsername(username);
+        if (!user.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(new CachedUser(user.get()));
+    }
+
+    /**
+     * Detached copy of a {@link UserEntry}.
+     */
+    private static final class CachedUser implements UserEntry {
+        private final boolean active;
+        private final String userId;
+        private final String username;
+        private final String password;
+        private final String roleId;
+
+        private CachedUser(UserEntry entry) {
+            this.active = entry.isActive();
+            this.userId = entry.getUserId();
+            this.username = entry.getUsername();
+            this.password = entry.getPassword();
+            this.roleId = entry.getRoleId();
+        }
+
+        @Override
+        public boolean isActive() {
+            return active;
+        }
+
+        @Override
+        public String getUserId() {
+            return userId;
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public String getPassword() {
+            return password;
+        }
+
+        @Override
+        public String getRoleId() {
+            return roleId;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.robe.auth.token.cache;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.robe.auth.token.configuration.PermissionCacheConfiguration;
+import io.robe.auth.token.configuration.TokenBasedAuthConfiguration;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-process {@link PermissionCache}. Limits by user count or by total permission count
+ * and expires entries with the token max age.
+ */
+public class GuavaPermissionCache implements PermissionCache {
+
+    private final Cache<String, Set<String>> cache;
+
+    public GuavaPermissionCache(TokenBasedAuthConfiguration configuration) {
+        PermissionCacheConfiguration cacheConfiguration = configuration.getPermissionCache();
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .expireAfterAccess(configuration.getMaxage(), TimeUnit.SECONDS)
+                .expireAfterWrite(configuration.getMaxage(), TimeUnit.SECONDS)
+                .recordStats();
+        if (cacheConfiguration.getMaxWeight() > 0) {
+            builder.maximumWeight(cacheConfiguration.getMaxWeight())
+                    .weigher((String username, Set<String> permissions) -> permissions.size() + 1);
+        } else {
+            builder.maximumSize(cacheConfiguration.getMaxSize());
+        }
+        cache = builder.build();
+    }
+
+    /**
+     * Registers hit, miss, eviction and size gauges to the given registry.
+     *
+     * @param registry metric registry of the environment
+     */
+    public void registerMetrics(MetricRegistry registry) {
+        registry.register(MetricRegistry.name(PermissionCache.class, "hits"), (Gauge<Long>) () -> cache.stats().hitCount());
+        registry.register(MetricRegistry.name(PermissionCache.class, "misses"), (Gauge<Long>) () -> cache.stats().missCount());
+        registry.register(MetricRegistry.name(PermissionCache.class, "evictions"), (Gauge<Long>) () -> cache.stats().evictionCount());
+        registry.register(MetricRegistry.name(PermissionCache.class, "size"), (Gauge<Long>) cache::size);
+    }
+
+    @Override
+    public Set<String> get(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    @Override
+    public void put(String username, Set<String> permissions) {
+        cache.put(username, permissions);
+    }
+
+    @Override
+    public void invalidate(String username) {
+        cache.invalidate(username);
+        cache.cleanUp();
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+        cache.cleanUp();
+    }
+
+    @Override
+    public Set<String> usernames() {
+        cache.cleanUp();
+        return cache.asMap().keySet();
+    }
+}
@@ -0,0 +1,25 @@
+package io.robe.auth.token.cache;
+
+/**
+ * Delivers permission invalidations to the subscribed caches.
+ * Implementations may also carry invalidations to the other nodes of a cluster.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Publishes an invalidation.
+     *
+     * @param username user to invalidate, null invalidates all users
+     */
+    void publish(String username);
+
+    void subscribe(Listener listener);
+
+    @FunctionalInterface
+    interface Listener {
+        /**
+         * @param username invalidated user, null if all users are invalidated
+         */
+        void onInvalidate(String username);
+    }
+}
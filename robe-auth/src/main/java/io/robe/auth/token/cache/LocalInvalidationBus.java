@@ -0,0 +1,24 @@
+package io.robe.auth.token.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-JVM bus. Delivers invalidations synchronously to the listeners of the current node only.
+ */
+public class LocalInvalidationBus implements InvalidationBus {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String username) {
+        for (Listener listener : listeners) {
+            listener.onInvalidate(username);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+}
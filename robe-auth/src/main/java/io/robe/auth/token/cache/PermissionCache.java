@@ -0,0 +1,27 @@
+package io.robe.auth.token.cache;
+
+import java.util.Set;
+
+/**
+ * Cache of resolved service permissions keyed by username.
+ * Implementations must be thread safe.
+ */
+public interface PermissionCache {
+
+    /**
+     * @param username owner of the permissions
+     * @return cached permissions, null if absent
+     */
+    Set<String> get(String username);
+
+    void put(String username, Set<String> permissions);
+
+    void invalidate(String username);
+
+    void invalidateAll();
+
+    /**
+     * @return usernames which have live entries
+     */
+    Set<String> usernames();
+}
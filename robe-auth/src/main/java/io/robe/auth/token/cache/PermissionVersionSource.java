@@ -0,0 +1,11 @@
+package io.robe.auth.token.cache;
+
+/**
+ * Provides a version of the stored permissions. Version must change whenever a permission related row is inserted,
+ * updated or deleted. Used by {@link PollingInvalidationBus} to detect changes made by other nodes.
+ */
+@FunctionalInterface
+public interface PermissionVersionSource {
+
+    long getVersion();
+}
@@ -0,0 +1,69 @@
+package io.robe.auth.token.cache;
+
+import io.dropwizard.lifecycle.Managed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster safe bus without outside services. Local invalidations are delivered immediately,
+ * changes of other nodes are detected by polling the {@link PermissionVersionSource} and invalidate all users.
+ */
+public class PollingInvalidationBus extends LocalInvalidationBus implements Managed {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PollingInvalidationBus.class);
+
+    private final PermissionVersionSource source;
+    private final int interval;
+    private ScheduledExecutorService executor;
+    private Long version;
+
+    /**
+     * @param source   version source of the stored permissions
+     * @param interval seconds between polls
+     */
+    public PollingInvalidationBus(PermissionVersionSource source, int interval) {
+        this.source = source;
+        this.interval = interval;
+    }
+
+    /**
+     * Takes the baseline version before the first interval, so changes committed after the start are not missed.
+     */
+    @Override
+    public void start() throws Exception {
+        poll();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "permission-invalidation-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the current version and invalidates all users if it differs from the previous one.
+     */
+    void poll() {
+        try {
+            long current = source.getVersion();
+            if (version != null && version != current) {
+                LOGGER.debug("Permission version changed, invalidating all permissions.");
+                publish(null);
+            }
+            version = current;
+        } catch (Exception e) {
+            LOGGER.warn("Permission version poll failed", e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.robe.auth.token.codec;
+
+import com.google.common.io.BaseEncoding;
+import io.robe.auth.token.configuration.TokenBasedAuthConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Authenticated codec which encrypts tokens with AES-GCM.
+ * The key is derived once from the server password and the server salt at {@link #configure(TokenBasedAuthConfiguration)},
+ * so encode and decode costs a single AES pass instead of a password based key derivation.
+ * Nodes which share tokens must share both of them, a random salt is used if it is not configured.
+ * <p>
+ * Layout before base64url encoding: {@code version(1) | iv(12) | ciphertext | tag(16)}<br/>
+ * Plain text layout: {@code userId(utf) | username(utf) | expireAt(long) | attributesHash(byte length + bytes)}
+ */
+public class AesGcmTokenCodec implements TokenCodec {
+
+    private static final byte VERSION = 1;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final int KEY_LENGTH = 128;
+    private static final int KEY_ITERATIONS = 65536;
+    private static final int SALT_LENGTH = 16;
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+    private static final BaseEncoding HASH_ENCODING = BaseEncoding.base16().lowerCase();
+    private static final Logger LOGGER = LoggerFactory.getLogger(AesGcmTokenCodec.class);
+
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(TRANSFORMATION + " is not supported by the JRE", e);
+        }
+    });
+
+    private SecretKey key;
+
+    @Override
+    public void configure(TokenBasedAuthConfiguration configuration) {
+        String password = configuration.getServerPassword();
+        boolean autoPassword = password == null || password.equals("auto");
+        if (autoPassword) {
+            password = UUID.randomUUID().toString();
+        }
+        byte[] salt;
+        String serverSalt = configuration.getServerSalt();
+        if (serverSalt == null || serverSalt.equals("auto")) {
+            if (!autoPassword) {
+                LOGGER.warn("serverSalt is not configured, tokens of this server can not be read by the other nodes.");
+            }
+            salt = new byte[SALT_LENGTH];
+            random.nextBytes(salt);
+        } else {
+            salt = serverSalt.getBytes(StandardCharsets.UTF_8);
+            if (salt.length < SALT_LENGTH) {
+                throw new IllegalArgumentException("serverSalt must be at least " + SALT_LENGTH + " characters");
+            }
+        }
+        try {
+            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            byte[] encoded = factory.generateSecret(new PBEKeySpec(password.toCharArray(), salt, KEY_ITERATIONS, KEY_LENGTH)).getEncoded();
+            key = new SecretKeySpec(encoded, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Token key derivation failed", e);
+        }
+    }
+
+    @Override
+    public String encode(TokenPayload payload) throws Exception {
+        byte[] plain = write(payload);
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+
+        Cipher cipher = ciphers.get();
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, iv));
+        cipher.updateAAD(new byte[]{VERSION});
+
+        byte[] token = new byte[1 + IV_LENGTH + cipher.getOutputSize(plain.length)];
+        token[0] = VERSION;
+        System.arraycopy(iv, 0, token, 1, IV_LENGTH);
+        cipher.doFinal(plain, 0, plain.length, token, 1 + IV_LENGTH);
+        return ENCODING.encode(token);
+    }
+
+    @Override
+    public TokenPayload decode(String tokenString) throws Exception {
+        byte[] token = ENCODING.decode(tokenString);
+        // Shorter ciphertexts than the tag fail with a provider exception instead of a bad tag on some JREs.
+        if (token.length < 1 + IV_LENGTH + TAG_LENGTH / 8 || token[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported token format");
+        }
+        Cipher cipher = ciphers.get();
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH, token, 1, IV_LENGTH));
+        cipher.updateAAD(token, 0, 1);
+        byte[] plain = cipher.doFinal(token, 1 + IV_LENGTH, token.length - 1 - IV_LENGTH);
+        return read(plain);
+    }
+
+    private static byte[] write(TokenPayload payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(payload.getUserId());
+        out.writeUTF(payload.getUsername());
+        out.writeLong(payload.getExpireAt());
+        byte[] hash = HASH_ENCODING.decode(payload.getAttributesHash());
+        out.writeByte(hash.length);
+        out.write(hash);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static TokenPayload read(byte[] plain) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain));
+        String userId = in.readUTF();
+        String username = in.readUTF();
+        long expireAt = in.readLong();
+        byte[] hash = new byte[in.readUnsignedByte()];
+        in.readFully(hash);
+        return new TokenPayload(userId, username, expireAt, HASH_ENCODING.encode(hash));
+    }
+}
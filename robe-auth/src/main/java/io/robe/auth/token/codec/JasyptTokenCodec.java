@@ -0,0 +1,59 @@
+package io.robe.auth.token.codec;
+
+import com.google.common.io.BaseEncoding;
+import io.robe.auth.token.configuration.TokenBasedAuthConfiguration;
+import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+
+import java.util.UUID;
+
+/**
+ * Legacy codec. Uses jasypt password based encryption and base16 encoding.
+ * Password based ciphers derive the key on every operation, so prefer {@link AesGcmTokenCodec} for new deployments.
+ */
+public class JasyptTokenCodec implements TokenCodec {
+
+    private static final String SEPARATOR = "--";
+
+    private final PooledPBEStringEncryptor encryptor = new PooledPBEStringEncryptor();
+
+    @Override
+    public void configure(TokenBasedAuthConfiguration configuration) {
+        encryptor.setPoolSize(configuration.getPoolSize());          // This would be a good value for a 4-core system
+        if (configuration.getServerPassword().equals("auto")) {
+            encryptor.setPassword(UUID.randomUUID().toString());
+        } else {
+            encryptor.setPassword(configuration.getServerPassword());
+        }
+        encryptor.setAlgorithm(configuration.getAlgorithm());
+        encryptor.initialize();
+    }
+
+    @Override
+    public String encode(TokenPayload payload) throws Exception {
+        //Stringify token data
+        StringBuilder dataString = new StringBuilder();
+        dataString
+                .append(payload.getUserId())
+                .append(SEPARATOR)
+                .append(payload.getUsername())
+                .append(SEPARATOR)
+                .append(payload.getExpireAt())
+                .append(SEPARATOR)
+                .append(payload.getAttributesHash());
+
+        // Encrypt token data string
+        String tokenString = encryptor.encrypt(dataString.toString());
+        return BaseEncoding.base16().encode(tokenString.getBytes());
+    }
+
+    @Override
+    public TokenPayload decode(String tokenString) throws Exception {
+        tokenString = new String(BaseEncoding.base16().decode(tokenString));
+        String[] parts = encryptor.decrypt(tokenString).split(SEPARATOR);
+        return new TokenPayload(parts[0], parts[1], Long.valueOf(parts[2]), parts[3]);
+    }
+
+    public PooledPBEStringEncryptor getEncryptor() {
+        return encryptor;
+    }
+}
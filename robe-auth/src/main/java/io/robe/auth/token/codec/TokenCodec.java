@@ -0,0 +1,31 @@
+package io.robe.auth.token.codec;
+
+import io.robe.auth.token.configuration.TokenBasedAuthConfiguration;
+
+/**
+ * Encodes a {@link TokenPayload} to a cookie safe token string and decodes it back.
+ * Implementations must be thread safe, a single instance serves all requests.
+ */
+public interface TokenCodec {
+
+    /**
+     * Prepares keys and ciphers. Called once while the auth bundle is starting.
+     *
+     * @param configuration configuration of the auth bundle
+     */
+    void configure(TokenBasedAuthConfiguration configuration);
+
+    /**
+     * @param payload token content
+     * @return encrypted and encoded token string
+     * @throws Exception in case of failing encryption
+     */
+    String encode(TokenPayload payload) throws Exception;
+
+    /**
+     * @param tokenString encoded token string
+     * @return decrypted token content
+     * @throws Exception in case of a corrupted, tampered or foreign token
+     */
+    TokenPayload decode(String tokenString) throws Exception;
+}
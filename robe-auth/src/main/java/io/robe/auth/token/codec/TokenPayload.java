@@ -0,0 +1,38 @@
+package io.robe.auth.token.codec;
+
+/**
+ * Immutable plain content of a token. Codecs encode and decode this content to and from the cookie value.
+ */
+public class TokenPayload {
+
+    private final String userId;
+    private final String username;
+    private final long expireAt;
+    private final String attributesHash;
+
+    public TokenPayload(String userId, String username, long expireAt, String attributesHash) {
+        this.userId = userId;
+        this.username = username;
+        this.expireAt = expireAt;
+        this.attributesHash = attributesHash;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * @return expiration time of the token in epoch milliseconds.
+     */
+    public long getExpireAt() {
+        return expireAt;
+    }
+
+    public String getAttributesHash() {
+        return attributesHash;
+    }
+}
@@ -0,0 +1,40 @@
+package io.robe.auth.token.configuration;
+
+public class PasswordConfiguration {
+
+    private String algorithm = "pbkdf2";
+
+    private int iterations = 210000;
+
+    private int verifyThreads = 0;
+
+    private int verifyQueue = 64;
+
+    /**
+     * @return "pbkdf2" or a class name of a custom {@link io.robe.auth.password.PasswordHasher}.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return work factor of the hasher.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return number of threads which verify passwords. 0 verifies on the request thread.
+     */
+    public int getVerifyThreads() {
+        return verifyThreads;
+    }
+
+    /**
+     * @return maximum number of verifications waiting for a thread. Logins over this limit are rejected.
+     */
+    public int getVerifyQueue() {
+        return verifyQueue;
+    }
+}
@@ -0,0 +1,31 @@
+package io.robe.auth.token.configuration;
+
+public class PermissionCacheConfiguration {
+
+    private long maxSize = 10000;
+
+    private long maxWeight = 0;
+
+    private int pollInterval = 0;
+
+    /**
+     * @return maximum number of cached users. Used when maxWeight is not set.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return maximum total number of cached permissions of all users. 0 disables weight limit.
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * @return seconds between permission change polls on the database. 0 disables polling.
+     */
+    public int getPollInterval() {
+        return pollInterval;
+    }
+}
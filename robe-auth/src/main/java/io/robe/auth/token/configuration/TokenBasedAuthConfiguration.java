@@ -18,6 +18,18 @@ public class TokenBasedAuthConfiguration {
 
     private String serverPassword;
 
+    private String serverSalt;
+
+    private String codec = "jasypt";
+
+    private int renewThreshold = 100;
+
+    private PermissionCacheConfiguration permissionCache = new PermissionCacheConfiguration();
+
+    private UserCacheConfiguration userCache = new UserCacheConfiguration();
+
+    private PasswordConfiguration password = new PasswordConfiguration();
+
 
     public String getTokenKey() {
         return tokenKey;
@@ -50,4 +62,37 @@ public class TokenBasedAuthConfiguration {
     public String getServerPassword() {
         return serverPassword;
     }
+
+    /**
+     * @return salt of the "aes-gcm" key derivation, at least 16 characters. "auto" or null for a random salt per server.
+     */
+    public String getServerSalt() {
+        return serverSalt;
+    }
+
+    /**
+     * @return codec of the token cookie. "jasypt" (legacy), "aes-gcm" or a fully qualified {@link io.robe.auth.token.codec.TokenCodec} class name.
+     */
+    public String getCodec() {
+        return codec;
+    }
+
+    /**
+     * @return percentage of max-age. Token is re-issued only when remaining lifetime is less than this percentage. 100 re-issues on every response.
+     */
+    public int getRenewThreshold() {
+        return renewThreshold;
+    }
+
+    public PermissionCacheConfiguration getPermissionCache() {
+        return permissionCache;
+    }
+
+    public UserCacheConfiguration getUserCache() {
+        return userCache;
+    }
+
+    public PasswordConfiguration getPassword() {
+        return password;
+    }
 }
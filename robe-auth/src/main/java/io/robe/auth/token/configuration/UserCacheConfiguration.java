@@ -0,0 +1,22 @@
+package io.robe.auth.token.configuration;
+
+public class UserCacheConfiguration {
+
+    private int ttl = 0;
+
+    private long maxSize = 10000;
+
+    /**
+     * @return seconds to keep a looked up user. 0 disables the cache.
+     */
+    public int getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @return maximum number of cached users.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+}
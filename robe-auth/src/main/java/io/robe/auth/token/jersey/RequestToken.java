@@ -0,0 +1,100 @@
+package io.robe.auth.token.jersey;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import io.robe.auth.token.BasicToken;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.Cookie;
+
+/**
+ * Request scoped holder of the decoded auth token.
+ * It is stored as a {@link ContainerRequestContext} property, so {@link TokenFactory} and
+ * {@link TokenBasedAuthResponseFilter} share a single decode of the token cookie per request.
+ */
+public final class RequestToken {
+
+    /**
+     * Property name of the holder at {@link ContainerRequestContext}.
+     */
+    public static final String PROPERTY = RequestToken.class.getName();
+
+    private static Meter decodes = new Meter();
+    private static Meter decodesAvoided = new Meter();
+
+    private final String tokenString;
+    private final BasicToken token;
+    private final Exception failure;
+
+    private RequestToken(String tokenString, BasicToken token, Exception failure) {
+        this.tokenString = tokenString;
+        this.token = token;
+        this.failure = failure;
+    }
+
+    /**
+     * Registers decode meters to the given registry.
+     *
+     * @param registry metric registry of the environment
+     */
+    public static void registerMetrics(MetricRegistry registry) {
+        decodes = registry.meter(MetricRegistry.name(RequestToken.class, "decodes"));
+        decodesAvoided = registry.meter(MetricRegistry.name(RequestToken.class, "decodes-avoided"));
+    }
+
+    /**
+     * Returns the holder of the current request. Decodes the token cookie only on the first call.
+     *
+     * @param request  current request
+     * @param tokenKey name of the token cookie
+     * @return holder of the current request, never null
+     */
+    public static RequestToken get(ContainerRequestContext request, String tokenKey) {
+        Object holder = request.getProperty(PROPERTY);
+        if (holder != null) {
+            decodesAvoided.mark();
+            return (RequestToken) holder;
+        }
+        Cookie cookie = request.getCookies().get(tokenKey);
+        RequestToken requestToken = decode(cookie == null ? null : cookie.getValue());
+        request.setProperty(PROPERTY, requestToken);
+        return requestToken;
+    }
+
+    private static RequestToken decode(String tokenString) {
+        if (tokenString == null || tokenString.isEmpty()) {
+            return new RequestToken(tokenString, null, null);
+        }
+        decodes.mark();
+        try {
+            return new RequestToken(tokenString, new BasicToken(tokenString), null);
+        } catch (Exception e) {
+            return new RequestToken(tokenString, null, e);
+        }
+    }
+
+    /**
+     * @return raw cookie value, null if cookie is not present.
+     */
+    public String getTokenString() {
+        return tokenString;
+    }
+
+    /**
+     * @return decoded token, null if cookie is not present or failed to decode.
+     */
+    public BasicToken getToken() {
+        return token;
+    }
+
+    /**
+     * @return decode failure, null if decode succeeded or nothing decoded.
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public boolean isPresent() {
+        return tokenString != null && !tokenString.isEmpty();
+    }
+}
@@ -0,0 +1,143 @@
+package io.robe.auth.token.jersey;
+
+import org.glassfish.jersey.server.model.Resource;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.model.ResourceModel;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every resource method of the application a dense integer id.
+ * Keys are in the same "path:METHOD" format with the service permissions, so permission sets can be
+ * compacted to bitsets of route ids (see {@link RoutePermissions}).
+ * <p>
+ * Index is built once by {@link Listener} when Jersey finishes initialization.
+ */
+public final class RouteIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RouteIndex.class);
+
+    private static volatile Map<String, Integer> ids = Collections.emptyMap();
+    private static volatile List<String> keys = Collections.emptyList();
+    private static final Map<ResourceMethod, Integer> methodIds = new ConcurrentHashMap<>();
+
+    private RouteIndex() {
+    }
+
+    /**
+     * Assigns ids to all resource methods of the model.
+     *
+     * @param model resource model of the application
+     */
+    public static synchronized void build(ResourceModel model) {
+        Map<String, Integer> newIds = new HashMap<>();
+        List<String> newKeys = new ArrayList<>();
+        for (Resource resource : model.getResources()) {
+            collect(resource, newIds, newKeys);
+        }
+        methodIds.clear();
+        keys = Collections.unmodifiableList(newKeys);
+        ids = Collections.unmodifiableMap(newIds);
+        LOGGER.info("Route index built with " + newKeys.size() + " routes");
+    }
+
+    private static void collect(Resource resource, Map<String, Integer> newIds, List<String> newKeys) {
+        for (ResourceMethod method : resource.getResourceMethods()) {
+            String key = keyOf(method);
+            if (!newIds.containsKey(key)) {
+                newIds.put(key, newKeys.size());
+                newKeys.add(key);
+            }
+        }
+        for (Resource child : resource.getChildResources()) {
+            collect(child, newIds, newKeys);
+        }
+    }
+
+    /**
+     * Merges path templates of the method and its parent resources with the HTTP method.
+     *
+     * @param method resource method
+     * @return key of the method as "path:METHOD"
+     */
+    public static String keyOf(ResourceMethod method) {
+        StringBuilder path = new StringBuilder();
+        for (Resource resource = method.getParent(); resource != null; resource = resource.getParent()) {
+            if (resource.getPathPattern() != null) {
+                path.insert(0, resource.getPathPattern().getTemplate().getTemplate());
+            }
+        }
+        return path.append(":").append(method.getHttpMethod()).toString();
+    }
+
+    /**
+     * @param key route key as "path:METHOD"
+     * @return id of the route, -1 if not indexed
+     */
+    public static int idOf(String key) {
+        Integer id = ids.get(key);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Resolves the id of the matched method. Key of a method is computed only on its first lookup.
+     *
+     * @param method matched resource method
+     * @return id of the route, -1 if not indexed
+     */
+    public static int idOf(ResourceMethod method) {
+        if (method == null) {
+            return -1;
+        }
+        Integer id = methodIds.get(method);
+        if (id == null) {
+            id = idOf(keyOf(method));
+            methodIds.put(method, id);
+        }
+        return id;
+    }
+
+    /**
+     * @param id route id
+     * @return key of the route
+     */
+    public static String keyOf(int id) {
+        return keys.get(id);
+    }
+
+    /**
+     * @return number of indexed routes, 0 if not built
+     */
+    public static int size() {
+        return keys.size();
+    }
+
+    /**
+     * Builds the index when application is initialized.
+     */
+    public static class Listener implements ApplicationEventListener {
+
+        @Override
+        public void onEvent(ApplicationEvent event) {
+            if (event.getType() == ApplicationEvent.Type.INITIALIZATION_FINISHED) {
+                build(event.getResourceModel());
+            }
+        }
+
+        @Override
+        public RequestEventListener onRequest(RequestEvent requestEvent) {
+            return null;
+        }
+    }
+}
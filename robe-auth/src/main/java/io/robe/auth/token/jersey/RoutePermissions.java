@@ -0,0 +1,95 @@
+package io.robe.auth.token.jersey;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Immutable permission set which holds the permitted routes of {@link RouteIndex} as a bitset.
+ * Permissions which are not routes of this application are kept as strings.
+ */
+public final class RoutePermissions extends AbstractSet<String> {
+
+    private final BitSet routes;
+    private final Set<String> others;
+
+    private RoutePermissions(BitSet routes, Set<String> others) {
+        this.routes = routes;
+        this.others = others;
+    }
+
+    /**
+     * Compacts the given permissions. Returns them as is if the route index is not built yet.
+     *
+     * @param permissions permissions as "path:METHOD"
+     * @return compacted permissions
+     */
+    public static Set<String> of(Set<String> permissions) {
+        if (permissions == null || permissions instanceof RoutePermissions || RouteIndex.size() == 0) {
+            return permissions;
+        }
+        BitSet routes = new BitSet(RouteIndex.size());
+        Set<String> others = new HashSet<>();
+        for (String permission : permissions) {
+            int id = RouteIndex.idOf(permission);
+            if (id < 0) {
+                others.add(permission);
+            } else {
+                routes.set(id);
+            }
+        }
+        return new RoutePermissions(routes, others.isEmpty() ? Collections.emptySet() : others);
+    }
+
+    /**
+     * @param routeId id from {@link RouteIndex}
+     * @return true if route is permitted
+     */
+    public boolean permits(int routeId) {
+        return routes.get(routeId);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        int id = RouteIndex.idOf((String) o);
+        return id < 0 ? others.contains(o) : routes.get(id);
+    }
+
+    @Override
+    public int size() {
+        return routes.cardinality() + others.size();
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        Iterator<String> rest = others.iterator();
+        return new Iterator<String>() {
+            private int next = routes.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0 || rest.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (next >= 0) {
+                    String key = RouteIndex.keyOf(next);
+                    next = routes.nextSetBit(next + 1);
+                    return key;
+                }
+                if (!rest.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return rest.next();
+            }
+        };
+    }
+}
@@ -20,6 +20,7 @@ public class TokenBasedAuthResponseFilter implements ContainerResponseFilter {
     private static final Logger LOGGER = LoggerFactory.getLogger(TokenBasedAuthResponseFilter.class);
     private static String tokenKey;
     private static String cookieSentence = "";
+    private final int renewThreshold;
 
 
     /**
@@ -29,6 +30,7 @@ public class TokenBasedAuthResponseFilter implements ContainerResponseFilter {
      */
     public TokenBasedAuthResponseFilter(TokenBasedAuthConfiguration configuration) {
         this.tokenKey = configuration.getTokenKey();
+        this.renewThreshold = configuration.getRenewThreshold();
         String domain = configuration.getDomain();
         String path = configuration.getPath();
         if (configuration.getMaxage() > 0l)
@@ -61,7 +63,7 @@ public class TokenBasedAuthResponseFilter implements ContainerResponseFilter {
 
     /**
      * Checks the expiration date of token.
-     * Renews and puts at header of response.
+     * Renews and puts at header of response if remaining lifetime is below the renew threshold.
      *
      * @param requestContext
      * @param responseContext
@@ -69,10 +71,13 @@ public class TokenBasedAuthResponseFilter implements ContainerResponseFilter {
      */
     @Override
     public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
-        String authToken = extractAuthTokenFromCookieList(requestContext.getHeaders().getFirst("Cookie"));
-        if (authToken != null && authToken.length() != 0) {
+        RequestToken requestToken = RequestToken.get(requestContext, tokenKey);
+        if (requestToken.isPresent()) {
             try {
-                BasicToken token = new BasicToken(authToken);
+                if (requestToken.getToken() == null) {
+                    throw requestToken.getFailure();
+                }
+                BasicToken token = requestToken.getToken();
                 if (token.isExpired()) {
                     LOGGER.debug("ExpireDate : " + token.getExpirationDate().toString());
                     LOGGER.debug("Now: " + DateTime.now().toDate().toString());
@@ -80,7 +85,7 @@ public class TokenBasedAuthResponseFilter implements ContainerResponseFilter {
                     responseContext.setStatusInfo(Response.Status.UNAUTHORIZED);
                     responseContext.setEntity("Token expired. Please login again.");
                     LOGGER.info("Token expired. Please login again.");
-                } else {
+                } else if (token.isRenewalDue(renewThreshold)) {
                     token.setExpiration(token.getMaxAge());
                     if (!"authentication/logout".equals(requestContext.getUriInfo().getPath())) {
                         String cookie = getTokenSentence(token);
@@ -96,25 +101,4 @@ public class TokenBasedAuthResponseFilter implements ContainerResponseFilter {
         }
     }
 
-
-
-    /**
-     * Extracts the accesstoken from cookies
-     *
-     * @param cookieList
-     * @return
-     */
-    private String extractAuthTokenFromCookieList(String cookieList) {
-        if (cookieList == null || cookieList.length() == 0) {
-            return null;
-        }
-        String[] cookies = cookieList.split(";");
-        for (String cookie : cookies) {
-            if (cookie.trim().startsWith(tokenKey)) {
-                return cookie.trim().substring(tokenKey.length() + 1);
-            }
-        }
-        return null;
-    }
-
 }
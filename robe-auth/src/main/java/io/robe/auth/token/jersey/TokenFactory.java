@@ -5,18 +5,21 @@ import io.dropwizard.auth.AuthenticationException;
 import io.dropwizard.auth.Authenticator;
 import io.robe.auth.Credentials;
 import io.robe.auth.token.BasicToken;
+import io.robe.auth.token.TokenAuthenticator;
+import org.glassfish.jersey.server.ExtendedUriInfo;
 import org.glassfish.jersey.server.internal.inject.AbstractContainerRequestValueFactory;
+import org.glassfish.jersey.server.model.ResourceMethod;
 import org.glassfish.jersey.uri.UriTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.WebApplicationException;
-import javax.ws.rs.core.Cookie;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public class TokenFactory<T extends BasicToken> extends AbstractContainerRequestValueFactory<Credentials> {
     private static final Logger LOGGER = LoggerFactory.getLogger(TokenFactory.class);
@@ -76,22 +79,20 @@ public class TokenFactory<T extends BasicToken> extends AbstractContainerRequest
 
     @Override
     public Credentials provide() {
-        Cookie tokenCookie = getContainerRequest().getCookies().get(tokenKey);
+        RequestToken requestToken = RequestToken.get(getContainerRequest(), tokenKey);
         if (isRequired()) {
-            if (tokenCookie == null) {
-                throw unauthorized();
-            } else if (nullOrEmpty(tokenCookie.getValue())) {
+            if (!requestToken.isPresent()) {
                 throw unauthorized();
             } else {
                 try {
-                    if (!isRealOwnerOfToken(tokenCookie)) {
+                    if (!isRealOwnerOfToken(requestToken)) {
                         throw unauthorized();
                     }
-                    Optional<BasicToken> result = authenticator.authenticate(tokenCookie.getValue());
+                    Optional<BasicToken> result = authenticate(requestToken);
 
                     if (!result.isPresent()) {
                         throw unauthorized();
-                    } else if (!isAuthorized(result.get(), getContainerRequest().getUriInfo().getMatchedTemplates(), getContainerRequest().getMethod())) {
+                    } else if (!isAuthorized(result.get(), getContainerRequest().getUriInfo())) {
                         throw new WebApplicationException(Response.Status.FORBIDDEN);
                     } else {
                         return result.get();
@@ -105,11 +106,11 @@ public class TokenFactory<T extends BasicToken> extends AbstractContainerRequest
                 }
             }
         } else {
-            if (tokenCookie == null) {
+            if (requestToken.getTokenString() == null) {
                 return createEmptyCredentials();
             } else {
                 try {
-                    Optional<BasicToken> result = authenticator.authenticate(tokenCookie.getValue());
+                    Optional<BasicToken> result = authenticate(requestToken);
                     if (result.isPresent()) {
                         return result.get();
                     } else {
@@ -124,38 +125,72 @@ public class TokenFactory<T extends BasicToken> extends AbstractContainerRequest
         }
     }
 
-    private boolean isRealOwnerOfToken(Cookie tokenCookie) throws Exception {
-        LOGGER.debug("HttpContext : " + this.getContainerRequest().getPath(true) + " Cookie : " + tokenCookie);
-        BasicToken token = new BasicToken(tokenCookie.getValue());
+    /**
+     * Authenticates the decoded token of the request if the authenticator supports it, otherwise the raw token string.
+     *
+     * @param requestToken token holder of the request
+     * @return authenticated token
+     * @throws AuthenticationException if authenticator fails
+     */
+    private Optional<BasicToken> authenticate(RequestToken requestToken) throws AuthenticationException {
+        if (authenticator instanceof TokenAuthenticator) {
+            if (requestToken.getToken() == null) {
+                return Optional.empty();
+            }
+            return ((TokenAuthenticator) authenticator).authenticate(requestToken.getToken());
+        }
+        return authenticator.authenticate(requestToken.getTokenString());
+    }
+
+    private boolean isRealOwnerOfToken(RequestToken requestToken) throws Exception {
+        LOGGER.debug("HttpContext : " + this.getContainerRequest().getPath(true) + " Cookie : " + requestToken.getTokenString());
+        if (requestToken.getToken() == null) {
+            throw requestToken.getFailure();
+        }
         String hash = generateAttributesHash();
-        return hash.equals(token.getAttributesHash());
+        return hash.equals(requestToken.getToken().getAttributesHash());
 
     }
 
-    private boolean nullOrEmpty(String token) {
-        return token == null || token.length() == 0;
-    }
 
+    /**
+     * Checks the permission of the matched resource method of the request.
+     *
+     * @param token   for checking permission list
+     * @param uriInfo uri info of the request which holds the matched method and templates
+     * @return true if user is Authorized.
+     */
+    private boolean isAuthorized(BasicToken token, ExtendedUriInfo uriInfo) {
+        return isAuthorized(token.getPermissions(), uriInfo.getMatchedResourceMethod(), uriInfo.getMatchedTemplates(), getContainerRequest().getMethod());
+    }
 
     /**
-     * Merges all path patterns and and creates a single string value which will be equal with service methods path
-     * annotation value and HTTP method type. Generated string will be used for permission checks.
+     * If the permissions are compacted by {@link RoutePermissions} and the method is indexed it is a single bit test,
+     * otherwise all path patterns are merged to a single string value which will be equal with service methods
+     * path annotation value and HTTP method type.
      *
-     * @param token            for checking permission list
-     * @param matchedTemplates matched templates of context. They will be merged with reverse order
-     * @param method           HTTP Method of the request. Will be merged with
+     * @param permissions permissions of the user
+     * @param method      matched resource method, may be null
+     * @param templates   matched templates, from the method to the root resource
+     * @param httpMethod  HTTP method of the request
      * @return true if user is Authorized.
      */
-    private boolean isAuthorized(BasicToken token, List<UriTemplate> matchedTemplates, String method) {
+    static boolean isAuthorized(Set<String> permissions, ResourceMethod method, List<UriTemplate> templates, String httpMethod) {
+        if (permissions instanceof RoutePermissions) {
+            int routeId = RouteIndex.idOf(method);
+            if (routeId >= 0) {
+                return ((RoutePermissions) permissions).permits(routeId);
+            }
+        }
         StringBuilder path = new StringBuilder();
         // Merge all path templates and generate a path.
-        for (UriTemplate template : matchedTemplates) {
+        for (UriTemplate template : templates) {
             path.insert(0, template.getTemplate());
         }
-        path.append(":").append(method);
+        path.append(":").append(httpMethod);
 
         //Look at user permissions to see if the service is permitted.
-        return token.getPermissions().contains(path.toString());
+        return permissions.contains(path.toString());
     }
 
 
@@ -0,0 +1,110 @@
+package io.robe.auth;
+
+import com.google.common.hash.Hashing;
+import io.dropwizard.auth.AuthenticationException;
+import io.robe.auth.TestUserStore.TestUser;
+import io.robe.auth.password.PasswordService;
+import io.robe.auth.password.PlainPasswordHasher;
+import io.robe.auth.token.configuration.PasswordConfiguration;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class AbstractAuthResourceTest {
+
+    private static final String PASSWORD = "Secret1234";
+
+    private final TestUserStore store = new TestUserStore();
+    private final AbstractAuthResource<TestUser> resource = new AbstractAuthResource<TestUser>(store) {
+    };
+
+    @BeforeClass
+    public static void beforeClass() {
+        PasswordService.configure(new PasswordConfiguration() {
+            @Override
+            public int getIterations() {
+                return 1000;
+            }
+        });
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        PasswordService.configure(new PasswordConfiguration());
+    }
+
+    private static String sha256(String value) {
+        return Hashing.sha256().hashString(value, StandardCharsets.UTF_8).toString();
+    }
+
+    @Test
+    public void verifyLegacySha256() {
+        TestUser user = store.put("user@robe.io", sha256(PASSWORD));
+        assertFalse(resource.verifyPassword(user, "wrong"));
+        assertEquals(sha256(PASSWORD), user.getPassword());
+        assertTrue(resource.verifyPassword(user, PASSWORD));
+    }
+
+    @Test
+    public void verifyPbkdf2() {
+        String hash = PasswordService.get().hash(PASSWORD);
+        assertTrue(hash.startsWith("pbkdf2-sha256$"));
+        TestUser user = store.put("user@robe.io", hash);
+        assertTrue(resource.verifyPassword(user, PASSWORD));
+        assertFalse(resource.verifyPassword(user, "wrong"));
+        // Current hashes are not rewritten.
+        assertEquals(hash, user.getPassword());
+    }
+
+    @Test
+    public void upgradeOnLogin() {
+        TestUser user = store.put("user@robe.io", sha256(PASSWORD));
+        assertTrue(resource.verifyPassword(user, PASSWORD));
+        assertTrue(user.getPassword().startsWith("pbkdf2-sha256$"));
+        assertFalse(PasswordService.get().needsRehash(user.getPassword()));
+        assertTrue(resource.verifyPassword(user, PASSWORD));
+        assertFalse(resource.verifyPassword(user, sha256(PASSWORD)));
+    }
+
+    @Test
+    public void legacyOfCaller() {
+        // Clients which hash the password themselves send the stored value.
+        AbstractAuthResource<TestUser> plain = new AbstractAuthResource<TestUser>(store, new PlainPasswordHasher()) {
+        };
+        TestUser user = store.put("user@robe.io", sha256(PASSWORD));
+        assertFalse(plain.verifyPassword(user, PASSWORD));
+        assertTrue(plain.verifyPassword(user, sha256(PASSWORD)));
+        assertTrue(plain.verifyPassword(user, sha256(PASSWORD)));
+
+        AbstractAuthResource<TestUser> none = new AbstractAuthResource<TestUser>(store, null) {
+        };
+        TestUser legacy = store.put("legacy@robe.io", sha256(PASSWORD));
+        assertFalse(none.verifyPassword(legacy, PASSWORD));
+    }
+
+    @Test
+    public void generateStrongPassword() {
+        TestUser user = store.put("user@robe.io", PasswordService.get().hash(PASSWORD));
+        String password = resource.generateStrongPassword(user, user.getPassword());
+        assertFalse(PasswordService.get().verify(password, user.getPassword()));
+        assertFalse(password.contains(user.getUsername()));
+    }
+
+    @Test
+    public void changePassword() throws AuthenticationException {
+        TestUser user = store.put("user@robe.io", sha256(PASSWORD));
+        try {
+            resource.changePassword(user, "wrong", "Robe5793Pass", "Robe5793Pass");
+            fail();
+        } catch (AuthenticationException e) {
+            assertEquals(sha256(PASSWORD), user.getPassword());
+        }
+        resource.changePassword(user, PASSWORD, "Robe5793Pass", "Robe5793Pass");
+        assertTrue(PasswordService.get().verify("Robe5793Pass", user.getPassword()));
+        assertTrue(resource.verifyPassword(user, "Robe5793Pass"));
+    }
+}
@@ -0,0 +1,83 @@
+package io.robe.auth;
+
+import io.robe.auth.data.entry.UserEntry;
+import io.robe.auth.data.store.UserStore;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In memory {@link UserStore} of the tests which counts the lookups.
+ */
+public class TestUserStore implements UserStore {
+
+    private final Map<String, TestUser> users = new ConcurrentHashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    public TestUser put(String username, String password) {
+        TestUser user = new TestUser(username, password);
+        users.put(username, user);
+        return user;
+    }
+
+    public TestUser remove(String username) {
+        return users.remove(username);
+    }
+
+    public int getLookups() {
+        return lookups.get();
+    }
+
+    @Override
+    public Optional<TestUser> findByUsername(String username) {
+        lookups.incrementAndGet();
+        return Optional.ofNullable(users.get(username));
+    }
+
+    @Override
+    public Optional<TestUser> changePassword(String username, String newPassword) {
+        TestUser user = users.get(username);
+        if (user != null) {
+            user.password = newPassword;
+        }
+        return Optional.ofNullable(user);
+    }
+
+    public static class TestUser implements UserEntry {
+
+        private final String username;
+        private String password;
+
+        TestUser(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+
+        @Override
+        public boolean isActive() {
+            return true;
+        }
+
+        @Override
+        public String getUserId() {
+            return username;
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public String getPassword() {
+            return password;
+        }
+
+        @Override
+        public String getRoleId() {
+            return "role";
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package io.robe.auth.data;
+
+import io.robe.auth.data.entry.PermissionEntry;
+import io.robe.auth.data.entry.RoleGroupEntry;
+import io.robe.auth.data.entry.ServiceEntry;
+import io.robe.auth.data.store.PermissionIndexStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class RolePermissionIndexTest {
+
+    private final Map<String, Set<PermissionEntry>> permissions = new HashMap<>();
+    private final Map<String, Set<String>> groups = new HashMap<>();
+    private final Map<String, ServiceEntry> services = new HashMap<>();
+    private int lookups;
+    private RolePermissionIndex index;
+
+    @Before
+    public void before() {
+        // admin contains editor, editor contains viewer.
+        permissions.put("admin", entries("s-delete"));
+        permissions.put("editor", entries("s-update"));
+        permissions.put("viewer", entries("s-read"));
+        groups.put("admin", new HashSet<>(Collections.singletonList("editor")));
+        groups.put("editor", new HashSet<>(Collections.singletonList("viewer")));
+        services.put("s-read", service("users", ServiceEntry.Method.GET));
+        services.put("s-update", service("users/{id}", ServiceEntry.Method.PUT));
+        services.put("s-delete", service("users/{id}", ServiceEntry.Method.DELETE));
+        index = new RolePermissionIndex(
+                id -> {
+                    lookups++;
+                    return permissions.getOrDefault(id, Collections.emptySet());
+                },
+                id -> members(groups.getOrDefault(id, Collections.emptySet())),
+                id -> Optional.ofNullable(services.get(id)));
+    }
+
+    @Test
+    public void closureThroughGroupMembers() {
+        assertEquals(paths("users:GET", "users/{id}:PUT", "users/{id}:DELETE"), index.getServicePermissions("admin"));
+        assertEquals(paths("users:GET", "users/{id}:PUT"), index.getServicePermissions("editor"));
+        assertEquals(paths("users:GET"), index.getServicePermissions("viewer"));
+        assertEquals(3, index.getPermissions("admin").size());
+    }
+
+    @Test
+    public void cycle() {
+        groups.put("viewer", new HashSet<>(Collections.singletonList("admin")));
+        assertEquals(3, index.getPermissions("viewer").size());
+    }
+
+    @Test
+    public void refreshAncestors() {
+        assertEquals(paths("users:GET", "users/{id}:PUT", "users/{id}:DELETE"), index.getServicePermissions("admin"));
+        Set<String> other = index.getServicePermissions("other");
+
+        permissions.put("viewer", entries("s-read", "s-export"));
+        services.put("s-export", service("users/export", ServiceEntry.Method.GET));
+        // Nothing is reloaded until refresh.
+        assertFalse(index.getServicePermissions("admin").contains("users/export:GET"));
+
+        assertEquals(new HashSet<>(Arrays.asList("admin", "editor", "viewer")), index.getAffectedRoles("viewer"));
+        assertEquals(new HashSet<>(Arrays.asList("admin", "editor", "viewer")), index.refresh("viewer"));
+        assertTrue(index.getServicePermissions("admin").contains("users/export:GET"));
+        assertTrue(index.getServicePermissions("editor").contains("users/export:GET"));
+        assertTrue(index.getServicePermissions("viewer").contains("users/export:GET"));
+        // Unrelated closures are kept.
+        assertSame(other, index.getServicePermissions("other"));
+    }
+
+    @Test
+    public void refreshIsLazy() {
+        index.getPermissions("admin");
+        int before = lookups;
+        index.refresh("viewer");
+        assertEquals(before, lookups);
+        index.getPermissions("admin");
+        // Only the refreshed role is loaded again.
+        assertEquals(before + 1, lookups);
+    }
+
+    @Test
+    public void refreshService() {
+        assertEquals(paths("users:GET"), index.getServicePermissions("viewer"));
+        services.put("s-read", service("people", ServiceEntry.Method.GET));
+        assertEquals(paths("users:GET"), index.getServicePermissions("viewer"));
+        index.refreshService("s-read");
+        assertEquals(paths("people:GET"), index.getServicePermissions("viewer"));
+        assertTrue(index.getServicePermissions("admin").contains("people:GET"));
+    }
+
+    @Test
+    public void invalidate() {
+        assertEquals(3, index.getPermissions("admin").size());
+        permissions.put("admin", Collections.emptySet());
+        groups.remove("admin");
+        assertEquals(3, index.getPermissions("admin").size());
+
+        index.onInvalidate("someone");
+        assertEquals(3, index.getPermissions("admin").size());
+
+        index.onInvalidate(null);
+        assertTrue(index.getPermissions("admin").isEmpty());
+        assertTrue(index.getServicePermissions("admin").isEmpty());
+    }
+
+    @Test
+    public void batchStore() {
+        index = new RolePermissionIndex(
+                id -> {
+                    throw new AssertionError("role " + id + " must come from the batch store");
+                },
+                id -> {
+                    throw new AssertionError("group " + id + " must come from the batch store");
+                },
+                id -> {
+                    throw new AssertionError("service " + id + " must come from the batch store");
+                },
+                new PermissionIndexStore() {
+                    @Override
+                    public Map<String, Set<? extends PermissionEntry>> findAllPermissionsByRoleId() {
+                        return new HashMap<>(permissions);
+                    }
+
+                    @Override
+                    public Map<String, Set<String>> findAllRoleIdsByGroupId() {
+                        return groups;
+                    }
+
+                    @Override
+                    public Map<String, ? extends ServiceEntry> findAllServices() {
+                        return services;
+                    }
+                });
+        assertEquals(paths("users:GET", "users/{id}:PUT", "users/{id}:DELETE"), index.getServicePermissions("admin"));
+    }
+
+    private static Set<String> paths(String... paths) {
+        return new HashSet<>(Arrays.asList(paths));
+    }
+
+    private static Set<PermissionEntry> entries(String... serviceIds) {
+        Set<PermissionEntry> entries = new HashSet<>();
+        for (String id : serviceIds) {
+            entries.add(new PermissionEntry() {
+                @Override
+                public String getRestrictedItemId() {
+                    return id;
+                }
+
+                @Override
+                public Type getType() {
+                    return Type.SERVICE;
+                }
+            });
+        }
+        return entries;
+    }
+
+    private static Set<RoleGroupEntry> members(Set<String> roleIds) {
+        Set<RoleGroupEntry> entries = new HashSet<>();
+        for (String roleId : roleIds) {
+            entries.add(new RoleGroupEntry() {
+                @Override
+                public String getId() {
+                    return roleId;
+                }
+
+                @Override
+                public String getRoleId() {
+                    return roleId;
+                }
+            });
+        }
+        return entries;
+    }
+
+    private static ServiceEntry service(String path, ServiceEntry.Method method) {
+        return new ServiceEntry() {
+            @Override
+            public String getPath() {
+                return path;
+            }
+
+            @Override
+            public Method getMethod() {
+                return method;
+            }
+        };
+    }
+}
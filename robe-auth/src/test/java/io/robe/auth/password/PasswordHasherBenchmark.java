@@ -0,0 +1,55 @@
+package io.robe.auth.password;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per login cost of {@link Pbkdf2PasswordHasher} at different work factors.
+ * Generate benchmark classes with {@code mvn -pl robe-auth -Pbenchmark clean test-compile} and run {@link #main(String[])}
+ * with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHasherBenchmark {
+
+    private static final String PASSWORD = "96cae35ce8a9b0244178bf28e4966c2ce1b8385723a96a6b838858cdd6ca0a1e";
+
+    @Param({"10000", "100000", "210000", "600000"})
+    private int iterations;
+
+    private Pbkdf2PasswordHasher hasher;
+    private String hash;
+
+    @Setup
+    public void setup() {
+        hasher = new Pbkdf2PasswordHasher(iterations);
+        hash = hasher.hash(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify(PASSWORD, hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PasswordHasherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package io.robe.auth.token.cache;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import io.dropwizard.jackson.Jackson;
+import io.robe.auth.TestUserStore;
+import io.robe.auth.token.configuration.UserCacheConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class CachingUserStoreTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private TestUserStore delegate;
+    private CachingUserStore store;
+
+    @Before
+    public void before() {
+        delegate = new TestUserStore();
+        delegate.put("admin@robe.io", "hash");
+        UserCacheConfiguration configuration = Jackson.newObjectMapper()
+                .convertValue(ImmutableMap.of("ttl", 30, "maxSize", 10), UserCacheConfiguration.class);
+        store = new CachingUserStore(delegate, configuration, new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        });
+    }
+
+    @Test
+    public void hit() {
+        assertEquals("hash", store.findByUsername("admin@robe.io").get().getPassword());
+        assertEquals("hash", store.findByUsername("admin@robe.io").get().getPassword());
+        assertEquals(1, delegate.getLookups());
+    }
+
+    @Test
+    public void detached() {
+        store.findByUsername("admin@robe.io");
+        // Changes of the delegate are not visible until the entry is dropped.
+        delegate.put("admin@robe.io", "changed");
+        assertEquals("hash", store.findByUsername("admin@robe.io").get().getPassword());
+    }
+
+    @Test
+    public void missing() {
+        assertFalse(store.findByUsername("nobody@robe.io").isPresent());
+        assertFalse(store.findByUsername("nobody@robe.io").isPresent());
+        assertEquals(1, delegate.getLookups());
+    }
+
+    @Test
+    public void ttl() {
+        store.findByUsername("admin@robe.io");
+        delegate.put("admin@robe.io", "changed");
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(29));
+        assertEquals("hash", store.findByUsername("admin@robe.io").get().getPassword());
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals("changed", store.findByUsername("admin@robe.io").get().getPassword());
+        assertEquals(2, delegate.getLookups());
+    }
+
+    @Test
+    public void evictUser() {
+        store.findByUsername("admin@robe.io");
+        store.findByUsername("nobody@robe.io");
+        delegate.put("admin@robe.io", "changed");
+        store.onInvalidate("admin@robe.io");
+        assertEquals("changed", store.findByUsername("admin@robe.io").get().getPassword());
+        store.findByUsername("nobody@robe.io");
+        assertEquals(3, delegate.getLookups());
+    }
+
+    @Test
+    public void evictAll() {
+        store.findByUsername("admin@robe.io");
+        store.findByUsername("nobody@robe.io");
+        store.onInvalidate(null);
+        store.findByUsername("admin@robe.io");
+        store.findByUsername("nobody@robe.io");
+        assertEquals(4, delegate.getLookups());
+    }
+
+    @Test
+    public void changePassword() {
+        store.findByUsername("admin@robe.io");
+        store.changePassword("admin@robe.io", "new");
+        assertEquals("new", store.findByUsername("admin@robe.io").get().getPassword());
+        assertEquals(2, delegate.getLookups());
+    }
+
+    @Test
+    public void invalidationBus() {
+        LocalInvalidationBus bus = new LocalInvalidationBus();
+        bus.subscribe(store);
+        store.findByUsername("admin@robe.io");
+        bus.publish("admin@robe.io");
+        store.findByUsername("admin@robe.io");
+        assertEquals(2, delegate.getLookups());
+    }
+}
@@ -0,0 +1,64 @@
+package io.robe.auth.token.cache;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.dropwizard.jackson.Jackson;
+import io.robe.auth.token.configuration.TokenBasedAuthConfiguration;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class GuavaPermissionCacheTest {
+
+    static GuavaPermissionCache cache(Map<String, Object> permissionCache) {
+        TokenBasedAuthConfiguration configuration = Jackson.newObjectMapper().convertValue(
+                ImmutableMap.of("maxage", 60, "permissionCache", permissionCache), TokenBasedAuthConfiguration.class);
+        return new GuavaPermissionCache(configuration);
+    }
+
+    @Test
+    public void putAndGet() {
+        GuavaPermissionCache cache = cache(ImmutableMap.of());
+        assertNull(cache.get("admin@robe.io"));
+        cache.put("admin@robe.io", ImmutableSet.of("a", "b"));
+        assertEquals(ImmutableSet.of("a", "b"), cache.get("admin@robe.io"));
+        assertEquals(ImmutableSet.of("admin@robe.io"), cache.usernames());
+    }
+
+    @Test
+    public void invalidate() {
+        GuavaPermissionCache cache = cache(ImmutableMap.of());
+        cache.put("admin@robe.io", ImmutableSet.of("a"));
+        cache.put("user@robe.io", ImmutableSet.of("b"));
+        cache.invalidate("admin@robe.io");
+        assertNull(cache.get("admin@robe.io"));
+        assertEquals(ImmutableSet.of("b"), cache.get("user@robe.io"));
+        cache.invalidateAll();
+        assertNull(cache.get("user@robe.io"));
+        assertTrue(cache.usernames().isEmpty());
+    }
+
+    @Test
+    public void maxSize() {
+        GuavaPermissionCache cache = cache(ImmutableMap.of("maxSize", 2));
+        cache.put("1", ImmutableSet.of("a"));
+        cache.put("2", ImmutableSet.of("a"));
+        cache.put("3", ImmutableSet.of("a"));
+        assertEquals(2, cache.usernames().size());
+        assertNotNull(cache.get("3"));
+    }
+
+    @Test
+    public void maxWeight() {
+        // Each user weighs its permissions plus one.
+        GuavaPermissionCache cache = cache(ImmutableMap.of("maxWeight", 6));
+        cache.put("1", ImmutableSet.of("a", "b"));
+        cache.put("2", ImmutableSet.of("a", "b"));
+        assertEquals(2, cache.usernames().size());
+        cache.put("3", ImmutableSet.of("a", "b"));
+        assertEquals(2, cache.usernames().size());
+        assertNotNull(cache.get("3"));
+    }
+}
@@ -0,0 +1,131 @@
+package io.robe.auth.token.cache;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class PollingInvalidationBusTest {
+
+    /**
+     * Permission cache of a node, subscribed to the bus of the node as {@link io.robe.auth.token.BasicToken} does.
+     */
+    private static GuavaPermissionCache subscribe(InvalidationBus bus) {
+        GuavaPermissionCache cache = GuavaPermissionCacheTest.cache(ImmutableMap.of());
+        bus.subscribe(username -> {
+            if (username == null) {
+                cache.invalidateAll();
+            } else {
+                cache.invalidate(username);
+            }
+        });
+        cache.put("admin@robe.io", ImmutableSet.of("a"));
+        cache.put("user@robe.io", ImmutableSet.of("b"));
+        return cache;
+    }
+
+    @Test
+    public void localEviction() {
+        PollingInvalidationBus bus = new PollingInvalidationBus(() -> 1, 1);
+        GuavaPermissionCache cache = subscribe(bus);
+        bus.poll();
+        bus.publish("admin@robe.io");
+        assertNull(cache.get("admin@robe.io"));
+        assertNotNull(cache.get("user@robe.io"));
+        // The version did not change, nothing else is evicted.
+        bus.poll();
+        assertNotNull(cache.get("user@robe.io"));
+    }
+
+    @Test
+    public void otherNode() {
+        // Both nodes read the version of the same database.
+        AtomicLong version = new AtomicLong(1);
+        PollingInvalidationBus node1 = new PollingInvalidationBus(version::get, 1);
+        PollingInvalidationBus node2 = new PollingInvalidationBus(version::get, 1);
+        GuavaPermissionCache cache1 = subscribe(node1);
+        GuavaPermissionCache cache2 = subscribe(node2);
+        node1.poll();
+        node2.poll();
+
+        // Node 1 changes the permissions of a user.
+        version.incrementAndGet();
+        node1.publish("admin@robe.io");
+        assertNull(cache1.get("admin@robe.io"));
+        assertNotNull(cache2.get("admin@robe.io"));
+
+        node2.poll();
+        assertNull(cache2.get("admin@robe.io"));
+        assertNull(cache2.get("user@robe.io"));
+    }
+
+    @Test
+    public void firstPoll() {
+        PollingInvalidationBus bus = new PollingInvalidationBus(() -> 5, 1);
+        GuavaPermissionCache cache = subscribe(bus);
+        // Nothing to compare with yet.
+        bus.poll();
+        assertNotNull(cache.get("admin@robe.io"));
+    }
+
+    @Test
+    public void failedPoll() {
+        AtomicLong version = new AtomicLong(1);
+        PollingInvalidationBus bus = new PollingInvalidationBus(() -> {
+            if (version.get() < 0) {
+                throw new IllegalStateException("database is down");
+            }
+            return version.get();
+        }, 1);
+        GuavaPermissionCache cache = subscribe(bus);
+        bus.poll();
+        version.set(-1);
+        bus.poll();
+        assertNotNull(cache.get("admin@robe.io"));
+        version.set(2);
+        bus.poll();
+        assertNull(cache.get("admin@robe.io"));
+    }
+
+    @Test
+    public void baselineOnStart() throws Exception {
+        AtomicLong version = new AtomicLong(1);
+        PollingInvalidationBus bus = new PollingInvalidationBus(version::get, 1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        bus.subscribe(username -> invalidated.countDown());
+        bus.start();
+        try {
+            // Changed before the first scheduled poll.
+            version.incrementAndGet();
+            assertTrue(invalidated.await(5, TimeUnit.SECONDS));
+        } finally {
+            bus.stop();
+        }
+    }
+
+    @Test
+    public void scheduled() throws Exception {
+        AtomicLong version = new AtomicLong(1);
+        CountDownLatch polled = new CountDownLatch(1);
+        PollingInvalidationBus bus = new PollingInvalidationBus(() -> {
+            long current = version.get();
+            polled.countDown();
+            return current;
+        }, 1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        bus.subscribe(username -> invalidated.countDown());
+        bus.start();
+        try {
+            assertTrue(polled.await(5, TimeUnit.SECONDS));
+            version.incrementAndGet();
+            assertTrue(invalidated.await(5, TimeUnit.SECONDS));
+        } finally {
+            bus.stop();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.robe.auth.token.codec;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.BaseEncoding;
+import io.dropwizard.jackson.Jackson;
+import io.robe.auth.token.configuration.TokenBasedAuthConfiguration;
+import org.junit.Test;
+
+import javax.crypto.AEADBadTagException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class AesGcmTokenCodecTest {
+
+    private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+    private static final TokenPayload PAYLOAD = new TokenPayload("42", "admin@robe.io", 1500000000000L, "0a1b2c3d");
+
+    private static AesGcmTokenCodec codec(String password, String salt) {
+        ImmutableMap.Builder<String, Object> properties = ImmutableMap.<String, Object>builder().put("codec", "aes-gcm");
+        if (password != null) {
+            properties.put("serverPassword", password);
+        }
+        if (salt != null) {
+            properties.put("serverSalt", salt);
+        }
+        AesGcmTokenCodec codec = new AesGcmTokenCodec();
+        codec.configure(Jackson.newObjectMapper().convertValue(properties.build(), TokenBasedAuthConfiguration.class));
+        return codec;
+    }
+
+    private static String modify(String token, int index) {
+        byte[] bytes = ENCODING.decode(token);
+        bytes[index < 0 ? bytes.length + index : index] ^= 1;
+        return ENCODING.encode(bytes);
+    }
+
+    private static void assertRejected(AesGcmTokenCodec codec, String token, Class<? extends Exception> expected) {
+        try {
+            codec.decode(token);
+            fail("Token must be rejected");
+        } catch (Exception e) {
+            assertTrue(e.getClass().getName(), expected.isInstance(e));
+        }
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        AesGcmTokenCodec codec = codec("password", "salt-of-the-cluster");
+        String token = codec.encode(PAYLOAD);
+        TokenPayload decoded = codec.decode(token);
+        assertEquals(PAYLOAD.getUserId(), decoded.getUserId());
+        assertEquals(PAYLOAD.getUsername(), decoded.getUsername());
+        assertEquals(PAYLOAD.getExpireAt(), decoded.getExpireAt());
+        assertEquals(PAYLOAD.getAttributesHash(), decoded.getAttributesHash());
+        // Random iv, same payload gives a different token.
+        assertNotEquals(token, codec.encode(PAYLOAD));
+    }
+
+    @Test
+    public void sharedByNodes() throws Exception {
+        String token = codec("password", "salt-of-the-cluster").encode(PAYLOAD);
+        assertEquals(PAYLOAD.getUsername(), codec("password", "salt-of-the-cluster").decode(token).getUsername());
+    }
+
+    @Test
+    public void tampered() throws Exception {
+        AesGcmTokenCodec codec = codec("password", "salt-of-the-cluster");
+        String token = codec.encode(PAYLOAD);
+        // Ciphertext, tag and iv.
+        assertRejected(codec, modify(token, 1 + 12 + 2), AEADBadTagException.class);
+        assertRejected(codec, modify(token, -1), AEADBadTagException.class);
+        assertRejected(codec, modify(token, 1), AEADBadTagException.class);
+        // Version.
+        assertRejected(codec, modify(token, 0), IllegalArgumentException.class);
+    }
+
+    @Test
+    public void wrongKey() throws Exception {
+        String token = codec("password", "salt-of-the-cluster").encode(PAYLOAD);
+        assertRejected(codec("other-password", "salt-of-the-cluster"), token, AEADBadTagException.class);
+        assertRejected(codec("password", "other-salt-of-the-cluster"), token, AEADBadTagException.class);
+    }
+
+    @Test
+    public void randomSalt() throws Exception {
+        String token = codec("password", null).encode(PAYLOAD);
+        assertRejected(codec("password", null), token, AEADBadTagException.class);
+        assertRejected(codec("password", "auto"), token, AEADBadTagException.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortSalt() {
+        codec("password", "short");
+    }
+
+    @Test
+    public void truncated() throws Exception {
+        AesGcmTokenCodec codec = codec("password", "salt-of-the-cluster");
+        byte[] token = ENCODING.decode(codec.encode(PAYLOAD));
+        assertRejected(codec, ENCODING.encode(Arrays.copyOf(token, token.length - 1)), AEADBadTagException.class);
+        assertRejected(codec, ENCODING.encode(Arrays.copyOf(token, 1 + 12 + 16)), AEADBadTagException.class);
+        assertRejected(codec, ENCODING.encode(Arrays.copyOf(token, 1 + 12 + 15)), IllegalArgumentException.class);
+        assertRejected(codec, ENCODING.encode(Arrays.copyOf(token, 1 + 12 + 1)), IllegalArgumentException.class);
+        assertRejected(codec, ENCODING.encode(Arrays.copyOf(token, 1 + 12)), IllegalArgumentException.class);
+        assertRejected(codec, "", IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,86 @@
+package io.robe.auth.token.jersey;
+
+import com.google.common.collect.ImmutableMap;
+import io.dropwizard.jackson.Jackson;
+import io.robe.auth.token.BasicToken;
+import io.robe.auth.token.configuration.TokenBasedAuthConfiguration;
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.joda.time.DateTime;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.ws.rs.core.Response;
+import java.net.URI;
+
+import static org.junit.Assert.*;
+
+public class TokenBasedAuthResponseFilterTest {
+
+    private static final int MAX_AGE = 600;
+
+    private static TokenBasedAuthConfiguration configuration(int renewThreshold) {
+        return Jackson.newObjectMapper().convertValue(ImmutableMap.<String, Object>builder()
+                .put("tokenKey", "auth-token")
+                .put("maxage", MAX_AGE)
+                .put("codec", "aes-gcm")
+                .put("serverPassword", "auth-password")
+                .put("serverSalt", "auth-response-filter-salt")
+                .put("renewThreshold", renewThreshold)
+                .build(), TokenBasedAuthConfiguration.class);
+    }
+
+    @BeforeClass
+    public static void beforeClass() {
+        BasicToken.configure(configuration(100));
+    }
+
+    private static BasicToken token(int remainingSeconds) {
+        return new BasicToken("1", "admin@robe.io", DateTime.now().plusSeconds(remainingSeconds), ImmutableMap.of("userAgent", "test"));
+    }
+
+    private static ContainerResponse filter(int renewThreshold, BasicToken token) throws Exception {
+        ContainerRequest request = new ContainerRequest(URI.create("http://localhost/robe/"),
+                URI.create("http://localhost/robe/users"), "GET", null, new MapPropertiesDelegate());
+        request.header("Cookie", "auth-token=" + token.getTokenString());
+        ContainerResponse response = new ContainerResponse(request, Response.ok().build());
+        new TokenBasedAuthResponseFilter(configuration(renewThreshold)).filter(request, response);
+        return response;
+    }
+
+    @Test
+    public void renewalDue() {
+        BasicToken fresh = token(MAX_AGE);
+        BasicToken late = token(MAX_AGE / 2 - 60);
+        BasicToken early = token(MAX_AGE / 2 + 60);
+
+        // 100 is the behaviour before the threshold, every token is renewed.
+        assertTrue(fresh.isRenewalDue(100));
+        assertTrue(early.isRenewalDue(100));
+        assertTrue(late.isRenewalDue(100));
+
+        assertFalse(fresh.isRenewalDue(0));
+        assertFalse(early.isRenewalDue(0));
+        assertFalse(late.isRenewalDue(0));
+
+        assertFalse(fresh.isRenewalDue(50));
+        assertFalse(early.isRenewalDue(50));
+        assertTrue(late.isRenewalDue(50));
+    }
+
+    @Test
+    public void setCookieOnlyWhenDue() throws Exception {
+        assertNotNull(filter(100, token(MAX_AGE)).getHeaderString("Set-Cookie"));
+        assertNull(filter(0, token(MAX_AGE / 2 - 60)).getHeaderString("Set-Cookie"));
+        assertNull(filter(50, token(MAX_AGE / 2 + 60)).getHeaderString("Set-Cookie"));
+
+        ContainerResponse renewed = filter(50, token(MAX_AGE / 2 - 60));
+        assertEquals(Response.Status.OK.getStatusCode(), renewed.getStatus());
+        String cookie = renewed.getHeaderString("Set-Cookie");
+        assertNotNull(cookie);
+        assertTrue(cookie.startsWith("auth-token="));
+        BasicToken reissued = new BasicToken(cookie.substring("auth-token=".length(), cookie.indexOf(';')));
+        assertFalse(reissued.isRenewalDue(50));
+    }
+}
@@ -0,0 +1,96 @@
+package io.robe.auth.token.jersey;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.dropwizard.jackson.Jackson;
+import io.robe.auth.token.BasicToken;
+import io.robe.auth.token.configuration.TokenBasedAuthConfiguration;
+import org.glassfish.jersey.server.model.Resource;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.glassfish.jersey.server.model.ResourceModel;
+import org.glassfish.jersey.uri.UriTemplate;
+import org.joda.time.DateTime;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TokenFactoryTest {
+
+    private static final List<UriTemplate> USERS = Collections.singletonList(new UriTemplate("/users"));
+    private static final List<UriTemplate> USER = Arrays.asList(new UriTemplate("/{id}"), new UriTemplate("/users"));
+
+    private static ResourceMethod list;
+    private static ResourceMethod delete;
+
+    @BeforeClass
+    public static void beforeClass() {
+        Resource.Builder users = Resource.builder("users");
+        users.addMethod("GET").handledBy(context -> null);
+        users.addChildResource("{id}").addMethod("DELETE").handledBy(context -> null);
+        Resource resource = users.build();
+        RouteIndex.build(new ResourceModel.Builder(false).addResource(resource).build());
+        list = resource.getResourceMethods().get(0);
+        delete = resource.getChildResources().get(0).getResourceMethods().get(0);
+    }
+
+    @Test
+    public void routeIndex() {
+        assertEquals(2, RouteIndex.size());
+        assertEquals("/users:GET", RouteIndex.keyOf(list));
+        assertEquals("/users/{id}:DELETE", RouteIndex.keyOf(delete));
+        assertEquals(-1, RouteIndex.idOf("/roles:GET"));
+        assertEquals(-1, RouteIndex.idOf((ResourceMethod) null));
+    }
+
+    @Test
+    public void routeBitAllows() {
+        Set<String> permissions = RoutePermissions.of(ImmutableSet.of("/users:GET"));
+        assertTrue(permissions instanceof RoutePermissions);
+        assertTrue(((RoutePermissions) permissions).permits(RouteIndex.idOf(list)));
+        // Templates are not used when the method is indexed.
+        assertTrue(TokenFactory.isAuthorized(permissions, list, Collections.emptyList(), "GET"));
+    }
+
+    @Test
+    public void missingRouteDenied() {
+        Set<String> permissions = RoutePermissions.of(ImmutableSet.of("/users:GET"));
+        assertFalse(TokenFactory.isAuthorized(permissions, delete, USER, "DELETE"));
+        assertFalse(TokenFactory.isAuthorized(RoutePermissions.of(Collections.emptySet()), list, USERS, "GET"));
+    }
+
+    @Test
+    public void unindexedFallsBackToStrings() {
+        Set<String> permissions = RoutePermissions.of(ImmutableSet.of("/users:GET", "/reports:GET"));
+        assertEquals(ImmutableSet.of("/users:GET", "/reports:GET"), permissions);
+        List<UriTemplate> reports = Collections.singletonList(new UriTemplate("/reports"));
+        ResourceMethod unindexed = Resource.builder("reports").addMethod("GET").handledBy(context -> null).build();
+        assertTrue(TokenFactory.isAuthorized(permissions, unindexed, reports, "GET"));
+        assertTrue(TokenFactory.isAuthorized(permissions, null, reports, "GET"));
+        assertFalse(TokenFactory.isAuthorized(permissions, null, reports, "POST"));
+        // Plain sets which are not compacted are matched by strings.
+        assertTrue(TokenFactory.isAuthorized(ImmutableSet.of("/users/{id}:DELETE"), delete, USER, "DELETE"));
+        assertFalse(TokenFactory.isAuthorized(ImmutableSet.of("/users:GET"), delete, USER, "DELETE"));
+    }
+
+    @Test
+    public void rebuiltAfterPermissionChange() {
+        BasicToken.configure(Jackson.newObjectMapper().convertValue(
+                ImmutableMap.of("codec", "aes-gcm", "serverPassword", "auto", "maxage", 3600), TokenBasedAuthConfiguration.class));
+        BasicToken token = new BasicToken("1", "user@robe.io", DateTime.now(), Collections.emptyMap());
+        token.setPermissions(ImmutableSet.of("/users:GET"));
+        assertTrue(TokenFactory.isAuthorized(token.getPermissions(), list, USERS, "GET"));
+        assertFalse(TokenFactory.isAuthorized(token.getPermissions(), delete, USER, "DELETE"));
+
+        BasicToken.clearPermissionCache("user@robe.io");
+        assertNull(token.getPermissions());
+        token.setPermissions(ImmutableSet.of("/users/{id}:DELETE"));
+        assertFalse(TokenFactory.isAuthorized(token.getPermissions(), list, USERS, "GET"));
+        assertTrue(TokenFactory.isAuthorized(token.getPermissions(), delete, USER, "DELETE"));
+    }
+}
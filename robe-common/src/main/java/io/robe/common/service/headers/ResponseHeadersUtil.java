@@ -1,5 +1,6 @@
 package io.robe.common.service.headers;
 
+import io.robe.common.service.search.model.CountMode;
 import io.robe.common.service.search.model.SearchModel;
 
 import javax.servlet.http.HttpServletResponse;
@@ -13,6 +14,26 @@ public final class ResponseHeadersUtil {
         model.getResponse().setHeader("X-Total-Count", model.getTotalCount() + "");
     }
 
+    /**
+     * Adds X-Total-Count unless counting is disabled, X-Has-More and X-Next-Cursor if they are known.
+     *
+     * @param model search model of the fetched page
+     */
+    public static final void addPagination(SearchModel model) {
+        if (model.getResponse() == null) {
+            return;
+        }
+        if (model.getCount() != CountMode.NONE) {
+            addTotalCount(model);
+        }
+        if (model.getHasMore() != null) {
+            model.getResponse().setHeader("X-Has-More", model.getHasMore().toString());
+        }
+        if (model.getNextCursor() != null) {
+            model.getResponse().setHeader("X-Next-Cursor", model.getNextCursor());
+        }
+    }
+
     public static final void addLocation(HttpServletResponse response, String location) {
         response.setHeader("Location", location);
     }
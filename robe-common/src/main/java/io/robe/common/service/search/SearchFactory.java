@@ -1,9 +1,11 @@
 package io.robe.common.service.search;
 
+import io.robe.common.service.search.model.CountMode;
 import io.robe.common.service.search.model.SearchModel;
 import org.glassfish.jersey.server.internal.inject.AbstractContainerRequestValueFactory;
 
 import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.UriInfo;
@@ -60,6 +62,14 @@ public class SearchFactory extends AbstractContainerRequestValueFactory<SearchMo
                     searchModel.setSort(param.getValue().get(0).split(","));
                 } else if ("_filter".equalsIgnoreCase(param.getKey())) {
                     searchModel.setFilterExpression(param.getValue().get(0));
+                } else if ("_count".equalsIgnoreCase(param.getKey())) {
+                    try {
+                        searchModel.setCount(CountMode.value(param.getValue().get(0)));
+                    } catch (IllegalArgumentException e) {
+                        throw new BadRequestException(e.getMessage(), e);
+                    }
+                } else if ("_after".equalsIgnoreCase(param.getKey())) {
+                    searchModel.setAfter(param.getValue().get(0));
                 }
             }
         }
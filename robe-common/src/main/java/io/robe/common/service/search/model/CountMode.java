@@ -0,0 +1,35 @@
+package io.robe.common.service.search.model;
+
+import java.util.Arrays;
+
+/**
+ * How the total count of a paged search is calculated.
+ */
+public enum CountMode {
+    /**
+     * Runs a count query for every page.
+     */
+    EXACT,
+    /**
+     * Calculates the count from the page when it is the last one, otherwise uses a recently counted value.
+     */
+    ESTIMATED,
+    /**
+     * Does not count, only tells whether there are more results.
+     */
+    NONE;
+
+    /**
+     * @param value name of the mode, case insensitive
+     * @return matching mode
+     * @throws IllegalArgumentException if no mode has the name
+     */
+    public static CountMode value(String value) {
+        for (CountMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown count mode: " + value + ", expected one of " + Arrays.toString(values()));
+    }
+}
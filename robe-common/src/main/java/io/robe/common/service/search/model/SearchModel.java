@@ -35,7 +35,17 @@ public class SearchModel {
      */
     private String[] sort;
     private String[][] filter;
+    /**
+     * How the total count is calculated.
+     */
+    private CountMode count = CountMode.EXACT;
+    /**
+     * Keyset pagination cursor. Empty cursor requests the first page.
+     */
+    private String after;
     private long totalCount;
+    private Boolean hasMore;
+    private String nextCursor;
     private HttpServletResponse response;
 
     public SearchModel() {
@@ -148,6 +158,38 @@ public class SearchModel {
         this.filter = parseFilterExp(filter);
     }
 
+    public CountMode getCount() {
+        return count;
+    }
+
+    public void setCount(CountMode count) {
+        this.count = count;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    public Boolean getHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(Boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     public long getTotalCount() {
         return totalCount;
     }
@@ -213,6 +255,8 @@ public class SearchModel {
         if (!Arrays.equals(fields, model.fields)) return false;
         // Probably incorrect - comparing Object[] arrays with Arrays.equals
         if (!Arrays.equals(sort, model.sort)) return false;
+        if (count != model.count) return false;
+        if (after != null ? !after.equals(model.after) : model.after != null) return false;
         return Arrays.deepEquals(filter, model.filter);
 
     }
@@ -225,6 +269,8 @@ public class SearchModel {
         result = 31 * result + Arrays.hashCode(fields);
         result = 31 * result + Arrays.hashCode(sort);
         result = 31 * result + Arrays.deepHashCode(filter);
+        result = 31 * result + (count != null ? count.hashCode() : 0);
+        result = 31 * result + (after != null ? after.hashCode() : 0);
         result = 31 * result + (int) (totalCount ^ (totalCount >>> 32));
         return result;
     }
@@ -1,6 +1,7 @@
 package io.robe.common.service.headers;
 
 import io.robe.common.TestUtils;
+import io.robe.common.service.search.model.CountMode;
 import io.robe.common.service.search.model.SearchModel;
 import org.eclipse.jetty.server.Response;
 import org.junit.Before;
@@ -8,6 +9,8 @@ import org.junit.Test;
 
 import java.lang.reflect.InvocationTargetException;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -36,6 +39,17 @@ public class ResponseHeadersUtilTest {
         assertTrue(model.getResponse().getHeader("X-Total-Count") != null);
     }
 
+    @Test
+    public void addPagination() {
+        model.setCount(CountMode.NONE);
+        model.setHasMore(true);
+        model.setNextCursor("cursor");
+        ResponseHeadersUtil.addPagination(model);
+        assertNull(model.getResponse().getHeader("X-Total-Count"));
+        assertEquals("true", model.getResponse().getHeader("X-Has-More"));
+        assertEquals("cursor", model.getResponse().getHeader("X-Next-Cursor"));
+    }
+
     @Test
     public void addLocation() {
         ResponseHeadersUtil.addLocation(model.getResponse(), "none");
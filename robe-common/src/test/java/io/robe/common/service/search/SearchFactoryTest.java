@@ -1,14 +1,18 @@
 package io.robe.common.service.search;
 
 import com.google.common.collect.Lists;
+import io.robe.common.service.search.model.CountMode;
 import io.robe.common.service.search.model.SearchModel;
 import org.junit.Test;
 
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.UriInfo;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -24,6 +28,8 @@ public class SearchFactoryTest {
         expected.setFields(new String[]{"field1", "field2"});
         expected.setSort(new String[]{"+field1", "-field2"});
         expected.setFilterExpression("field1=1");
+        expected.setCount(CountMode.NONE);
+        expected.setAfter("cursor");
 
         MultivaluedMap<String, String> queryParameters = new MultivaluedHashMap<>();
         queryParameters.put("_q", Lists.newArrayList("qparam"));
@@ -32,6 +38,8 @@ public class SearchFactoryTest {
         queryParameters.put("_fields", Lists.newArrayList("field1,field2"));
         queryParameters.put("_sort", Lists.newArrayList("+field1,-field2"));
         queryParameters.put("_filter", Lists.newArrayList("field1=1"));
+        queryParameters.put("_count", Lists.newArrayList("none"));
+        queryParameters.put("_after", Lists.newArrayList("cursor"));
         queryParameters.put("_none", Lists.newArrayList("none"));
 
         UriInfo uriInfo = mock(UriInfo.class);
@@ -50,4 +58,24 @@ public class SearchFactoryTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void unknownCountMode() throws Exception {
+        MultivaluedMap<String, String> queryParameters = new MultivaluedHashMap<>();
+        queryParameters.put("_count", Lists.newArrayList("all"));
+
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getQueryParameters()).thenReturn(queryParameters);
+        SearchFactory factory = mock(SearchFactory.class);
+        when(factory.getUriInfo()).thenReturn(uriInfo);
+        when(factory.getMethod()).thenReturn("GET");
+        when(factory.provide()).thenCallRealMethod();
+
+        try {
+            factory.provide();
+            fail("Unknown count mode is accepted");
+        } catch (BadRequestException e) {
+            assertEquals(400, e.getResponse().getStatus());
+            assertTrue(e.getMessage().contains("all"));
+        }
+    }
+}
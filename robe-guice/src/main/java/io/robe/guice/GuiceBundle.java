@@ -10,12 +10,8 @@ import io.dropwizard.ConfiguredBundle;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 import io.robe.guice.scanner.Scanner;
+import io.robe.index.ClassIndex;
 import org.reflections.Reflections;
-import org.reflections.scanners.SubTypesScanner;
-import org.reflections.scanners.TypeAnnotationsScanner;
-import org.reflections.util.ClasspathHelper;
-import org.reflections.util.ConfigurationBuilder;
-import org.reflections.util.FilterBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -87,6 +83,7 @@ public class GuiceBundle<T extends Configuration & HasGuiceConfiguration> implem
 
     /**
      * Creates a {@link org.reflections.Reflections} with the given packages (configuration)
+     * from the class index, classes which are not indexed are scanned.
      *
      * @param scanPackages
      */
@@ -95,15 +92,7 @@ public class GuiceBundle<T extends Configuration & HasGuiceConfiguration> implem
             LOGGER.warn("No package defined in configuration (scanPackages)!");
             return;
         }
-        ConfigurationBuilder configurationBuilder = new ConfigurationBuilder();
-        FilterBuilder filterBuilder = new FilterBuilder();
-        for (String packageName : scanPackages) {
-            configurationBuilder.addUrls(ClasspathHelper.forPackage(packageName));
-            filterBuilder.include(FilterBuilder.prefix(packageName));
-        }
-
-        configurationBuilder.filterInputsBy(filterBuilder).setScanners(new SubTypesScanner(), new TypeAnnotationsScanner());
-        this.reflections = new Reflections(configurationBuilder);
+        this.reflections = ClassIndex.get().reflections(scanPackages);
 
     }
 
@@ -5,9 +5,19 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.Configuration;
 import io.dropwizard.db.DataSourceFactory;
 import io.dropwizard.db.DatabaseConfiguration;
+import io.robe.hibernate.cache.CacheConfiguration;
+import io.robe.hibernate.criteria.hql.ElementsFetcher;
+import io.robe.hibernate.criteria.hql.InvertedIndex;
+import io.robe.hibernate.criteria.hql.QueryShapeCache;
+import io.robe.hibernate.criteria.query.SearchPlan;
+import io.robe.hibernate.dao.BaseDao;
+import io.robe.hibernate.replica.ReplicaSelection;
+import io.robe.hibernate.transaction.TransactionExecutor;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
 
 public class HibernateConfiguration implements DatabaseConfiguration {
 
@@ -23,6 +33,19 @@ public class HibernateConfiguration implements DatabaseConfiguration {
 
     private String[] scanPackages;
     private String[] entities;
+    private int queryShapeCacheSize = QueryShapeCache.DEFAULT_MAXIMUM_SIZE;
+    private int elementsBatchSize = ElementsFetcher.DEFAULT_BATCH_SIZE;
+    private int searchPlanCacheSize = SearchPlan.DEFAULT_MAXIMUM_SIZE;
+    private String[] searchIndexEntities;
+    private int searchIndexMaxCandidates = InvertedIndex.DEFAULT_MAX_CANDIDATES;
+    private int jdbcBatchSize = BaseDao.DEFAULT_BATCH_SIZE;
+    @Valid
+    private List<DataSourceFactory> replicas = new ArrayList<>();
+    private ReplicaSelection replicaSelection = ReplicaSelection.ROUND_ROBIN;
+    private int asyncThreads;
+    private int asyncQueueSize = TransactionExecutor.DEFAULT_QUEUE_SIZE;
+    @Valid
+    private CacheConfiguration cache = new CacheConfiguration();
 
     public String[] getScanPackages() {
         return scanPackages;
@@ -40,4 +63,126 @@ public class HibernateConfiguration implements DatabaseConfiguration {
         this.entities = entities;
     }
 
+    /**
+     * @return maximum number of criteria shapes whose generated HQL is cached, 0 disables the cache.
+     */
+    public int getQueryShapeCacheSize() {
+        return queryShapeCacheSize;
+    }
+
+    public void setQueryShapeCacheSize(int queryShapeCacheSize) {
+        this.queryShapeCacheSize = queryShapeCacheSize;
+    }
+
+    /**
+     * @return maximum number of owner ids in an IN list while fetching the collection projections.
+     */
+    public int getElementsBatchSize() {
+        return elementsBatchSize;
+    }
+
+    public void setElementsBatchSize(int elementsBatchSize) {
+        this.elementsBatchSize = elementsBatchSize;
+    }
+
+
+    /**
+     * @return maximum number of compiled search shapes, 0 disables the cache.
+     */
+    public int getSearchPlanCacheSize() {
+        return searchPlanCacheSize;
+    }
+
+    public void setSearchPlanCacheSize(int searchPlanCacheSize) {
+        this.searchPlanCacheSize = searchPlanCacheSize;
+    }
+
+    /**
+     * @return entities whose q is searched by the inverted index, empty searches q only with LIKE.
+     */
+    public String[] getSearchIndexEntities() {
+        return searchIndexEntities;
+    }
+
+    public void setSearchIndexEntities(String[] searchIndexEntities) {
+        this.searchIndexEntities = searchIndexEntities;
+    }
+
+    /**
+     * @return maximum number of identifiers which the inverted index returns for a q, more falls back to LIKE.
+     */
+    public int getSearchIndexMaxCandidates() {
+        return searchIndexMaxCandidates;
+    }
+
+    public void setSearchIndexMaxCandidates(int searchIndexMaxCandidates) {
+        this.searchIndexMaxCandidates = searchIndexMaxCandidates;
+    }
+
+    /**
+     * @return number of statements sent to the database in a JDBC batch, 0 disables batching.
+     */
+    public int getJdbcBatchSize() {
+        return jdbcBatchSize;
+    }
+
+    public void setJdbcBatchSize(int jdbcBatchSize) {
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    /**
+     * @return read only replicas of the database, read only units of work use them if there is any.
+     */
+    public List<DataSourceFactory> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<DataSourceFactory> replicas) {
+        this.replicas = replicas;
+    }
+
+    /**
+     * @return selection of the replica for each read only unit of work.
+     */
+    public ReplicaSelection getReplicaSelection() {
+        return replicaSelection;
+    }
+
+    public void setReplicaSelection(ReplicaSelection replicaSelection) {
+        this.replicaSelection = replicaSelection;
+    }
+
+    /**
+     * @return worker threads of the asynchronous transactions, 0 uses the maximum size of the connection pool.
+     */
+    public int getAsyncThreads() {
+        return asyncThreads;
+    }
+
+    public void setAsyncThreads(int asyncThreads) {
+        this.asyncThreads = asyncThreads;
+    }
+
+    /**
+     * @return maximum number of the waiting asynchronous transactions, further ones are rejected.
+     */
+    public int getAsyncQueueSize() {
+        return asyncQueueSize;
+    }
+
+    public void setAsyncQueueSize(int asyncQueueSize) {
+        this.asyncQueueSize = asyncQueueSize;
+    }
+
+    /**
+     * @return second level and query cache configuration, disabled by default.
+     */
+    public CacheConfiguration getCache() {
+        return cache;
+    }
+
+    public void setCache(CacheConfiguration cache) {
+        this.cache = cache;
+    }
+
 }
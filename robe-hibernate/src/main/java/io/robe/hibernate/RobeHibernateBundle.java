@@ -6,13 +6,28 @@ import io.dropwizard.Configuration;
 import io.dropwizard.db.PooledDataSourceFactory;
 import io.dropwizard.hibernate.HibernateBundle;
 import io.dropwizard.hibernate.SessionFactoryFactory;
+import io.dropwizard.setup.Environment;
+import io.robe.hibernate.cache.RobeRegionFactory;
+import io.robe.hibernate.criteria.hql.ElementsFetcher;
+import io.robe.hibernate.criteria.hql.InvertedIndex;
+import io.robe.hibernate.criteria.hql.QueryShapeCache;
+import io.robe.hibernate.criteria.query.SearchPlan;
 import io.robe.hibernate.entity.BaseEntity;
+import io.robe.hibernate.transaction.RetryInvocationHandlerProvider;
+import io.robe.hibernate.transaction.RetryPolicy;
+import io.robe.hibernate.transaction.Transaction;
+import io.robe.hibernate.transaction.TransactionExecutor;
+import io.robe.index.ClassIndex;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
 import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.persistence.Entity;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 
@@ -25,6 +40,7 @@ public class RobeHibernateBundle<T extends Configuration & HasHibernateConfigura
 
     protected static RobeHibernateBundle instance;
     private org.hibernate.cfg.Configuration configuration;
+    private HibernateConfiguration hibernateConfiguration;
 
     protected RobeHibernateBundle(ImmutableList<Class<?>> entities, SessionFactoryFactory sessionFactoryFactory) {
         super(entities, sessionFactoryFactory);
@@ -50,7 +66,7 @@ public class RobeHibernateBundle<T extends Configuration & HasHibernateConfigura
         if (packages != null) {
             for (String packageName : packages) {
                 LOGGER.info("Loading Package: " + packageName);
-                Reflections reflections = new Reflections(packageName);
+                Reflections reflections = ClassIndex.get().reflections(packageName);
                 classes.addAll(reflections.getTypesAnnotatedWith(Entity.class));
             }
         }
@@ -91,12 +107,103 @@ public class RobeHibernateBundle<T extends Configuration & HasHibernateConfigura
 
     @Override
     public PooledDataSourceFactory getDataSourceFactory(T configuration) {
+        // Called by run before the session factory is built, keeps the configuration for configure.
+        this.hibernateConfiguration = configuration.getHibernate();
         return configuration.getHibernate().getDataSourceFactory(configuration);
     }
 
 
     protected void configure(org.hibernate.cfg.Configuration configuration) {
         this.configuration = configuration;
+        if (hibernateConfiguration != null && hibernateConfiguration.getJdbcBatchSize() > 0) {
+            configureBatching(configuration, hibernateConfiguration.getJdbcBatchSize());
+        }
+        if (hibernateConfiguration != null && hibernateConfiguration.getCache() != null) {
+            RobeRegionFactory.configure(configuration, hibernateConfiguration.getCache());
+            if (hibernateConfiguration.getCache().isEnabled()) {
+                LOGGER.info("Second level cache is enabled, query cache: " + hibernateConfiguration.getCache().isQueryCache());
+            }
+        }
+    }
+
+    /**
+     * Configures the query caches, the search index and the transaction executor from the hibernate configuration
+     * and registers their metrics, called after the session factory is built.
+     *
+     * @param environment    environment of the application
+     * @param sessionFactory built session factory
+     */
+    protected void configure(Environment environment, SessionFactory sessionFactory) {
+        HibernateConfiguration configuration = hibernateConfiguration != null ? hibernateConfiguration : new HibernateConfiguration();
+        QueryShapeCache.configure(configuration.getQueryShapeCacheSize());
+        QueryShapeCache.registerMetrics(environment.metrics());
+        ElementsFetcher.configure(configuration.getElementsBatchSize());
+        SearchPlan.configure(configuration.getSearchPlanCacheSize());
+        SearchPlan.registerMetrics(environment.metrics());
+        RobeRegionFactory regionFactory = RobeRegionFactory.of(sessionFactory);
+        if (regionFactory != null) {
+            regionFactory.registerMetrics(environment.metrics());
+        }
+
+        int asyncThreads = configuration.getAsyncThreads();
+        if (asyncThreads <= 0) {
+            asyncThreads = configuration.getDataSourceFactory(null).getMaxSize();
+        }
+        TransactionExecutor transactionExecutor = new TransactionExecutor(asyncThreads, configuration.getAsyncQueueSize());
+        transactionExecutor.registerMetrics(environment.metrics());
+        environment.lifecycle().manage(transactionExecutor);
+        Transaction.setExecutor(transactionExecutor);
+        RetryPolicy.registerMetrics(environment.metrics());
+        environment.jersey().register(new RetryInvocationHandlerProvider.Binder(sessionFactory));
+
+        String[] searchIndexEntities = configuration.getSearchIndexEntities();
+        if (searchIndexEntities != null && searchIndexEntities.length > 0) {
+            List<Class<?>> entityClasses = new ArrayList<>(searchIndexEntities.length);
+            for (String entity : searchIndexEntities) {
+                try {
+                    entityClasses.add(Class.forName(entity));
+                } catch (ClassNotFoundException e) {
+                    throw new RuntimeException("Can't load search index entity: " + entity, e);
+                }
+            }
+            InvertedIndex invertedIndex = new InvertedIndex(sessionFactory, entityClasses, configuration.getSearchIndexMaxCandidates());
+            environment.lifecycle().manage(invertedIndex);
+            SearchPlan.setQBackend(invertedIndex);
+        }
+    }
+
+    /**
+     * Enables JDBC batching of the inserts, updates and deletes. Inserts and updates are ordered by entity,
+     * so the statements of an entity are batched together. Properties which are given in the database properties are kept.
+     *
+     * @param configuration hibernate configuration which is being built
+     * @param batchSize     number of statements in a batch
+     */
+    static void configureBatching(org.hibernate.cfg.Configuration configuration, int batchSize) {
+        setDefault(configuration, AvailableSettings.STATEMENT_BATCH_SIZE, Integer.toString(batchSize));
+        setDefault(configuration, AvailableSettings.ORDER_INSERTS, "true");
+        setDefault(configuration, AvailableSettings.ORDER_UPDATES, "true");
+        setDefault(configuration, AvailableSettings.BATCH_VERSIONED_DATA, "true");
+    }
+
+    private static void setDefault(org.hibernate.cfg.Configuration configuration, String name, String value) {
+        if (configuration.getProperty(name) == null) {
+            configuration.setProperty(name, value);
+        }
+    }
+
+    /**
+     * @return region factory of the second level cache, null if the cache is disabled
+     */
+    public RobeRegionFactory getRegionFactory() {
+        return RobeRegionFactory.of(getSessionFactory());
+    }
+
+    /**
+     * @return hibernate configuration of the application, null until the bundle runs
+     */
+    HibernateConfiguration getHibernateConfiguration() {
+        return hibernateConfiguration;
     }
 
     public org.hibernate.cfg.Configuration getConfiguration() {
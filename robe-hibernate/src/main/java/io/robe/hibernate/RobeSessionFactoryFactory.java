@@ -1,16 +1,63 @@
 package io.robe.hibernate;
 
+import io.dropwizard.db.ManagedDataSource;
+import io.dropwizard.db.PooledDataSourceFactory;
+import io.dropwizard.hibernate.HibernateBundle;
 import io.dropwizard.hibernate.SessionFactoryFactory;
+import io.dropwizard.setup.Environment;
 import io.robe.hibernate.conf.RobeHibernateNamingStrategy;
+import io.robe.hibernate.criteria.api.cache.EntityMetaRegistry;
+import io.robe.hibernate.criteria.hql.EntityMetaFinderImpl;
+import io.robe.hibernate.replica.ReplicaRoutingDataSource;
+import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.service.ServiceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class RobeSessionFactoryFactory extends SessionFactoryFactory {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RobeSessionFactoryFactory.class);
 
+    /**
+     * Builds the session factory over the primary data source, or over a {@link ReplicaRoutingDataSource}
+     * if replicas are given in the {@link HibernateConfiguration}.
+     * Metas of the entities are registered to the {@link EntityMetaRegistry} and a {@link RobeHibernateBundle} configures the session factory.
+     */
+    @Override
+    public SessionFactory build(HibernateBundle<?> bundle, Environment environment, PooledDataSourceFactory dbConfig,
+                                List<Class<?>> entities, String name) {
+        SessionFactory sessionFactory = buildSessionFactory(bundle, environment, dbConfig, entities, name);
+        EntityMetaRegistry.register(EntityMetaFinderImpl.getEntityMetas(sessionFactory, entities));
+        LOGGER.info("Registered the metas of {} entities", entities.size());
+        if (bundle instanceof RobeHibernateBundle) {
+            ((RobeHibernateBundle<?>) bundle).configure(environment, sessionFactory);
+        }
+        return sessionFactory;
+    }
+
+    private SessionFactory buildSessionFactory(HibernateBundle<?> bundle, Environment environment, PooledDataSourceFactory dbConfig,
+                                               List<Class<?>> entities, String name) {
+        HibernateConfiguration configuration = bundle instanceof RobeHibernateBundle ?
+                ((RobeHibernateBundle<?>) bundle).getHibernateConfiguration() : null;
+        if (configuration == null || configuration.getReplicas() == null || configuration.getReplicas().isEmpty()) {
+            return super.build(bundle, environment, dbConfig, entities, name);
+        }
+        List<ManagedDataSource> replicas = new ArrayList<>(configuration.getReplicas().size());
+        for (int i = 0; i < configuration.getReplicas().size(); i++) {
+            replicas.add(configuration.getReplicas().get(i).build(environment.metrics(), name + "-replica-" + i));
+        }
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(dbConfig.build(environment.metrics(), name),
+                replicas, configuration.getReplicaSelection());
+        SessionFactory sessionFactory = build(bundle, environment, dbConfig, dataSource, entities);
+        dataSource.setReadOnly(ReplicaRoutingDataSource.readOnlySession(sessionFactory));
+        LOGGER.info("Read only units of work are routed to {} replicas by {}", replicas.size(), configuration.getReplicaSelection());
+        return sessionFactory;
+    }
+
     @Override
     protected void configure(Configuration configuration, ServiceRegistry registry) {
         String prefix = configuration.getProperty("hibernate.prefix");
@@ -0,0 +1,103 @@
+package io.robe.hibernate.cache;
+
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.RegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * Read write access of a {@link TransactionalCacheRegion}, see the region for the invalidation rules.
+ * {@link AccessType#TRANSACTIONAL} and {@link AccessType#NONSTRICT_READ_WRITE} are served as read write,
+ * {@link AccessType#READ_ONLY} rejects the updates.
+ */
+abstract class AccessStrategy implements RegionAccessStrategy {
+
+    private static final SoftLock LOCK = new SoftLock() {
+    };
+
+    protected final TransactionalCacheRegion region;
+    protected final AccessType accessType;
+
+    AccessStrategy(TransactionalCacheRegion region, AccessType accessType) {
+        this.region = region;
+        this.accessType = accessType;
+    }
+
+    @Override
+    public Object get(SessionImplementor session, Object key, long txTimestamp) {
+        return region.get(key);
+    }
+
+    @Override
+    public boolean putFromLoad(SessionImplementor session, Object key, Object value, long txTimestamp, Object version) {
+        return putFromLoad(session, key, value, txTimestamp, version, false);
+    }
+
+    @Override
+    public boolean putFromLoad(SessionImplementor session, Object key, Object value, long txTimestamp, Object version, boolean minimalPutOverride) {
+        return region.putFromLoad(key, value, txTimestamp, minimalPutOverride);
+    }
+
+    @Override
+    public SoftLock lockItem(SessionImplementor session, Object key, Object version) {
+        region.lock(key);
+        return LOCK;
+    }
+
+    @Override
+    public SoftLock lockRegion() {
+        region.lockAll();
+        return LOCK;
+    }
+
+    @Override
+    public void unlockItem(SessionImplementor session, Object key, SoftLock lock) {
+        region.unlock(key);
+    }
+
+    @Override
+    public void unlockRegion(SoftLock lock) {
+        region.unlockAll();
+    }
+
+    @Override
+    public void remove(SessionImplementor session, Object key) {
+        region.evict(key);
+    }
+
+    @Override
+    public void removeAll() {
+        region.evictAll();
+    }
+
+    @Override
+    public void evict(Object key) {
+        region.evict(key);
+    }
+
+    @Override
+    public void evictAll() {
+        region.evictAll();
+    }
+
+    protected boolean insert(Object key, Object value) {
+        return false;
+    }
+
+    protected boolean afterInsert(Object key, Object value) {
+        region.putAfterInsert(key, value);
+        return true;
+    }
+
+    protected boolean update(Object key) {
+        if (accessType == AccessType.READ_ONLY) {
+            throw new UnsupportedOperationException("Can't update read only cached " + region.getName());
+        }
+        return false;
+    }
+
+    protected boolean afterUpdate(Object key, SoftLock lock) {
+        region.unlock(key);
+        return false;
+    }
+}
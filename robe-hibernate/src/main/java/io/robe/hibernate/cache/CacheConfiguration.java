@@ -0,0 +1,73 @@
+package io.robe.hibernate.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Second level and query cache of Hibernate.
+ * Regions are named by the entity class, the collection role ({@code io.robe.admin.hibernate.entity.Menu.items})
+ * or the query cache region; regions without a configuration use the defaults.
+ */
+public class CacheConfiguration {
+
+    private boolean enabled = false;
+
+    private boolean queryCache = true;
+
+    private RegionConfiguration defaults = new RegionConfiguration();
+
+    private Map<String, RegionConfiguration> regions = new LinkedHashMap<>();
+
+    /**
+     * @return true to cache the entities which are annotated with {@link org.hibernate.annotations.Cache}.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return true to cache the results of the cacheable queries.
+     */
+    public boolean isQueryCache() {
+        return queryCache;
+    }
+
+    public void setQueryCache(boolean queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    /**
+     * @return configuration of the regions which are not configured by name.
+     */
+    public RegionConfiguration getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(RegionConfiguration defaults) {
+        this.defaults = defaults;
+    }
+
+    /**
+     * @return configurations by region name.
+     */
+    public Map<String, RegionConfiguration> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(Map<String, RegionConfiguration> regions) {
+        this.regions = regions;
+    }
+
+    /**
+     * @param regionName name of the region
+     * @return configuration of the region or the defaults
+     */
+    public RegionConfiguration getRegion(String regionName) {
+        RegionConfiguration region = regions != null ? regions.get(regionName) : null;
+        return region != null ? region : defaults;
+    }
+}
@@ -0,0 +1,82 @@
+package io.robe.hibernate.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.hibernate.cache.spi.Region;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Region which keeps its entries in a bounded Guava cache of the heap.
+ */
+abstract class CacheRegion implements Region {
+
+    private final String name;
+    private final RobeRegionFactory factory;
+    protected final Cache<Object, Object> cache;
+
+    CacheRegion(String name, RobeRegionFactory factory, RegionConfiguration configuration) {
+        this.name = name;
+        this.factory = factory;
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().recordStats();
+        if (configuration != null) {
+            builder.maximumSize(configuration.getMaximumSize());
+            if (configuration.getTtlSeconds() > 0) {
+                builder.expireAfterWrite(configuration.getTtlSeconds(), TimeUnit.SECONDS);
+            }
+        }
+        this.cache = builder.build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void destroy() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return cache.getIfPresent(key) != null;
+    }
+
+    @Override
+    public long getSizeInMemory() {
+        return -1;
+    }
+
+    @Override
+    public long getElementCountInMemory() {
+        return cache.size();
+    }
+
+    @Override
+    public long getElementCountOnDisk() {
+        return 0;
+    }
+
+    @Override
+    public Map toMap() {
+        return new HashMap<>(cache.asMap());
+    }
+
+    @Override
+    public long nextTimestamp() {
+        return factory.nextTimestamp();
+    }
+
+    @Override
+    public int getTimeout() {
+        return RobeRegionFactory.TIMEOUT;
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+}
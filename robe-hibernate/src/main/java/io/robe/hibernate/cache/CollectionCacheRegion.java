@@ -0,0 +1,43 @@
+package io.robe.hibernate.cache;
+
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.CollectionRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.CollectionRegionAccessStrategy;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+
+class CollectionCacheRegion extends TransactionalCacheRegion implements CollectionRegion {
+
+    CollectionCacheRegion(String name, RobeRegionFactory factory, RegionConfiguration configuration, CacheDataDescription description) {
+        super(name, factory, configuration, description);
+    }
+
+    @Override
+    public CollectionRegionAccessStrategy buildAccessStrategy(AccessType accessType) {
+        return new Access(this, accessType);
+    }
+
+    private static final class Access extends AccessStrategy implements CollectionRegionAccessStrategy {
+
+        private Access(CollectionCacheRegion region, AccessType accessType) {
+            super(region, accessType);
+        }
+
+        @Override
+        public CollectionRegion getRegion() {
+            return (CollectionRegion) region;
+        }
+
+        @Override
+        public Object generateCacheKey(Object id, CollectionPersister persister, SessionFactoryImplementor factory, String tenantIdentifier) {
+            return DefaultCacheKeysFactory.createCollectionKey(id, persister, factory, tenantIdentifier);
+        }
+
+        @Override
+        public Object getCacheKeyId(Object cacheKey) {
+            return DefaultCacheKeysFactory.getCollectionId(cacheKey);
+        }
+    }
+}
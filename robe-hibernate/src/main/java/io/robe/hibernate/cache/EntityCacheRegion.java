@@ -0,0 +1,65 @@
+package io.robe.hibernate.cache;
+
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+class EntityCacheRegion extends TransactionalCacheRegion implements EntityRegion {
+
+    EntityCacheRegion(String name, RobeRegionFactory factory, RegionConfiguration configuration, CacheDataDescription description) {
+        super(name, factory, configuration, description);
+    }
+
+    @Override
+    public EntityRegionAccessStrategy buildAccessStrategy(AccessType accessType) {
+        return new Access(this, accessType);
+    }
+
+    private static final class Access extends AccessStrategy implements EntityRegionAccessStrategy {
+
+        private Access(EntityCacheRegion region, AccessType accessType) {
+            super(region, accessType);
+        }
+
+        @Override
+        public EntityRegion getRegion() {
+            return (EntityRegion) region;
+        }
+
+        @Override
+        public Object generateCacheKey(Object id, EntityPersister persister, SessionFactoryImplementor factory, String tenantIdentifier) {
+            return DefaultCacheKeysFactory.createEntityKey(id, persister, factory, tenantIdentifier);
+        }
+
+        @Override
+        public Object getCacheKeyId(Object cacheKey) {
+            return DefaultCacheKeysFactory.getEntityId(cacheKey);
+        }
+
+        @Override
+        public boolean insert(SessionImplementor session, Object key, Object value, Object version) {
+            return insert(key, value);
+        }
+
+        @Override
+        public boolean afterInsert(SessionImplementor session, Object key, Object value, Object version) {
+            return afterInsert(key, value);
+        }
+
+        @Override
+        public boolean update(SessionImplementor session, Object key, Object value, Object currentVersion, Object previousVersion) {
+            return update(key);
+        }
+
+        @Override
+        public boolean afterUpdate(SessionImplementor session, Object key, Object value, Object currentVersion, Object previousVersion, SoftLock lock) {
+            return afterUpdate(key, lock);
+        }
+    }
+}
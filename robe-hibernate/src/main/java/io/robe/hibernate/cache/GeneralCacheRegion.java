@@ -0,0 +1,36 @@
+package io.robe.hibernate.cache;
+
+import org.hibernate.cache.spi.QueryResultsRegion;
+import org.hibernate.cache.spi.TimestampsRegion;
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * Query results and update timestamps region. The timestamps region is created without a size or time limit,
+ * an evicted timestamp would make the stale query results look up to date.
+ */
+class GeneralCacheRegion extends CacheRegion implements QueryResultsRegion, TimestampsRegion {
+
+    GeneralCacheRegion(String name, RobeRegionFactory factory, RegionConfiguration configuration) {
+        super(name, factory, configuration);
+    }
+
+    @Override
+    public Object get(SessionImplementor session, Object key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public void put(SessionImplementor session, Object key, Object value) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+}
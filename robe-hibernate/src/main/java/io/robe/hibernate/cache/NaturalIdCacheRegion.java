@@ -0,0 +1,64 @@
+package io.robe.hibernate.cache;
+
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.NaturalIdRegion;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cache.spi.access.NaturalIdRegionAccessStrategy;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+class NaturalIdCacheRegion extends TransactionalCacheRegion implements NaturalIdRegion {
+
+    NaturalIdCacheRegion(String name, RobeRegionFactory factory, RegionConfiguration configuration, CacheDataDescription description) {
+        super(name, factory, configuration, description);
+    }
+
+    @Override
+    public NaturalIdRegionAccessStrategy buildAccessStrategy(AccessType accessType) {
+        return new Access(this, accessType);
+    }
+
+    private static final class Access extends AccessStrategy implements NaturalIdRegionAccessStrategy {
+
+        private Access(NaturalIdCacheRegion region, AccessType accessType) {
+            super(region, accessType);
+        }
+
+        @Override
+        public NaturalIdRegion getRegion() {
+            return (NaturalIdRegion) region;
+        }
+
+        @Override
+        public Object generateCacheKey(Object[] naturalIdValues, EntityPersister persister, SessionImplementor session) {
+            return DefaultCacheKeysFactory.createNaturalIdKey(naturalIdValues, persister, session);
+        }
+
+        @Override
+        public Object[] getNaturalIdValues(Object cacheKey) {
+            return DefaultCacheKeysFactory.getNaturalIdValues(cacheKey);
+        }
+
+        @Override
+        public boolean insert(SessionImplementor session, Object key, Object value) {
+            return insert(key, value);
+        }
+
+        @Override
+        public boolean afterInsert(SessionImplementor session, Object key, Object value) {
+            return afterInsert(key, value);
+        }
+
+        @Override
+        public boolean update(SessionImplementor session, Object key, Object value) {
+            return update(key);
+        }
+
+        @Override
+        public boolean afterUpdate(SessionImplementor session, Object key, Object value, SoftLock lock) {
+            return afterUpdate(key, lock);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.robe.hibernate.cache;
+
+/**
+ * Size and time to live of a second level cache region.
+ */
+public class RegionConfiguration {
+
+    private long maximumSize = 10000;
+
+    private long ttlSeconds = 600;
+
+    public RegionConfiguration() {
+    }
+
+    public RegionConfiguration(long maximumSize, long ttlSeconds) {
+        this.maximumSize = maximumSize;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * @return maximum number of entries, least recently used ones are evicted first.
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return seconds to keep an entry after it is written, 0 keeps it until it is evicted.
+     */
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+}
@@ -0,0 +1,171 @@
+package io.robe.hibernate.cache;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.spi.*;
+import org.hibernate.cache.spi.access.AccessType;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In process second level and query cache of Hibernate. Every region is a bounded Guava cache configured by
+ * {@link CacheConfiguration}, entries are kept on the heap of the application, so the cache is not shared between nodes.
+ * Hits, misses, hit rate and size of each region are published as gauges by {@link #registerMetrics(MetricRegistry)}.
+ */
+public class RobeRegionFactory implements RegionFactory {
+
+    /**
+     * Milliseconds to keep a lock of a key which is never released.
+     */
+    static final int TIMEOUT = 60000;
+
+    /**
+     * Property which holds the {@link CacheConfiguration} of the factory.
+     */
+    public static final String CONFIGURATION = "robe.cache.configuration";
+
+    private final CacheConfiguration configuration;
+    private final Map<String, CacheRegion> regions = new ConcurrentHashMap<>();
+    private volatile MetricRegistry registry;
+
+    /**
+     * Called by Hibernate with the settings of the session factory.
+     *
+     * @param properties settings which hold the {@link #CONFIGURATION}
+     */
+    public RobeRegionFactory(Properties properties) {
+        Object configuration = properties.get(CONFIGURATION);
+        this.configuration = configuration instanceof CacheConfiguration ? (CacheConfiguration) configuration : new CacheConfiguration();
+    }
+
+    /**
+     * Enables the second level cache of the configuration with this region factory.
+     * Hibernate instantiates the factory by its class name, the cache configuration is passed by the {@link #CONFIGURATION} property.
+     * If the cache is not enabled and no other region factory is given, the second level cache is disabled,
+     * otherwise Hibernate fails to build the regions of the {@link org.hibernate.annotations.Cache} entities.
+     *
+     * @param hibernate     hibernate configuration which is being built
+     * @param configuration cache configuration
+     */
+    public static void configure(Configuration hibernate, CacheConfiguration configuration) {
+        if (!configuration.isEnabled()) {
+            if (hibernate.getProperty(AvailableSettings.CACHE_REGION_FACTORY) == null) {
+                hibernate.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false");
+                hibernate.setProperty(AvailableSettings.USE_QUERY_CACHE, "false");
+            }
+            return;
+        }
+        hibernate.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true");
+        hibernate.setProperty(AvailableSettings.USE_QUERY_CACHE, Boolean.toString(configuration.isQueryCache()));
+        hibernate.setProperty(AvailableSettings.CACHE_REGION_FACTORY, RobeRegionFactory.class.getName());
+        hibernate.getProperties().put(CONFIGURATION, configuration);
+    }
+
+    /**
+     * @param sessionFactory built session factory
+     * @return region factory of the session factory, null if the second level cache is not enabled by {@link #configure(Configuration, CacheConfiguration)}
+     */
+    public static RobeRegionFactory of(SessionFactory sessionFactory) {
+        RegionFactory factory = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry().getService(RegionFactory.class);
+        return factory instanceof RobeRegionFactory ? (RobeRegionFactory) factory : null;
+    }
+
+    /**
+     * Registers hit rate, hits, misses and size gauges of the existing and the future regions.
+     *
+     * @param registry metric registry of the environment
+     */
+    public void registerMetrics(MetricRegistry registry) {
+        this.registry = registry;
+        for (CacheRegion region : regions.values()) {
+            registerMetrics(registry, region);
+        }
+    }
+
+    private static void registerMetrics(MetricRegistry registry, CacheRegion region) {
+        String name = MetricRegistry.name(RobeRegionFactory.class, region.getName());
+        registry.register(MetricRegistry.name(name, "hitRate"), (Gauge<Double>) () -> region.stats().hitRate());
+        registry.register(MetricRegistry.name(name, "hits"), (Gauge<Long>) () -> region.stats().hitCount());
+        registry.register(MetricRegistry.name(name, "misses"), (Gauge<Long>) () -> region.stats().missCount());
+        registry.register(MetricRegistry.name(name, "size"), (Gauge<Long>) region::getElementCountInMemory);
+    }
+
+    /**
+     * @return region of the name, null if it is not built
+     */
+    public Region getRegion(String name) {
+        return regions.get(name);
+    }
+
+    private <R extends CacheRegion> R register(R region) {
+        CacheRegion previous = regions.putIfAbsent(region.getName(), region);
+        if (previous != null) {
+            throw new CacheException("Region is already built: " + region.getName());
+        }
+        MetricRegistry metrics = registry;
+        if (metrics != null) {
+            registerMetrics(metrics, region);
+        }
+        return region;
+    }
+
+    @Override
+    public void start(SessionFactoryOptions settings, Properties properties) {
+    }
+
+    @Override
+    public void stop() {
+        for (CacheRegion region : regions.values()) {
+            region.destroy();
+        }
+        regions.clear();
+    }
+
+    @Override
+    public boolean isMinimalPutsEnabledByDefault() {
+        return false;
+    }
+
+    @Override
+    public AccessType getDefaultAccessType() {
+        return AccessType.READ_WRITE;
+    }
+
+    @Override
+    public long nextTimestamp() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public EntityRegion buildEntityRegion(String regionName, Properties properties, CacheDataDescription metadata) {
+        return register(new EntityCacheRegion(regionName, this, configuration.getRegion(regionName), metadata));
+    }
+
+    @Override
+    public NaturalIdRegion buildNaturalIdRegion(String regionName, Properties properties, CacheDataDescription metadata) {
+        return register(new NaturalIdCacheRegion(regionName, this, configuration.getRegion(regionName), metadata));
+    }
+
+    @Override
+    public CollectionRegion buildCollectionRegion(String regionName, Properties properties, CacheDataDescription metadata) {
+        return register(new CollectionCacheRegion(regionName, this, configuration.getRegion(regionName), metadata));
+    }
+
+    @Override
+    public QueryResultsRegion buildQueryResultsRegion(String regionName, Properties properties) {
+        return register(new GeneralCacheRegion(regionName, this, configuration.getRegion(regionName)));
+    }
+
+    @Override
+    public TimestampsRegion buildTimestampsRegion(String regionName, Properties properties) {
+        return register(new GeneralCacheRegion(regionName, this, null));
+    }
+}
@@ -0,0 +1,141 @@
+package io.robe.hibernate.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Striped;
+import org.hibernate.cache.spi.CacheDataDescription;
+import org.hibernate.cache.spi.TransactionalDataRegion;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Entity, collection and natural id region.
+ * Writes invalidate the entries instead of updating them. A key is locked from the beginning of the write until the commit,
+ * and the loads of the transactions which started before the commit are not cached, so a stale load never overwrites
+ * the invalidation. A lock which is never released expires after the timeout.
+ */
+abstract class TransactionalCacheRegion extends CacheRegion implements TransactionalDataRegion {
+
+    private static final long LOCKED = Long.MAX_VALUE;
+
+    private final CacheDataDescription description;
+    /**
+     * Invalidation timestamps by key, {@link #LOCKED} while the key is being written.
+     */
+    private final Cache<Object, Long> invalidations = CacheBuilder.newBuilder()
+            .expireAfterWrite(RobeRegionFactory.TIMEOUT, TimeUnit.MILLISECONDS).build();
+    private final Striped<Lock> locks = Striped.lock(64);
+    private volatile long regionInvalidation;
+
+    TransactionalCacheRegion(String name, RobeRegionFactory factory, RegionConfiguration configuration, CacheDataDescription description) {
+        super(name, factory, configuration);
+        this.description = description;
+    }
+
+    @Override
+    public boolean isTransactionAware() {
+        return false;
+    }
+
+    @Override
+    public CacheDataDescription getCacheDataDescription() {
+        return description;
+    }
+
+    Object get(Object key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Caches the loaded value unless the key is invalidated after the transaction started.
+     *
+     * @param txTimestamp start timestamp of the loading transaction
+     * @return true if the value is cached
+     */
+    boolean putFromLoad(Object key, Object value, long txTimestamp, boolean minimalPut) {
+        if (txTimestamp <= regionInvalidation) {
+            return false;
+        }
+        Lock lock = locks.get(key);
+        lock.lock();
+        try {
+            Long invalidation = invalidations.getIfPresent(key);
+            if (invalidation != null && invalidation >= txTimestamp) {
+                return false;
+            }
+            if (minimalPut && cache.getIfPresent(key) != null) {
+                return false;
+            }
+            cache.put(key, value);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches the value of a committed insert.
+     */
+    void putAfterInsert(Object key, Object value) {
+        Lock lock = locks.get(key);
+        lock.lock();
+        try {
+            cache.put(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry and blocks the loads until {@link #unlock(Object)}.
+     */
+    void lock(Object key) {
+        Lock lock = locks.get(key);
+        lock.lock();
+        try {
+            invalidations.put(key, LOCKED);
+            cache.invalidate(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry, loads of the transactions which started before now are not cached.
+     */
+    void unlock(Object key) {
+        Lock lock = locks.get(key);
+        lock.lock();
+        try {
+            invalidations.put(key, nextTimestamp());
+            cache.invalidate(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all entries and blocks the loads until {@link #unlockAll()}.
+     */
+    void lockAll() {
+        regionInvalidation = LOCKED;
+        cache.invalidateAll();
+    }
+
+    /**
+     * Removes all entries, loads of the transactions which started before now are not cached.
+     */
+    void unlockAll() {
+        regionInvalidation = nextTimestamp();
+        cache.invalidateAll();
+    }
+
+    void evict(Object key) {
+        cache.invalidate(key);
+    }
+
+    void evictAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,13 @@
+package io.robe.hibernate.criteria.api;
+
+import java.util.Iterator;
+
+/**
+ * Iterator over an open database cursor. Must be closed after the iteration to release the cursor,
+ * it is closed automatically when the last row is read.
+ */
+public interface CloseableIterator<E> extends Iterator<E>, AutoCloseable {
+
+    @Override
+    void close();
+}
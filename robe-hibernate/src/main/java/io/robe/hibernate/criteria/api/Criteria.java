@@ -1,5 +1,6 @@
 package io.robe.hibernate.criteria.api;
 
+import io.robe.common.service.search.model.CountMode;
 import io.robe.common.utils.TypeReference;
 import io.robe.hibernate.criteria.api.criterion.Restriction;
 import io.robe.hibernate.criteria.api.projection.Projection;
@@ -8,6 +9,10 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Created by kamilbukum on 10/01/2017.
@@ -15,6 +20,10 @@ import java.util.Map;
 public class Criteria<E> extends CriteriaParent<E> {
     private static final TypeReference<Map<String, Object>> MAP_TYPE_REFERENCE = new TypeReference<Map<String, Object>>() {};
     public static final  Class<Map<String, Object>> MAP_CLASS = MAP_TYPE_REFERENCE.getClazz();
+    /**
+     * Default number of rows fetched per round trip by {@link #scroll()} and {@link #stream()}.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
     /**
      *
      */
@@ -27,6 +36,22 @@ public class Criteria<E> extends CriteriaParent<E> {
      * Maximum number of results per page.
      */
     private Integer limit;
+    /**
+     * How the total count of {@link #pairList()} is calculated.
+     */
+    private CountMode countMode = CountMode.EXACT;
+    /**
+     * Keyset pagination cursor of {@link #pairList()}, null uses offset pagination.
+     */
+    private String after;
+    /**
+     * Caches the results in the query cache of Hibernate.
+     */
+    private boolean cacheable;
+    /**
+     * Query cache region of the results, null uses the default region.
+     */
+    private String cacheRegion;
     /**
      * @param entityClass
      */
@@ -37,8 +62,8 @@ public class Criteria<E> extends CriteriaParent<E> {
     /**
      * @param entityClass
      */
-    protected Criteria(String alias, Class<?> entityClass, Transformer<E> transformer) {
-        super(alias, entityClass, transformer, new LinkedHashMap<>());
+    protected Criteria(String alias, Class<?> entityClass, TransformMeta<E> transformMeta) {
+        super(alias, entityClass, transformMeta, new LinkedHashMap<>());
     }
 
     /**
@@ -60,6 +85,16 @@ public class Criteria<E> extends CriteriaParent<E> {
     public static <E> Criteria<E> createCriteria(String alias, Class<?> entityClass, Transformer<E> transformer) {
         return new Criteria<>(alias, entityClass, transformer);
     }
+
+    /**
+     * Creates a criteria which can be configured but not executed, like a template which must not hold a session.
+     * @param entityClass
+     * @param transformMeta resolves the metas of the entities and the transform class
+     * @return
+     */
+    public static <E> Criteria<E> createCriteria(Class<?> entityClass, TransformMeta<E> transformMeta) {
+        return new Criteria<>(null, entityClass, transformMeta);
+    }
     /**
      * Sets starting index for the paged fetches.
      * @param offset
@@ -78,6 +113,60 @@ public class Criteria<E> extends CriteriaParent<E> {
         return this;
     }
 
+    /**
+     * Sets how the total count of {@link #pairList()} is calculated.
+     * @param countMode
+     */
+    public Criteria<E> setCountMode(CountMode countMode) {
+        this.countMode = countMode;
+        return this;
+    }
+
+    /**
+     * Enables keyset pagination for {@link #pairList()}. Next page starts after the row of the cursor
+     * instead of skipping offset rows. Empty cursor fetches the first page.
+     * @param after cursor of {@link Result#getNextCursor()}
+     */
+    public Criteria<E> setAfter(String after) {
+        this.after = after;
+        return this;
+    }
+
+    /**
+     * Caches the results of {@link #list()}, {@link #pairList()}, {@link #count()} and {@link #uniqueResult()}
+     * in the query cache if it is enabled. Rows which are transformed to maps or dtos are not cached.
+     * @param cacheable
+     */
+    public Criteria<E> setCacheable(boolean cacheable) {
+        this.cacheable = cacheable;
+        return this;
+    }
+
+    /**
+     * Sets the query cache region of the results.
+     * @param cacheRegion
+     */
+    public Criteria<E> setCacheRegion(String cacheRegion) {
+        this.cacheRegion = cacheRegion;
+        return this;
+    }
+
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    public String getCacheRegion() {
+        return cacheRegion;
+    }
+
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
     /**
      * Gets starting index for the paged fetches.
      * @return
@@ -115,6 +204,79 @@ public class Criteria<E> extends CriteriaParent<E> {
         return getTransformer().uniqueResult(this);
     }
 
+    /**
+     * Iterates the results over a forward only cursor instead of loading all of them.
+     * Session is cleared after each fetch size rows, so the iterated entities are detached.
+     * @param fetchSize number of rows fetched per round trip
+     * @return iterator which must be closed
+     */
+    public CloseableIterator<E> scroll(int fetchSize){
+        assertTransformerIsExist();
+        if(fetchSize < 1) {
+            throw new RuntimeException("Fetch size must be positive: " + fetchSize);
+        }
+        return getTransformer().scroll(this, fetchSize);
+    }
+
+    public CloseableIterator<E> scroll(){
+        return scroll(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * {@link #scroll(int)} as a sequential stream, closing the stream closes the cursor.
+     * @param fetchSize number of rows fetched per round trip
+     * @return stream which must be closed
+     */
+    public Stream<E> stream(int fetchSize){
+        CloseableIterator<E> iterator = scroll(fetchSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
+    }
+
+    public Stream<E> stream(){
+        return stream(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Updates the matching rows by a single UPDATE statement without loading them.
+     * Entities which are already loaded in the session are not refreshed.
+     * @param values new values by the field names of the root entity
+     * @return number of updated rows
+     */
+    public int update(Map<String, Object> values){
+        assertTransformerIsExist();
+        assertBulk();
+        if(values == null || values.isEmpty()) {
+            throw new RuntimeException("No values to update " + getEntityClass().getName());
+        }
+        for(String name : values.keySet()) {
+            if(getMeta().getFieldMap().get(name) == null) {
+                throw new RuntimeException(name + " is not a field of " + getEntityClass().getName());
+            }
+        }
+        return getTransformer().update(this, values);
+    }
+
+    /**
+     * Deletes the matching rows by a single DELETE statement without loading them.
+     * Entities which are already loaded in the session are not removed, cascades and delete events are not applied.
+     * @return number of deleted rows
+     */
+    public int delete(){
+        assertTransformerIsExist();
+        assertBulk();
+        return getTransformer().delete(this);
+    }
+
+    /**
+     * Paging a bulk statement would silently change all matching rows.
+     */
+    private void assertBulk() {
+        if(offset != null || limit != null || after != null) {
+            throw new RuntimeException("Bulk update and delete can not be paged: " + getEntityClass().getName());
+        }
+    }
+
     @Override
     public Criteria<E> add(Restriction criterion) {
         super.add(criterion);
@@ -138,7 +300,7 @@ public class Criteria<E> extends CriteriaParent<E> {
 
     private void assertTransformerIsExist(){
         if(getTransformer() == null) {
-            throw new RuntimeException("Transformer not provided for CriteriaParent");
+            throw new RuntimeException("Transformer not provided for the criteria of " + getEntityClass().getName());
         }
     }
 
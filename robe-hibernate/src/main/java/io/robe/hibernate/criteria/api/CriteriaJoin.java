@@ -20,23 +20,23 @@ public final class CriteriaJoin<E> extends CriteriaParent<E> {
      *
      * @param parent
      * @param entityClass
-     * @param transformer
+     * @param transformMeta
      * @param aliasesMap
      */
-    CriteriaJoin(CriteriaParent<E> parent, Class<?> entityClass, Transformer<E> transformer, Map<String, Integer> aliasesMap) {
-        this(parent, null , entityClass, transformer, null, aliasesMap);
+    CriteriaJoin(CriteriaParent<E> parent, Class<?> entityClass, TransformMeta<E> transformMeta, Map<String, Integer> aliasesMap) {
+        this(parent, null , entityClass, transformMeta, null, aliasesMap);
     }
 
     /**
      *
      * @param parent
      * @param entityClass
-     * @param transformer
+     * @param transformMeta
      * @param referenceId
      * @param aliasesMap
      */
-    CriteriaJoin(CriteriaParent<E> parent, String alias, Class<?> entityClass, Transformer<E> transformer, String referenceId, Map<String, Integer> aliasesMap) {
-        super(alias, entityClass, transformer, aliasesMap);
+    CriteriaJoin(CriteriaParent<E> parent, String alias, Class<?> entityClass, TransformMeta<E> transformMeta, String referenceId, Map<String, Integer> aliasesMap) {
+        super(alias, entityClass, transformMeta, aliasesMap);
         this.parent = parent;
         this.referenceId = referenceId;
         if(!Validations.isEmptyOrNull(this.referenceId)) {
@@ -23,15 +23,18 @@ public abstract class CriteriaParent<E> {
     private final List<Restriction> restrictions = new LinkedList<>();
     private final EntityMeta meta;
     private Projection projection;
+    private final TransformMeta<E> transformMeta;
     private final Transformer<E> transformer;
     private final Map<String, Integer> aliasesMap;
     /**
      * @param entityClass
+     * @param transformMeta resolves the metas, executes the criteria if it is a {@link Transformer}
      */
-    protected CriteriaParent(String alias, Class<?> entityClass, Transformer<E> transformer, Map<String, Integer> aliasesMap){
+    protected CriteriaParent(String alias, Class<?> entityClass, TransformMeta<E> transformMeta, Map<String, Integer> aliasesMap){
         this.entityClass = entityClass;
         this.aliasesMap = aliasesMap;
-        this.transformer = transformer;
+        this.transformMeta = transformMeta;
+        this.transformer = transformMeta instanceof Transformer ? (Transformer<E>) transformMeta : null;
 
         alias = "$" + (alias != null ? alias : Strings.unCapitalizeFirstChar(entityClass.getSimpleName()));
         if(aliasesMap.containsKey(alias)) {
@@ -41,10 +44,10 @@ public abstract class CriteriaParent<E> {
             alias = alias + "_" + aliasCount;
         }
         this.alias = alias;
-        if(transformer.getTransformClass() != null && this.entityClass.getName().equals(transformer.getTransformClass().getName())) {
-            this.meta = transformer.getMeta();
+        if(transformMeta.getTransformClass() != null && this.entityClass.getName().equals(transformMeta.getTransformClass().getName())) {
+            this.meta = transformMeta.getMeta();
         } else {
-            this.meta = transformer.getFinder().getEntityMeta(entityClass);
+            this.meta = transformMeta.getMeta(entityClass);
         }
     }
 
@@ -82,7 +85,7 @@ public abstract class CriteriaParent<E> {
      * @return
      */
     public CriteriaJoin<E> createJoin(String alias, Class<?> entityClass, String referenceId) {
-        CriteriaJoin<E> join = new CriteriaJoin<>(this, alias, entityClass, this.getTransformer(), referenceId, this.aliasesMap);
+        CriteriaJoin<E> join = new CriteriaJoin<>(this, alias, entityClass, this.getTransformMeta(), referenceId, this.aliasesMap);
         joins.put(join.getAlias(), join);
         return join;
     }
@@ -127,10 +130,17 @@ public abstract class CriteriaParent<E> {
         return this;
     }
 
+    /**
+     * @return transformer which executes the criteria, null if it is created with only a {@link TransformMeta}
+     */
     public Transformer<E> getTransformer() {
         return transformer;
     }
 
+    public TransformMeta<E> getTransformMeta() {
+        return transformMeta;
+    }
+
     public abstract boolean isRoot();
 }
 
@@ -0,0 +1,162 @@
+package io.robe.hibernate.criteria.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.robe.common.utils.Validations;
+import io.robe.common.utils.reflection.Fields;
+import io.robe.hibernate.criteria.api.cache.FieldMeta;
+import io.robe.hibernate.criteria.api.criterion.Restriction;
+import io.robe.hibernate.criteria.api.criterion.Restrictions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Keyset (seek) pagination helpers of {@link Criteria}.
+ * Instead of skipping offset rows, the next page is restricted to the rows after the last row of the previous page
+ * by the sort keys. The identifier is appended to the orders, so the keys are unique.
+ * Cursor is the url safe base64 of the sort key values of the last row. Sort keys must be the non null fields of the root entity.
+ */
+public final class Keyset {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private Keyset() {
+    }
+
+    /**
+     * Validates the orders and appends the identifier order if it is missing.
+     *
+     * @param criteria criteria to page
+     */
+    public static void prepare(Criteria<?> criteria) {
+        String identityName = criteria.getMeta().getIdentityName();
+        boolean hasIdentity = false;
+        for (Order order : criteria.getOrders()) {
+            if (order.isAlias() || !criteria.getAlias().equals(order.getCriteriaAlias())) {
+                throw new RuntimeException("Keyset pagination supports only orders on the fields of " + criteria.getEntityClass().getName());
+            }
+            hasIdentity |= order.getName().equals(identityName);
+        }
+        if (!hasIdentity) {
+            criteria.addOrder(Order.asc(identityName));
+        }
+    }
+
+    /**
+     * Creates the restriction which selects the rows after the cursor.
+     * For the orders (k1, k2) it is {@code k1 > v1 OR (k1 = v1 AND k2 > v2)}, descending orders use less than.
+     *
+     * @param criteria prepared criteria
+     * @return restriction, null for the empty cursor
+     */
+    public static Restriction restriction(Criteria<?> criteria) {
+        if (Validations.isEmptyOrNull(criteria.getAfter())) {
+            return null;
+        }
+        List<Order> orders = criteria.getOrders();
+        Object[] values = decode(criteria, orders);
+        List<Restriction> alternatives = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            Restriction seek = order.getType() == Order.Type.ASC ?
+                    Restrictions.gt(order.getName(), values[i]) : Restrictions.lt(order.getName(), values[i]);
+            if (i == 0) {
+                alternatives.add(seek);
+            } else {
+                List<Restriction> equals = new ArrayList<>(i + 1);
+                for (int j = 0; j < i; j++) {
+                    equals.add(Restrictions.eq(orders.get(j).getName(), values[j]));
+                }
+                equals.add(seek);
+                alternatives.add(Restrictions.and(equals));
+            }
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : Restrictions.or(alternatives);
+    }
+
+    /**
+     * Creates the cursor from the sort key values of the row.
+     *
+     * @param criteria prepared criteria
+     * @param row      last row of the page, entity, map or dto
+     * @return cursor, null if a sort key is not in the row
+     */
+    public static String cursor(Criteria<?> criteria, Object row) {
+        List<Order> orders = criteria.getOrders();
+        List<String> values = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            Object value;
+            if (row instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) row;
+                if (!map.containsKey(order.getName())) {
+                    return null;
+                }
+                value = map.get(order.getName());
+            } else {
+                Map<String, FieldMeta> fieldMap = criteria.getEntityClass().isInstance(row) ?
+                        criteria.getMeta().getFieldMap() : criteria.getTransformMeta().getMeta(row.getClass()).getFieldMap();
+                FieldMeta fieldMeta = fieldMap.get(order.getName());
+                if (fieldMeta == null) {
+                    return null;
+                }
+                try {
+                    value = fieldMeta.getField().get(row);
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException("Can't read " + order.getName() + " of " + row.getClass().getName(), e);
+                }
+            }
+            if (value == null) {
+                return null;
+            }
+            values.add(value instanceof Date ? String.valueOf(((Date) value).getTime()) :
+                    value instanceof Enum ? ((Enum) value).name() : value.toString());
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(values));
+        } catch (IOException e) {
+            throw new RuntimeException("Can't create cursor", e);
+        }
+    }
+
+    /**
+     * The cursor comes from the client, so every failure is an {@link InvalidCursorException}.
+     */
+    private static Object[] decode(Criteria<?> criteria, List<Order> orders) {
+        String[] raw;
+        try {
+            raw = MAPPER.readValue(Base64.getUrlDecoder().decode(criteria.getAfter().getBytes(StandardCharsets.US_ASCII)), String[].class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor: " + criteria.getAfter(), e);
+        }
+        if (raw == null || raw.length != orders.size()) {
+            throw new InvalidCursorException("Cursor does not match the sort fields: " + criteria.getAfter(), null);
+        }
+        Object[] values = new Object[raw.length];
+        for (int i = 0; i < raw.length; i++) {
+            FieldMeta fieldMeta = criteria.getMeta().getFieldMap().get(orders.get(i).getName());
+            if (fieldMeta == null) {
+                throw new InvalidCursorException("Unknown sort field: " + orders.get(i).getName(), null);
+            }
+            if (raw[i] == null) {
+                throw new InvalidCursorException("Invalid cursor: " + criteria.getAfter(), null);
+            }
+            try {
+                values[i] = Fields.castValue(fieldMeta.getField().getType(), raw[i]);
+            } catch (RuntimeException e) {
+                throw new InvalidCursorException("Invalid cursor value of " + orders.get(i).getName() + ": " + raw[i], e);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Thrown when the cursor of {@link Criteria#getAfter()} can not be decoded.
+     */
+    public static class InvalidCursorException extends IllegalArgumentException {
+
+        public InvalidCursorException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -81,10 +81,11 @@ public class Order {
          * @return
          */
         public static Type value(String op){
-            for(Type type: Type.values()) {
-                if(type.value().equals(op)) {
-                    return type;
-                }
+            if(ASC.value.equals(op)) {
+                return ASC;
+            }
+            if(DESC.value.equals(op)) {
+                return DESC;
             }
             throw new RuntimeException("Value not found in " + Type.class.getName()) ;
         }
@@ -9,6 +9,8 @@ import java.util.List;
 public class Result<E> {
     private List<E> list;
     private Long totalCount;
+    private Boolean hasMore;
+    private String nextCursor;
 
     public Result() {
 
@@ -39,6 +41,28 @@ public class Result<E> {
         this.totalCount = totalCount;
     }
 
+    /**
+     * @return true if there are more results after this page, null if it is not probed.
+     */
+    public Boolean getHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(Boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * @return keyset cursor of the next page, null if there is no next page or keyset pagination is not used.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
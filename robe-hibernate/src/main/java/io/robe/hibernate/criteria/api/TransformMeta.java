@@ -0,0 +1,55 @@
+package io.robe.hibernate.criteria.api;
+
+import io.robe.hibernate.criteria.api.cache.EntityMeta;
+import io.robe.hibernate.criteria.api.cache.EntityMetaFinder;
+
+import java.util.Map;
+
+/**
+ * Resolves the metas of the entities and the transform class of a criteria.
+ * A criteria which is created with only this can be configured but not executed, like the templates of the search plans.
+ * {@link Transformer} adds the execution.
+ */
+public class TransformMeta<E> {
+    private final EntityMetaFinder finder;
+    private final Class<? extends E> transformClass;
+    private final TransformType transformType;
+    private EntityMeta meta;
+
+    public TransformMeta(Class<? extends E> transformClass, EntityMetaFinder finder){
+        this.transformClass = transformClass;
+        this.finder = finder;
+        if(transformClass == null) {
+            this.transformType = TransformType.ENTITY;
+        } else if(transformClass.getName().equals(Map.class.getName())) {
+            this.transformType = TransformType.MAP;
+        } else {
+            this.transformType = TransformType.DTO;
+            this.meta = Transformer.CachedEntity.getEntityMeta(transformClass, this.finder, true);
+        }
+    }
+
+    public Class<? extends E> getTransformClass() {
+        return transformClass;
+    }
+
+    public TransformType getTransformType() {
+        return transformType;
+    }
+
+    public EntityMetaFinder getFinder() {
+        return this.finder;
+    }
+
+    public EntityMeta getMeta(){
+        return this.meta;
+    }
+
+    public EntityMeta getMeta(Class<?> clazz){
+        return Transformer.CachedEntity.getEntityMeta(clazz, this.finder, false);
+    }
+
+    public enum TransformType {
+        ENTITY , MAP , DTO
+    }
+}
@@ -0,0 +1,55 @@
+package io.robe.hibernate.criteria.api.cache;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link EntityMeta} of the classes by the class itself.
+ * Metas of the entities are registered once when the session factory is built, so the requests never reflect on them.
+ * The registered metas are kept in an immutable map which is replaced on each registration.
+ * Other classes, as the DTOs of the transformers, are reflected once by the given finder and kept.
+ */
+public final class EntityMetaRegistry {
+
+    private static volatile Map<Class<?>, EntityMeta> registry = ImmutableMap.of();
+    private static final ConcurrentHashMap<Class<?>, EntityMeta> computed = new ConcurrentHashMap<>();
+
+    private EntityMetaRegistry() {
+    }
+
+    /**
+     * Adds the metas to the registry, replaces the registered metas of the same classes.
+     *
+     * @param metas metas of the entities
+     */
+    public static synchronized void register(Map<Class<?>, EntityMeta> metas) {
+        Map<Class<?>, EntityMeta> merged = new HashMap<>(registry);
+        merged.putAll(metas);
+        registry = ImmutableMap.copyOf(merged);
+        computed.keySet().removeAll(metas.keySet());
+    }
+
+    /**
+     * @param type entity or DTO class
+     * @return true if the meta of the class is registered
+     */
+    public static boolean isRegistered(Class<?> type) {
+        return registry.containsKey(type);
+    }
+
+    /**
+     * @param type   entity or DTO class
+     * @param finder finder of the classes which are not registered
+     * @return registered meta of the class, or the meta of the finder which is computed once. Null if the finder gives null.
+     */
+    public static EntityMeta get(Class<?> type, EntityMetaFinder finder) {
+        EntityMeta meta = registry.get(type);
+        if (meta != null) {
+            return meta;
+        }
+        return computed.computeIfAbsent(type, finder::getEntityMeta);
+    }
+}
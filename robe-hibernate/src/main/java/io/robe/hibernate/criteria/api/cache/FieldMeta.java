@@ -1,5 +1,8 @@
 package io.robe.hibernate.criteria.api.cache;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 
 /**
@@ -13,6 +16,8 @@ public class FieldMeta {
     private final Field field;
     private final FieldReference reference;
     private String relationName;
+    private volatile MethodHandle getter;
+    private volatile MethodHandle setter;
 
     public FieldMeta(Field field, boolean isTransient, boolean searchIgnore, boolean hasRelation, boolean collection){
         this(field, null, isTransient, searchIgnore, hasRelation, collection);
@@ -28,6 +33,15 @@ public class FieldMeta {
 
     }
 
+    /**
+     * @return copy of the meta which is transient
+     */
+    public FieldMeta asTransient() {
+        FieldMeta meta = new FieldMeta(field, reference, true, searchIgnore, hasRelation, collection);
+        meta.setRelationName(relationName);
+        return meta;
+    }
+
     public FieldReference getReference() {
         return reference;
     }
@@ -59,4 +73,45 @@ public class FieldMeta {
     public boolean isCollection() {
         return collection;
     }
+
+    /**
+     * @return getter handle of the field in {@code (Object)Object} type, created at the first call
+     */
+    public MethodHandle getGetter() {
+        MethodHandle handle = getter;
+        if (handle == null) {
+            try {
+                handle = MethodHandles.lookup().unreflectGetter(accessible())
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Can't access " + field, e);
+            }
+            getter = handle;
+        }
+        return handle;
+    }
+
+    /**
+     * @return setter handle of the field in {@code (Object, Object)void} type, created at the first call
+     */
+    public MethodHandle getSetter() {
+        MethodHandle handle = setter;
+        if (handle == null) {
+            try {
+                handle = MethodHandles.lookup().unreflectSetter(accessible())
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Can't access " + field, e);
+            }
+            setter = handle;
+        }
+        return handle;
+    }
+
+    private Field accessible() {
+        if (!field.isAccessible()) {
+            field.setAccessible(true);
+        }
+        return field;
+    }
 }
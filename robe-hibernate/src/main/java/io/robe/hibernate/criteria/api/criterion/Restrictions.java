@@ -3,6 +3,7 @@ package io.robe.hibernate.criteria.api.criterion;
 import io.robe.common.utils.Strings;
 import io.robe.common.utils.Validations;
 import io.robe.hibernate.criteria.query.Operator;
+import java.util.Collection;
 import java.util.List;
 
 public class Restrictions {
@@ -112,6 +113,16 @@ public class Restrictions {
     public static Restriction in(String name, Object value){
         return new Restriction(Operator.IN, name, value);
     }
+
+    /**
+     * Restricts the q to the candidate identifiers, the q restrictions still decide the result.
+     * @param name identity name
+     * @param ids candidate identifiers of the q
+     * @return
+     */
+    public static Restriction qIn(String name, Collection<?> ids){
+        return new Restriction(Operator.Q_IN, name, ids);
+    }
     public static Restriction and(Restriction ...restrictions){
         return new RestrictionList(Operator.AND, restrictions);
     }
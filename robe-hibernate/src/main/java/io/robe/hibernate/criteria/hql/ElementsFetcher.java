@@ -0,0 +1,151 @@
+package io.robe.hibernate.criteria.hql;
+
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.cache.FieldMeta;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.transform.AliasedTupleSubsetResultTransformer;
+import org.hibernate.transform.ResultTransformer;
+
+import java.util.*;
+
+/**
+ * Fills the collection ("elements") projections of the rows.
+ * The list query selects the identifier of the root entity as the last column with {@link #OWNER_ALIAS}.
+ * As a {@link ResultTransformer} it removes that column, transforms the rest with the delegate and collects the identifiers.
+ * Then the elements of the collected identifiers are fetched by {@code WHERE id IN (:ids)} in batches
+ * and assigned to the rows by the identifier in a single pass.
+ */
+public class ElementsFetcher extends AliasedTupleSubsetResultTransformer {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Alias of the root identifier column which is added to the list query.
+     */
+    static final String OWNER_ALIAS = "elementsOwnerId";
+
+    private static volatile int batchSize = DEFAULT_BATCH_SIZE;
+
+    private final Session session;
+    private final Criteria<?> criteria;
+    private final Map<String, String> elementsMap;
+    private final ResultTransformer delegate;
+    private final List<Object> ids = new ArrayList<>();
+    private String[] aliases;
+    private String[] delegateAliases;
+
+    ElementsFetcher(Session session, Criteria<?> criteria, Map<String, String> elementsMap, ResultTransformer delegate) {
+        this.session = session;
+        this.criteria = criteria;
+        this.elementsMap = elementsMap;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Sets the maximum number of identifiers in an IN list.
+     *
+     * @param batchSize maximum number of identifiers per elements query
+     */
+    public static void configure(int batchSize) {
+        if (batchSize < 1) {
+            throw new RuntimeException("Elements batch size must be positive: " + batchSize);
+        }
+        ElementsFetcher.batchSize = batchSize;
+    }
+
+    /**
+     * @return true if the elements of the criteria are fetched with an owner column
+     */
+    static boolean hasElements(TransformerUtil.Elements elements) {
+        return elements.elementsMap != null && elements.elementsMap.size() > 0;
+    }
+
+    @Override
+    public boolean isTransformedValueATupleElement(String[] aliases, int tupleLength) {
+        return false;
+    }
+
+    @Override
+    public Object transformTuple(Object[] tuple, String[] aliases) {
+        if (this.aliases != aliases) {
+            this.aliases = aliases;
+            this.delegateAliases = Arrays.copyOf(aliases, aliases.length - 1);
+        }
+        ids.add(tuple[tuple.length - 1]);
+        Object[] values = Arrays.copyOf(tuple, tuple.length - 1);
+        return delegate != null ? delegate.transformTuple(values, delegateAliases) : values;
+    }
+
+    /**
+     * Fetches and assigns the elements of the rows which are transformed since the last call.
+     *
+     * @param rows transformed rows in the order of transformation
+     */
+    void fetch(List<?> rows) {
+        if (rows.size() != ids.size()) {
+            throw new RuntimeException("Elements owners (" + ids.size() + ") do not match the rows (" + rows.size() + ")");
+        }
+        try {
+            Map<Object, List<Object>> rowsById = new HashMap<>(rows.size() * 2);
+            for (int i = 0; i < rows.size(); i++) {
+                rowsById.computeIfAbsent(ids.get(i), id -> new ArrayList<>(1)).add(rows.get(i));
+            }
+            List<Object> distinctIds = new ArrayList<>(rowsById.keySet());
+            for (Map.Entry<String, String> entry : elementsMap.entrySet()) {
+                Map<Object, Collection<Object>> elementsById = new HashMap<>(rowsById.size() * 2);
+                for (int from = 0; from < distinctIds.size(); from += batchSize) {
+                    List<Object> batch = distinctIds.subList(from, Math.min(from + batchSize, distinctIds.size()));
+                    Query query = session.createQuery(elementsQuery(entry.getKey()));
+                    query.setParameterList("ids", batch);
+                    for (Object result : query.list()) {
+                        Object[] pair = (Object[]) result;
+                        elementsById.computeIfAbsent(pair[0], id -> newCollection(entry)).add(pair[1]);
+                    }
+                }
+                for (Map.Entry<Object, List<Object>> owner : rowsById.entrySet()) {
+                    Collection<Object> values = elementsById.get(owner.getKey());
+                    for (Object row : owner.getValue()) {
+                        set(row, entry.getValue(), values != null ? values : newCollection(entry));
+                    }
+                }
+            }
+        } finally {
+            ids.clear();
+        }
+    }
+
+    private String elementsQuery(String property) {
+        String alias = criteria.getAlias();
+        String id = alias + "." + criteria.getMeta().getIdentityName();
+        return "SELECT " + id + ", " + alias + "_elements FROM " + criteria.getEntityClass().getName() + " " + alias +
+                " JOIN " + alias + "." + property + " " + alias + "_elements WHERE " + id + " IN (:ids)";
+    }
+
+    private Collection<Object> newCollection(Map.Entry<String, String> entry) {
+        FieldMeta field = destinationField(entry.getValue());
+        Class<?> type = field != null ? field.getField().getType() : criteria.getMeta().getFieldMap().get(entry.getKey()).getField().getType();
+        return Set.class.isAssignableFrom(type) ? new LinkedHashSet<>() : new ArrayList<>();
+    }
+
+    private FieldMeta destinationField(String alias) {
+        return criteria.getTransformMeta().getMeta() != null ? criteria.getTransformMeta().getMeta().getFieldMap().get(alias) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void set(Object row, String alias, Collection<Object> values) {
+        if (row instanceof Map) {
+            ((Map<String, Object>) row).put(alias, values);
+            return;
+        }
+        FieldMeta field = destinationField(alias);
+        if (field == null) {
+            throw new RuntimeException("Could not find field " + alias + " of " + row.getClass().getName());
+        }
+        try {
+            field.getSetter().invokeExact(row, (Object) values);
+        } catch (Throwable e) {
+            throw new RuntimeException("Can't set " + alias + " of " + row.getClass().getName(), e);
+        }
+    }
+}
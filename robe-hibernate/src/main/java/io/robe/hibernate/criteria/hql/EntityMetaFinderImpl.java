@@ -8,13 +8,14 @@ import io.robe.hibernate.criteria.api.cache.EntityMeta;
 import io.robe.hibernate.criteria.api.cache.EntityMetaFinder;
 import io.robe.hibernate.criteria.api.cache.FieldMeta;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.metadata.ClassMetadata;
+
 import javax.persistence.Id;
 import javax.persistence.Transient;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Predicate;
 
 /**
@@ -34,6 +35,40 @@ public class EntityMetaFinderImpl implements EntityMetaFinder {
         return new EntityMeta(identityName, fieldMetaMap, relationMap);
     }
 
+    /**
+     * Builds the metas of the entities and merges them with the mapping of Hibernate.
+     * The identity name is taken from the mapping and the fields which Hibernate does not map are transient.
+     *
+     * @param sessionFactory session factory of the entities
+     * @param entities       entity classes, the classes which are not mapped are only reflected
+     * @return immutable metas of the entities
+     */
+    public static Map<Class<?>, EntityMeta> getEntityMetas(SessionFactory sessionFactory, Collection<Class<?>> entities) {
+        EntityMetaFinderImpl finder = new EntityMetaFinderImpl();
+        Map<Class<?>, EntityMeta> metas = new HashMap<>();
+        for (Class<?> entity : entities) {
+            EntityMeta meta = finder.getEntityMeta(entity);
+            ClassMetadata classMetadata = sessionFactory.getClassMetadata(entity);
+            String identityName = meta.getIdentityName();
+            Map<String, FieldMeta> fieldMap = meta.getFieldMap();
+            if (classMetadata != null) {
+                Set<String> mapped = new HashSet<>(Arrays.asList(classMetadata.getPropertyNames()));
+                if (classMetadata.getIdentifierPropertyName() != null) {
+                    identityName = classMetadata.getIdentifierPropertyName();
+                    mapped.add(identityName);
+                }
+                fieldMap = new LinkedHashMap<>(fieldMap.size());
+                for (FieldMeta field : meta.getFieldMap().values()) {
+                    fieldMap.put(field.getField().getName(), field.isTransient() || mapped.contains(field.getField().getName()) ?
+                            field : field.asTransient());
+                }
+            }
+            metas.put(entity, new EntityMeta(identityName, Collections.unmodifiableMap(fieldMap),
+                    Collections.unmodifiableMap(meta.getRelationMap())));
+        }
+        return metas;
+    }
+
     /**
      *
      * @param type
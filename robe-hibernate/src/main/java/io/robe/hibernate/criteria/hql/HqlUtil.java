@@ -139,6 +139,15 @@ public class HqlUtil {
                     qJoiner.add(criteria.getAlias() + "." + restriction.getName() + " LIKE " + ":" + restriction.getValueAlias());
                     parameterMap.putIfAbsent(restriction.getValueAlias(), getPercentValue(restriction));
                     break;
+                case Q_IN:
+                    // ANDed with the q restrictions, it only narrows the rows which the LIKE restrictions check.
+                    if(((Collection) restriction.getValue()).isEmpty()) {
+                        result = "1 = 0";
+                    } else {
+                        result = criteria.getAlias() + "." + restriction.getName() + " IN (:" + restriction.getValueAlias() + ")";
+                        parameterMap.put(restriction.getValueAlias(), restriction.getValue());
+                    }
+                    break;
                 case CONTAINS:
                     Object containsValue = getPercentValue(restriction);
                     result = restrictionToString(criteria, restriction, restrictionOrder.increment(), containsValue, " LIKE ", parameterMap);
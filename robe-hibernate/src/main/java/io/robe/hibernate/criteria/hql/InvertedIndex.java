@@ -0,0 +1,452 @@
+package io.robe.hibernate.criteria.hql;
+
+import io.dropwizard.lifecycle.Managed;
+import io.robe.hibernate.criteria.api.CloseableIterator;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.Transformer;
+import io.robe.hibernate.criteria.api.cache.EntityMeta;
+import io.robe.hibernate.criteria.api.cache.FieldMeta;
+import io.robe.hibernate.criteria.query.QSearchBackend;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In process trigram index of the searchable String fields (not transient, not {@link io.robe.common.service.search.SearchIgnore})
+ * of the given entities. Each value is normalized (lower case, without accents) and every 3 characters of it point to the
+ * identifiers of its rows. A row can only contain the q as a substring if it has every trigram of the q, so the candidates
+ * are a superset of the LIKE matches and the LIKE restrictions still decide the result.
+ * <p>
+ * The index is filled by scanning the tables in the background when it starts and kept up to date by the post commit
+ * insert, update and delete events, rolled back changes are never indexed. Rows which are written without the events
+ * (bulk statements, JDBC) are reported by {@link #writing(Class)} and {@link #written(Class)}, the entity is searched with
+ * LIKE until it is scanned again after the write. Writes of the other nodes are not seen, so only index the entities which
+ * are written by this node.
+ * {@link #candidates(Class, String)} returns null and the search falls back to LIKE until the scan ends, for a q shorter
+ * than 3 characters or with LIKE wildcards, and when a q has more than the maximum candidates.
+ */
+public class InvertedIndex implements QSearchBackend, Managed,
+        PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InvertedIndex.class);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int GRAM = 3;
+
+    public static final int DEFAULT_MAX_CANDIDATES = 1000;
+
+    private final transient SessionFactory sessionFactory;
+    private final transient Map<Class<?>, EntityIndex> indexes = new HashMap<>();
+    private final int maxCandidates;
+    private transient ExecutorService builder;
+
+    /**
+     * @param sessionFactory session factory of the entities
+     * @param entityClasses  entities to index
+     * @param maxCandidates  maximum number of identifiers to return for a q
+     */
+    public InvertedIndex(SessionFactory sessionFactory, Collection<Class<?>> entityClasses, int maxCandidates) {
+        this.sessionFactory = sessionFactory;
+        this.maxCandidates = maxCandidates;
+        EntityMetaFinderImpl finder = new EntityMetaFinderImpl();
+        for (Class<?> entityClass : entityClasses) {
+            indexes.put(entityClass, new EntityIndex(Transformer.CachedEntity.getEntityMeta(entityClass, finder, false)));
+        }
+    }
+
+    /**
+     * Registers the event listeners and starts to fill the index in the background.
+     */
+    @Override
+    public void start() {
+        EventListenerRegistry registry = ((SessionFactoryImplementor) sessionFactory).getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        builder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inverted-index-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Map.Entry<Class<?>, EntityIndex> entry : indexes.entrySet()) {
+            schedule(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (builder != null) {
+            builder.shutdownNow();
+            builder.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Scans the tables of the entities and indexes their rows.
+     */
+    public void build() {
+        for (Map.Entry<Class<?>, EntityIndex> entry : indexes.entrySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            build(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void schedule(Class<?> entityClass, EntityIndex index) {
+        ExecutorService executor = builder;
+        if (executor == null || !index.queue()) {
+            return;
+        }
+        executor.execute(() -> build(entityClass, index));
+    }
+
+    private void build(Class<?> entityClass, EntityIndex index) {
+        long start = System.currentTimeMillis();
+        long generation = index.begin();
+        boolean completed = false;
+        try (Session session = sessionFactory.openSession();
+             CloseableIterator<?> rows = Criteria.createCriteria(entityClass, new TransformerImpl<>(session)).scroll()) {
+            while (rows.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                Object row = rows.next();
+                index.put(index.identity(row), grams(index, row), true);
+            }
+            completed = true;
+        } catch (RuntimeException e) {
+            LOGGER.error("Can't build inverted index of " + entityClass.getName(), e);
+        } finally {
+            completed = index.end(generation, completed);
+        }
+        if (completed) {
+            LOGGER.info("Inverted index of {} is built with {} rows in {} ms", entityClass.getName(), index.size(),
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    @Override
+    public Collection<?> candidates(Class<?> entityClass, String q) {
+        EntityIndex index = indexes.get(entityClass);
+        if (index == null || q == null || q.indexOf('%') >= 0 || q.indexOf('_') >= 0 || q.indexOf('\\') >= 0) {
+            return null;
+        }
+        Set<String> grams = grams(q);
+        if (grams.isEmpty()) {
+            return null;
+        }
+        return index.search(grams, maxCandidates);
+    }
+
+    /**
+     * Rows of the entity are going to be written without the events, LIKE is used until they are scanned again.
+     *
+     * @param entityClass written entity
+     */
+    @Override
+    public void writing(Class<?> entityClass) {
+        EntityIndex index = indexes.get(entityClass);
+        if (index != null) {
+            index.writing();
+        }
+    }
+
+    /**
+     * The write which is reported by {@link #writing(Class)} is committed or rolled back, the entity is scanned again.
+     *
+     * @param entityClass written entity
+     */
+    @Override
+    public void written(Class<?> entityClass) {
+        EntityIndex index = indexes.get(entityClass);
+        if (index != null && index.written()) {
+            schedule(entityClass, index);
+        }
+    }
+
+    /**
+     * @param text text to normalize
+     * @return lower case text without accents, as a case and accent insensitive collation compares
+     */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).replace('\u0131', 'i');
+    }
+
+    /**
+     * @param text text to split
+     * @return distinct trigrams of the normalized text, empty for null or shorter texts
+     */
+    static Set<String> grams(String text) {
+        if (text == null) {
+            return Collections.emptySet();
+        }
+        String normalized = normalize(text);
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static Set<String> grams(EntityIndex index, Object entity) {
+        Set<String> grams = new HashSet<>();
+        for (FieldMeta field : index.fields) {
+            try {
+                Object value = field.getGetter().invokeExact(entity);
+                grams.addAll(grams((String) value));
+            } catch (Throwable e) {
+                throw new RuntimeException("Can't read " + field.getField().getName() + " of " + entity.getClass().getName(), e);
+            }
+        }
+        return grams;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        EntityIndex index = indexes.get(event.getPersister().getMappedClass());
+        if (index != null) {
+            index.put(event.getId(), grams(index, event.getEntity()), false);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        EntityIndex index = indexes.get(event.getPersister().getMappedClass());
+        if (index != null) {
+            index.put(event.getId(), grams(index, event.getEntity()), false);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        EntityIndex index = indexes.get(event.getPersister().getMappedClass());
+        if (index != null) {
+            index.remove(event.getId());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return indexes.containsKey(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    /**
+     * Trigrams and identifiers of an entity.
+     */
+    private static final class EntityIndex {
+        private final EntityMeta meta;
+        private final List<FieldMeta> fields = new ArrayList<>();
+        private final Map<String, Set<Object>> postings = new HashMap<>();
+        private final Map<Object, Set<String>> documents = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        /**
+         * Identifiers which are changed by the events while building, the scanned state of them is stale.
+         */
+        private Set<Object> changed;
+        /**
+         * Increased by each write without the events, a scan which started before it is stale.
+         */
+        private long generation;
+        /**
+         * Writes without the events which are not completed yet.
+         */
+        private int pending;
+        private boolean queued;
+        private volatile boolean ready;
+
+        private EntityIndex(EntityMeta meta) {
+            this.meta = meta;
+            for (FieldMeta field : meta.getFieldMap().values()) {
+                if (!field.isSearchIgnore() && !field.isTransient() && field.getField().getType().equals(String.class)) {
+                    fields.add(field);
+                }
+            }
+        }
+
+        private Object identity(Object entity) {
+            try {
+                return meta.getFieldMap().get(meta.getIdentityName()).getGetter().invokeExact(entity);
+            } catch (Throwable e) {
+                throw new RuntimeException("Can't read identity of " + entity.getClass().getName(), e);
+            }
+        }
+
+        /**
+         * @return false if a scan is already waiting
+         */
+        private boolean queue() {
+            lock.writeLock().lock();
+            try {
+                if (queued) {
+                    return false;
+                }
+                queued = true;
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private long begin() {
+            lock.writeLock().lock();
+            try {
+                queued = false;
+                ready = false;
+                postings.clear();
+                documents.clear();
+                changed = new HashSet<>();
+                return generation;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * @return true if the index is ready, the scan is completed and no write without the events happened meanwhile
+         */
+        private boolean end(long scanned, boolean completed) {
+            lock.writeLock().lock();
+            try {
+                changed = null;
+                ready = completed && scanned == generation && pending == 0;
+                return ready;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void writing() {
+            lock.writeLock().lock();
+            try {
+                pending++;
+                generation++;
+                ready = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * @return true if all writes without the events are completed and the entity must be scanned again
+         */
+        private boolean written() {
+            lock.writeLock().lock();
+            try {
+                pending = Math.max(0, pending - 1);
+                return pending == 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void put(Object id, Set<String> grams, boolean scanned) {
+            lock.writeLock().lock();
+            try {
+                if (changed != null) {
+                    if (scanned && changed.contains(id)) {
+                        return;
+                    }
+                    if (!scanned) {
+                        changed.add(id);
+                    }
+                }
+                unlink(id, documents.put(id, grams));
+                for (String gram : grams) {
+                    postings.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void remove(Object id) {
+            lock.writeLock().lock();
+            try {
+                if (changed != null) {
+                    changed.add(id);
+                }
+                unlink(id, documents.remove(id));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void unlink(Object id, Set<String> grams) {
+            if (grams == null) {
+                return;
+            }
+            for (String gram : grams) {
+                Set<Object> ids = postings.get(gram);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+
+        private Collection<?> search(Set<String> grams, int maxCandidates) {
+            if (!ready) {
+                return null;
+            }
+            lock.readLock().lock();
+            try {
+                if (!ready) {
+                    return null;
+                }
+                List<Set<Object>> lists = new ArrayList<>(grams.size());
+                for (String gram : grams) {
+                    Set<Object> ids = postings.get(gram);
+                    if (ids == null) {
+                        return Collections.emptySet();
+                    }
+                    lists.add(ids);
+                }
+                // Intersect from the rarest trigram.
+                lists.sort(Comparator.comparingInt(Set::size));
+                Set<Object> result = new HashSet<>(lists.get(0));
+                for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                    result.retainAll(lists.get(i));
+                }
+                return result.size() > maxCandidates ? null : result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private int size() {
+            lock.readLock().lock();
+            try {
+                return documents.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
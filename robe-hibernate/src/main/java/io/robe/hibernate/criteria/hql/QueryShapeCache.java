@@ -0,0 +1,288 @@
+package io.robe.hibernate.criteria.hql;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.robe.common.dto.BooleanHolder;
+import io.robe.common.dto.Pair;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.CriteriaJoin;
+import io.robe.hibernate.criteria.api.CriteriaParent;
+import io.robe.hibernate.criteria.api.JoinRelation;
+import io.robe.hibernate.criteria.api.Order;
+import io.robe.hibernate.criteria.api.criterion.Restriction;
+import io.robe.hibernate.criteria.api.criterion.RestrictionList;
+import io.robe.hibernate.criteria.api.projection.*;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Memoizes generated HQL of {@link Criteria} by the shape of the criteria.
+ * The shape is a canonical fingerprint of entities, aliases, joins, restriction operators, projections and orders
+ * without the restriction values. Criteria with the same shape share their list and count queries, the elements projections
+ * and the parameter name layout, so only the values are collected for each execution.
+ * Identical HQL strings also let Hibernate hit its own query plan cache instead of parsing again.
+ */
+public final class QueryShapeCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private static volatile Cache<String, Plan> cache = newCache(DEFAULT_MAXIMUM_SIZE);
+
+    private QueryShapeCache() {
+    }
+
+    private static Cache<String, Plan> newCache(int maximumSize) {
+        return CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * Replaces the cache with a new one in the given size. 0 disables caching.
+     *
+     * @param maximumSize maximum number of cached shapes
+     */
+    public static void configure(int maximumSize) {
+        cache = newCache(maximumSize);
+    }
+
+    /**
+     * Registers hit rate, hits, misses and size gauges to the given registry.
+     *
+     * @param registry metric registry of the environment
+     */
+    public static void registerMetrics(MetricRegistry registry) {
+        registry.register(MetricRegistry.name(QueryShapeCache.class, "hitRate"), (Gauge<Double>) () -> cache.stats().hitRate());
+        registry.register(MetricRegistry.name(QueryShapeCache.class, "hits"), (Gauge<Long>) () -> cache.stats().hitCount());
+        registry.register(MetricRegistry.name(QueryShapeCache.class, "misses"), (Gauge<Long>) () -> cache.stats().missCount());
+        registry.register(MetricRegistry.name(QueryShapeCache.class, "size"), (Gauge<Long>) () -> cache.size());
+    }
+
+    public static double hitRate() {
+        return cache.stats().hitRate();
+    }
+
+    public static void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Finds the plan of the criteria shape, generates it at the first time.
+     *
+     * @param criteria criteria to plan
+     * @return plan of the shape and parameters of the criteria
+     */
+    public static <E> Pair<Plan, Map<String, Object>> plan(Criteria<E> criteria) {
+        Shape shape = new Shape();
+        shape.criteria(criteria);
+        shape.orders(criteria.getOrders());
+        try {
+            Plan plan = cache.get(shape.fingerprint.toString(), () -> Plan.generate(criteria, shape.parameters));
+            return new Pair<>(plan, plan.bind(shape.parameters));
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Can't generate query of " + criteria.getEntityClass().getName(), e.getCause());
+        }
+    }
+
+    /**
+     * Generated queries of a criteria shape.
+     */
+    public static final class Plan {
+        private final String listQuery;
+        private final String countQuery;
+        private final String groupedCountQuery;
+        private final boolean groupBy;
+        private final Map<String, String> elementsMap;
+        private final String[] parameterNames;
+
+        private Plan(String listQuery, String countQuery, String groupedCountQuery, boolean groupBy,
+                     Map<String, String> elementsMap, String[] parameterNames) {
+            this.listQuery = listQuery;
+            this.countQuery = countQuery;
+            this.groupedCountQuery = groupedCountQuery;
+            this.groupBy = groupBy;
+            this.elementsMap = elementsMap;
+            this.parameterNames = parameterNames;
+        }
+
+        private static <E> Plan generate(Criteria<E> criteria, List<Restriction> parameters) {
+            TransformerUtil.Elements elements = new TransformerUtil.Elements();
+            BooleanHolder groupBy = new BooleanHolder(false);
+            StringJoiner selectJoiner = new StringJoiner(", ");
+            String common = TransformerUtil.criteriaToQuery(criteria, selectJoiner, elements, groupBy).getLeft();
+            Map<String, String> elementsMap = null;
+            if (elements.elementsMap != null && elements.elementsMap.size() > 0 && !groupBy.is()) {
+                // Owner of the elements, see ElementsFetcher.
+                selectJoiner.add(criteria.getAlias() + "." + criteria.getMeta().getIdentityName() + " AS " + ElementsFetcher.OWNER_ALIAS);
+                elementsMap = Collections.unmodifiableMap(elements.elementsMap);
+            }
+            String select = "SELECT " + (selectJoiner.length() > 0 ? selectJoiner.toString() : criteria.getAlias());
+            String commonQueryForList = " " + common + "\n" + TransformerUtil.orderBy(criteria);
+            String groupedCountQuery = "SELECT count(1) " + common;
+            // Group by is generated by the projection, count without projection has no group by.
+            String countQuery = groupBy.is() ?
+                    "SELECT count(1) " + TransformerUtil.criteriaToQuery(criteria, null, null, new BooleanHolder(false)).getLeft() :
+                    groupedCountQuery;
+
+            // Value aliases are set by the generation.
+            String[] parameterNames = new String[parameters.size()];
+            for (int i = 0; i < parameterNames.length; i++) {
+                parameterNames[i] = parameters.get(i).getValueAlias();
+            }
+            return new Plan(select + commonQueryForList, countQuery, groupedCountQuery, groupBy.is(), elementsMap, parameterNames);
+        }
+
+        private Map<String, Object> bind(List<Restriction> parameters) {
+            Map<String, Object> variableMap = new LinkedHashMap<>();
+            for (int i = 0; i < parameterNames.length; i++) {
+                Restriction restriction = parameters.get(i);
+                switch (restriction.getOperator()) {
+                    case Q:
+                        variableMap.putIfAbsent(parameterNames[i], percentValue(restriction));
+                        break;
+                    case CONTAINS:
+                        restriction.setValueAlias(parameterNames[i]);
+                        variableMap.put(parameterNames[i], percentValue(restriction));
+                        break;
+                    default:
+                        restriction.setValueAlias(parameterNames[i]);
+                        variableMap.put(parameterNames[i], restriction.getValue());
+                }
+            }
+            return variableMap;
+        }
+
+        private static Object percentValue(Restriction restriction) {
+            return restriction.getValue() != null ? "%" + restriction.getValue() + "%" : "%%";
+        }
+
+        public String getListQuery() {
+            return listQuery;
+        }
+
+        /**
+         * @return count query without the group by of the projection
+         */
+        public String getCountQuery() {
+            return countQuery;
+        }
+
+        /**
+         * @return count query with the group by of the projection
+         */
+        public String getGroupedCountQuery() {
+            return groupedCountQuery;
+        }
+
+        public boolean isGroupBy() {
+            return groupBy;
+        }
+
+        /**
+         * @return collection properties and their aliases, null if there is no elements projection
+         */
+        public Map<String, String> getElementsMap() {
+            return elementsMap;
+        }
+    }
+
+    /**
+     * Walks the criteria in the same order with {@link TransformerUtil#criteriaToQuery}.
+     * Collects the fingerprint and the restrictions which have parameters in generation order.
+     */
+    private static final class Shape {
+        private final StringBuilder fingerprint = new StringBuilder(128);
+        private final List<Restriction> parameters = new ArrayList<>();
+
+        private void criteria(CriteriaParent<?> criteria) {
+            fingerprint.append('{').append(criteria.getEntityClass().getName()).append(' ').append(criteria.getAlias());
+            if (criteria instanceof CriteriaJoin) {
+                for (JoinRelation relation : ((CriteriaJoin<?>) criteria).getJoinRelations()) {
+                    fingerprint.append(" ON ").append(relation.getRelationCriteria().getAlias()).append('.').append(relation.getRelationField())
+                            .append('=').append(relation.getJoinedCriteria().getAlias()).append('.').append(relation.getJoinedField());
+                }
+            }
+            if (criteria.getProjection() != null) {
+                fingerprint.append(" P");
+                projection(criteria.getProjection());
+            }
+            fingerprint.append(" R");
+            restrictions(criteria.getRestrictions());
+            for (CriteriaJoin<?> join : criteria.getJoins().values()) {
+                criteria(join);
+            }
+            fingerprint.append('}');
+        }
+
+        private void restrictions(List<Restriction> restrictions) {
+            fingerprint.append('[');
+            for (Restriction restriction : restrictions) {
+                fingerprint.append(restriction.getOperator().ordinal()).append(':').append(restriction.getName())
+                        .append(':').append(restriction.getValueAlias());
+                switch (restriction.getOperator()) {
+                    case AND:
+                    case OR:
+                        restrictions(((RestrictionList) restriction).getRestrictions());
+                        break;
+                    case IS_NULL:
+                    case IS_NOT_NULL:
+                        break;
+                    case Q_IN:
+                        // Empty candidates are generated without a parameter.
+                        if (((Collection) restriction.getValue()).isEmpty()) {
+                            fingerprint.append(":e");
+                            break;
+                        }
+                        parameters.add(restriction);
+                        break;
+                    default:
+                        // Collection values are generated in parentheses.
+                        if (restriction.getValue() instanceof Collection) {
+                            fingerprint.append(":c");
+                        }
+                        parameters.add(restriction);
+                }
+                fingerprint.append(';');
+            }
+            fingerprint.append(']');
+        }
+
+        private void projection(Projection projection) {
+            if (projection instanceof IdentifierProjection) {
+                fingerprint.append("(I)");
+            } else if (projection instanceof ProjectionElements) {
+                fingerprint.append("(E ").append(((ProjectionElements) projection).getProperty()).append(')');
+            } else if (projection instanceof PropertyProjection) {
+                PropertyProjection p = (PropertyProjection) projection;
+                fingerprint.append("(P ").append(p.getProperty()).append(p.isGrouped() ? " G)" : ")");
+            } else if (projection instanceof FunctionProjection) {
+                FunctionProjection p = (FunctionProjection) projection;
+                fingerprint.append("(F ").append(p.getFnType()).append(' ').append(p.getProperty()).append(')');
+            } else if (projection instanceof EnhancedProjection) {
+                EnhancedProjection p = (EnhancedProjection) projection;
+                fingerprint.append("(A ").append(p.getAlias());
+                projection(p.getProjection());
+                fingerprint.append(')');
+            } else if (projection instanceof ProjectionList) {
+                ProjectionList p = (ProjectionList) projection;
+                fingerprint.append("(L");
+                for (int i = 0; i < p.getLength(); i++) {
+                    projection(p.getProjection(i));
+                }
+                fingerprint.append(')');
+            } else {
+                fingerprint.append('(').append(projection.getClass().getName()).append(')');
+            }
+        }
+
+        private void orders(List<Order> orders) {
+            fingerprint.append(" O[");
+            for (Order order : orders) {
+                fingerprint.append(order.getCriteriaAlias()).append('.').append(order.getName())
+                        .append(order.isAlias() ? " A " : " ").append(order.getType()).append(';');
+            }
+            fingerprint.append(']');
+        }
+    }
+}
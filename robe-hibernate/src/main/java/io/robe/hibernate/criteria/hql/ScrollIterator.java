@@ -0,0 +1,87 @@
+package io.robe.hibernate.criteria.hql;
+
+import io.robe.hibernate.criteria.api.CloseableIterator;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.transform.ResultTransformer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link CloseableIterator} of forward only {@link ScrollableResults}.
+ * Rows are read in fetches of fetch size, the elements of a fetch are filled together.
+ * Session is cleared before each fetch, so the first level cache holds at most one fetch of entities.
+ * Rows of the previous fetches are detached.
+ */
+class ScrollIterator<E> implements CloseableIterator<E> {
+    private final Session session;
+    private final ScrollableResults results;
+    private final ResultTransformer transformer;
+    private final String[] aliases;
+    private final int fetchSize;
+    private final ElementsFetcher fetcher;
+    private final List<Object> buffer;
+    private int index;
+    private boolean fetched;
+    private boolean closed;
+
+    ScrollIterator(Session session, ScrollableResults results, ResultTransformer transformer, String[] aliases, int fetchSize, ElementsFetcher fetcher) {
+        this.session = session;
+        this.results = results;
+        this.transformer = transformer;
+        this.aliases = aliases;
+        this.fetchSize = fetchSize;
+        this.fetcher = fetcher;
+        this.buffer = new ArrayList<>(Math.min(fetchSize, 1024));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < buffer.size()) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        fetch();
+        return index < buffer.size();
+    }
+
+    private void fetch() {
+        buffer.clear();
+        index = 0;
+        if (fetched) {
+            session.clear();
+        }
+        fetched = true;
+        while (buffer.size() < fetchSize && results.next()) {
+            Object[] row = results.get();
+            buffer.add(transformer != null ? transformer.transformTuple(row, aliases) : row.length == 1 ? row[0] : row);
+        }
+        if (fetcher != null && !buffer.isEmpty()) {
+            fetcher.fetch(buffer);
+        }
+        if (buffer.size() < fetchSize) {
+            close();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return (E) buffer.get(index++);
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            results.close();
+        }
+    }
+}
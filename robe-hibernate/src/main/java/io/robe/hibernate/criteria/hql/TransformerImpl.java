@@ -1,23 +1,51 @@
 package io.robe.hibernate.criteria.hql;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.robe.common.dto.BooleanHolder;
 import io.robe.common.dto.Pair;
+import io.robe.common.service.search.model.CountMode;
+import io.robe.hibernate.criteria.api.CloseableIterator;
 import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.Keyset;
 import io.robe.hibernate.criteria.api.Result;
 import io.robe.hibernate.criteria.api.Transformer;
 import io.robe.hibernate.criteria.api.cache.EntityMetaFinder;
-import io.robe.hibernate.criteria.api.cache.FieldMeta;
+import io.robe.hibernate.criteria.api.criterion.Restriction;
 import io.robe.hibernate.criteria.hql.transformers.AliasToBeanResultTransformer;
 import io.robe.hibernate.criteria.hql.transformers.AliasToEntityMapResultTransformer;
+import io.robe.hibernate.criteria.query.QSearchBackend;
+import io.robe.hibernate.criteria.query.SearchPlan;
+import org.hibernate.CacheMode;
 import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+import org.hibernate.transform.ResultTransformer;
+
+import javax.transaction.Synchronization;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by kamilbukum on 10/01/2017.
  */
 public class TransformerImpl<E> extends Transformer<E> {
     private static EntityMetaFinder finder = new EntityMetaFinderImpl();
+    /**
+     * Recent counts of {@link CountMode#ESTIMATED} by count query and parameters.
+     */
+    private static final Cache<String, Long> ESTIMATED_COUNTS = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+    /**
+     * Identifiers given to one bulk statement of a criteria with joins.
+     */
+    public static final int BULK_BATCH_SIZE = 1000;
     private Session session;
 
     public TransformerImpl(Session session) {
@@ -44,81 +72,135 @@ public class TransformerImpl<E> extends Transformer<E> {
         for(Map.Entry<String, Object> parameter: pair.getRight().entrySet()) {
             setParameter(query, parameter.getKey(), parameter.getValue());
         }
-        setResultTransformer(query);
-        List<E> destinationList = query.list();
-
-        setElementsToList(criteria, pair.getRight(), elements, destinationList);
-        return destinationList;
+        ElementsFetcher fetcher = setResultTransformer(query, criteria, elements);
+        setCacheable(query, criteria, fetcher != null || this.getTransformType() != TransformType.ENTITY);
+        return list(query, fetcher);
     }
 
-    public void setElementsToList(Criteria<E> criteria, Map<String, Object> variableMap, TransformerUtil.Elements elements, List<?> destinationList) {
-        if(elements.elementsQuery == null || elements.elementsMap == null || elements.elementsMap.size() == 0) return;
-        Query elementsQuery = session.createQuery(elements.elementsQuery);
-        if(criteria.getLimit() != null) {
-            elementsQuery.setMaxResults(criteria.getLimit());
-        }
-        if(criteria.getOffset() != null) {
-            elementsQuery.setFirstResult(criteria.getOffset());
-        }
-        for(Map.Entry<String, Object> parameter: variableMap.entrySet()) {
-            setParameter(elementsQuery, parameter.getKey(), parameter.getValue());
-        }
-        List<?> sourceList = elementsQuery.list();
-        if(sourceList.size() > 0) {
-            for(int i = 0 ; i < destinationList.size(); i++) {
-                Object sourceObject =  sourceList.get(i);
-                Object destinationObject = destinationList.get(i);
-                for(Map.Entry<String, String> elementEntry: elements.elementsMap.entrySet()) {
-                    FieldMeta srcField = criteria.getMeta().getFieldMap().get(elementEntry.getKey());
-                    FieldMeta destinationField = criteria.getTransformer().getMeta().getFieldMap().get(elementEntry.getKey());
-                    try {
-                        if(!destinationField.getField().isAccessible()) {
-                            destinationField.getField().setAccessible(true);
-                        }
-                        if(!srcField.getField().isAccessible()) {
-                            srcField.getField().setAccessible(true);
-                        }
-                        destinationField.getField().set(destinationObject, srcField.getField().get(sourceObject));
-                    } catch (IllegalAccessException e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
+    /**
+     * Lists the query and fetches the elements of the rows if there is any elements projection.
+     */
+    @SuppressWarnings("unchecked")
+    private List<E> list(Query query, ElementsFetcher fetcher) {
+        List<E> destinationList = query.list();
+        if(fetcher != null) {
+            fetcher.fetch(destinationList);
         }
+        return destinationList;
     }
 
-
-
-
+    /**
+     * Lists the page and counts by the {@link CountMode} of the criteria.
+     * If the count is not exact, one more row is fetched to detect {@link Result#getHasMore()}.
+     * With keyset pagination the page starts after the cursor, and the count is done without the cursor restriction.
+     */
     @Override
     public Result<E> pairList(Criteria<E> criteria) {
         Result<E> result  = new Result<>();
         BooleanHolder groupBy = new BooleanHolder(false);
         TransformerUtil.Elements elements = new TransformerUtil.Elements();
+        boolean keyset = criteria.getAfter() != null;
+        if(keyset) {
+            Keyset.prepare(criteria);
+        }
         Pair<String, Pair<String, Map<String, Object>>> pair = TransformerUtil.pairList(criteria, elements, groupBy);
-        Query listQuery = session.createQuery(pair.getLeft());
-        if(elements.elementsMap != null && elements.elementsMap.size() > 0) {
+        String countQuery = pair.getRight().getLeft();
+        Map<String, Object> countParameters = pair.getRight().getRight();
 
+        Restriction seek = keyset ? Keyset.restriction(criteria) : null;
+        if(seek != null) {
+            criteria.add(seek);
+            try {
+                elements = new TransformerUtil.Elements();
+                pair = TransformerUtil.pairList(criteria, elements, new BooleanHolder(false));
+            } finally {
+                criteria.getRestrictions().remove(criteria.getRestrictions().size() - 1);
+            }
         }
-        if(criteria.getLimit() != null) {
-            listQuery.setMaxResults(criteria.getLimit());
+
+        Integer limit = criteria.getLimit();
+        Integer offset = keyset ? null : criteria.getOffset();
+        boolean probe = limit != null && (keyset || criteria.getCountMode() != CountMode.EXACT);
+        Query listQuery = session.createQuery(pair.getLeft());
+        if(limit != null) {
+            listQuery.setMaxResults(probe ? limit + 1 : limit);
         }
-        if(criteria.getOffset() != null) {
-            listQuery.setFirstResult(criteria.getOffset());
+        if(offset != null) {
+            listQuery.setFirstResult(offset);
         }
-        setResultTransformer(listQuery);
-        Query countQuery = session.createQuery(pair.getRight().getLeft());
+        ElementsFetcher fetcher = setResultTransformer(listQuery, criteria, elements);
+        setCacheable(listQuery, criteria, fetcher != null || this.getTransformType() != TransformType.ENTITY);
         for(Map.Entry<String, Object> parameter: pair.getRight().getRight().entrySet()) {
             setParameter(listQuery, parameter.getKey(), parameter.getValue());
-            setParameter(countQuery, parameter.getKey(), parameter.getValue());
         }
-        List<E> destinationList = listQuery.list();
-        setElementsToList(criteria, pair.getRight().getRight(), elements, destinationList);
+        List<E> destinationList = list(listQuery, fetcher);
+        if(probe) {
+            result.setHasMore(destinationList.size() > limit);
+            if(result.getHasMore()) {
+                destinationList = new ArrayList<>(destinationList.subList(0, limit));
+            }
+        }
         result.setList(destinationList);
-        result.setTotalCount(groupBy.is() ? countQuery.list().size(): (long)countQuery.uniqueResult());
+
+        int skipped = offset != null ? offset : 0;
+        switch (criteria.getCountMode()) {
+            case EXACT:
+                result.setTotalCount(count(criteria, countQuery, countParameters, groupBy.is()));
+                if(result.getHasMore() == null && limit != null) {
+                    result.setHasMore(skipped + destinationList.size() < result.getTotalCount());
+                }
+                break;
+            case ESTIMATED:
+                if(!keyset && Boolean.FALSE.equals(result.getHasMore()) && (!destinationList.isEmpty() || skipped == 0)) {
+                    // Last page tells the exact count.
+                    result.setTotalCount((long) skipped + destinationList.size());
+                } else {
+                    result.setTotalCount(estimatedCount(criteria, countQuery, countParameters, groupBy.is()));
+                }
+                break;
+            case NONE:
+                break;
+        }
+        if(keyset && Boolean.TRUE.equals(result.getHasMore()) && !destinationList.isEmpty()) {
+            result.setNextCursor(Keyset.cursor(criteria, destinationList.get(destinationList.size() - 1)));
+        }
         return result;
     }
 
+    /**
+     * Counts with the count query. Grouped counts are scrolled instead of listing every group.
+     */
+    private long count(Criteria<E> criteria, String countQuery, Map<String, Object> parameters, boolean groupBy) {
+        Query query = session.createQuery(countQuery);
+        for(Map.Entry<String, Object> parameter: parameters.entrySet()) {
+            setParameter(query, parameter.getKey(), parameter.getValue());
+        }
+        if(!groupBy) {
+            setCacheable(query, criteria, false);
+            return (long) query.uniqueResult();
+        }
+        ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            long count = 0;
+            while (results.next()) {
+                count++;
+            }
+            return count;
+        } finally {
+            results.close();
+        }
+    }
+
+    private long estimatedCount(Criteria<E> criteria, String countQuery, Map<String, Object> parameters, boolean groupBy) {
+        String key = countQuery + parameters;
+        Long count = ESTIMATED_COUNTS.getIfPresent(key);
+        if(count == null) {
+            count = count(criteria, countQuery, parameters, groupBy);
+            ESTIMATED_COUNTS.put(key, count);
+        }
+        return count;
+    }
+
     public void setParameter(Query query, String key, Object value) {
         if(value instanceof Collection) {
             query.setParameterList(key, (Collection) value);
@@ -127,6 +209,92 @@ public class TransformerImpl<E> extends Transformer<E> {
         }
     }
 
+    /**
+     * Updates the rows by a single statement, versioned entities get a new version.
+     * Hibernate evicts the second level cache regions and the query cache spaces of the entity after the statement.
+     */
+    @Override
+    public int update(Criteria<E> criteria, Map<String, Object> values) {
+        ClassMetadata metadata = session.getSessionFactory().getClassMetadata(criteria.getEntityClass());
+        return executeUpdate(criteria, TransformerUtil.bulk(criteria, values, metadata != null && metadata.isVersioned()));
+    }
+
+    /**
+     * Deletes the rows by a single statement.
+     * Hibernate evicts the second level cache regions and the query cache spaces of the entity after the statement.
+     */
+    @Override
+    public int delete(Criteria<E> criteria) {
+        return executeUpdate(criteria, TransformerUtil.bulk(criteria, null, false));
+    }
+
+    /**
+     * Bulk statements do not fire the entity events, the q backend is told about the write until the transaction completes.
+     */
+    private int executeUpdate(Criteria<E> criteria, Pair<String, Map<String, Object>> pair) {
+        Class<?> entityClass = criteria.getEntityClass();
+        QSearchBackend backend = SearchPlan.getQBackend();
+        if (backend == null) {
+            return execute(criteria, pair);
+        }
+        backend.writing(entityClass);
+        Transaction transaction = session.getTransaction();
+        if (transaction == null || transaction.getStatus() != TransactionStatus.ACTIVE) {
+            try {
+                return execute(criteria, pair);
+            } finally {
+                backend.written(entityClass);
+            }
+        }
+        try {
+            transaction.registerSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    backend.written(entityClass);
+                }
+            });
+        } catch (RuntimeException e) {
+            backend.written(entityClass);
+            throw e;
+        }
+        return execute(criteria, pair);
+    }
+
+    /**
+     * Executes the statement once, or for a criteria with joins, selects the matching identifiers first
+     * and executes the statement for every {@link #BULK_BATCH_SIZE} of them.
+     */
+    private int execute(Criteria<E> criteria, Pair<String, Map<String, Object>> pair) {
+        if(criteria.getJoins().isEmpty()) {
+            return execute(pair.getLeft(), pair.getRight());
+        }
+        Pair<String, Map<String, Object>> ids = TransformerUtil.bulkIds(criteria);
+        Query select = session.createQuery(ids.getLeft());
+        for(Map.Entry<String, Object> parameter: ids.getRight().entrySet()) {
+            setParameter(select, parameter.getKey(), parameter.getValue());
+        }
+        List<?> identifiers = select.list();
+        int count = 0;
+        for(int i = 0; i < identifiers.size(); i += BULK_BATCH_SIZE) {
+            Map<String, Object> parameters = new LinkedHashMap<>(pair.getRight());
+            parameters.put(TransformerUtil.BULK_IDS, identifiers.subList(i, Math.min(i + BULK_BATCH_SIZE, identifiers.size())));
+            count += execute(pair.getLeft(), parameters);
+        }
+        return count;
+    }
+
+    private int execute(String statement, Map<String, Object> parameters) {
+        Query query = session.createQuery(statement);
+        for(Map.Entry<String, Object> parameter: parameters.entrySet()) {
+            setParameter(query, parameter.getKey(), parameter.getValue());
+        }
+        return query.executeUpdate();
+    }
+
     @Override
     public Long count(Criteria<E> criteria) {
         BooleanHolder groupBy = new BooleanHolder(false);
@@ -136,6 +304,9 @@ public class TransformerImpl<E> extends Transformer<E> {
             setParameter(query, parameter.getKey(), parameter.getValue());
         }
         setResultTransformer(query);
+        if(!groupBy.is()) {
+            setCacheable(query, criteria, this.getTransformType() != TransformType.ENTITY);
+        }
         return groupBy.is() ? query.list().size(): (long)query.uniqueResult();
     }
 
@@ -148,8 +319,46 @@ public class TransformerImpl<E> extends Transformer<E> {
         for(Map.Entry<String, Object> parameter: pair.getRight().entrySet()) {
             setParameter(query, parameter.getKey(), parameter.getValue());
         }
-        setResultTransformer(query);
-        return query.uniqueResult();
+        ElementsFetcher fetcher = setResultTransformer(query, criteria, elements);
+        setCacheable(query, criteria, fetcher != null || this.getTransformType() != TransformType.ENTITY);
+        Object result = query.uniqueResult();
+        if(fetcher != null && result != null) {
+            fetcher.fetch(Collections.singletonList(result));
+        }
+        return result;
+    }
+
+    /**
+     * Scrolls the criteria with a forward only read only cursor.
+     * Elements of the rows are fetched for each fetch of the cursor.
+     */
+    @Override
+    public CloseableIterator<E> scroll(Criteria<E> criteria, int fetchSize) {
+        TransformerUtil.Elements elements = new TransformerUtil.Elements();
+        Pair<String, Map<String, Object>> pair = TransformerUtil.query(criteria, elements);
+        Query query = scrollQuery(pair.getLeft(), pair.getRight(), criteria, fetchSize);
+        ElementsFetcher fetcher = ElementsFetcher.hasElements(elements) ?
+                new ElementsFetcher(session, criteria, elements.elementsMap, resultTransformer()) : null;
+        ResultTransformer transformer = fetcher != null ? fetcher : resultTransformer();
+        ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+        return new ScrollIterator<>(session, results, transformer, transformer != null ? query.getReturnAliases() : null, fetchSize, fetcher);
+    }
+
+    private Query scrollQuery(String hql, Map<String, Object> parameters, Criteria<E> criteria, int fetchSize) {
+        Query query = session.createQuery(hql);
+        query.setFetchSize(fetchSize);
+        query.setReadOnly(true);
+        query.setCacheMode(CacheMode.IGNORE);
+        if(criteria.getLimit() != null) {
+            query.setMaxResults(criteria.getLimit());
+        }
+        if(criteria.getOffset() != null) {
+            query.setFirstResult(criteria.getOffset());
+        }
+        for(Map.Entry<String, Object> parameter: parameters.entrySet()) {
+            setParameter(query, parameter.getKey(), parameter.getValue());
+        }
+        return query;
     }
 
     @Override
@@ -157,16 +366,50 @@ public class TransformerImpl<E> extends Transformer<E> {
         return finder;
     }
 
+    /**
+     * Sets the result transformer, wraps it with an {@link ElementsFetcher} if there is any elements projection.
+     * @return elements fetcher or null
+     */
+    private ElementsFetcher setResultTransformer(Query query, Criteria<E> criteria, TransformerUtil.Elements elements){
+        if(!ElementsFetcher.hasElements(elements)) {
+            setResultTransformer(query);
+            return null;
+        }
+        ElementsFetcher fetcher = new ElementsFetcher(session, criteria, elements.elementsMap, resultTransformer());
+        query.setResultTransformer(fetcher);
+        return fetcher;
+    }
+
+    /**
+     * Caches the results of the cacheable criteria in the query cache.
+     * Transformed rows (maps, dtos and elements) are not cached, their transformers collect state while transforming.
+     */
+    private void setCacheable(Query query, Criteria<E> criteria, boolean transformed){
+        if(!criteria.isCacheable() || transformed) {
+            return;
+        }
+        query.setCacheable(true);
+        if(criteria.getCacheRegion() != null) {
+            query.setCacheRegion(criteria.getCacheRegion());
+        }
+    }
+
     private void setResultTransformer(Query query){
+        ResultTransformer transformer = resultTransformer();
+        if(transformer != null) {
+            query.setResultTransformer(transformer);
+        }
+    }
+
+    private ResultTransformer resultTransformer(){
         switch (this.getTransformType()) {
             case MAP:
-                query.setResultTransformer(AliasToEntityMapResultTransformer.INSTANCE);
-                break;
+                return AliasToEntityMapResultTransformer.INSTANCE;
             case DTO:
-                query.setResultTransformer(new AliasToBeanResultTransformer(this.getTransformClass(), this.getMeta()));
-                break;
+                return new AliasToBeanResultTransformer(this.getTransformClass(), this.getMeta());
+            default:
+                return null;
         }
-
     }
 
 }
@@ -18,30 +18,20 @@ import java.util.*;
 public class TransformerUtil {
     public static class Elements {
         Map<String, String> elementsMap = null;
-        String elementsQuery = null;
     }
     /**
+     * Generated queries are memoized by the shape of the criteria in {@link QueryShapeCache}.
      *
      * @param criteria
      * @param <T>
      * @return
      */
     public static <T> Pair<String, Map<String, Object>> query(Criteria<T> criteria, Elements elements) {
-        StringBuilder listBuilder = new StringBuilder();
-        // configure select
-        StringJoiner selectJoiner = new StringJoiner(", ");
-        BooleanHolder groupBy = new BooleanHolder(false);
-        Pair<String, Map<String, Object>> commonPair = criteriaToQuery(criteria, selectJoiner, elements, groupBy);
-        listBuilder
-                .append("SELECT ")
-                .append(selectJoiner.length() > 0 ? selectJoiner.toString(): criteria.getAlias())
-                .append(" ")
-                .append(commonPair.getLeft())
-                .append("\n")
-                .append(orderBy(criteria));
-        String query = listBuilder.toString();
-        Pair<String, Map<String, Object>> pair = new Pair<>(listBuilder.toString(), commonPair.getRight());
-        return pair;
+        Pair<QueryShapeCache.Plan, Map<String, Object>> plan = QueryShapeCache.plan(criteria);
+        if (elements != null) {
+            elements.elementsMap = plan.getLeft().getElementsMap();
+        }
+        return new Pair<>(plan.getLeft().getListQuery(), plan.getRight());
     }
 
     /**
@@ -52,14 +42,8 @@ public class TransformerUtil {
      * @return
      */
     public static <T> Pair<String, Map<String, Object>> count(Criteria<T> criteria, BooleanHolder groupBy) {
-        StringBuilder countBuilder = new StringBuilder();
-        Pair<String, Map<String, Object>> commonPair = criteriaToQuery(criteria, null, null, groupBy);
-        countBuilder
-                .append("SELECT ")
-                .append("count(1)")
-                .append(" ")
-                .append(commonPair.getLeft());
-        return new Pair<>(countBuilder.toString(), commonPair.getRight());
+        Pair<QueryShapeCache.Plan, Map<String, Object>> plan = QueryShapeCache.plan(criteria);
+        return new Pair<>(plan.getLeft().getCountQuery(), plan.getRight());
     }
 
     /**
@@ -70,22 +54,14 @@ public class TransformerUtil {
      * @return
      */
     public static <T> Pair<String, Pair<String, Map<String, Object>>> pairList(Criteria<T> criteria, Elements elements, BooleanHolder groupBy) {
-        StringBuilder countBuilder = new StringBuilder();
-        // configure select
-        StringJoiner selectJoiner = new StringJoiner(", ");
-        Pair<String, Map<String, Object>> commonPair = criteriaToQuery(criteria, selectJoiner, elements, groupBy);
-        String listQuery = "SELECT " + (selectJoiner.length() > 0 ? selectJoiner.toString(): criteria.getAlias());
-        String commonQueryForList =  " " + commonPair.getLeft() + "\n" + orderBy(criteria);
-        if(elements != null && elements.elementsMap != null && elements.elementsMap.size() > 0) {
-            elements.elementsQuery = "SELECT " + criteria.getAlias() + commonQueryForList;
+        Pair<QueryShapeCache.Plan, Map<String, Object>> plan = QueryShapeCache.plan(criteria);
+        if (plan.getLeft().isGroupBy()) {
+            groupBy.set(true);
+        }
+        if (elements != null) {
+            elements.elementsMap = plan.getLeft().getElementsMap();
         }
-        listQuery = listQuery + commonQueryForList;
-        countBuilder
-                .append("SELECT ")
-                .append("count(1)")
-                .append(" ")
-                .append(commonPair.getLeft());
-        return new Pair<>(listQuery, new Pair<>(countBuilder.toString(), commonPair.getRight()));
+        return new Pair<>(plan.getLeft().getListQuery(), new Pair<>(plan.getLeft().getGroupedCountQuery(), plan.getRight()));
     }
 
 
@@ -113,6 +89,77 @@ public class TransformerUtil {
         if(joinJoiner.length() > 0) {
             builder.append("\n").append(joinJoiner.toString());
         }
+        builder.append(where(restrictionJoiner, qJoiner));
+
+        if(groupByJoiner.length() > 0) {
+            groupBy.set(true);
+            builder.append("\nGROUP BY ").append(groupByJoiner.toString());
+        }
+        return new Pair<>(from + builder.toString(), variableMap);
+    }
+
+    /**
+     * Parameter of the identifiers which restrict a bulk statement of a criteria with joins.
+     */
+    public static final String BULK_IDS = "_bulk_ids";
+
+    /**
+     * Generates a single UPDATE or DELETE statement of the rows which match the restrictions of the criteria.
+     * Bulk statements can not join, and MySQL rejects a subquery on the updated table, so the statement of a criteria
+     * with joins is restricted to the identifiers of the {@link #BULK_IDS} parameter, which are selected by {@link #bulkIds(Criteria)}.
+     *
+     * @param criteria  root criteria
+     * @param values    new values by the field names of the root entity, null for DELETE
+     * @param versioned increments the version of the updated rows
+     * @param <E>
+     * @return statement and its parameters
+     */
+    public static <E> Pair<String, Map<String, Object>> bulk(Criteria<E> criteria, Map<String, Object> values, boolean versioned) {
+        Map<String, Object> variableMap = new LinkedHashMap<>();
+        String alias = criteria.getAlias();
+        StringBuilder builder = new StringBuilder(values == null ? "DELETE FROM " : versioned ? "UPDATE VERSIONED " : "UPDATE ")
+                .append(criteria.getEntityClass().getName()).append(" ").append(alias);
+        if(values != null) {
+            StringJoiner setJoiner = new StringJoiner(", ", "\nSET ", "");
+            for(Map.Entry<String, Object> value : values.entrySet()) {
+                String parameter = "_set_" + value.getKey();
+                setJoiner.add(alias + "." + value.getKey() + " = :" + parameter);
+                variableMap.put(parameter, value.getValue());
+            }
+            builder.append(setJoiner.toString());
+        }
+        if(criteria.getJoins().isEmpty()) {
+            StringJoiner restrictionJoiner = new StringJoiner(" AND ");
+            StringJoiner qJoiner = new StringJoiner(" OR ");
+            criteriaToQuery(criteria, null, null, new StringJoiner("\n"), restrictionJoiner, qJoiner, new StringJoiner(", "), variableMap);
+            builder.append(where(restrictionJoiner, qJoiner));
+        } else {
+            builder.append("\nWHERE ").append(alias).append(".").append(criteria.getMeta().getIdentityName())
+                    .append(" IN (:").append(BULK_IDS).append(")");
+        }
+        return new Pair<>(builder.toString(), variableMap);
+    }
+
+    /**
+     * Generates the query of the identifiers of the root entities which match the restrictions of the criteria and its joins.
+     *
+     * @param criteria root criteria
+     * @param <E>
+     * @return query and its parameters
+     */
+    public static <E> Pair<String, Map<String, Object>> bulkIds(Criteria<E> criteria) {
+        Map<String, Object> variableMap = new LinkedHashMap<>();
+        StringJoiner joinJoiner = new StringJoiner("\n");
+        StringJoiner restrictionJoiner = new StringJoiner(" AND ");
+        StringJoiner qJoiner = new StringJoiner(" OR ");
+        criteriaToQuery(criteria, null, null, joinJoiner, restrictionJoiner, qJoiner, new StringJoiner(", "), variableMap);
+        String query = "SELECT DISTINCT " + criteria.getAlias() + "." + criteria.getMeta().getIdentityName() +
+                from(criteria) + "\n" + joinJoiner.toString() + where(restrictionJoiner, qJoiner);
+        return new Pair<>(query, variableMap);
+    }
+
+    private static String where(StringJoiner restrictionJoiner, StringJoiner qJoiner) {
+        StringBuilder builder = new StringBuilder();
         if(restrictionJoiner.length() > 0 ) {
             builder.append("\nWHERE ");
             builder.append(restrictionJoiner.toString());
@@ -127,12 +174,7 @@ public class TransformerUtil {
             builder.append("\nWHERE ");
             builder.append(qJoiner.toString());
         }
-
-        if(groupByJoiner.length() > 0) {
-            groupBy.set(true);
-            builder.append("\nGROUP BY ").append(groupByJoiner.toString());
-        }
-        return new Pair<>(from + builder.toString(), variableMap);
+        return builder.toString();
     }
 
     /**
@@ -1,18 +1,16 @@
 package io.robe.hibernate.criteria.hql.transformers;
 
 import io.robe.hibernate.criteria.api.cache.EntityMeta;
-import org.hibernate.HibernateException;
 import org.hibernate.transform.AliasedTupleSubsetResultTransformer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Field;
-
 
 public class AliasToBeanResultTransformer extends AliasedTupleSubsetResultTransformer {
     private static final Logger LOGGER = LoggerFactory.getLogger(AliasToBeanResultTransformer.class);
     private final Class<?> resultClass;
     private final EntityMeta transformMeta;
+    private volatile Mapping mapping;
     public AliasToBeanResultTransformer(Class resultClass, EntityMeta transformMeta) {
         if ( resultClass == null ) {
             throw new IllegalArgumentException( "resultClass cannot be null" );
@@ -28,19 +26,22 @@ public class AliasToBeanResultTransformer extends AliasedTupleSubsetResultTransf
 
     @Override
     public Object transformTuple(Object[] tuple, String[] aliases) {
-        Object result;
-        try {
-            result = resultClass.newInstance();
-            for ( int i = 0; i < aliases.length; i++ ) {
-                String name = aliases[i];
-                Field field = transformMeta.getFieldMap().get(name).getField();
-                field.set(result, tuple[i]);
-            }
-        }
-        catch ( InstantiationException | IllegalAccessException e ) {
-            throw new HibernateException( "Could not instantiate resultclass: " + resultClass.getName() );
+        // Aliases of a query are the same array for all rows.
+        Mapping mapping = this.mapping;
+        if (mapping == null || mapping.aliases != aliases) {
+            mapping = new Mapping(aliases, BeanRowMapper.get(resultClass, transformMeta, aliases));
+            this.mapping = mapping;
         }
+        return mapping.mapper.map(tuple);
+    }
 
-        return result;
+    private static final class Mapping {
+        private final String[] aliases;
+        private final BeanRowMapper mapper;
+
+        private Mapping(String[] aliases, BeanRowMapper mapper) {
+            this.aliases = aliases;
+            this.mapper = mapper;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package io.robe.hibernate.criteria.hql.transformers;
+
+import io.robe.hibernate.criteria.api.cache.EntityMeta;
+import io.robe.hibernate.criteria.api.cache.FieldMeta;
+import org.hibernate.HibernateException;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Maps the tuples of a projection to the instances of a bean.
+ * Compiled once for each bean class and alias order: the constructor is bound to a {@link Supplier} by
+ * {@link LambdaMetafactory} and the fields are resolved to setter {@link MethodHandle}s in the order of the aliases,
+ * so mapping a row does no field lookup or reflective access check.
+ */
+public final class BeanRowMapper {
+
+    private static final ConcurrentHashMap<List<Object>, BeanRowMapper> MAPPERS = new ConcurrentHashMap<>();
+
+    private final Class<?> resultClass;
+    private final Supplier<?> constructor;
+    private final MethodHandle[] setters;
+
+    private BeanRowMapper(Class<?> resultClass, Supplier<?> constructor, MethodHandle[] setters) {
+        this.resultClass = resultClass;
+        this.constructor = constructor;
+        this.setters = setters;
+    }
+
+    /**
+     * Finds the mapper of the bean class and aliases, compiles it at the first time.
+     *
+     * @param resultClass bean class which has a no argument constructor
+     * @param meta        meta of the bean class
+     * @param aliases     aliases of the tuple which are the field names of the bean
+     * @return mapper
+     */
+    public static BeanRowMapper get(Class<?> resultClass, EntityMeta meta, String[] aliases) {
+        List<Object> key = Arrays.asList(resultClass, Arrays.asList(aliases));
+        BeanRowMapper mapper = MAPPERS.get(key);
+        if (mapper == null) {
+            mapper = MAPPERS.computeIfAbsent(key, k -> compile(resultClass, meta, aliases.clone()));
+        }
+        return mapper;
+    }
+
+    private static BeanRowMapper compile(Class<?> resultClass, EntityMeta meta, String[] aliases) {
+        MethodHandle[] setters = new MethodHandle[aliases.length];
+        for (int i = 0; i < aliases.length; i++) {
+            FieldMeta fieldMeta = meta.getFieldMap().get(aliases[i]);
+            if (fieldMeta == null) {
+                throw new HibernateException("Could not find field " + aliases[i] + " of resultclass: " + resultClass.getName());
+            }
+            setters[i] = fieldMeta.getSetter();
+        }
+        return new BeanRowMapper(resultClass, constructor(resultClass), setters);
+    }
+
+    private static Supplier<?> constructor(Class<?> resultClass) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            MethodHandle handle = lookup.findConstructor(resultClass, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class), handle, MethodType.methodType(resultClass));
+            return (Supplier<?>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            // Not public, fall back to the accessible constructor handle.
+            try {
+                Constructor<?> constructor = resultClass.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                MethodHandle handle = lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+                return () -> {
+                    try {
+                        return handle.invokeExact();
+                    } catch (Throwable t) {
+                        throw new HibernateException("Could not instantiate resultclass: " + resultClass.getName(), t);
+                    }
+                };
+            } catch (NoSuchMethodException | IllegalAccessException | SecurityException ex) {
+                throw new HibernateException("Could not instantiate resultclass: " + resultClass.getName(), ex);
+            }
+        }
+    }
+
+    /**
+     * @param tuple values in the order of the aliases
+     * @return new instance of the bean
+     */
+    public Object map(Object[] tuple) {
+        Object result = constructor.get();
+        try {
+            for (int i = 0; i < setters.length; i++) {
+                setters[i].invokeExact(result, tuple[i]);
+            }
+        } catch (Throwable e) {
+            throw new HibernateException("Could not set values of resultclass: " + resultClass.getName(), e);
+        }
+        return result;
+    }
+}
@@ -1,5 +1,8 @@
 package io.robe.hibernate.criteria.query;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Holds Query Operators as Enum
  */
@@ -36,6 +39,13 @@ public enum Operator {
      * Holds "q" ( _ ) to operate on {@link String} types. In SQL its LIKE command and it used to search without field names.
      */
     Q("_q"),
+    /**
+     * Holds "q in" ( _q|= ) to restrict q to the candidate identifiers which are found by a {@link QSearchBackend}.
+     * It is ANDed with the q restrictions and generated as {@code 1 = 0} for an empty list.
+     * Internal to the search, it is only created by {@link io.robe.hibernate.criteria.api.criterion.Restrictions#qIn}
+     * and {@link #value(String)} does not parse it.
+     */
+    Q_IN("_q|="),
     /**
      * Holds "in" ( |= ) operator to operate on @{@link io.robe.common.utils.Collections} types.
      */
@@ -46,6 +56,19 @@ public enum Operator {
      */
     private String value;
 
+    /**
+     * Operators by their {@link String} values, which {@link #value(String)} parses.
+     */
+    private static final Map<String, Operator> VALUES = new HashMap<>();
+
+    static {
+        for(Operator operator: Operator.values()) {
+            if(operator != Q_IN) {
+                VALUES.put(operator.value(), operator);
+            }
+        }
+    }
+
     /**
      *
      * @param value
@@ -67,13 +90,13 @@ public enum Operator {
      * gets Operator as {@link Operator} enum type
      * @param value
      * @return
+     * @throws IllegalArgumentException if the value is not an operator
      */
     public static Operator value(String value){
-        for(Operator operator: Operator.values()) {
-            if(operator.value().equals(value)) {
-                return operator;
-            }
+        Operator operator = value != null ? VALUES.get(value) : null;
+        if(operator == null) {
+            throw new IllegalArgumentException("Unknown operator: " + value);
         }
-        throw new RuntimeException("Value not found in " + Operator.class.getName()) ;
+        return operator;
     }
 }
\ No newline at end of file
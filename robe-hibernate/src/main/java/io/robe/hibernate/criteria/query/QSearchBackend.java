@@ -0,0 +1,37 @@
+package io.robe.hibernate.criteria.query;
+
+import java.util.Collection;
+
+/**
+ * Finds the rows which may match the q of a search without scanning the table.
+ * The candidate identifiers must contain every row whose own String fields match the LIKE restrictions of the q.
+ * They are ANDed with the LIKE restrictions, so the result is the same as without the backend.
+ * Searches which also match the fields of the {@link io.robe.common.service.search.SearchFrom} joins are not restricted.
+ *
+ * @see SearchPlan#setQBackend(QSearchBackend)
+ */
+public interface QSearchBackend {
+
+    /**
+     * @param entityClass entity to search
+     * @param q           raw q of the search
+     * @return identifiers of the matching rows, null if the backend can not answer and the LIKE search must be used
+     */
+    Collection<?> candidates(Class<?> entityClass, String q);
+
+    /**
+     * Called before the rows of the entity are written without the entity events, e.g. by a bulk statement.
+     *
+     * @param entityClass written entity
+     */
+    default void writing(Class<?> entityClass) {
+    }
+
+    /**
+     * Called after the write which is reported by {@link #writing(Class)} is committed or rolled back.
+     *
+     * @param entityClass written entity
+     */
+    default void written(Class<?> entityClass) {
+    }
+}
@@ -35,25 +35,12 @@ public class Query<E> {
      * @return
      */
     public Criteria<E> createCriteria(Class<?> entityClass, SearchModel search) {
-        Criteria<E> criteria = Criteria.createCriteria(entityClass, transformer);
         if(search == null) {
-            return criteria;
+            return Criteria.createCriteria(entityClass, transformer);
         }
 
-        if(search.getQ() != null && search.getQ().length() > 0) {
-            String[] queries = new String[]{search.getQ()};
-            QueryUtility.configureCriteriaByQ(criteria, queries);
-        }
-
-        if(search.getFilter() != null && search.getFilter().length > 0) {
-            QueryUtility.configureFilters(criteria, search.getFilter(), 0);
-        }
-
-        if(search.getSort() != null && search.getSort().length > 0) {
-            QueryUtility.configureSorts(criteria, search.getSort());
-        }
-
-        QueryUtility.configureSelectFields(criteria, search);
+        // q, filter, sort and fields are compiled once for each shape of the search.
+        Criteria<E> criteria = SearchPlan.createCriteria(entityClass, transformer, search);
 
         if(search.getLimit() != null) {
             criteria.setLimit(search.getLimit());
@@ -61,6 +48,10 @@ public class Query<E> {
         if(search.getOffset() != null) {
             criteria.setOffset(search.getOffset());
         }
+        if(search.getCount() != null) {
+            criteria.setCountMode(search.getCount());
+        }
+        criteria.setAfter(search.getAfter());
         return criteria;
     }
 
@@ -29,13 +29,34 @@ public class QueryUtility {
      * @param queries
      */
     static <E> void configureCriteriaByQ(CriteriaParent<E> criteria, String[] queries){
+        configureCriteriaByQ(criteria, queries, null);
+    }
+
+    /**
+     *
+     * @param criteria
+     * @param queries
+     * @param candidates identifiers found by the {@link QSearchBackend}, a superset of the rows whose own fields match the q.
+     *                   They are ANDed with the q restrictions if the q does not search {@link io.robe.common.service.search.SearchFrom} joins.
+     */
+    static <E> void configureCriteriaByQ(CriteriaParent<E> criteria, String[] queries, Collection<?> candidates){
         Set<String> joinedClassNames = new HashSet<>();
-        configureCriteriaByQ(criteria, queries, criteria.getMeta().getFieldMap().keySet(), joinedClassNames);
+        boolean joined = configureCriteriaByQ(criteria, queries, criteria.getMeta().getFieldMap().keySet(), joinedClassNames);
+        // A row may match only by a join, the candidates of the own fields can not restrict it.
+        if(candidates != null && !joined) {
+            Restriction restriction = Restrictions.qIn(criteria.getMeta().getIdentityName(), candidates);
+            restriction.setValueAlias("$_query_ids");
+            criteria.add(restriction);
+        }
     }
 
 
-    static <E> void configureCriteriaByQ(CriteriaParent<E> criteria, String[] queries, Collection<String> fieldSet, Set<String> joinedClassNames) {
+    /**
+     * @return true if the q searches the fields of a join
+     */
+    static <E> boolean configureCriteriaByQ(CriteriaParent<E> criteria, String[] queries, Collection<String> fieldSet, Set<String> joinedClassNames) {
         List<Restriction> restrictions = new LinkedList<>();
+        boolean joined = false;
         for(String fieldName: fieldSet) {
             FieldMeta fieldMeta = criteria.getMeta().getFieldMap().get(fieldName);
             if(fieldMeta == null) {
@@ -48,18 +69,20 @@ public class QueryUtility {
                 if(fieldMeta.getReference().getFilters() != null && fieldMeta.getReference().getFilters().length > 0) {
                     String className = fieldMeta.getReference().getTargetEntity().getName();
                     if(joinedClassNames.contains(className)) {
-                        return;
+                        continue;
                     }
                     joinedClassNames.add(className);
                     CriteriaJoin<E> criteriaJoin = addOrGetJoin(fieldName, fieldMeta, criteria);
                     List<String> joinFieldSet = Arrays.asList(fieldMeta.getReference().getFilters());
                     configureCriteriaByQ(criteriaJoin, queries, joinFieldSet, joinedClassNames);
+                    joined = true;
                 }
             }
         }
         if(restrictions.size() > 0) {
             criteria.add(restrictions.size() == 1 ? restrictions.get(0): Restrictions.or(restrictions));
         }
+        return joined;
     }
 
 
@@ -82,10 +105,22 @@ public class QueryUtility {
      * @param <E>
      */
     static <E> void configureFilters(CriteriaParent<E> criteria, String[][] filters, Integer restrictionOrder) {
+        configureFilters(criteria, filters, restrictionOrder, null);
+    }
+
+    /**
+     *
+     * @param criteria
+     * @param filters
+     * @param filterSources collects the index of the filter of each restriction if it is not null
+     * @param <E>
+     */
+    static <E> void configureFilters(CriteriaParent<E> criteria, String[][] filters, Integer restrictionOrder, Map<Restriction, Integer> filterSources) {
         if(filters == null || filters.length == 0) return;
         Map<String, List<Restriction>> restrictionMap = new LinkedHashMap<>();
         Map<String, CriteriaParent<E>> criteriaMap = new LinkedHashMap<>();
-        for(String[] filter: filters) {
+        for(int i = 0; i < filters.length; i++) {
+            String[] filter = filters[i];
             String name = filter[0];
             if(Validations.isEmptyOrNull(name) && Validations.isEmptyOrNull(filter[1])) continue;
             Operator operator = Operator.value(filter[1]);
@@ -98,6 +133,9 @@ public class QueryUtility {
             if(restriction == null) continue;
 
             restriction.setValueAlias(parent.criteria.getAlias() + "_" + parent.name + "_" + restrictionOrder++);
+            if(filterSources != null) {
+                filterSources.put(restriction, i);
+            }
             List<Restriction> restrictions = restrictionMap.get(parent.criteria.getAlias());
             if(restrictions == null) {
                 restrictions = new LinkedList<>();
@@ -135,7 +173,7 @@ public class QueryUtility {
     }
 
     public static <E> void configureSelectFields(Criteria<E> criteria, SearchModel search){
-        switch (criteria.getTransformer().getTransformType()) {
+        switch (criteria.getTransformMeta().getTransformType()) {
             case ENTITY:
                 return;
             case DTO:
@@ -150,7 +188,7 @@ public class QueryUtility {
     }
 
     public static <E> void configureDtoSelects(Criteria<E> criteria){
-        EntityMeta transformerMeta = criteria.getTransformer().getMeta();
+        EntityMeta transformerMeta = criteria.getTransformMeta().getMeta();
         for(Map.Entry<String, FieldMeta> entry: transformerMeta.getFieldMap().entrySet()) {
             FieldMeta fieldMeta = entry.getValue();
             String fieldName  = fieldMeta.hasRelation() ? fieldMeta.getRelationName() : entry.getKey();
@@ -237,7 +275,7 @@ public class QueryUtility {
                     throw new RuntimeException("Field is parent field. @SearchFrom is not defined on field ! ");
                 }
                 Class<?> joinClass = fieldMeta.getReference().getTargetEntity();
-                EntityMeta joinMeta  = parent.criteria.getTransformer().getMeta(joinClass);
+                EntityMeta joinMeta  = parent.criteria.getTransformMeta().getMeta(joinClass);
                 parent.criteria = addOrGetJoin(names[step], fieldMeta, parent.criteria);
                 meta = joinMeta;
                 step++;
@@ -0,0 +1,229 @@
+package io.robe.hibernate.criteria.query;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.robe.common.service.search.model.SearchModel;
+import io.robe.hibernate.criteria.api.*;
+import io.robe.hibernate.criteria.api.cache.FieldMeta;
+import io.robe.hibernate.criteria.api.criterion.Restriction;
+import io.robe.hibernate.criteria.api.criterion.RestrictionList;
+import io.robe.hibernate.criteria.api.criterion.Restrictions;
+import io.robe.hibernate.criteria.api.projection.EnhancedProjection;
+import io.robe.hibernate.criteria.api.projection.Projection;
+import io.robe.hibernate.criteria.api.projection.ProjectionList;
+import io.robe.hibernate.criteria.api.projection.Projections;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Compiled q, filter, sort and fields of a {@link SearchModel}.
+ * Parsing the dotted names, resolving the fields and creating the joins is done once for each search shape:
+ * entity, transform class, presence of q and its backend, filter names, operators and empty values, sorts and fields.
+ * The plan keeps the resolved criteria as a template which has no session, and a new criteria is created from the template
+ * by binding only the values of the search.
+ * If a {@link QSearchBackend} is set and it answers the q, the LIKE restrictions are only checked on the candidate identifiers.
+ */
+public final class SearchPlan {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private static volatile Cache<List<Object>, SearchPlan> cache = newCache(DEFAULT_MAXIMUM_SIZE);
+    private static volatile QSearchBackend qBackend;
+
+    private final Criteria<?> template;
+    /**
+     * Filter index of the filter restrictions, other restrictions are q restrictions.
+     */
+    private final Map<Restriction, Integer> filterSources;
+
+    private SearchPlan(Criteria<?> template, Map<Restriction, Integer> filterSources) {
+        this.template = template;
+        this.filterSources = filterSources;
+    }
+
+    private static Cache<List<Object>, SearchPlan> newCache(int maximumSize) {
+        return CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * Replaces the cache with a new one in the given size. 0 disables caching.
+     *
+     * @param maximumSize maximum number of cached search shapes
+     */
+    public static void configure(int maximumSize) {
+        cache = maximumSize > 0 ? newCache(maximumSize) : null;
+    }
+
+    /**
+     * Registers hit rate, hits, misses and size gauges to the given registry.
+     *
+     * @param registry metric registry of the environment
+     */
+    public static void registerMetrics(MetricRegistry registry) {
+        registry.register(MetricRegistry.name(SearchPlan.class, "hitRate"), (Gauge<Double>) () -> cache != null ? cache.stats().hitRate() : 0);
+        registry.register(MetricRegistry.name(SearchPlan.class, "hits"), (Gauge<Long>) () -> cache != null ? cache.stats().hitCount() : 0);
+        registry.register(MetricRegistry.name(SearchPlan.class, "misses"), (Gauge<Long>) () -> cache != null ? cache.stats().missCount() : 0);
+        registry.register(MetricRegistry.name(SearchPlan.class, "size"), (Gauge<Long>) () -> cache != null ? cache.size() : 0);
+    }
+
+    public static double hitRate() {
+        return cache != null ? cache.stats().hitRate() : 0;
+    }
+
+    /**
+     * Sets the backend of q searches, null searches q only with LIKE.
+     *
+     * @param qBackend backend which finds the candidate identifiers of q
+     */
+    public static void setQBackend(QSearchBackend qBackend) {
+        SearchPlan.qBackend = qBackend;
+    }
+
+    public static QSearchBackend getQBackend() {
+        return qBackend;
+    }
+
+    /**
+     * Creates the criteria of the entity with q, filter, sort and fields of the search.
+     *
+     * @param entityClass entity to search
+     * @param transformer transformer of the criteria
+     * @param search      search model
+     * @return configured criteria
+     */
+    public static <E> Criteria<E> createCriteria(Class<?> entityClass, Transformer<E> transformer, SearchModel search) {
+        Collection<?> candidates = candidates(entityClass, search);
+        Cache<List<Object>, SearchPlan> plans = cache;
+        if (plans == null) {
+            Criteria<E> criteria = Criteria.createCriteria(entityClass, transformer);
+            configure(criteria, search, null, candidates);
+            return criteria;
+        }
+        List<Object> shape = shape(entityClass, transformer, search, candidates);
+        try {
+            return plans.get(shape, () -> compile(entityClass, transformer, search, candidates)).bind(transformer, search, candidates);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() :
+                    new RuntimeException("Can't compile search of " + entityClass.getName(), e.getCause());
+        }
+    }
+
+    private static Collection<?> candidates(Class<?> entityClass, SearchModel search) {
+        QSearchBackend backend = qBackend;
+        if (backend == null || search.getQ() == null || search.getQ().length() == 0) {
+            return null;
+        }
+        return backend.candidates(entityClass, search.getQ());
+    }
+
+    private static <E> void configure(Criteria<E> criteria, SearchModel search, Map<Restriction, Integer> filterSources, Collection<?> candidates) {
+        if (search.getQ() != null && search.getQ().length() > 0) {
+            QueryUtility.configureCriteriaByQ(criteria, new String[]{search.getQ()}, candidates);
+        }
+        if (search.getFilter() != null && search.getFilter().length > 0) {
+            QueryUtility.configureFilters(criteria, search.getFilter(), 0, filterSources);
+        }
+        if (search.getSort() != null && search.getSort().length > 0) {
+            QueryUtility.configureSorts(criteria, search.getSort());
+        }
+        QueryUtility.configureSelectFields(criteria, search);
+    }
+
+    private static List<Object> shape(Class<?> entityClass, Transformer<?> transformer, SearchModel search, Collection<?> candidates) {
+        List<Object> shape = new ArrayList<>(8);
+        shape.add(entityClass);
+        shape.add(transformer.getTransformType());
+        shape.add(transformer.getTransformClass());
+        // 0: no q, 1: LIKE, 2: candidates of the backend
+        shape.add(search.getQ() == null || search.getQ().length() == 0 ? 0 : candidates == null ? 1 : 2);
+        if (search.getFilter() != null) {
+            for (String[] filter : search.getFilter()) {
+                shape.add(filter[0]);
+                shape.add(filter[1]);
+                // Empty values turn equals operators to null checks.
+                String value = filter.length > 2 ? filter[2] : null;
+                shape.add(value == null || value.isEmpty() || "null".equals(value));
+            }
+        }
+        shape.add(search.getSort() != null ? Arrays.asList(search.getSort()) : null);
+        shape.add(transformer.getTransformType() == Transformer.TransformType.MAP && search.getFields() != null ?
+                Arrays.asList(search.getFields()) : null);
+        return shape;
+    }
+
+    private static <E> SearchPlan compile(Class<?> entityClass, Transformer<E> transformer, SearchModel search, Collection<?> candidates) {
+        // Template must not hold the session of the transformer, it only resolves the metas.
+        Criteria<E> template = Criteria.createCriteria(entityClass, new TransformMeta<E>(transformer.getTransformClass(), transformer.getFinder()));
+        Map<Restriction, Integer> filterSources = new IdentityHashMap<>();
+        configure(template, search, filterSources, candidates);
+        return new SearchPlan(template, filterSources);
+    }
+
+    private <E> Criteria<E> bind(Transformer<E> transformer, SearchModel search, Collection<?> candidates) {
+        Criteria<E> criteria = Criteria.createCriteria(template.getEntityClass(), transformer);
+        Map<String, CriteriaParent<E>> parents = new HashMap<>();
+        bind(template, criteria, search, candidates, parents);
+        for (Order order : template.getOrders()) {
+            parents.get(order.getCriteriaAlias()).addOrder(new Order(order.getName(), order.getType(), order.isAlias()));
+        }
+        return criteria;
+    }
+
+    private <E> void bind(CriteriaParent<?> source, CriteriaParent<E> target, SearchModel search, Collection<?> candidates,
+                          Map<String, CriteriaParent<E>> parents) {
+        parents.put(target.getAlias(), target);
+        for (Restriction restriction : source.getRestrictions()) {
+            target.add(bind(source, restriction, search, candidates));
+        }
+        if (source.getProjection() != null) {
+            target.setProjection(copy(source.getProjection()));
+        }
+        for (CriteriaJoin<?> join : source.getJoins().values()) {
+            CriteriaJoin<E> targetJoin = target.createJoin(join.getAlias().substring(1), join.getEntityClass(), join.getReferenceId());
+            bind(join, targetJoin, search, candidates, parents);
+        }
+    }
+
+    private Restriction bind(CriteriaParent<?> source, Restriction restriction, SearchModel search, Collection<?> candidates) {
+        Restriction bound;
+        if (restriction instanceof RestrictionList) {
+            List<Restriction> children = new ArrayList<>(((RestrictionList) restriction).getRestrictions().size());
+            for (Restriction child : ((RestrictionList) restriction).getRestrictions()) {
+                children.add(bind(source, child, search, candidates));
+            }
+            bound = restriction.getOperator() == Operator.AND ? Restrictions.and(children) : Restrictions.or(children);
+        } else if (restriction.getOperator() == Operator.Q_IN) {
+            bound = Restrictions.qIn(restriction.getName(), candidates);
+        } else {
+            FieldMeta fieldMeta = source.getMeta().getFieldMap().get(restriction.getName());
+            Integer filterIndex = filterSources.get(restriction);
+            if (filterIndex == null) {
+                bound = Restrictions.filter(restriction.getName(), Operator.Q, QueryUtility.getValue(Operator.Q, search.getQ(), fieldMeta.getField()));
+            } else {
+                String[] filter = search.getFilter()[filterIndex];
+                Operator operator = Operator.value(filter[1]);
+                bound = Restrictions.filter(restriction.getName(), operator, QueryUtility.getValue(operator, filter[2], fieldMeta.getField()));
+            }
+        }
+        bound.setValueAlias(restriction.getValueAlias());
+        return bound;
+    }
+
+    private static Projection copy(Projection projection) {
+        if (projection instanceof ProjectionList) {
+            ProjectionList source = (ProjectionList) projection;
+            ProjectionList copy = Projections.projectionList();
+            for (int i = 0; i < source.getLength(); i++) {
+                copy.add(copy(source.getProjection(i)));
+            }
+            return copy;
+        } else if (projection instanceof EnhancedProjection && ((EnhancedProjection) projection).getProjection() instanceof ProjectionList) {
+            EnhancedProjection source = (EnhancedProjection) projection;
+            return new EnhancedProjection(copy(source.getProjection()), source.getAlias());
+        }
+        return projection;
+    }
+}
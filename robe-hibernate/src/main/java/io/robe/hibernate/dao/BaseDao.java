@@ -9,15 +9,26 @@ import io.robe.common.utils.TypeReference;
 import io.robe.hibernate.RobeHibernateBundle;
 import io.robe.hibernate.criteria.api.Transformer;
 import io.robe.hibernate.entity.RobeEntity;
+import io.robe.hibernate.criteria.api.CloseableIterator;
 import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.Keyset;
 import io.robe.hibernate.criteria.api.Result;
 import io.robe.hibernate.criteria.query.Query;
 import io.robe.hibernate.criteria.hql.TransformerImpl;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.annotations.Cache;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
 
 import javax.inject.Inject;
+import javax.ws.rs.BadRequestException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Basic Dao Class which limits {@link io.dropwizard.hibernate.AbstractDAO} to take
@@ -26,7 +37,13 @@ import java.util.*;
  * @param <T> Type of the entity parameter.
  */
 public class BaseDao<T extends RobeEntity> extends AbstractDAO<T> {
-    
+
+    /**
+     * Number of entities flushed at once by {@link #createAll(Iterable)}, {@link #updateAll(Iterable)} and {@link #deleteAll(Iterable)}
+     * if hibernate.jdbc.batch_size is not set.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
     @Inject
     RobeHibernateBundle bundle;
 
@@ -48,7 +65,7 @@ public class BaseDao<T extends RobeEntity> extends AbstractDAO<T> {
      */
     public Criteria<T> queryAllStrict(SearchModel search) {
         Query<T> query = new Query<>(new TransformerImpl<T>(this.currentSession()));
-        return query.createCriteria(this.getEntityClass(), search);
+        return cacheable(query.createCriteria(this.getEntityClass(), search));
     }
 
     /**
@@ -60,7 +77,7 @@ public class BaseDao<T extends RobeEntity> extends AbstractDAO<T> {
     public Criteria<Map<String, Object>> queryAll(SearchModel search) {
         Transformer<Map<String, Object>> transformer = new TransformerImpl<>(this.currentSession(), Criteria.MAP_CLASS);
         Query<Map<String, Object>> query = new Query<>(transformer);
-        return query.createCriteria(this.getEntityClass(), search);
+        return cacheable(query.createCriteria(this.getEntityClass(), search));
     }
 
     /**
@@ -71,7 +88,15 @@ public class BaseDao<T extends RobeEntity> extends AbstractDAO<T> {
      */
     public <E> Criteria<E> queryAll(SearchModel search, Class<E> transformClass) {
         Query<E> query = new Query<>(new TransformerImpl<>(this.currentSession(), transformClass));
-        return query.createCriteria(this.getEntityClass(), search);
+        return cacheable(query.createCriteria(this.getEntityClass(), search));
+    }
+
+    /**
+     * Marks the criteria of the entities which are cached in the second level cache as cacheable,
+     * so their ids and counts are taken from the query cache.
+     */
+    private <E> Criteria<E> cacheable(Criteria<E> criteria) {
+        return criteria.setCacheable(getEntityClass().isAnnotationPresent(Cache.class));
     }
 
     /**
@@ -81,10 +106,8 @@ public class BaseDao<T extends RobeEntity> extends AbstractDAO<T> {
      * @return List of entities.
      */
     public List<T> findAllStrict(SearchModel search) {
-        Result<T> resultPair = queryAllStrict(search).pairList();
-        search.setTotalCount(resultPair.getTotalCount());
-        ResponseHeadersUtil.addTotalCount(search);
-        return resultPair.getList();
+        Result<T> resultPair = pairList(queryAllStrict(search));
+        return page(search, resultPair);
     }
 
     /**
@@ -94,10 +117,8 @@ public class BaseDao<T extends RobeEntity> extends AbstractDAO<T> {
      * @return List of entities.
      */
     public List<Map<String, Object>> findAll(SearchModel search) {
-        Result<Map<String, Object>> resultPair = queryAll(search).pairList();
-        search.setTotalCount(resultPair.getTotalCount());
-        ResponseHeadersUtil.addTotalCount(search);
-        return resultPair.getList();
+        Result<Map<String, Object>> resultPair = pairList(queryAll(search));
+        return page(search, resultPair);
     }
 
     /**
@@ -107,10 +128,66 @@ public class BaseDao<T extends RobeEntity> extends AbstractDAO<T> {
      * @return List of entities.
      */
     public <E> List<E> findAll(SearchModel search, Class<E> transformClass) {
-        Result<E> resultPair = queryAll(search, transformClass).pairList();
-        search.setTotalCount(resultPair.getTotalCount());
-        ResponseHeadersUtil.addTotalCount(search);
-        return resultPair.getList();
+        Result<E> resultPair = pairList(queryAll(search, transformClass));
+        return page(search, resultPair);
+    }
+
+    /**
+     * Iterates the entities regarding to the search model over a database cursor, for the exports of large results.
+     *
+     * @param search    search model
+     * @param fetchSize number of rows fetched per round trip
+     * @return iterator of entities which must be closed
+     */
+    public CloseableIterator<T> scrollAllStrict(SearchModel search, int fetchSize) {
+        return queryAllStrict(search).scroll(fetchSize);
+    }
+
+    /**
+     * Iterates the maps regarding to the search model over a database cursor, for the exports of large results.
+     *
+     * @param search    search model
+     * @param fetchSize number of rows fetched per round trip
+     * @return iterator of maps which must be closed
+     */
+    public CloseableIterator<Map<String, Object>> scrollAll(SearchModel search, int fetchSize) {
+        return queryAll(search).scroll(fetchSize);
+    }
+
+    /**
+     * Iterates the transform class instances regarding to the search model over a database cursor, for the exports of large results.
+     *
+     * @param search         search model
+     * @param transformClass class of the rows
+     * @param fetchSize      number of rows fetched per round trip
+     * @return iterator of transform class instances which must be closed
+     */
+    public <E> CloseableIterator<E> scrollAll(SearchModel search, Class<E> transformClass, int fetchSize) {
+        return queryAll(search, transformClass).scroll(fetchSize);
+    }
+
+    /**
+     * Lists the page of the search. A cursor which can not be decoded is answered with 400 Bad Request.
+     */
+    private static <E> Result<E> pairList(Criteria<E> criteria) {
+        try {
+            return criteria.pairList();
+        } catch (Keyset.InvalidCursorException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copies the count and the pagination state of the result to the search and the response headers.
+     */
+    private static <E> List<E> page(SearchModel search, Result<E> result) {
+        if (result.getTotalCount() != null) {
+            search.setTotalCount(result.getTotalCount());
+        }
+        search.setHasMore(result.getHasMore());
+        search.setNextCursor(result.getNextCursor());
+        ResponseHeadersUtil.addPagination(search);
+        return result.getList();
     }
 
     /**
@@ -174,6 +251,104 @@ public class BaseDao<T extends RobeEntity> extends AbstractDAO<T> {
         return entity;
     }
 
+    /**
+     * Creates records for the given entities in JDBC batches.
+     * The session is flushed after every batch and the created entities are evicted, entities which are loaded before stay attached.
+     *
+     * @param entities to record.
+     * @return recorded entities.
+     */
+    public List<T> createAll(Iterable<T> entities) {
+        return batch(entities, this::persist);
+    }
+
+    /**
+     * Updates records for the given entities in JDBC batches.
+     * The session is flushed after every batch and the entities which the batch attached are evicted, entities which are loaded before stay attached.
+     * Detached entities are reattached without a select, they are merged only if the session already holds another instance of them.
+     *
+     * @param entities to record.
+     * @return updated entities, the instance of the session for the merged ones.
+     */
+    public List<T> updateAll(Iterable<T> entities) {
+        return batch(entities, entity -> {
+            T loaded = loaded(entity);
+            if (loaded == null) {
+                currentSession().update(entity);
+                return entity;
+            }
+            return loaded == entity ? entity : merge(entity);
+        });
+    }
+
+    /**
+     * Deletes records for the given entities in JDBC batches.
+     * The session is flushed after every batch, entities which are loaded before stay attached.
+     * Detached entities are deleted without a select, unless the session already holds another instance of them.
+     *
+     * @param entities to delete.
+     * @return deleted entities.
+     */
+    public List<T> deleteAll(Iterable<T> entities) {
+        return batch(entities, entity -> {
+            T loaded = loaded(entity);
+            return delete(loaded == null || loaded == entity ? entity : merge(entity));
+        });
+    }
+
+    /**
+     * @return instance of the session which has the identifier of the entity, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    private T loaded(T entity) {
+        if (currentSession().contains(entity)) {
+            return entity;
+        }
+        SessionImplementor session = (SessionImplementor) currentSession();
+        EntityPersister persister = session.getEntityPersister(null, entity);
+        Serializable id = persister.getIdentifier(entity, session);
+        return id == null ? null : (T) session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister));
+    }
+
+    private List<T> batch(Iterable<T> entities, Function<T, T> operation) {
+        Session session = currentSession();
+        int batchSize = getBatchSize();
+        List<T> result = new ArrayList<>();
+        // Entities which are attached by the current batch, the ones which are loaded before are not evicted.
+        List<T> attached = new ArrayList<>(batchSize);
+        for (T entity : entities) {
+            boolean contained = session.contains(entity);
+            T written = operation.apply(entity);
+            result.add(written);
+            if (!contained && written == entity) {
+                attached.add(entity);
+            }
+            if (result.size() % batchSize == 0) {
+                flush(session, attached);
+            }
+        }
+        flush(session, attached);
+        return result;
+    }
+
+    private static void flush(Session session, List<?> attached) {
+        session.flush();
+        for (Object entity : attached) {
+            if (session.contains(entity)) {
+                session.evict(entity);
+            }
+        }
+        attached.clear();
+    }
+
+    /**
+     * @return hibernate.jdbc.batch_size of the session factory, {@link #DEFAULT_BATCH_SIZE} if batching is disabled
+     */
+    protected int getBatchSize() {
+        int batchSize = currentSession().getSessionFactory().getSessionFactoryOptions().getJdbcBatchSize();
+        return batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    }
+
     /**
      * Flush the session.
      */
@@ -181,6 +356,32 @@ public class BaseDao<T extends RobeEntity> extends AbstractDAO<T> {
         currentSession().flush();
     }
 
+    /**
+     * Runs the action after the transaction of the current session commits, so caches are not filled or cleared
+     * with changes which roll back. Runs it immediately if the session has no active transaction.
+     *
+     * @param action action to run, it should not use the session
+     */
+    public void afterCommit(Runnable action) {
+        org.hibernate.Transaction transaction = currentSession().getTransaction();
+        if (transaction == null || transaction.getStatus() != TransactionStatus.ACTIVE) {
+            action.run();
+            return;
+        }
+        transaction.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
     /**
      * Merges the entity with the session.
      *
@@ -0,0 +1,205 @@
+package io.robe.hibernate.replica;
+
+import io.dropwizard.db.ManagedDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Data source which gives the connections of the read only units of work from the replicas and the others from the primary.
+ * Hibernate takes the connection when the transaction begins, so a session reads and writes over a single data source.
+ * If a replica can not give a connection, the primary is used.
+ */
+public class ReplicaRoutingDataSource implements ManagedDataSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final ManagedDataSource primary;
+    private final List<ManagedDataSource> replicas;
+    private final ReplicaSelection selection;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger[] inFlight;
+    private volatile BooleanSupplier readOnly = () -> false;
+
+    /**
+     * @param primary   data source of the writes
+     * @param replicas  data sources of the reads
+     * @param selection selection of the replica for each connection
+     */
+    public ReplicaRoutingDataSource(ManagedDataSource primary, List<ManagedDataSource> replicas, ReplicaSelection selection) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+        this.selection = selection;
+        this.inFlight = new AtomicInteger[replicas.size()];
+        for (int i = 0; i < inFlight.length; i++) {
+            inFlight[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * The session bound to the current thread takes its connection when its transaction begins, so a connection which is
+     * requested while it already holds one is for another session, as a session opened by {@link SessionFactory#openSession()}
+     * inside a read only unit of work, and it is taken from the primary.
+     *
+     * @param sessionFactory session factory of the data source
+     * @return true while the session bound to the current thread is default read only and has no connection yet,
+     * as the sessions of {@code @UnitOfWork(readOnly = true)} and {@link io.robe.hibernate.transaction.Transaction#execReadOnly(io.robe.hibernate.transaction.TransactionWrapper)}
+     */
+    public static BooleanSupplier readOnlySession(SessionFactory sessionFactory) {
+        return () -> {
+            if (!ManagedSessionContext.hasBind(sessionFactory)) {
+                return false;
+            }
+            Session session = sessionFactory.getCurrentSession();
+            return session.isDefaultReadOnly()
+                    && !((SessionImplementor) session).getJdbcCoordinator().getLogicalConnection().isPhysicallyConnected();
+        };
+    }
+
+    /**
+     * @param readOnly decides if the requested connection is for reads only
+     */
+    public void setReadOnly(BooleanSupplier readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * @return number of open connections of each replica
+     */
+    public int[] getInFlight() {
+        int[] counts = new int[inFlight.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = inFlight[i].get();
+        }
+        return counts;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicas.isEmpty() || !readOnly.getAsBoolean()) {
+            return primary.getConnection();
+        }
+        int index = select();
+        try {
+            return track(replicas.get(index).getConnection(), index);
+        } catch (SQLException e) {
+            LOGGER.warn("Can't get a connection from replica " + index + ", using primary.", e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (replicas.isEmpty() || !readOnly.getAsBoolean()) {
+            return primary.getConnection(username, password);
+        }
+        int index = select();
+        try {
+            return track(replicas.get(index).getConnection(username, password), index);
+        } catch (SQLException e) {
+            LOGGER.warn("Can't get a connection from replica " + index + ", using primary.", e);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    private int select() {
+        if (selection == ReplicaSelection.LEAST_IN_FLIGHT) {
+            int start = Math.floorMod(next.getAndIncrement(), inFlight.length);
+            int selected = start;
+            for (int i = 1; i < inFlight.length; i++) {
+                int index = (start + i) % inFlight.length;
+                if (inFlight[index].get() < inFlight[selected].get()) {
+                    selected = index;
+                }
+            }
+            return selected;
+        }
+        return Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    /**
+     * Counts the connection until it is closed.
+     */
+    private Connection track(Connection connection, int index) {
+        AtomicInteger counter = inFlight[index];
+        AtomicBoolean closed = new AtomicBoolean();
+        counter.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                        counter.decrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Override
+    public void start() throws Exception {
+        primary.start();
+        for (ManagedDataSource replica : replicas) {
+            replica.start();
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        primary.stop();
+        for (ManagedDataSource replica : replicas) {
+            replica.stop();
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return primary.isWrapperFor(iface);
+    }
+}
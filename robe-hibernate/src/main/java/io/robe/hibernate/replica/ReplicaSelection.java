@@ -0,0 +1,15 @@
+package io.robe.hibernate.replica;
+
+/**
+ * Selects the replica of a read only connection.
+ */
+public enum ReplicaSelection {
+    /**
+     * Replicas are used in turn.
+     */
+    ROUND_ROBIN,
+    /**
+     * Replica with the fewest open connections of this application is used.
+     */
+    LEAST_IN_FLIGHT
+}
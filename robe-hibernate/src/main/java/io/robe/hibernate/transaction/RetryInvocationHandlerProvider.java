@@ -0,0 +1,127 @@
+package io.robe.hibernate.transaction;
+
+import org.glassfish.hk2.utilities.binding.AbstractBinder;
+import org.glassfish.jersey.server.model.Invocable;
+import org.glassfish.jersey.server.spi.internal.ResourceMethodInvocationHandlerProvider;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.util.function.Predicate;
+
+/**
+ * Invokes the resource methods which are annotated with {@link RetryOnConflict} in a retry loop.
+ * After each invocation the session of the {@link io.dropwizard.hibernate.UnitOfWork} is flushed.
+ * If the attempt fails with a retryable failure, the transaction is rolled back, the session is cleared and a new transaction begins.
+ * The whole method runs again, so it should only change the entities it loads in the session, whose versions come from the database.
+ * Side effects out of the database are registered with {@link io.robe.hibernate.dao.BaseDao#afterCommit(Runnable)},
+ * the actions of the rolled back attempts are dropped.
+ */
+public class RetryInvocationHandlerProvider implements ResourceMethodInvocationHandlerProvider {
+
+    private final SessionFactory sessionFactory;
+
+    public RetryInvocationHandlerProvider(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * @param retry annotation of the resource method
+     * @return retry policy of the annotation
+     */
+    static RetryPolicy policy(RetryOnConflict retry) {
+        Class<? extends Throwable>[] retryOn = retry.retryOn();
+        if (retryOn.length == 0) {
+            return new RetryPolicy(retry.maxAttempts(), retry.backoff(), retry.maxBackoff());
+        }
+        Predicate<Throwable> retryable = throwable -> {
+            for (Throwable cause = throwable; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+                for (Class<? extends Throwable> type : retryOn) {
+                    if (type.isInstance(cause)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        };
+        return new RetryPolicy(retry.maxAttempts(), retry.backoff(), retry.maxBackoff(), retryable);
+    }
+
+    @Override
+    public InvocationHandler create(Invocable invocable) {
+        RetryOnConflict retry = invocable.getDefinitionMethod().getAnnotation(RetryOnConflict.class);
+        if (retry == null) {
+            // Jersey uses the default handler.
+            return null;
+        }
+        RetryPolicy policy = policy(retry);
+        return (instance, method, args) -> {
+            for (int attempt = 1; ; attempt++) {
+                InvocationTargetException failure;
+                try {
+                    Object result = method.invoke(instance, args);
+                    flush();
+                    policy.succeeded(attempt);
+                    return result;
+                } catch (InvocationTargetException e) {
+                    failure = e;
+                } catch (RuntimeException e) {
+                    failure = new InvocationTargetException(e);
+                }
+                if (!policy.retry(failure.getCause(), attempt)) {
+                    // Jersey maps the cause of the invocation target exception.
+                    throw failure;
+                }
+                restart();
+            }
+        };
+    }
+
+    private void flush() {
+        if (ManagedSessionContext.hasBind(sessionFactory)) {
+            Session session = sessionFactory.getCurrentSession();
+            if (!session.isDefaultReadOnly() && session.getTransaction().getStatus() == TransactionStatus.ACTIVE) {
+                session.flush();
+            }
+        }
+    }
+
+    /**
+     * Rolls back the transaction of the failed attempt and begins a new one with an empty persistence context.
+     */
+    private void restart() {
+        if (!ManagedSessionContext.hasBind(sessionFactory)) {
+            return;
+        }
+        Session session = sessionFactory.getCurrentSession();
+        // The statement of the failed flush stays in the batch and is closed by the rollback.
+        ((SessionImplementor) session).getJdbcCoordinator().abortBatch();
+        org.hibernate.Transaction txn = session.getTransaction();
+        boolean transactional = txn.getStatus() == TransactionStatus.ACTIVE || txn.getStatus() == TransactionStatus.MARKED_ROLLBACK;
+        if (transactional) {
+            txn.rollback();
+        }
+        session.clear();
+        if (transactional) {
+            session.beginTransaction();
+        }
+    }
+
+    public static class Binder extends AbstractBinder {
+
+        private final SessionFactory sessionFactory;
+
+        public Binder(SessionFactory sessionFactory) {
+            this.sessionFactory = sessionFactory;
+        }
+
+        @Override
+        protected void configure() {
+            bind(new RetryInvocationHandlerProvider(sessionFactory)).to(ResourceMethodInvocationHandlerProvider.class);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.robe.hibernate.transaction;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the resource method again in a new transaction of the same {@link io.dropwizard.hibernate.UnitOfWork} session
+ * when it fails with a conflict. The session is flushed after the method, so the conflicts of the writes fail inside the retry.
+ * Reject a stale version sent by the client before the writes, it fails on every attempt.
+ * Run the side effects with {@link io.robe.hibernate.dao.BaseDao#afterCommit(Runnable)}, so they do not repeat.
+ * <pre>
+ * {@code
+ * @PUT
+ * @UnitOfWork
+ * @RetryOnConflict(maxAttempts = 5)
+ * public Role update(Role model) {
+ *     ...
+ * }
+ * }
+ * </pre>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    /**
+     * @return maximum number of the attempts including the first one
+     */
+    int maxAttempts() default 3;
+
+    /**
+     * @return wait limit in milliseconds after the first attempt, doubled after each attempt
+     */
+    long backoff() default 50;
+
+    /**
+     * @return upper limit of the wait in milliseconds
+     */
+    long maxBackoff() default 1000;
+
+    /**
+     * @return failures to retry with their subclasses, empty retries the conflicts of {@link RetryPolicy#isConflict(Throwable)}
+     */
+    Class<? extends Throwable>[] retryOn() default {};
+}
@@ -0,0 +1,152 @@
+package io.robe.hibernate.transaction;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.hibernate.PessimisticLockException;
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.LockAcquisitionException;
+
+import javax.persistence.OptimisticLockException;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Decides if a failed unit of work runs again and how long it waits before.
+ * Waits are exponential with full jitter, so the competing transactions do not collide again at the same time.
+ * By default optimistic lock failures (stale versions), lock timeouts, deadlocks and serialization failures are retried.
+ */
+public class RetryPolicy {
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(3, 50, 1000);
+
+    private static Meter retries = new Meter();
+    private static Meter recovered = new Meter();
+    private static Meter exhausted = new Meter();
+
+    private final int maxAttempts;
+    private final long backoff;
+    private final long maxBackoff;
+    private final Predicate<Throwable> retryable;
+
+    /**
+     * Retries the conflicts, see {@link #isConflict(Throwable)}.
+     *
+     * @param maxAttempts maximum number of the attempts including the first one
+     * @param backoff     wait limit in milliseconds after the first attempt, doubled after each attempt
+     * @param maxBackoff  upper limit of the wait in milliseconds
+     */
+    public RetryPolicy(int maxAttempts, long backoff, long maxBackoff) {
+        this(maxAttempts, backoff, maxBackoff, RetryPolicy::isConflict);
+    }
+
+    /**
+     * @param maxAttempts maximum number of the attempts including the first one
+     * @param backoff     wait limit in milliseconds after the first attempt, doubled after each attempt
+     * @param maxBackoff  upper limit of the wait in milliseconds
+     * @param retryable   decides if the failure is retried
+     */
+    public RetryPolicy(int maxAttempts, long backoff, long maxBackoff, Predicate<Throwable> retryable) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.retryable = retryable;
+    }
+
+    /**
+     * Registers retries, recovered and exhausted meters to the given registry.
+     *
+     * @param registry metric registry of the environment
+     */
+    public static void registerMetrics(MetricRegistry registry) {
+        retries = registry.meter(MetricRegistry.name(RetryPolicy.class, "retries"));
+        recovered = registry.meter(MetricRegistry.name(RetryPolicy.class, "recovered"));
+        exhausted = registry.meter(MetricRegistry.name(RetryPolicy.class, "exhausted"));
+    }
+
+    /**
+     * @param throwable failure of the unit of work
+     * @return true if the failure or one of its causes is an optimistic lock failure, a lock timeout, a deadlock or a serialization failure.
+     */
+    public static boolean isConflict(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof StaleStateException || cause instanceof OptimisticLockException
+                    || cause instanceof LockAcquisitionException || cause instanceof PessimisticLockException
+                    || cause instanceof SQLTransactionRollbackException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                // Serialization failure and deadlock.
+                if ("40001".equals(state) || "40P01".equals(state)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param throwable failure of the unit of work
+     * @return true if the classifier accepts the failure
+     */
+    public boolean isRetryable(Throwable throwable) {
+        return retryable.test(throwable);
+    }
+
+    /**
+     * @param attempt number of the failed attempt, starts from 1
+     * @return random wait in milliseconds between 0 and the limit of the attempt
+     */
+    public long backoff(int attempt) {
+        long limit = Math.min(maxBackoff, backoff << Math.min(attempt - 1, 30));
+        return limit <= 0 ? 0 : ThreadLocalRandom.current().nextLong(limit + 1);
+    }
+
+    /**
+     * Called when an attempt fails. Waits the backoff if the unit of work should run again.
+     *
+     * @param throwable failure of the attempt
+     * @param attempt   number of the failed attempt, starts from 1
+     * @return true if the unit of work should run again
+     */
+    public boolean retry(Throwable throwable, int attempt) {
+        if (!isRetryable(throwable)) {
+            return false;
+        }
+        if (attempt >= maxAttempts) {
+            exhausted.mark();
+            return false;
+        }
+        long wait = backoff(attempt);
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        retries.mark();
+        return true;
+    }
+
+    /**
+     * Called when an attempt succeeds.
+     *
+     * @param attempt number of the attempt, starts from 1
+     */
+    public void succeeded(int attempt) {
+        if (attempt > 1) {
+            recovered.mark();
+        }
+    }
+}
@@ -9,6 +9,9 @@ import org.hibernate.context.internal.ManagedSessionContext;
 import org.hibernate.resource.transaction.spi.TransactionStatus;
 
 import java.util.Stack;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -37,12 +40,19 @@ import static com.google.common.base.Preconditions.checkNotNull;
  *      logger.log(exception);
  *      throw exception;
  *   });
+ *
+ * Transaction.exec(() -> {
+ *     dao.update(entity);
+ * }, RetryPolicy.DEFAULT);
+ *
+ * Transaction.submit(() -> {
+ *     dao.create(entity);
+ * }).thenRun(() -> logger.info("created"));
  * }
  * </pre>
  */
 public class Transaction {
 
-    private static final SessionFactory SESSION_FACTORY = RobeHibernateBundle.getInstance().getSessionFactory();
 
     private static ThreadLocal<Stack<Session>> SESSIONS = new ThreadLocal<Stack<Session>>() {
         protected Stack<Session> initialValue() {
@@ -50,11 +60,21 @@ public class Transaction {
         }
     };
 
+    private static volatile TransactionExecutor executor;
+
+    /**
+     * Resolved on use, the executor is set while the bundle builds the session factory.
+     */
+    private static SessionFactory getSessionFactory() {
+        return RobeHibernateBundle.getInstance().getSessionFactory();
+    }
+
 
     private Session session;
     private TransactionWrapper transactionWrapper;
     private TransactionExceptionHandler exceptionHandler;
     private FlushMode flushMode;
+    private boolean readOnly;
 
     /**
      * Private constructor
@@ -62,11 +82,13 @@ public class Transaction {
      * @param transactionWrapper {@link TransactionWrapper}
      * @param exceptionHandler   {@link TransactionExceptionHandler}
      * @param flushMode          {@link FlushMode}
+     * @param readOnly           loads the entities read only, routes the session to a replica if there is any
      */
-    private Transaction(TransactionWrapper transactionWrapper, TransactionExceptionHandler exceptionHandler, FlushMode flushMode) {
+    private Transaction(TransactionWrapper transactionWrapper, TransactionExceptionHandler exceptionHandler, FlushMode flushMode, boolean readOnly) {
         this.transactionWrapper = transactionWrapper;
         this.exceptionHandler = exceptionHandler;
         this.flushMode = flushMode;
+        this.readOnly = readOnly;
         storePreviousSession();
         configureNewSession();
         start();
@@ -112,16 +134,153 @@ public class Transaction {
      */
     public static void exec(TransactionWrapper transactionWrapper, TransactionExceptionHandler exceptionHandler, FlushMode flushMode) {
         checkNotNull(transactionWrapper);
-        new Transaction(transactionWrapper, exceptionHandler, flushMode);
+        new Transaction(transactionWrapper, exceptionHandler, flushMode, false);
+    }
+
+    /**
+     * Begins new transaction in a new session and performs operations provided in {@link TransactionWrapper} <br/>
+     * If the transaction fails with a retryable failure of the {@link RetryPolicy}, it runs again in a new session.
+     *
+     * @param transactionWrapper {@link TransactionWrapper}
+     * @param retryPolicy        {@link RetryPolicy}
+     */
+    public static void exec(TransactionWrapper transactionWrapper, RetryPolicy retryPolicy) {
+        exec(transactionWrapper, null, FlushMode.AUTO, retryPolicy);
+    }
+
+    /**
+     * Begins new transaction in a new session and performs operations provided in {@link TransactionWrapper} <br/>
+     * If the transaction fails with a retryable failure of the {@link RetryPolicy}, it runs again in a new session.
+     * In case of the last exception the {@link TransactionExceptionHandler} will be invoked.
+     *
+     * @param transactionWrapper {@link TransactionWrapper}
+     * @param exceptionHandler   {@link TransactionExceptionHandler}
+     * @param flushMode          {@link FlushMode}
+     * @param retryPolicy        {@link RetryPolicy}
+     */
+    public static void exec(TransactionWrapper transactionWrapper, TransactionExceptionHandler exceptionHandler, FlushMode flushMode, RetryPolicy retryPolicy) {
+        checkNotNull(transactionWrapper);
+        checkNotNull(retryPolicy);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                new Transaction(transactionWrapper, null, flushMode, false);
+                retryPolicy.succeeded(attempt);
+                return;
+            } catch (RuntimeException e) {
+                if (retryPolicy.retry(e, attempt)) {
+                    continue;
+                }
+                if (exceptionHandler != null) {
+                    exceptionHandler.onException(e);
+                    return;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Begins new read only transaction in a new session and performs operations provided in {@link TransactionWrapper} <br/>
+     * Entities are loaded read only and the session is never flushed. If replicas are configured, the session reads from a replica.
+     *
+     * @param transactionWrapper {@link TransactionWrapper}
+     */
+    public static void execReadOnly(TransactionWrapper transactionWrapper) {
+        execReadOnly(transactionWrapper, null);
+    }
+
+    /**
+     * Begins new read only transaction in a new session and performs operations provided in {@link TransactionWrapper} <br/>
+     * In case of an exception is thrown the {@link TransactionExceptionHandler} will be invoked.
+     *
+     * @param transactionWrapper {@link TransactionWrapper}
+     * @param exceptionHandler   {@link TransactionExceptionHandler}
+     */
+    public static void execReadOnly(TransactionWrapper transactionWrapper, TransactionExceptionHandler exceptionHandler) {
+        checkNotNull(transactionWrapper);
+        new Transaction(transactionWrapper, exceptionHandler, FlushMode.MANUAL, true);
+    }
+
+    /**
+     * @param executor executor of the asynchronous transactions, see {@link #submit(TransactionWrapper)}
+     */
+    public static void setExecutor(TransactionExecutor executor) {
+        Transaction.executor = executor;
+    }
+
+    /**
+     * Performs operations provided in {@link TransactionWrapper} in a new transaction on a worker thread of the {@link TransactionExecutor}.
+     * The session is bound to the worker thread, so it must not be shared with the caller.
+     *
+     * @param transactionWrapper {@link TransactionWrapper}
+     * @return future which completes after the commit, fails with the exception after the rollback.
+     */
+    public static CompletableFuture<Void> submit(TransactionWrapper transactionWrapper) {
+        return submit(transactionWrapper, FlushMode.AUTO);
+    }
+
+    /**
+     * Performs operations provided in {@link TransactionWrapper} in a new transaction on a worker thread of the {@link TransactionExecutor}.
+     *
+     * @param transactionWrapper {@link TransactionWrapper}
+     * @param flushMode          {@link FlushMode}
+     * @return future which completes after the commit, fails with the exception after the rollback.
+     */
+    public static CompletableFuture<Void> submit(TransactionWrapper transactionWrapper, FlushMode flushMode) {
+        checkNotNull(transactionWrapper);
+        return getExecutor().submit(() -> {
+            new Transaction(transactionWrapper, null, flushMode, false);
+            return null;
+        });
+    }
+
+    /**
+     * Calls the supplier in a new transaction on a worker thread of the {@link TransactionExecutor}.
+     *
+     * @param supplier supplier of the result
+     * @param <T>      type of the result
+     * @return future of the result which completes after the commit, fails with the exception after the rollback.
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        return supply(supplier, FlushMode.AUTO, false);
+    }
+
+    /**
+     * Calls the supplier in a new read only transaction on a worker thread of the {@link TransactionExecutor}.
+     *
+     * @param supplier supplier of the result
+     * @param <T>      type of the result
+     * @return future of the result
+     * @see #execReadOnly(TransactionWrapper)
+     */
+    public static <T> CompletableFuture<T> supplyReadOnly(Supplier<T> supplier) {
+        return supply(supplier, FlushMode.MANUAL, true);
+    }
+
+    private static <T> CompletableFuture<T> supply(Supplier<T> supplier, FlushMode flushMode, boolean readOnly) {
+        checkNotNull(supplier);
+        return getExecutor().submit(() -> {
+            AtomicReference<T> result = new AtomicReference<>();
+            new Transaction(() -> result.set(supplier.get()), null, flushMode, readOnly);
+            return result.get();
+        });
+    }
+
+    private static TransactionExecutor getExecutor() {
+        TransactionExecutor current = executor;
+        if (current == null) {
+            throw new RuntimeException("Transaction executor is not set, asynchronous transactions are not available.");
+        }
+        return current;
     }
 
     /**
      * If present, backup current the session in {@link ManagedSessionContext} and unbinds it.
      */
     private void storePreviousSession() {
-        if (ManagedSessionContext.hasBind(SESSION_FACTORY)) {
-            SESSIONS.get().add(SESSION_FACTORY.getCurrentSession());
-            ManagedSessionContext.unbind(SESSION_FACTORY);
+        if (ManagedSessionContext.hasBind(getSessionFactory())) {
+            SESSIONS.get().add(getSessionFactory().getCurrentSession());
+            ManagedSessionContext.unbind(getSessionFactory());
         }
     }
 
@@ -129,8 +288,9 @@ public class Transaction {
      * Opens a new session, sets flush mode and bind this session to {@link ManagedSessionContext}
      */
     private void configureNewSession() {
-        session = SESSION_FACTORY.openSession();
+        session = getSessionFactory().openSession();
         session.setFlushMode(flushMode);
+        session.setDefaultReadOnly(readOnly);
         ManagedSessionContext.bind(session);
     }
 
@@ -171,7 +331,7 @@ public class Transaction {
                 session.close();
             }
         } finally {
-            ManagedSessionContext.unbind(SESSION_FACTORY);
+            ManagedSessionContext.unbind(getSessionFactory());
             if (!SESSIONS.get().isEmpty()) {
                 ManagedSessionContext.bind(SESSIONS.get().pop());
             }
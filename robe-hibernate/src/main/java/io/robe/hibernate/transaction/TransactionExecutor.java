@@ -0,0 +1,91 @@
+package io.robe.hibernate.transaction;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.lifecycle.Managed;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor of the asynchronous transactions. It has a fixed number of threads, which should not exceed the
+ * connection pool, and a bounded queue. When the queue is full the task is not queued and its future fails with
+ * {@link RejectedExecutionException}, so callers get back pressure instead of an unbounded backlog.
+ */
+public class TransactionExecutor implements Managed {
+
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    private final ThreadPoolExecutor executor;
+    private Meter rejected = new Meter();
+
+    /**
+     * @param threads   number of the worker threads
+     * @param queueSize maximum number of the waiting tasks
+     */
+    public TransactionExecutor(int threads, int queueSize) {
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "transaction-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Registers active and queued gauges and rejected meter to the given registry.
+     *
+     * @param registry metric registry of the environment
+     */
+    public void registerMetrics(MetricRegistry registry) {
+        registry.register(MetricRegistry.name(TransactionExecutor.class, "active"), (Gauge<Integer>) executor::getActiveCount);
+        registry.register(MetricRegistry.name(TransactionExecutor.class, "queued"), (Gauge<Integer>) () -> executor.getQueue().size());
+        rejected = registry.meter(MetricRegistry.name(TransactionExecutor.class, "rejected"));
+    }
+
+    /**
+     * Runs the task on a worker thread.
+     *
+     * @param task task to run
+     * @param <T>  type of the result
+     * @return future of the result, fails with the exception of the task or
+     * {@link RejectedExecutionException} if the queue is full or the executor is stopped.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.mark();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public void start() throws Exception {
+        executor.prestartAllCoreThreads();
+    }
+
+    /**
+     * Stops taking new tasks and waits the queued ones to finish.
+     */
+    @Override
+    public void stop() throws Exception {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -3,6 +3,8 @@ package io.robe.hibernate;
 /**
  * Created by kamilbukum on 20/11/16.
  */
+import io.robe.hibernate.cache.CacheConfiguration;
+import io.robe.hibernate.cache.RobeRegionFactory;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
@@ -12,11 +14,16 @@ import org.reflections.Reflections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public class HibernateUtil {
 
     private static Map<String, SessionFactory> factoryMap = new LinkedHashMap<>();
     public static SessionFactory buildSessionFactory(Class<?> testClass){
+        return buildSessionFactory(testClass, configuration -> {});
+    }
+
+    public static SessionFactory buildSessionFactory(Class<?> testClass, Consumer<Configuration> customizer){
         Configuration configuration = new Configuration();
         configuration.setProperty("connection.driver_class","org.h2.Driver");
         configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:" + testClass.getSimpleName());
@@ -34,6 +41,8 @@ public class HibernateUtil {
         for(Class<?> clazz : classes) {
             configuration.addAnnotatedClass(clazz);
         }
+        RobeRegionFactory.configure(configuration, new CacheConfiguration());
+        customizer.accept(configuration);
 
         ServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder().applySettings(configuration.getProperties()).build();
         return configuration.buildSessionFactory(serviceRegistry);
@@ -0,0 +1,119 @@
+package io.robe.hibernate.cache;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import io.robe.hibernate.HibernateUtil;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.hql.TransformerImpl;
+import io.robe.hibernate.test.entity.Role;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.internal.StandardQueryCache;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RobeRegionFactoryTest {
+
+    private static SessionFactory sessionFactory;
+    private static RobeRegionFactory regionFactory;
+    private static MetricRegistry metrics = new MetricRegistry();
+
+    @BeforeClass
+    public static void beforeClass() {
+        CacheConfiguration configuration = new CacheConfiguration();
+        configuration.setEnabled(true);
+        configuration.getRegions().put(Role.class.getName(), new RegionConfiguration(100, 60));
+        sessionFactory = HibernateUtil.buildSessionFactory(RobeRegionFactoryTest.class,
+                hibernate -> RobeRegionFactory.configure(hibernate, configuration));
+        regionFactory = RobeRegionFactory.of(sessionFactory);
+        regionFactory.registerMetrics(metrics);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        sessionFactory.close();
+    }
+
+    private static long gauge(String region, String name) {
+        return (Long) metrics.getGauges().get(MetricRegistry.name(RobeRegionFactory.class, region, name)).getValue();
+    }
+
+    private static String persist(Role role) {
+        Session session = sessionFactory.openSession();
+        session.getTransaction().begin();
+        session.persist(role);
+        session.getTransaction().commit();
+        session.close();
+        return role.getOid();
+    }
+
+    @Test
+    public void entity() {
+        String oid = persist(new Role("ENTITY", "Entity Role"));
+        String region = Role.class.getName();
+        long hits = gauge(region, "hits");
+
+        Session session = sessionFactory.openSession();
+        assertEquals("Entity Role", session.get(Role.class, oid).getName());
+        session.close();
+        assertEquals(hits + 1, gauge(region, "hits"));
+
+        session = sessionFactory.openSession();
+        session.getTransaction().begin();
+        session.get(Role.class, oid).setName("Updated Role");
+        session.getTransaction().commit();
+        session.close();
+
+        session = sessionFactory.openSession();
+        assertEquals("Updated Role", session.get(Role.class, oid).getName());
+        session.close();
+        session = sessionFactory.openSession();
+        assertEquals("Updated Role", session.get(Role.class, oid).getName());
+        session.close();
+    }
+
+    @Test
+    public void query() {
+        persist(new Role("QUERY1", "Query Role"));
+        String region = StandardQueryCache.class.getName();
+        Session session = sessionFactory.openSession();
+        int size = Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session)).setCacheable(true).list().size();
+        long hits = gauge(region, "hits");
+        assertEquals(size, Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session)).setCacheable(true).list().size());
+        assertEquals(hits + 1, gauge(region, "hits"));
+        session.close();
+
+        // Insert invalidates the cached results by the update timestamp of the table.
+        persist(new Role("QUERY2", "Query Role"));
+        session = sessionFactory.openSession();
+        assertEquals(size + 1, Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session)).setCacheable(true).list().size());
+        assertEquals(size + 1, (long) Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session)).setCacheable(true).count());
+        session.close();
+    }
+
+    @Test
+    public void staleLoad() {
+        EntityCacheRegion region = new EntityCacheRegion("stale", regionFactory, new RegionConfiguration(), null);
+        long loadStarted = region.nextTimestamp() - 1;
+        region.lock("key");
+        // Locked keys are not cached.
+        assertFalse(region.putFromLoad("key", "old", region.nextTimestamp(), false));
+        region.unlock("key");
+        // Loads which started before the commit are stale.
+        assertFalse(region.putFromLoad("key", "old", loadStarted, false));
+        assertNull(region.get("key"));
+        assertTrue(region.putFromLoad("key", "new", region.nextTimestamp() + 1, false));
+        assertEquals("new", region.get("key"));
+        assertFalse(region.putFromLoad("key", "newer", region.nextTimestamp() + 1, true));
+    }
+
+    @Test
+    public void metrics() {
+        Gauge<?> size = metrics.getGauges().get(MetricRegistry.name(RobeRegionFactory.class, Role.class.getName(), "size"));
+        assertNotNull(size);
+        assertNotNull(regionFactory.getRegion(Role.class.getName()));
+    }
+}
@@ -0,0 +1,88 @@
+package io.robe.hibernate.criteria;
+
+import io.robe.hibernate.criteria.api.Transformer;
+import io.robe.hibernate.criteria.api.cache.EntityMeta;
+import io.robe.hibernate.criteria.hql.EntityMetaFinderImpl;
+import io.robe.hibernate.criteria.hql.transformers.AliasToBeanResultTransformer;
+import io.robe.hibernate.test.entity.UserDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second of mapping a 1M row DTO projection with the reflective transformer and the generated
+ * {@link io.robe.hibernate.criteria.hql.transformers.BeanRowMapper}. Rows are in memory to measure only the mapping.
+ * Generate benchmark classes with {@code mvn -pl robe-hibernate -Pbenchmark clean test-compile} and run {@link #main(String[])}
+ * with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeanRowMapperBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    private final String[] aliases = {"userName", "email", "roleOidName"};
+    private Object[][] tuples;
+    private EntityMeta meta;
+
+    @Setup
+    public void setup() {
+        meta = Transformer.CachedEntity.getEntityMeta(UserDTO.class, new EntityMetaFinderImpl(), true);
+        tuples = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            tuples[i] = new Object[]{"User " + (i % 1000), "test" + (i % 1000) + "@robe.io", "TestRole_" + (i % 100)};
+        }
+    }
+
+    /**
+     * Previous implementation of {@link AliasToBeanResultTransformer#transformTuple(Object[], String[])}.
+     */
+    private Object reflective(Object[] tuple) throws Exception {
+        Object result = UserDTO.class.newInstance();
+        for (int i = 0; i < aliases.length; i++) {
+            Field field = meta.getFieldMap().get(aliases[i]).getField();
+            field.set(result, tuple[i]);
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void reflection(Blackhole blackhole) throws Exception {
+        for (Object[] tuple : tuples) {
+            blackhole.consume(reflective(tuple));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void generated(Blackhole blackhole) {
+        AliasToBeanResultTransformer transformer = new AliasToBeanResultTransformer(UserDTO.class, meta);
+        for (Object[] tuple : tuples) {
+            blackhole.consume(transformer.transformTuple(tuple, aliases));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BeanRowMapperBenchmark.class.getSimpleName()).build()).run();
+    }
+}
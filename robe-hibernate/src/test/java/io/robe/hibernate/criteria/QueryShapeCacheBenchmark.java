@@ -0,0 +1,88 @@
+package io.robe.hibernate.criteria;
+
+import io.robe.common.dto.BooleanHolder;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.Order;
+import io.robe.hibernate.criteria.api.criterion.Restrictions;
+import io.robe.hibernate.criteria.hql.QueryShapeCache;
+import io.robe.hibernate.criteria.hql.TransformerImpl;
+import io.robe.hibernate.criteria.hql.TransformerUtil;
+import io.robe.hibernate.test.entity.Role;
+import io.robe.hibernate.test.entity.User;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User - Role join scenario of {@link QueryBenchmark} with and without {@link QueryShapeCache}.
+ * Generate benchmark classes with {@code mvn -pl robe-hibernate -Pbenchmark clean test-compile} and run {@link #main(String[])}
+ * with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryShapeCacheBenchmark {
+
+    @Param({"0", "1000"})
+    private int cacheSize;
+
+    private Session session;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        QueryShapeCache.configure(cacheSize);
+        QueryBenchmark.beforeClass();
+        session = QueryBenchmark.sessionFactory.openSession();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.close();
+    }
+
+    private Criteria<User> criteria(int i) {
+        Criteria<User> criteria = Criteria.createCriteria(User.class, new TransformerImpl<User>(session));
+        criteria.createJoin(Role.class, "roleOid").add(Restrictions.eq("code", "TestRole_" + i));
+        return criteria.add(Restrictions.eq("active", true))
+                .add(Restrictions.in("email", Arrays.asList("test" + i + "@robe.io", "test" + (i + 1) + "@robe.io")))
+                .addOrder(Order.asc("email"))
+                .setLimit(10);
+    }
+
+    @Benchmark
+    public Object generate() {
+        return TransformerUtil.pairList(criteria(1), new TransformerUtil.Elements(), new BooleanHolder(false));
+    }
+
+    @Benchmark
+    public List<User> list() {
+        List<User> list = criteria(1).list();
+        session.clear();
+        return list;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(QueryShapeCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,42 @@
+package io.robe.hibernate.criteria.impl.hql;
+
+import io.robe.hibernate.criteria.api.Transformer;
+import io.robe.hibernate.criteria.api.cache.EntityMeta;
+import io.robe.hibernate.criteria.hql.EntityMetaFinderImpl;
+import io.robe.hibernate.criteria.hql.transformers.AliasToBeanResultTransformer;
+import io.robe.hibernate.criteria.hql.transformers.BeanRowMapper;
+import io.robe.hibernate.test.entity.UserDTO;
+import org.hibernate.HibernateException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BeanRowMapperTest {
+
+    private final EntityMeta meta = Transformer.CachedEntity.getEntityMeta(UserDTO.class, new EntityMetaFinderImpl(), true);
+
+    @Test
+    public void map() {
+        BeanRowMapper mapper = BeanRowMapper.get(UserDTO.class, meta, new String[]{"email", "roleOidName"});
+        UserDTO dto = (UserDTO) mapper.map(new Object[]{"admin@robe.io", "Role1"});
+        assertEquals("admin@robe.io", dto.getEmail());
+        assertEquals("Role1", dto.getRoleOidName());
+        assertSame(mapper, BeanRowMapper.get(UserDTO.class, meta, new String[]{"email", "roleOidName"}));
+        assertNotSame(mapper, BeanRowMapper.get(UserDTO.class, meta, new String[]{"roleOidName", "email"}));
+    }
+
+    @Test
+    public void transformTuple() {
+        AliasToBeanResultTransformer transformer = new AliasToBeanResultTransformer(UserDTO.class, meta);
+        String[] aliases = {"roleOidName", "email"};
+        UserDTO first = (UserDTO) transformer.transformTuple(new Object[]{"Role1", "admin@robe.io"}, aliases);
+        UserDTO second = (UserDTO) transformer.transformTuple(new Object[]{"Role2", "seray@robe.io"}, aliases);
+        assertEquals("admin@robe.io", first.getEmail());
+        assertEquals("Role2", second.getRoleOidName());
+    }
+
+    @Test(expected = HibernateException.class)
+    public void unknownAlias() {
+        BeanRowMapper.get(UserDTO.class, meta, new String[]{"unknown"});
+    }
+}
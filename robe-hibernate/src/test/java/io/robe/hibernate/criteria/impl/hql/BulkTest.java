@@ -0,0 +1,148 @@
+package io.robe.hibernate.criteria.impl.hql;
+
+import io.robe.hibernate.HibernateUtil;
+import io.robe.hibernate.cache.CacheConfiguration;
+import io.robe.hibernate.cache.RobeRegionFactory;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.criterion.Restrictions;
+import io.robe.hibernate.criteria.hql.TransformerImpl;
+import io.robe.hibernate.criteria.hql.TransformerUtil;
+import io.robe.hibernate.test.entity.Role;
+import io.robe.hibernate.test.entity.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BulkTest {
+
+    private static SessionFactory sessionFactory;
+
+    @BeforeClass
+    public static void beforeClass() {
+        CacheConfiguration configuration = new CacheConfiguration();
+        configuration.setEnabled(true);
+        sessionFactory = HibernateUtil.buildSessionFactory(BulkTest.class,
+                hibernate -> RobeRegionFactory.configure(hibernate, configuration));
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        sessionFactory.close();
+    }
+
+    private static void persist(Object... entities) {
+        Session session = sessionFactory.openSession();
+        session.getTransaction().begin();
+        for (Object entity : entities) {
+            session.persist(entity);
+        }
+        session.getTransaction().commit();
+        session.close();
+    }
+
+    private static Role get(String oid) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.get(Role.class, oid);
+        }
+    }
+
+    @Test
+    public void update() {
+        Role first = new Role("UPDATE1", "Update Role");
+        Role second = new Role("UPDATE2", "Update Role");
+        Role other = new Role("UPDATE3", "Other Role");
+        persist(first, second, other);
+        // Cached by the load.
+        long version = get(first.getOid()).getLastUpdated();
+
+        Session session = sessionFactory.openSession();
+        session.getTransaction().begin();
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", "Updated Role");
+        int updated = Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session))
+                .add(Restrictions.eq("name", "Update Role"))
+                .update(values);
+        session.getTransaction().commit();
+        session.close();
+
+        assertEquals(2, updated);
+        assertEquals("Updated Role", get(first.getOid()).getName());
+        assertEquals("Updated Role", get(second.getOid()).getName());
+        assertEquals("Other Role", get(other.getOid()).getName());
+        assertTrue(get(first.getOid()).getLastUpdated() > version);
+    }
+
+    @Test
+    public void deleteByJoin() {
+        Role role = new Role("DELETE1", "Delete Role");
+        Role other = new Role("DELETE2", "Keep Role");
+        persist(role, other);
+        User user = new User("delete@robe.io", "Delete", "User", "35345435345345", true, 0, new Date(), new Date(),
+                role.getOid(), null, new HashSet<>());
+        User kept = new User("keep@robe.io", "Keep", "User", "35345435345345", true, 0, new Date(), new Date(),
+                other.getOid(), null, new HashSet<>());
+        persist(user, kept);
+
+        Session session = sessionFactory.openSession();
+        session.getTransaction().begin();
+        Criteria<User> criteria = Criteria.createCriteria(User.class, new TransformerImpl<User>(session));
+        criteria.createJoin(Role.class).addRelation("oid", "roleOid").add(Restrictions.eq("code", "DELETE1"));
+        int deleted = criteria.delete();
+        session.getTransaction().commit();
+        session.close();
+
+        assertEquals(1, deleted);
+        try (Session check = sessionFactory.openSession()) {
+            assertNull(check.get(User.class, user.getOid()));
+            assertNotNull(check.get(User.class, kept.getOid()));
+        }
+    }
+
+    @Test
+    public void updateByJoin() {
+        Role role = new Role("JOIN1", "Join Role");
+        persist(role);
+        User first = new User("join1@robe.io", "Join", "User", "35345435345345", true, 0, new Date(), new Date(),
+                role.getOid(), null, new HashSet<>());
+        User second = new User("join2@robe.io", "Join", "User", "35345435345345", true, 0, new Date(), new Date(),
+                role.getOid(), null, new HashSet<>());
+        persist(first, second);
+
+        Session session = sessionFactory.openSession();
+        session.getTransaction().begin();
+        Criteria<User> criteria = Criteria.createCriteria(User.class, new TransformerImpl<User>(session));
+        criteria.createJoin(Role.class).addRelation("oid", "roleOid").add(Restrictions.eq("code", "JOIN1"));
+        // MySQL rejects a subquery on the updated table.
+        assertFalse(TransformerUtil.bulk(criteria, Collections.singletonMap("name", "Joined"), true).getLeft().contains("SELECT"));
+        int updated = criteria.update(Collections.singletonMap("name", "Joined"));
+        session.getTransaction().commit();
+        session.close();
+
+        assertEquals(2, updated);
+        try (Session check = sessionFactory.openSession()) {
+            assertEquals("Joined", check.get(User.class, first.getOid()).getName());
+            assertEquals("Joined", check.get(User.class, second.getOid()).getName());
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void paged() {
+        try (Session session = sessionFactory.openSession()) {
+            Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session)).setLimit(1).delete();
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void unknownField() {
+        try (Session session = sessionFactory.openSession()) {
+            Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session))
+                    .update(Collections.singletonMap("unknown", "value"));
+        }
+    }
+}
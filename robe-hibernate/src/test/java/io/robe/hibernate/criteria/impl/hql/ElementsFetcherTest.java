@@ -0,0 +1,92 @@
+package io.robe.hibernate.criteria.impl.hql;
+
+import io.robe.common.service.search.model.SearchModel;
+import io.robe.hibernate.criteria.HqlCriteriaTestTools;
+import io.robe.hibernate.criteria.api.CloseableIterator;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.Order;
+import io.robe.hibernate.criteria.api.Result;
+import io.robe.hibernate.criteria.hql.ElementsFetcher;
+import io.robe.hibernate.criteria.hql.TransformerImpl;
+import io.robe.hibernate.criteria.query.Query;
+import io.robe.hibernate.test.entity.User;
+import io.robe.hibernate.test.entity.UserNickNamesDTO;
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ElementsFetcherTest extends HqlCriteriaTestTools {
+
+    @After
+    public void after() {
+        ElementsFetcher.configure(ElementsFetcher.DEFAULT_BATCH_SIZE);
+    }
+
+    private SearchModel search() {
+        SearchModel search = new SearchModel();
+        search.setSort(new String[]{"-email"});
+        return search;
+    }
+
+    private void assertNickNames(Session session, String email, Collection<?> nickNames) {
+        User user = (User) session.createQuery("FROM " + User.class.getName() + " WHERE email = :email")
+                .setParameter("email", email).uniqueResult();
+        assertEquals(new HashSet<>(user.nickNames), new HashSet<>(nickNames));
+    }
+
+    @Test
+    public void dto() {
+        ElementsFetcher.configure(1);
+        Session session = sessionFactory.openSession();
+        List<UserNickNamesDTO> list = new Query<>(new TransformerImpl<>(session, UserNickNamesDTO.class)).createCriteria(User.class, search()).list();
+        assertEquals((long) Criteria.createCriteria(User.class, new TransformerImpl<User>(session)).count(), list.size());
+        for (UserNickNamesDTO dto : list) {
+            assertNotNull(dto.getEmail());
+            assertNickNames(session, dto.getEmail(), dto.getNickNames());
+        }
+        session.close();
+    }
+
+    @Test
+    public void map() {
+        Session session = sessionFactory.openSession();
+        SearchModel search = search();
+        search.setFields(new String[]{"email", "nickNames"});
+        search.setLimit(2);
+        search.setOffset(1);
+        Result<Map<String, Object>> result = new Query<>(new TransformerImpl<>(session, Criteria.MAP_CLASS)).createCriteria(User.class, search).pairList();
+        List<User> users = Criteria.createCriteria(User.class, new TransformerImpl<User>(session))
+                .addOrder(Order.desc("email")).setOffset(1).setLimit(2).list();
+        assertEquals(users.size(), result.getList().size());
+        for (int i = 0; i < users.size(); i++) {
+            Map<String, Object> row = result.getList().get(i);
+            assertEquals(users.get(i).getEmail(), row.get("email"));
+            assertFalse(row.containsKey("elementsOwnerId"));
+            assertNickNames(session, (String) row.get("email"), (Collection<?>) row.get("nickNames"));
+        }
+        session.close();
+    }
+
+    @Test
+    public void scroll() {
+        Session session = sessionFactory.openSession();
+        List<UserNickNamesDTO> scrolled = new ArrayList<>();
+        try (CloseableIterator<UserNickNamesDTO> iterator = new Query<>(new TransformerImpl<>(session, UserNickNamesDTO.class))
+                .createCriteria(User.class, search()).scroll(2)) {
+            iterator.forEachRemaining(scrolled::add);
+        }
+        assertFalse(scrolled.isEmpty());
+        for (UserNickNamesDTO dto : scrolled) {
+            assertNickNames(session, dto.getEmail(), dto.getNickNames());
+        }
+        session.close();
+    }
+}
@@ -0,0 +1,72 @@
+package io.robe.hibernate.criteria.impl.hql;
+
+import io.robe.hibernate.HibernateUtil;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.Transformer;
+import io.robe.hibernate.criteria.api.cache.EntityMeta;
+import io.robe.hibernate.criteria.api.cache.EntityMetaRegistry;
+import io.robe.hibernate.criteria.hql.EntityMetaFinderImpl;
+import io.robe.hibernate.criteria.hql.TransformerImpl;
+import io.robe.hibernate.test.entity.Role;
+import io.robe.hibernate.test.entity.User;
+import io.robe.hibernate.test.entity.UserDTO;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EntityMetaRegistryTest {
+
+    private static SessionFactory sessionFactory;
+
+    @BeforeClass
+    public static void beforeClass() {
+        sessionFactory = HibernateUtil.buildSessionFactory(EntityMetaRegistryTest.class);
+        EntityMetaRegistry.register(EntityMetaFinderImpl.getEntityMetas(sessionFactory, Arrays.asList(User.class, Role.class)));
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        sessionFactory.close();
+    }
+
+    @Test
+    public void register() {
+        Map<Class<?>, EntityMeta> metas = EntityMetaFinderImpl.getEntityMetas(sessionFactory, Arrays.asList(User.class, Role.class));
+        EntityMeta user = metas.get(User.class);
+        assertEquals("oid", user.getIdentityName());
+        assertFalse(user.getFieldMap().get("email").isTransient());
+        assertTrue(user.getFieldMap().get("exampleTransient").isTransient());
+        assertEquals("roleName", user.getRelationMap().get("roleOid.name"));
+        assertEquals("roleOid.name", user.getFieldMap().get("roleName").getRelationName());
+        assertTrue(EntityMetaRegistry.isRegistered(User.class));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutable() {
+        EntityMetaRegistry.get(User.class, null).getFieldMap().remove("email");
+    }
+
+    @Test
+    public void lookup() {
+        EntityMeta registered = EntityMetaRegistry.get(User.class, null);
+        try (Session session = sessionFactory.openSession()) {
+            Criteria<User> criteria = Criteria.createCriteria(User.class, new TransformerImpl<User>(session));
+            assertSame(registered, criteria.getMeta());
+            assertSame(EntityMetaRegistry.get(Role.class, null), criteria.createJoin(Role.class).getMeta());
+        }
+    }
+
+    @Test
+    public void notRegistered() {
+        assertFalse(EntityMetaRegistry.isRegistered(UserDTO.class));
+        EntityMeta meta = Transformer.CachedEntity.getEntityMeta(UserDTO.class, new EntityMetaFinderImpl(), true);
+        assertSame(meta, Transformer.CachedEntity.getEntityMeta(UserDTO.class, new EntityMetaFinderImpl(), true));
+    }
+}
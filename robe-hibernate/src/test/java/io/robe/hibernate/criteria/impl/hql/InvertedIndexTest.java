@@ -0,0 +1,184 @@
+package io.robe.hibernate.criteria.impl.hql;
+
+import io.robe.common.service.search.model.SearchModel;
+import io.robe.hibernate.criteria.HqlCriteriaTestTools;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.criterion.Restrictions;
+import io.robe.hibernate.criteria.hql.InvertedIndex;
+import io.robe.hibernate.criteria.hql.TransformerImpl;
+import io.robe.hibernate.criteria.query.Query;
+import io.robe.hibernate.criteria.query.SearchPlan;
+import io.robe.hibernate.test.entity.Role;
+import io.robe.hibernate.test.entity.User;
+import org.hibernate.Session;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class InvertedIndexTest extends HqlCriteriaTestTools {
+
+    private static final String[] QUERIES = {"Role1", "ole1", "xample Fi", "EXAMPLE", "fifth role", "Rol", "Ro", "nobody", "e%R", "e_R"};
+
+    private static List<String> codes(Session session, String q) {
+        SearchModel search = new SearchModel();
+        search.setQ(q);
+        search.setSort(new String[]{"+code"});
+        List<String> codes = new ArrayList<>();
+        for (Role role : new Query<>(new TransformerImpl<Role>(session)).createCriteria(Role.class, search).list()) {
+            codes.add(role.getCode());
+        }
+        return codes;
+    }
+
+    private static List<String> emails(Session session, String q) {
+        SearchModel search = new SearchModel();
+        search.setQ(q);
+        search.setSort(new String[]{"+email"});
+        List<String> emails = new ArrayList<>();
+        for (User user : new Query<>(new TransformerImpl<User>(session)).createCriteria(User.class, search).list()) {
+            emails.add(user.getEmail());
+        }
+        return emails;
+    }
+
+    @Test
+    public void candidates() {
+        InvertedIndex index = new InvertedIndex(sessionFactory, Collections.singleton(Role.class), InvertedIndex.DEFAULT_MAX_CANDIDATES);
+        // Not built yet, falls back to LIKE.
+        assertNull(index.candidates(Role.class, "Role1"));
+        index.build();
+        assertEquals(1, index.candidates(Role.class, "ole1").size());
+        assertEquals(2, index.candidates(Role.class, "FİFTH").size());
+        assertTrue(index.candidates(Role.class, "seventh").isEmpty());
+        // Shorter than a trigram or with wildcards.
+        assertNull(index.candidates(Role.class, "Ro"));
+        assertNull(index.candidates(Role.class, "Role%"));
+        assertNull(index.candidates(User.class, "Kamil"));
+    }
+
+    @Test
+    public void sameAsLike() {
+        InvertedIndex index = new InvertedIndex(sessionFactory, Arrays.asList(Role.class, User.class), InvertedIndex.DEFAULT_MAX_CANDIDATES);
+        index.build();
+        Session session = sessionFactory.openSession();
+        String[] userQueries = {"Kamil", "Uzgur", "Example First", "dmin", "robe.io", "nobody"};
+        Map<String, List<String>> like = new HashMap<>();
+        Map<String, List<String>> userLike = new HashMap<>();
+        for (String q : QUERIES) {
+            like.put(q, codes(session, q));
+        }
+        for (String q : userQueries) {
+            userLike.put(q, emails(session, q));
+        }
+        assertFalse(like.get("ole1").isEmpty());
+        assertFalse(like.get("xample Fi").isEmpty());
+        SearchPlan.setQBackend(index);
+        try {
+            for (String q : QUERIES) {
+                assertEquals(q, like.get(q), codes(session, q));
+            }
+            // Role names are searched through the join, users are not narrowed.
+            for (String q : userQueries) {
+                assertEquals(q, userLike.get(q), emails(session, q));
+            }
+        } finally {
+            SearchPlan.setQBackend(null);
+            session.close();
+        }
+    }
+
+    @Test
+    public void maxCandidates() {
+        InvertedIndex index = new InvertedIndex(sessionFactory, Collections.singleton(Role.class), 1);
+        index.build();
+        assertNotNull(index.candidates(Role.class, "role1"));
+        // Every role has the word.
+        assertNull(index.candidates(Role.class, "example"));
+    }
+
+    @Test
+    public void writtenWithoutEvents() {
+        InvertedIndex index = new InvertedIndex(sessionFactory, Collections.singleton(Role.class), InvertedIndex.DEFAULT_MAX_CANDIDATES);
+        index.build();
+        assertNotNull(index.candidates(Role.class, "role1"));
+        index.writing(Role.class);
+        index.writing(Role.class);
+        assertNull(index.candidates(Role.class, "role1"));
+        index.written(Role.class);
+        assertNull(index.candidates(Role.class, "role1"));
+        index.written(Role.class);
+        // The index is not started, nothing scans it again.
+        assertNull(index.candidates(Role.class, "role1"));
+        index.build();
+        assertNotNull(index.candidates(Role.class, "role1"));
+    }
+
+    private static void await(InvertedIndex index, String q) throws InterruptedException {
+        while (index.candidates(Role.class, q) == null) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * The listeners of an index can not be removed from the session factory, so only this test starts one.
+     */
+    @Test
+    public void events() throws Exception {
+        InvertedIndex index = new InvertedIndex(sessionFactory, Collections.singleton(Role.class), InvertedIndex.DEFAULT_MAX_CANDIDATES);
+        index.start();
+        Session session = sessionFactory.openSession();
+        try {
+            await(index, "role1");
+            Role role = new Role("Role7", "Zeynep Index Role");
+
+            session.getTransaction().begin();
+            session.persist(role);
+            session.getTransaction().rollback();
+            assertTrue(index.candidates(Role.class, "zeynep").isEmpty());
+            session.clear();
+
+            role.setOid(null);
+            session.getTransaction().begin();
+            session.persist(role);
+            session.getTransaction().commit();
+            assertEquals(Collections.singleton(role.getOid()), index.candidates(Role.class, "zeynep"));
+
+            session.getTransaction().begin();
+            role.setName("Elif Index Role");
+            session.getTransaction().commit();
+            assertTrue(index.candidates(Role.class, "zeynep").isEmpty());
+            assertEquals(Collections.singleton(role.getOid()), index.candidates(Role.class, "elif index"));
+
+            session.getTransaction().begin();
+            session.delete(role);
+            session.getTransaction().commit();
+            assertTrue(index.candidates(Role.class, "elif").isEmpty());
+
+            // Bulk statements do not fire the events.
+            SearchPlan.setQBackend(index);
+            session.getTransaction().begin();
+            Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session))
+                    .add(Restrictions.eq("code", "Role1"))
+                    .update(Collections.singletonMap("name", "Example Bulk Role"));
+            assertNull(index.candidates(Role.class, "bulk"));
+            assertEquals(Collections.singletonList("Role1"), codes(session, "Bulk"));
+            session.getTransaction().commit();
+            await(index, "bulk");
+            assertEquals(Collections.singletonList("Role1"), codes(session, "Bulk"));
+
+            session.getTransaction().begin();
+            Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session))
+                    .add(Restrictions.eq("code", "Role1"))
+                    .update(Collections.singletonMap("name", "Example First Role"));
+            session.getTransaction().commit();
+            await(index, "role1");
+            assertTrue(index.candidates(Role.class, "bulk").isEmpty());
+        } finally {
+            SearchPlan.setQBackend(null);
+            session.close();
+            index.stop();
+        }
+    }
+}
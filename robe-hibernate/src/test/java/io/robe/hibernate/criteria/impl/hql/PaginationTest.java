@@ -0,0 +1,115 @@
+package io.robe.hibernate.criteria.impl.hql;
+
+import io.robe.common.service.search.model.CountMode;
+import io.robe.hibernate.criteria.HqlCriteriaTestTools;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.Keyset;
+import io.robe.hibernate.criteria.api.Order;
+import io.robe.hibernate.criteria.api.Result;
+import io.robe.hibernate.criteria.api.projection.Projections;
+import io.robe.hibernate.criteria.hql.TransformerImpl;
+import io.robe.hibernate.test.entity.User;
+import org.hibernate.Session;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PaginationTest extends HqlCriteriaTestTools {
+
+    private Criteria<User> criteria(Session session) {
+        return Criteria.createCriteria(User.class, new TransformerImpl<User>(session))
+                .addOrder(Order.desc("failCount"))
+                .addOrder(Order.asc("oid"));
+    }
+
+    @Test
+    public void noCount() {
+        Session session = sessionFactory.openSession();
+        long total = criteria(session).count();
+        Result<User> first = criteria(session).setLimit((int) total - 1).setCountMode(CountMode.NONE).pairList();
+        assertNull(first.getTotalCount());
+        assertTrue(first.getHasMore());
+        assertEquals(total - 1, first.getList().size());
+
+        Result<User> last = criteria(session).setLimit((int) total).setCountMode(CountMode.NONE).pairList();
+        assertFalse(last.getHasMore());
+        assertEquals(total, last.getList().size());
+        session.close();
+    }
+
+    @Test
+    public void estimatedCount() {
+        Session session = sessionFactory.openSession();
+        long total = criteria(session).count();
+        Result<User> first = criteria(session).setLimit(1).setCountMode(CountMode.ESTIMATED).pairList();
+        assertEquals(total, (long) first.getTotalCount());
+        Result<User> last = criteria(session).setLimit(1).setOffset((int) total - 1).setCountMode(CountMode.ESTIMATED).pairList();
+        assertFalse(last.getHasMore());
+        assertEquals(total, (long) last.getTotalCount());
+        session.close();
+    }
+
+    @Test
+    public void keyset() {
+        Session session = sessionFactory.openSession();
+        List<User> expected = criteria(session).list();
+        List<String> paged = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            Result<User> page = criteria(session).setLimit(1).setAfter(cursor).pairList();
+            assertEquals(expected.size(), (long) page.getTotalCount());
+            for (User user : page.getList()) {
+                paged.add(user.getOid());
+            }
+            assertEquals(page.getHasMore(), page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            assertTrue(++pages <= expected.size());
+        }
+        List<String> oids = new ArrayList<>();
+        for (User user : expected) {
+            oids.add(user.getOid());
+        }
+        assertEquals(oids, paged);
+        session.close();
+    }
+
+    @Test
+    public void invalidCursor() {
+        Session session = sessionFactory.openSession();
+        try {
+            String[] cursors = {
+                    "not a cursor",
+                    Base64.getUrlEncoder().encodeToString("garbage".getBytes(StandardCharsets.UTF_8)),
+                    Base64.getUrlEncoder().encodeToString("[\"1\"]".getBytes(StandardCharsets.UTF_8)),
+                    Base64.getUrlEncoder().encodeToString("[\"x\",\"oid\"]".getBytes(StandardCharsets.UTF_8)),
+                    Base64.getUrlEncoder().encodeToString("[null,\"oid\"]".getBytes(StandardCharsets.UTF_8))
+            };
+            for (String cursor : cursors) {
+                try {
+                    criteria(session).setLimit(1).setAfter(cursor).pairList();
+                    fail(cursor);
+                } catch (Keyset.InvalidCursorException e) {
+                    assertNotNull(e.getMessage());
+                }
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void groupedCount() {
+        Session session = sessionFactory.openSession();
+        Criteria<User> criteria = Criteria.createCriteria(User.class, new TransformerImpl<User>(session))
+                .setProjection(Projections.groupProperty("active"));
+        Result<User> result = criteria.pairList();
+        assertEquals(result.getList().size(), (long) result.getTotalCount());
+        session.close();
+    }
+}
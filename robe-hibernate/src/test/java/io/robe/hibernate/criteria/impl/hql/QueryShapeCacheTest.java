@@ -0,0 +1,79 @@
+package io.robe.hibernate.criteria.impl.hql;
+
+import io.robe.common.dto.BooleanHolder;
+import io.robe.common.dto.Pair;
+import io.robe.hibernate.criteria.HqlCriteriaTestTools;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.Order;
+import io.robe.hibernate.criteria.api.criterion.Restrictions;
+import io.robe.hibernate.criteria.hql.QueryShapeCache;
+import io.robe.hibernate.criteria.hql.TransformerImpl;
+import io.robe.hibernate.criteria.hql.TransformerUtil;
+import io.robe.hibernate.test.entity.Role;
+import io.robe.hibernate.test.entity.User;
+import org.hibernate.Session;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static org.junit.Assert.*;
+
+public class QueryShapeCacheTest extends HqlCriteriaTestTools {
+
+    private Criteria<User> criteria(Session session, Object roleCode, Object email) {
+        Criteria<User> criteria = Criteria.createCriteria(User.class, new TransformerImpl<User>(session));
+        criteria.createJoin(Role.class, "roleOid").add(Restrictions.eq("code", roleCode));
+        return criteria.add(Restrictions.eq("active", true))
+                .add(Restrictions.in("email", email))
+                .addOrder(Order.asc("email"));
+    }
+
+    private String generate(Criteria<User> criteria) {
+        StringJoiner selectJoiner = new StringJoiner(", ");
+        String common = TransformerUtil.criteriaToQuery(criteria, selectJoiner, new TransformerUtil.Elements(), new BooleanHolder(false)).getLeft();
+        return "SELECT " + (selectJoiner.length() > 0 ? selectJoiner.toString() : criteria.getAlias()) + " " + common + "\n" + TransformerUtil.orderBy(criteria);
+    }
+
+    @Test
+    public void sameShape() {
+        Session session = sessionFactory.openSession();
+        Pair<QueryShapeCache.Plan, Map<String, Object>> first = QueryShapeCache.plan(criteria(session, "TestRole_1", Arrays.asList("a@robe.io", "b@robe.io")));
+        Pair<QueryShapeCache.Plan, Map<String, Object>> second = QueryShapeCache.plan(criteria(session, "TestRole_2", Arrays.asList("c@robe.io")));
+
+        assertSame(first.getLeft(), second.getLeft());
+        assertEquals(generate(criteria(session, "TestRole_3", Arrays.asList("d@robe.io"))), second.getLeft().getListQuery());
+        assertEquals(first.getRight().keySet(), second.getRight().keySet());
+        assertTrue(second.getRight().containsValue("TestRole_2"));
+        assertTrue(second.getRight().containsValue(Arrays.asList("c@robe.io")));
+        session.close();
+    }
+
+    @Test
+    public void differentShape() {
+        Session session = sessionFactory.openSession();
+        QueryShapeCache.Plan collection = QueryShapeCache.plan(criteria(session, "TestRole_1", Arrays.asList("a@robe.io"))).getLeft();
+        QueryShapeCache.Plan single = QueryShapeCache.plan(criteria(session, "TestRole_1", "a@robe.io")).getLeft();
+        QueryShapeCache.Plan ordered = QueryShapeCache.plan(criteria(session, "TestRole_1", "a@robe.io").addOrder(Order.desc("name"))).getLeft();
+
+        assertNotSame(collection, single);
+        assertNotSame(single, ordered);
+        assertEquals(generate(criteria(session, "TestRole_1", "a@robe.io")), single.getListQuery());
+        session.close();
+    }
+
+    @Test
+    public void list() {
+        Session session = sessionFactory.openSession();
+        for (int i = 0; i < 3; i++) {
+            Criteria<User> criteria = Criteria.createCriteria(User.class, new TransformerImpl<User>(session))
+                    .add(Restrictions.eq("active", i % 2 == 0));
+            long count = criteria.count();
+            assertEquals(count, criteria.list().size());
+            assertEquals(count, (long) criteria.pairList().getTotalCount());
+        }
+        assertTrue(QueryShapeCache.hitRate() > 0);
+        session.close();
+    }
+}
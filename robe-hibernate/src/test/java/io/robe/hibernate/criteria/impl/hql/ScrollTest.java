@@ -0,0 +1,94 @@
+package io.robe.hibernate.criteria.impl.hql;
+
+import io.robe.common.service.search.model.SearchModel;
+import io.robe.hibernate.criteria.HqlCriteriaTestTools;
+import io.robe.hibernate.criteria.api.CloseableIterator;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.Order;
+import io.robe.hibernate.criteria.hql.TransformerImpl;
+import io.robe.hibernate.criteria.query.Query;
+import io.robe.hibernate.test.entity.User;
+import io.robe.hibernate.test.entity.UserDTO;
+import org.hibernate.Session;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ScrollTest extends HqlCriteriaTestTools {
+
+    private SearchModel search() {
+        SearchModel search = new SearchModel();
+        search.setSort(new String[]{"+email"});
+        return search;
+    }
+
+    @Test
+    public void entity() {
+        Session session = sessionFactory.openSession();
+        List<User> expected = Criteria.createCriteria(User.class, new TransformerImpl<User>(session))
+                .addOrder(Order.asc("email")).list();
+        List<String> emails = new ArrayList<>();
+        try (CloseableIterator<User> iterator = Criteria.createCriteria(User.class, new TransformerImpl<User>(session))
+                .addOrder(Order.asc("email")).scroll(1)) {
+            User previous = null;
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                // Session is cleared after each fetch, fetch size is 1.
+                assertTrue(previous == null || !session.contains(previous));
+                emails.add(user.getEmail());
+                previous = user;
+            }
+            assertFalse(iterator.hasNext());
+        }
+        assertEquals(expected.stream().map(User::getEmail).collect(Collectors.toList()), emails);
+        session.close();
+    }
+
+    @Test
+    public void map() {
+        Session session = sessionFactory.openSession();
+        SearchModel search = search();
+        search.setFields(new String[]{"email", "name"});
+        List<Map<String, Object>> expected = new Query<>(new TransformerImpl<>(session, Criteria.MAP_CLASS)).createCriteria(User.class, search).list();
+        try (Stream<Map<String, Object>> stream = new Query<>(new TransformerImpl<>(session, Criteria.MAP_CLASS)).createCriteria(User.class, search).stream(2)) {
+            assertEquals(expected, stream.collect(Collectors.toList()));
+        }
+        session.close();
+    }
+
+    @Test
+    public void dto() {
+        Session session = sessionFactory.openSession();
+        List<UserDTO> expected = new Query<>(new TransformerImpl<>(session, UserDTO.class)).createCriteria(User.class, search()).list();
+        List<UserDTO> scrolled = new ArrayList<>();
+        try (CloseableIterator<UserDTO> iterator = new Query<>(new TransformerImpl<>(session, UserDTO.class)).createCriteria(User.class, search()).scroll()) {
+            iterator.forEachRemaining(scrolled::add);
+        }
+        assertEquals(expected.size(), scrolled.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getEmail(), scrolled.get(i).getEmail());
+            assertEquals(expected.get(i).getRoleOidName(), scrolled.get(i).getRoleOidName());
+        }
+        session.close();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void closed() {
+        Session session = sessionFactory.openSession();
+        try {
+            CloseableIterator<User> iterator = Criteria.createCriteria(User.class, new TransformerImpl<User>(session)).scroll();
+            iterator.close();
+            assertFalse(iterator.hasNext());
+            iterator.next();
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.robe.hibernate.criteria.query;
+
+import io.robe.common.dto.Pair;
+import io.robe.common.service.search.model.SearchModel;
+import io.robe.hibernate.criteria.HqlCriteriaTestTools;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.TransformMeta;
+import io.robe.hibernate.criteria.api.Transformer;
+import io.robe.hibernate.criteria.hql.TransformerImpl;
+import io.robe.hibernate.criteria.hql.TransformerUtil;
+import io.robe.hibernate.test.entity.User;
+import io.robe.hibernate.test.entity.UserDTO;
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SearchPlanTest extends HqlCriteriaTestTools {
+
+    @After
+    public void after() {
+        SearchPlan.configure(SearchPlan.DEFAULT_MAXIMUM_SIZE);
+    }
+
+    private SearchModel search(String name, String active) {
+        SearchModel search = new SearchModel();
+        search.setQ("Example");
+        search.setSort(new String[]{"-name", "+roleOid.name"});
+        search.setFields(new String[]{"name", "active", "roleOid.name"});
+        search.setFilter(new String[][]{{"name", "=", name}, {"active", "=", active}, {"roleOid.code", "|=", "Role1|Role2"}});
+        return search;
+    }
+
+    private <E> Pair<String, Map<String, Object>> query(Transformer<E> transformer, SearchModel search) {
+        return TransformerUtil.query(new Query<>(transformer).createCriteria(User.class, search), null);
+    }
+
+    @Test
+    public void bindsValues() {
+        Session session = sessionFactory.openSession();
+        SearchPlan.configure(0);
+        Pair<String, Map<String, Object>> expected = query(new TransformerImpl<>(session, Criteria.MAP_CLASS), search("Seray", "false"));
+        Pair<String, Map<String, Object>> expectedDto = query(new TransformerImpl<>(session, UserDTO.class), search("Seray", "false"));
+
+        SearchPlan.configure(SearchPlan.DEFAULT_MAXIMUM_SIZE);
+        query(new TransformerImpl<>(session, Criteria.MAP_CLASS), search("Kamil", "true"));
+        Pair<String, Map<String, Object>> actual = query(new TransformerImpl<>(session, Criteria.MAP_CLASS), search("Seray", "false"));
+        assertTrue(SearchPlan.hitRate() > 0);
+        assertEquals(expected.getLeft(), actual.getLeft());
+        assertEquals(expected.getRight(), actual.getRight());
+        assertEquals(expectedDto, query(new TransformerImpl<>(session, UserDTO.class), search("Seray", "false")));
+        session.close();
+    }
+
+    @Test
+    public void emptyValueChangesShape() {
+        Session session = sessionFactory.openSession();
+        SearchPlan.configure(0);
+        String expected = query(new TransformerImpl<>(session, Criteria.MAP_CLASS), search("", "true")).getLeft();
+        SearchPlan.configure(SearchPlan.DEFAULT_MAXIMUM_SIZE);
+        query(new TransformerImpl<>(session, Criteria.MAP_CLASS), search("Kamil", "true"));
+        assertEquals(expected, query(new TransformerImpl<>(session, Criteria.MAP_CLASS), search("", "true")).getLeft());
+        session.close();
+    }
+
+    @Test
+    public void list() {
+        Session session = sessionFactory.openSession();
+        SearchModel search = new SearchModel();
+        search.setFilter(new String[][]{{"active", "=", "true"}});
+        long active = new Query<>(new TransformerImpl<User>(session)).createCriteria(User.class, search).count();
+        search.setFilter(new String[][]{{"active", "=", "false"}});
+        long passive = new Query<>(new TransformerImpl<User>(session)).createCriteria(User.class, search).count();
+        assertEquals((long) Criteria.createCriteria(User.class, new TransformerImpl<User>(session)).count(), active + passive);
+        session.close();
+    }
+
+    @Test
+    public void operator() {
+        for (Operator operator : Operator.values()) {
+            if (operator != Operator.Q_IN) {
+                assertSame(operator, Operator.value(operator.value()));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOperator() {
+        Operator.value("<>");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void templateNotExecuted() {
+        Session session = sessionFactory.openSession();
+        try {
+            TransformerImpl<User> transformer = new TransformerImpl<>(session);
+            Criteria<User> template = Criteria.createCriteria(User.class, new TransformMeta<User>(null, transformer.getFinder()));
+            assertNull(template.getTransformer());
+            template.list();
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void internalOperator() {
+        Operator.value(Operator.Q_IN.value());
+    }
+}
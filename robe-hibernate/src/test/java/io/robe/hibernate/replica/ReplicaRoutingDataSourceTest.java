@@ -0,0 +1,152 @@
+package io.robe.hibernate.replica;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.db.DataSourceFactory;
+import io.dropwizard.db.ManagedDataSource;
+import io.robe.hibernate.HibernateUtil;
+import io.robe.hibernate.criteria.api.Criteria;
+import io.robe.hibernate.criteria.api.criterion.Restrictions;
+import io.robe.hibernate.criteria.hql.TransformerImpl;
+import io.robe.hibernate.test.entity.Role;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static SessionFactory replicaFactory;
+    private static SessionFactory sessionFactory;
+
+    private static ManagedDataSource dataSource(String name) {
+        DataSourceFactory factory = new DataSourceFactory();
+        factory.setDriverClass("org.h2.Driver");
+        factory.setUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        factory.setUser("sa");
+        factory.setPassword("");
+        return factory.build(new MetricRegistry(), name);
+    }
+
+    @BeforeClass
+    public static void beforeClass() {
+        // Creates the schema of the replica and a row which exists only in the replica.
+        replicaFactory = HibernateUtil.buildSessionFactory(ReplicaRoutingDataSourceTest.class,
+                hibernate -> hibernate.setProperty(AvailableSettings.URL, "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1"));
+        try (Session session = replicaFactory.openSession()) {
+            session.getTransaction().begin();
+            session.persist(new Role("REPLICA", "Replica Role"));
+            session.getTransaction().commit();
+        }
+
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(dataSource("primary"),
+                Collections.singletonList(dataSource("replica")), ReplicaSelection.ROUND_ROBIN);
+        sessionFactory = HibernateUtil.buildSessionFactory(ReplicaRoutingDataSourceTest.class, hibernate -> {
+            hibernate.getProperties().put(AvailableSettings.DATASOURCE, dataSource);
+            hibernate.setProperty(AvailableSettings.CURRENT_SESSION_CONTEXT_CLASS, "managed");
+        });
+        dataSource.setReadOnly(ReplicaRoutingDataSource.readOnlySession(sessionFactory));
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        sessionFactory.close();
+        replicaFactory.close();
+    }
+
+    private static boolean findReplicaRole(boolean readOnly) {
+        Session session = sessionFactory.openSession();
+        session.setDefaultReadOnly(readOnly);
+        ManagedSessionContext.bind(session);
+        try {
+            session.beginTransaction();
+            Object role = Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session))
+                    .add(Restrictions.eq("code", "REPLICA")).uniqueResult();
+            session.getTransaction().commit();
+            return role != null;
+        } finally {
+            ManagedSessionContext.unbind(sessionFactory);
+            session.close();
+        }
+    }
+
+    @Test
+    public void route() {
+        assertTrue(findReplicaRole(true));
+        assertFalse(findReplicaRole(false));
+        // Sessions which are not bound use the primary.
+        try (Session session = sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            assertNull(Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session))
+                    .add(Restrictions.eq("code", "REPLICA")).uniqueResult());
+        }
+    }
+
+    @Test
+    public void nestedSession() {
+        Session session = sessionFactory.openSession();
+        session.setDefaultReadOnly(true);
+        ManagedSessionContext.bind(session);
+        try {
+            session.beginTransaction();
+            // An independent session of the read only unit of work writes to the primary.
+            try (Session nested = sessionFactory.openSession()) {
+                nested.beginTransaction();
+                nested.persist(new Role("NESTED", "Nested Role"));
+                nested.getTransaction().commit();
+            }
+            assertNotNull(Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session))
+                    .add(Restrictions.eq("code", "REPLICA")).uniqueResult());
+            assertNull(Criteria.createCriteria(Role.class, new TransformerImpl<Role>(session))
+                    .add(Restrictions.eq("code", "NESTED")).uniqueResult());
+            session.getTransaction().commit();
+        } finally {
+            ManagedSessionContext.unbind(sessionFactory);
+            session.close();
+        }
+        try (Session primary = sessionFactory.openSession()) {
+            Object nested = Criteria.createCriteria(Role.class, new TransformerImpl<Role>(primary))
+                    .add(Restrictions.eq("code", "NESTED")).uniqueResult();
+            assertNotNull(nested);
+            primary.beginTransaction();
+            primary.delete(nested);
+            primary.getTransaction().commit();
+        }
+    }
+
+    @Test
+    public void leastInFlight() throws Exception {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(dataSource("primary"),
+                Arrays.asList(dataSource("replica"), dataSource("replica")), ReplicaSelection.LEAST_IN_FLIGHT);
+        dataSource.setReadOnly(() -> true);
+        try (Connection first = dataSource.getConnection()) {
+            assertEquals(1, dataSource.getInFlight()[0] + dataSource.getInFlight()[1]);
+            try (Connection second = dataSource.getConnection()) {
+                assertArrayEquals(new int[]{1, 1}, dataSource.getInFlight());
+            }
+            try (Connection third = dataSource.getConnection()) {
+                assertArrayEquals(new int[]{1, 1}, dataSource.getInFlight());
+            }
+        }
+        assertArrayEquals(new int[]{0, 0}, dataSource.getInFlight());
+        dataSource.stop();
+    }
+
+    @Test
+    public void primary() throws Exception {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(dataSource("primary"),
+                Collections.singletonList(dataSource("replica")), ReplicaSelection.ROUND_ROBIN);
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(0, dataSource.getInFlight()[0]);
+        }
+        dataSource.stop();
+    }
+}
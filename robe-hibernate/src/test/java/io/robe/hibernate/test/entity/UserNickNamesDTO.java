@@ -0,0 +1,24 @@
+package io.robe.hibernate.test.entity;
+
+import java.util.Set;
+
+public class UserNickNamesDTO {
+    private String email;
+    private Set<String> nickNames;
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public Set<String> getNickNames() {
+        return nickNames;
+    }
+
+    public void setNickNames(Set<String> nickNames) {
+        this.nickNames = nickNames;
+    }
+}
@@ -0,0 +1,135 @@
+package io.robe.hibernate.transaction;
+
+import io.robe.hibernate.HibernateUtil;
+import io.robe.hibernate.dao.BaseDao;
+import io.robe.hibernate.test.entity.Role;
+import org.glassfish.jersey.server.model.Invocable;
+import org.glassfish.jersey.server.model.MethodHandler;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+public class RetryInvocationHandlerProviderTest {
+
+    private static SessionFactory sessionFactory;
+
+    @BeforeClass
+    public static void beforeClass() {
+        sessionFactory = HibernateUtil.buildSessionFactory(RetryInvocationHandlerProviderTest.class,
+                hibernate -> hibernate.setProperty(AvailableSettings.CURRENT_SESSION_CONTEXT_CLASS, "managed"));
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        sessionFactory.close();
+    }
+
+    private static String persist(Role role) {
+        try (Session session = sessionFactory.openSession()) {
+            session.getTransaction().begin();
+            session.persist(role);
+            session.getTransaction().commit();
+        }
+        return role.getOid();
+    }
+
+    private static String name(String oid) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.get(Role.class, oid).getName();
+        }
+    }
+
+    /**
+     * Invokes the resource method as the unit of work does.
+     */
+    private static Object invoke(RoleResource resource, String methodName, String oid) throws Throwable {
+        Method method = RoleResource.class.getMethod(methodName, String.class);
+        InvocationHandler handler = new RetryInvocationHandlerProvider(sessionFactory)
+                .create(Invocable.create(MethodHandler.create(resource), method));
+        Session session = sessionFactory.openSession();
+        ManagedSessionContext.bind(session);
+        try {
+            session.beginTransaction();
+            Object result = handler.invoke(resource, method, new Object[]{oid});
+            session.getTransaction().commit();
+            return result;
+        } finally {
+            ManagedSessionContext.unbind(sessionFactory);
+            session.close();
+        }
+    }
+
+    @Test
+    public void retry() throws Throwable {
+        String oid = persist(new Role("RETRY", "Retry Role"));
+        RoleResource resource = new RoleResource();
+        assertEquals("Renamed 2", invoke(resource, "rename", oid));
+        assertEquals(2, resource.calls);
+        assertEquals("Renamed 2", name(oid));
+        // The action of the rolled back attempt is dropped.
+        assertEquals(1, resource.committed);
+    }
+
+    @Test
+    public void notRetryable() throws Throwable {
+        String oid = persist(new Role("FAIL", "Fail Role"));
+        RoleResource resource = new RoleResource();
+        try {
+            invoke(resource, "fail", oid);
+            fail();
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(1, resource.calls);
+    }
+
+    @Test
+    public void notAnnotated() throws Exception {
+        Method method = RoleResource.class.getMethod("plain", String.class);
+        assertNull(new RetryInvocationHandlerProvider(sessionFactory)
+                .create(Invocable.create(MethodHandler.create(new RoleResource()), method)));
+    }
+
+    public static class RoleResource {
+
+        private int calls;
+        private int committed;
+
+        @RetryOnConflict(backoff = 0)
+        public String rename(String oid) {
+            calls++;
+            Role role = sessionFactory.getCurrentSession().get(Role.class, oid);
+            if (calls == 1) {
+                // Another request updates the role after it is loaded.
+                try (Session other = sessionFactory.openSession()) {
+                    other.getTransaction().begin();
+                    other.get(Role.class, oid).setName("Concurrent");
+                    other.getTransaction().commit();
+                }
+            }
+            role.setName("Renamed " + calls);
+            new BaseDao<Role>(sessionFactory).afterCommit(() -> committed++);
+            return role.getName();
+        }
+
+        @RetryOnConflict(backoff = 0)
+        public String fail(String oid) {
+            calls++;
+            throw new IllegalStateException("fail");
+        }
+
+        public String plain(String oid) {
+            return oid;
+        }
+    }
+}
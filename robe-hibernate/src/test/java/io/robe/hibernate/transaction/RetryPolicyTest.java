@@ -0,0 +1,56 @@
+package io.robe.hibernate.transaction;
+
+import com.codahale.metrics.MetricRegistry;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.exception.LockAcquisitionException;
+import org.junit.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void isConflict() {
+        assertTrue(RetryPolicy.isConflict(new StaleObjectStateException("Role", "1")));
+        assertTrue(RetryPolicy.isConflict(new RuntimeException(new LockAcquisitionException("deadlock", new SQLException()))));
+        assertTrue(RetryPolicy.isConflict(new RuntimeException(new SQLException("serialization", "40001"))));
+        assertFalse(RetryPolicy.isConflict(new RuntimeException(new SQLException("syntax", "42000"))));
+        assertFalse(RetryPolicy.isConflict(new IllegalArgumentException()));
+    }
+
+    @Test
+    public void backoff() {
+        RetryPolicy policy = new RetryPolicy(10, 10, 50);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.backoff(1) <= 10);
+            assertTrue(policy.backoff(3) <= 40);
+            assertTrue(policy.backoff(40) <= 50);
+            assertTrue(policy.backoff(1) >= 0);
+        }
+        assertEquals(0, new RetryPolicy(3, 0, 0).backoff(2));
+    }
+
+    @Test
+    public void retry() {
+        MetricRegistry metrics = new MetricRegistry();
+        RetryPolicy.registerMetrics(metrics);
+        RetryPolicy policy = new RetryPolicy(2, 0, 0);
+        StaleObjectStateException conflict = new StaleObjectStateException("Role", "1");
+
+        assertFalse(policy.retry(new IllegalStateException(), 1));
+        assertTrue(policy.retry(conflict, 1));
+        policy.succeeded(2);
+        assertFalse(policy.retry(conflict, 2));
+
+        assertEquals(1, metrics.meter(MetricRegistry.name(RetryPolicy.class, "retries")).getCount());
+        assertEquals(1, metrics.meter(MetricRegistry.name(RetryPolicy.class, "recovered")).getCount());
+        assertEquals(1, metrics.meter(MetricRegistry.name(RetryPolicy.class, "exhausted")).getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxAttempts() {
+        new RetryPolicy(0, 0, 0);
+    }
+}
@@ -0,0 +1,69 @@
+package io.robe.hibernate.transaction;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TransactionExecutorTest {
+
+    @Test
+    public void submit() throws Exception {
+        TransactionExecutor executor = new TransactionExecutor(1, 1);
+        executor.start();
+        assertTrue(executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS).startsWith("transaction-"));
+
+        CompletableFuture<Object> failed = executor.submit(() -> {
+            throw new IllegalStateException("failed");
+        });
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        executor.stop();
+    }
+
+    @Test
+    public void reject() throws Exception {
+        MetricRegistry metrics = new MetricRegistry();
+        TransactionExecutor executor = new TransactionExecutor(1, 1);
+        executor.registerMetrics(metrics);
+        executor.start();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> first = executor.submit(() -> {
+            running.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        running.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Integer> queued = executor.submit(() -> 1);
+        CompletableFuture<Integer> rejected = executor.submit(() -> 2);
+
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(1, metrics.getMeters().get(MetricRegistry.name(TransactionExecutor.class, "rejected")).getCount());
+        assertEquals(1, metrics.getGauges().get(MetricRegistry.name(TransactionExecutor.class, "queued")).getValue());
+
+        release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertEquals(1, (int) queued.get(5, TimeUnit.SECONDS));
+        executor.stop();
+    }
+}
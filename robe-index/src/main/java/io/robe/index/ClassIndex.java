@@ -0,0 +1,192 @@
+package io.robe.index;
+
+import com.google.common.collect.Multimap;
+import org.reflections.Reflections;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Index of the classes which is written to {@link #LOCATION} by {@link ClassIndexProcessor} at build time.
+ * Gives the {@link Reflections} of the packages from the index, so the bundles do not scan the classes at startup.
+ * Classpath roots which do not have an index are scanned at runtime as before, and so are the packages which have no
+ * entry in the index, e.g. when a shaded jar kept the index of only one of its jars.
+ * <pre>
+ * {@code
+ * Reflections reflections = ClassIndex.get().reflections("io.robe.admin");
+ * Set<Class<?>> entities = reflections.getTypesAnnotatedWith(Entity.class);
+ * }
+ * </pre>
+ */
+public final class ClassIndex {
+
+    public static final String LOCATION = "META-INF/robe/classes.index";
+    static final String SUPER_TYPE = "S";
+    static final String ANNOTATION = "A";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassIndex.class);
+    private static final String SEPARATOR = "\t";
+
+    private static volatile ClassIndex instance;
+
+    private final Set<String> roots;
+    private final List<String[]> entries;
+
+    ClassIndex(Set<String> roots, List<String[]> entries) {
+        this.roots = roots;
+        this.entries = entries;
+    }
+
+    /**
+     * @return index of the classpath, loaded at the first call
+     */
+    public static ClassIndex get() {
+        ClassIndex index = instance;
+        if (index == null) {
+            synchronized (ClassIndex.class) {
+                index = instance;
+                if (index == null) {
+                    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+                    index = load(loader != null ? loader : ClassIndex.class.getClassLoader());
+                    instance = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reads all indexes of the class loader.
+     *
+     * @param loader class loader of the classpath
+     * @return index of the classpath
+     */
+    static ClassIndex load(ClassLoader loader) {
+        Set<String> roots = new HashSet<>();
+        List<String[]> entries = new ArrayList<>();
+        try {
+            Enumeration<URL> resources = loader.getResources(LOCATION);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                String url = resource.toExternalForm();
+                // Same form with the roots of ClasspathHelper.
+                roots.add(url.substring(0, url.length() - LOCATION.length()));
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] entry = parse(line);
+                        if (entry != null) {
+                            entries.add(entry);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Can't read " + LOCATION + ", classes will be scanned.", e);
+            return new ClassIndex(Collections.emptySet(), Collections.emptyList());
+        }
+        LOGGER.info("Loaded {} entries from {} class indexes", entries.size(), roots.size());
+        return new ClassIndex(roots, entries);
+    }
+
+    static String entry(String name, String kind, String type) {
+        return name + SEPARATOR + kind + SEPARATOR + type;
+    }
+
+    /**
+     * @param line line of the index
+     * @return class name, kind and type of the entry, null if the line is not an entry
+     */
+    static String[] parse(String line) {
+        String[] entry = line.split(SEPARATOR);
+        return entry.length == 3 ? entry : null;
+    }
+
+    /**
+     * @return true if there is an index in the classpath
+     */
+    public boolean isEmpty() {
+        return roots.isEmpty();
+    }
+
+    /**
+     * Builds the reflections of the packages with sub types and type annotations,
+     * as {@code new Reflections(packages)} does by scanning.
+     *
+     * @param packages packages to include with their sub packages
+     * @return reflections of the packages
+     */
+    public Reflections reflections(String... packages) {
+        IndexedReflections reflections = new IndexedReflections();
+        // Both stores exist even if the packages have no entries, queries of a missing store fail.
+        Multimap<String, String> subTypes = reflections.getStore().getOrCreate(SubTypesScanner.class.getSimpleName());
+        Multimap<String, String> annotations = reflections.getStore().getOrCreate(TypeAnnotationsScanner.class.getSimpleName());
+        for (String[] entry : entries) {
+            if (inPackages(entry[0], packages)) {
+                (SUPER_TYPE.equals(entry[1]) ? subTypes : annotations).put(entry[2], entry[0]);
+            }
+        }
+
+        Set<URL> notIndexed = new LinkedHashSet<>();
+        FilterBuilder filter = new FilterBuilder();
+        for (String packageName : packages) {
+            boolean hasEntries = hasEntries(packageName);
+            for (URL url : ClasspathHelper.forPackage(packageName)) {
+                if (!hasEntries || !roots.contains(url.toExternalForm())) {
+                    notIndexed.add(url);
+                }
+            }
+            if (!hasEntries && !roots.isEmpty()) {
+                LOGGER.warn("{} has no entries in the class index, it is scanned. Append all indexes when shading the jars.", packageName);
+            }
+            filter.includePackage(packageName);
+        }
+        if (!notIndexed.isEmpty()) {
+            LOGGER.info("Scanning {} for {}, they are not indexed", notIndexed, Arrays.toString(packages));
+            reflections.merge(new Reflections(new ConfigurationBuilder()
+                    .setUrls(notIndexed)
+                    .filterInputsBy(filter)
+                    .setScanners(new SubTypesScanner(), new TypeAnnotationsScanner())));
+        }
+        return reflections;
+    }
+
+    private boolean hasEntries(String packageName) {
+        String[] packages = {packageName};
+        for (String[] entry : entries) {
+            if (inPackages(entry[0], packages)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean inPackages(String name, String[] packages) {
+        for (String packageName : packages) {
+            if (name.startsWith(packageName + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reflections which is filled from the index instead of scanning.
+     */
+    private static class IndexedReflections extends Reflections {
+        IndexedReflections() {
+            super();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package io.robe.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Writes the direct super types and the runtime annotations of the compiled classes to {@link ClassIndex#LOCATION}.
+ * It is found by javac on the compile classpath but it only runs when the module opts in with {@code -Arobe.index=true},
+ * so projects which only use robe-index at runtime do not get a processor of all annotations.
+ * Entries of the existing classes which are not compiled again are kept, so partial compilations do not lose them.
+ */
+@SupportedOptions(ClassIndexProcessor.OPTION)
+public class ClassIndexProcessor extends AbstractProcessor {
+
+    public static final String OPTION = "robe.index";
+
+    private final Set<String> entries = new TreeSet<>();
+    private final Set<String> compiled = new TreeSet<>();
+    private boolean enabled;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        enabled = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION));
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        // javac does not call a processor which supports no annotation types.
+        return enabled ? Collections.singleton("*") : Collections.emptySet();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!enabled) {
+            return false;
+        }
+        if (roundEnv.processingOver()) {
+            write();
+        } else {
+            for (Element element : roundEnv.getRootElements()) {
+                index(element);
+            }
+        }
+        // Annotations are not claimed, other processors still get them.
+        return false;
+    }
+
+    private void index(Element element) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        String name = binaryName(type);
+        compiled.add(name);
+        add(name, ClassIndex.SUPER_TYPE, type.getSuperclass());
+        for (TypeMirror anInterface : type.getInterfaces()) {
+            add(name, ClassIndex.SUPER_TYPE, anInterface);
+        }
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            Retention retention = annotation.getAnnotationType().asElement().getAnnotation(Retention.class);
+            // Only the annotations which are visible at runtime, as a runtime scan finds.
+            if (retention != null && retention.value() == RetentionPolicy.RUNTIME) {
+                add(name, ClassIndex.ANNOTATION, annotation.getAnnotationType());
+            }
+        }
+        for (Element enclosed : type.getEnclosedElements()) {
+            index(enclosed);
+        }
+    }
+
+    private void add(String name, String kind, TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return;
+        }
+        String typeName = binaryName((TypeElement) ((DeclaredType) type).asElement());
+        if (!Object.class.getName().equals(typeName)) {
+            entries.add(ClassIndex.entry(name, kind, typeName));
+        }
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private void write() {
+        Set<String> lines = new TreeSet<>(entries);
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", ClassIndex.LOCATION);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] entry = ClassIndex.parse(line);
+                    if (entry != null && !compiled.contains(entry[0])
+                            && processingEnv.getElementUtils().getTypeElement(entry[0].replace('$', '.')) != null) {
+                        lines.add(line);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // There is no index of a previous compilation.
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", ClassIndex.LOCATION);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Can't write " + ClassIndex.LOCATION + ": " + e.getMessage());
+        }
+    }
+}
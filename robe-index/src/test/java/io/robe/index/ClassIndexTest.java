@@ -0,0 +1,151 @@
+package io.robe.index;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.reflections.Reflections;
+import org.reflections.util.ClasspathHelper;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ClassIndexTest {
+
+    private static Path sources;
+    private static Path classes;
+    private static URLClassLoader loader;
+
+    @BeforeClass
+    public static void beforeClass() throws IOException {
+        sources = Files.createTempDirectory("index-sources");
+        classes = Files.createTempDirectory("index-classes");
+        write("Marker.java", "package sample; @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) public @interface Marker {}");
+        write("Hidden.java", "package sample; public @interface Hidden {}");
+        write("Base.java", "package sample; public interface Base {}");
+        write("Job.java", "package sample; @Marker @Hidden public class Job implements Base { public static class Inner extends Job {} }");
+        compile("Marker.java", "Hidden.java", "Base.java", "Job.java");
+        loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, ClassIndexTest.class.getClassLoader());
+    }
+
+    @AfterClass
+    public static void afterClass() throws IOException {
+        loader.close();
+    }
+
+    private static void write(String name, String source) throws IOException {
+        Files.write(sources.resolve(name), source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void compile(String... names) {
+        compile(classes, true, names);
+    }
+
+    private static void compile(Path output, boolean enabled, String... names) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String[] arguments = new String[names.length + 7];
+        arguments[0] = "-d";
+        arguments[1] = output.toString();
+        arguments[2] = "-cp";
+        arguments[3] = output.toString();
+        arguments[4] = "-processor";
+        arguments[5] = ClassIndexProcessor.class.getName();
+        arguments[6] = "-A" + ClassIndexProcessor.OPTION + "=" + enabled;
+        for (int i = 0; i < names.length; i++) {
+            arguments[i + 7] = sources.resolve(names[i]).toString();
+        }
+        assertEquals(0, compiler.run(null, null, null, arguments));
+    }
+
+    private static List<String> lines() throws IOException {
+        return Files.readAllLines(classes.resolve(ClassIndex.LOCATION), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void process() throws IOException {
+        assertEquals(Arrays.asList(
+                ClassIndex.entry("sample.Job", ClassIndex.ANNOTATION, "sample.Marker"),
+                ClassIndex.entry("sample.Job", ClassIndex.SUPER_TYPE, "sample.Base"),
+                ClassIndex.entry("sample.Job$Inner", ClassIndex.SUPER_TYPE, "sample.Job"),
+                ClassIndex.entry("sample.Marker", ClassIndex.ANNOTATION, Retention.class.getName()),
+                ClassIndex.entry("sample.Marker", ClassIndex.SUPER_TYPE, Annotation.class.getName()),
+                ClassIndex.entry("sample.Hidden", ClassIndex.SUPER_TYPE, Annotation.class.getName())).stream().sorted().collect(Collectors.toList()),
+                lines());
+    }
+
+    @Test
+    public void partialCompilation() throws IOException {
+        List<String> before = lines();
+        compile("Base.java");
+        assertEquals(before, lines());
+    }
+
+    @Test
+    public void disabled() throws IOException {
+        Path output = Files.createTempDirectory("index-disabled");
+        compile(output, false, "Marker.java", "Hidden.java", "Base.java", "Job.java");
+        assertTrue(Files.exists(output.resolve("sample/Job.class")));
+        assertFalse(Files.exists(output.resolve(ClassIndex.LOCATION)));
+    }
+
+    @Test
+    public void parse() {
+        assertArrayEquals(new String[]{"a.B", "S", "a.C"}, ClassIndex.parse(ClassIndex.entry("a.B", "S", "a.C")));
+        assertNull(ClassIndex.parse(""));
+    }
+
+    @Test
+    public void reflections() throws ClassNotFoundException {
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(loader);
+        try {
+            ClassIndex index = ClassIndex.load(loader);
+            assertFalse(index.isEmpty());
+            Reflections reflections = index.reflections("sample");
+
+            Class<?> job = loader.loadClass("sample.Job");
+            Class<?> inner = loader.loadClass("sample.Job$Inner");
+            Set<Class<?>> annotated = reflections.getTypesAnnotatedWith(loader.loadClass("sample.Marker").asSubclass(Annotation.class));
+            assertEquals(2, annotated.size());
+            assertTrue(annotated.containsAll(Arrays.asList(job, inner)));
+            assertEquals(2, reflections.getSubTypesOf(loader.loadClass("sample.Base")).size());
+            assertTrue(index.reflections("other").getSubTypesOf(loader.loadClass("sample.Base")).isEmpty());
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+        }
+    }
+
+    @Test
+    public void packageNotIndexed() {
+        // The index has entries, but none of the package, as a shaded jar which kept the index of another jar.
+        Set<String> roots = ClasspathHelper.forPackage("org.junit").stream().map(URL::toExternalForm).collect(Collectors.toSet());
+        ClassIndex index = new ClassIndex(roots, Collections.singletonList(ClassIndex.parse(ClassIndex.entry("other.Job", ClassIndex.SUPER_TYPE, "other.Base"))));
+        assertFalse(index.isEmpty());
+        Reflections reflections = index.reflections("org.junit");
+        assertTrue(reflections.getSubTypesOf(org.junit.runner.Runner.class).size() > 0);
+    }
+
+    @Test
+    public void notIndexed() {
+        ClassIndex index = ClassIndex.load(new URLClassLoader(new URL[0], null));
+        assertTrue(index.isEmpty());
+        // Nothing is indexed, classes of the package are scanned.
+        Reflections reflections = index.reflections("org.junit");
+        assertTrue(reflections.getTypesAnnotatedWith(Test.class).isEmpty());
+        assertTrue(reflections.getSubTypesOf(org.junit.runner.Runner.class).size() > 0);
+    }
+}
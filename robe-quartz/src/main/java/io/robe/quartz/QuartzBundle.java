@@ -4,6 +4,7 @@ import io.dropwizard.Configuration;
 import io.dropwizard.ConfiguredBundle;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
+import io.robe.index.ClassIndex;
 import io.robe.quartz.configuration.HasQuartzConfiguration;
 import io.robe.quartz.configuration.QuartzConfiguration;
 import io.robe.quartz.info.JobInfo;
@@ -89,7 +90,7 @@ public class QuartzBundle<T extends Configuration & HasQuartzConfiguration> impl
 
         for (String pkg : packages) {
             LOGGER.info("Scanning Jobs package : " + pkg);
-            Reflections reflections = new Reflections(pkg);
+            Reflections reflections = ClassIndex.get().reflections(pkg);
             quartzJobs = reflections.getSubTypesOf(Job.class);
 
             for (Class<? extends Job> clazz : quartzJobs) {